@@ -0,0 +1,3 @@
+@echo off
+rem Starts the visualiser with the Vector API resolved, such that the layout uses the vectorised force kernel
+java --add-modules jdk.incubator.vector -jar "%~dp0${project.build.finalName}.jar" %*
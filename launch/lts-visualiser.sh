@@ -0,0 +1,3 @@
+#!/bin/sh
+# Starts the visualiser with the Vector API resolved, such that the layout uses the vectorised force kernel
+exec java --add-modules jdk.incubator.vector -jar "$(dirname "$0")/${project.build.finalName}.jar" "$@"
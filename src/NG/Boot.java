@@ -1,5 +1,6 @@
 package NG;
 
+import NG.Core.HeadlessLayout;
 import NG.Core.Main;
 import NG.Settings.Settings;
 import NG.Tools.Logger;
@@ -54,23 +55,72 @@ public class Boot {
                 )
                 .addFlag("randomLayout", () -> settings.RANDOM_LAYOUT = true,
                         "Layout will be initialized at random, rather than using HDE")
+                .addFlag("multilevelLayout", () -> settings.MULTILEVEL_LAYOUT = true,
+                        "Layout will be initialized by laying out successively finer coarsenings of the graph, " +
+                                "rather than using HDE")
+                .addFlag("stressLayout", () -> settings.STRESS_LAYOUT = true,
+                        "Layout minimises the stress between graph distances and layout distances, rather than " +
+                                "simulating springs. Converges in tens of steps, also in headless mode")
+                .addFlag("sequentialLoading", () -> settings.PARALLEL_LOADING = false,
+                        "Graph files are parsed on a single thread, rather than in parallel chunks")
+                .addFlag("noCache", () -> settings.USE_GRAPH_CACHE = false,
+                        "Graph files are always parsed, and no binary cache is written next to them")
+                .addFlag("noLtsconvertFallback", () -> settings.LTSCONVERT_FALLBACK = false,
+                        "mCRL2 .lts files that cannot be decoded are reported as invalid, rather than translated to " +
+                                ".aut by ltsconvert of the mCRL2 toolset")
+                .addFlag("progressiveLoading", () -> settings.PROGRESSIVE_LOADING = true,
+                        "Graphs loaded from the menu are shown and laid out while the file is being read")
 
                 .addParameterFlag("maxIterationsPerSecond",
                         s -> settings.MAX_ITERATIONS_PER_SECOND = Integer.parseInt(s),
                         "Maximum iterations executed each second by the layout algorithm. " +
                                 "default = " + settings.MAX_ITERATIONS_PER_SECOND
                 )
+                .addParameterFlag("seed", s -> {
+                            settings.LAYOUT_SEED = Long.parseLong(s);
+                            settings.RESTORE_LAYOUTS = false;
+                        },
+                        "Seed of all random choices of the layout, such that runs with the same seed and number of " +
+                                "worker threads give the same layout. Saved layouts are not restored, such that " +
+                                "each graph starts from its initial layout"
+                )
                 .addParameterFlag("numWorkerThreads",
                         s -> settings.NUM_WORKER_THREADS = Integer.parseInt(s),
                         "Number of worker threads used to parallelize the layout algorithm. " +
                                 "default = " + settings.NUM_WORKER_THREADS
                 )
+                .addParameterFlag("layoutFrameBudget",
+                        s -> settings.LAYOUT_FRAME_BUDGET = Float.parseFloat(s),
+                        "Maximum duration of a layout iteration in milliseconds. On graphs where a full iteration " +
+                                "takes longer, each iteration only moves the nodes near the dragged node or camera " +
+                                "focus and the nodes with the highest force. default = 0, which is unlimited"
+                )
                 .addParameterFlag("startAutoTester",
                         s -> settings.DATA_COLLECTION_PATH = Paths.get(s),
                         "Run an automatic layout speed data generation on the graphs of the given path, then quit")
+                .addParameterFlag("headless",
+                        s -> settings.HEADLESS_GRAPH = Paths.get(s),
+                        "Compute the layout of the given graph file without opening a window, and write the " +
+                                "positions to a layout file next to it, which is used when the graph is opened")
+                .addParameterFlag("layoutOutput",
+                        s -> settings.HEADLESS_OUTPUT = Paths.get(s),
+                        "The file to write the layout to in headless mode")
+                .addParameterFlag("maxIterations",
+                        s -> settings.HEADLESS_MAX_ITERATIONS = Integer.parseInt(s),
+                        "Maximum number of layout iterations in headless mode, if the layout does not converge " +
+                                "earlier. default = " + settings.HEADLESS_MAX_ITERATIONS
+                )
+                .addExclusivity("headless", "startAutoTester")
+
+                .addNote("Graph files may be compressed with gzip (.gz), xz (.xz) or zstd (.zst). Gzip files are " +
+                        "read directly, but xz and zstd files require the programs xz and zstd on the path")
 
                 .parse(args);
 
-        new Main(settings).root();
+        if (settings.HEADLESS_GRAPH != null) {
+            new HeadlessLayout(settings).run();
+        } else {
+            new Main(settings).root();
+        }
     }
 }
@@ -22,6 +22,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class Auto extends Thread {
     public static final float TARGET_SPEED = 1f / (1 << 8);
     private static final int RUN_TIME_MS = 60_000;
+    /** the layout seed if none is given, such that runs on the same files can be compared */
+    private static final long DEFAULT_SEED = 0x5EED;
     private final Main root;
     private final Path directory;
 
@@ -41,6 +43,10 @@ public class Auto extends Thread {
         Settings settings = root.settings();
         root.window().setMinimized(true);
         settings.RANDOM_LAYOUT = true;
+        settings.RESTORE_LAYOUTS = false;
+        if (settings.LAYOUT_SEED == null) settings.LAYOUT_SEED = DEFAULT_SEED;
+        layout.setSeed(settings.LAYOUT_SEED);
+        Logger.INFO.print("Layout seed " + settings.LAYOUT_SEED);
 
         File resultFile = new File("barnes_comparison.csv");
         PrintWriter out = getWriter(resultFile);
@@ -48,7 +54,8 @@ public class Auto extends Thread {
 
         // all files in directory
         File[] files = directory.toFile().listFiles();
-        for (File graphFile : Objects.requireNonNull(files)) {
+        Arrays.sort(Objects.requireNonNull(files));
+        for (File graphFile : files) {
             String name = graphFile.getName();
 
             try {
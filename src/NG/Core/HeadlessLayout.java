@@ -0,0 +1,101 @@
+package NG.Core;
+
+import NG.GUIMenu.Menu;
+import NG.Graph.Layout.HDEPositioning;
+import NG.Graph.Layout.LayoutFile;
+import NG.Graph.Layout.MultilevelLayout;
+import NG.Graph.Layout.SpringLayout;
+import NG.Graph.LtsCache;
+import NG.Graph.LtsData;
+import NG.Graph.SourceGraph;
+import NG.Settings.Settings;
+import NG.Tools.Logger;
+
+import java.io.File;
+
+/**
+ * Computes the layout of a graph without opening a window, and writes the positions to a {@link LayoutFile}. The
+ * initial layout is chosen like in {@link Main}, after which the spring layout runs on all available processors until
+ * it converges or the maximum number of iterations is reached. With the stress layout setting, each iteration is an
+ * epoch of stress majorization instead.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class HeadlessLayout {
+    private static final int REPORT_INTERVAL_MILLIS = 5_000;
+    private final Settings settings;
+
+    public HeadlessLayout(Settings settings) {
+        this.settings = settings;
+    }
+
+    public void run() throws Exception {
+        File graphFile = settings.HEADLESS_GRAPH.toFile();
+        File layoutFile = settings.HEADLESS_OUTPUT != null ?
+                settings.HEADLESS_OUTPUT.toFile() : LayoutFile.layoutFileOf(graphFile);
+        int numThreads = Runtime.getRuntime().availableProcessors();
+
+        LtsData data = settings.USE_GRAPH_CACHE ?
+                LtsCache.load(graphFile, settings) : SourceGraph.read(graphFile, settings);
+        SourceGraph graph = SourceGraph.create(data, null, graphFile.getName());
+        Logger.INFO.print("Loaded graph with " + graph.states.length + " nodes and " + graph.edges.length + " edges");
+
+        SpringLayout layout = new SpringLayout(settings.MAX_ITERATIONS_PER_SECOND, numThreads);
+        if (settings.LAYOUT_SEED != null) layout.setSeed(settings.LAYOUT_SEED);
+        try {
+            long startTime = System.nanoTime();
+            if (settings.MULTILEVEL_LAYOUT) {
+                MultilevelLayout multilevel = new MultilevelLayout(numThreads);
+                try {
+                    multilevel.copyParameters(layout);
+                    multilevel.setSeed(layout.getSeed());
+                    multilevel.applyTo(graph);
+                } finally {
+                    multilevel.cleanup();
+                }
+
+            } else if (!settings.RANDOM_LAYOUT && graph.states.length > 2 && graph.isFullyReachable()) {
+                HDEPositioning.applyTo(graph, layout.getNatLength());
+
+            } else {
+                SourceGraph.randomLayout(graph, layout.getNatLength(), layout.getSeed());
+            }
+            graph.init();
+            Logger.INFO.printf("Initial layout in %d ms", (System.nanoTime() - startTime) / 1_000_000);
+
+            layout.setGraph(graph);
+            layout.setSpeed(Menu.SPEED_MAXIMUM / 2);
+            layout.setStressMajorization(settings.STRESS_LAYOUT);
+            iterate(layout);
+
+        } finally {
+            layout.cleanup();
+        }
+
+        LayoutFile.write(graph, layoutFile);
+        Logger.INFO.print("Wrote layout to " + layoutFile);
+    }
+
+    private void iterate(SpringLayout layout) throws Exception {
+        int maxIterations = settings.HEADLESS_MAX_ITERATIONS;
+        long startTime = System.nanoTime();
+        long lastReport = startTime;
+
+        int iterations = 0;
+        while (iterations < maxIterations && !layout.isConverged()) {
+            layout.update(0);
+            iterations++;
+
+            long now = System.nanoTime();
+            if (now - lastReport > REPORT_INTERVAL_MILLIS * 1_000_000L) {
+                Logger.INFO.printf("%d iterations, tension %.0f", iterations, layout.getNodeTension());
+                lastReport = now;
+            }
+        }
+
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        Logger.INFO.printf("%s after %d iterations in %.1f s (%.1f iterations per second), final tension %.0f",
+                layout.isConverged() ? "Converged" : "Stopped", iterations, seconds, iterations / seconds,
+                layout.getNodeTension()
+        );
+    }
+}
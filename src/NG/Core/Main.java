@@ -4,8 +4,7 @@ import NG.Camera.Camera;
 import NG.Camera.FlatCamera;
 import NG.Camera.PointCenteredCamera;
 import NG.DataStructures.Generic.Color4f;
-import NG.GUIMenu.Components.STextArea;
-import NG.GUIMenu.Components.SToggleButton;
+import NG.GUIMenu.Components.*;
 import NG.GUIMenu.FrameManagers.FrameManagerImpl;
 import NG.GUIMenu.FrameManagers.UIFrameManager;
 import NG.GUIMenu.Menu;
@@ -14,6 +13,8 @@ import NG.GUIMenu.Rendering.NVGOverlay;
 import NG.GUIMenu.Rendering.SFrameLookAndFeel;
 import NG.Graph.*;
 import NG.Graph.Layout.HDEPositioning;
+import NG.Graph.Layout.LayoutFile;
+import NG.Graph.Layout.MultilevelLayout;
 import NG.Graph.Layout.SpringLayout;
 import NG.Graph.Rendering.EdgeShader;
 import NG.Graph.Rendering.NodeShader;
@@ -32,15 +33,20 @@ import NG.Tools.Vectors;
 import org.joml.Matrix4f;
 import org.joml.Vector2i;
 import org.joml.Vector3f;
+import org.joml.Vector3fc;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.ReadableByteChannel;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 import java.util.regex.Pattern;
 
 import static NG.Graph.Rendering.GraphElement.Priority.ACTION_MARKING;
@@ -62,6 +68,7 @@ public class Main {
 
     private static final Version VERSION = new Version(0, 3);
     private static final Pattern PATTERN_COMMA = Pattern.compile(",");
+    private static final int PROGRESSIVE_BATCH_SIZE = 1 << 14;
 
     private final Thread mainThread;
     public final RenderLoop renderer;
@@ -81,6 +88,10 @@ public class Main {
     private final Object graphLock = new Object();
     private SourceGraph graph;
     private NodeClustering displayGraph;
+    // the graph that is being read, if progressive loading is active
+    private volatile ProgressiveGraph loadingGraph = null;
+    // whether the layout or the user moved the nodes of the graph since it was set
+    private volatile boolean isLayoutChanged = false;
 
     private final Map<String, Color4f> markings = new HashMap<>();
 
@@ -113,6 +124,10 @@ public class Main {
                 Toolbox.display(ex);
             }
         };
+        if (settings.LAYOUT_SEED != null) springLayout.setSeed(settings.LAYOUT_SEED);
+        springLayout.setFrameBudget(settings.LAYOUT_FRAME_BUDGET);
+        springLayout.setStressMajorization(settings.STRESS_LAYOUT);
+        springLayout.setFocus(this::getLayoutFocus);
 
         graph = SourceGraph.empty(this);
         displayGraph = new NodeClustering(graph, Collections.emptySet());
@@ -147,7 +162,7 @@ public class Main {
         renderer.renderSequence(new NodeShader())
                 .add((gl, root) -> {
                     synchronized (graphLock) {
-                        gl.render(displayGraph.getNodeMesh());
+                        gl.render(getVisibleGraph().getNodeMesh());
                     }
                 });
 
@@ -156,7 +171,7 @@ public class Main {
                 .add((gl, root) -> {
                     glDepthMask(false); // read but not write
                     synchronized (graphLock) {
-                        gl.render(displayGraph.getEdgeMesh());
+                        gl.render(getVisibleGraph().getEdgeMesh());
                     }
                     glDepthMask(true);
                 });
@@ -170,7 +185,7 @@ public class Main {
         frameManager.setMainGUI(menu);
 
         springLayout.setGraph(doComputeSourceLayout ? graph : displayGraph);
-        springLayout.addUpdateListeners(this::onNodePositionChange);
+        springLayout.addUpdateListeners(this::onLayoutUpdate);
 
         if (settings.DATA_COLLECTION_PATH != null) {
             Auto auto = new Auto(this, settings.DATA_COLLECTION_PATH);
@@ -204,6 +219,16 @@ public class Main {
     }
 
     public void onNodePositionChange() {
+        springLayout.wakeUp();
+        isLayoutChanged = true;
+
+        Graph loading = loadingGraph;
+        if (loading != null) {
+            loading.getNodeMesh().schedulePositionReload();
+            loading.getEdgeMesh().schedulePositionReload();
+            return;
+        }
+
         if (doComputeSourceLayout) {
             displayGraph.pullClusterPositions();
 
@@ -215,6 +240,30 @@ public class Main {
         displayGraph.getEdgeMesh().schedulePositionReload();
     }
 
+    /**
+     * is called after each iteration of the layout, which has already scheduled uploading the positions of the graph
+     * it lays out.
+     */
+    private void onLayoutUpdate() {
+        if (loadingGraph != null) return;
+        isLayoutChanged = true;
+
+        if (doComputeSourceLayout) {
+            displayGraph.pullClusterPositions();
+            displayGraph.getNodeMesh().schedulePositionReload();
+            displayGraph.getEdgeMesh().schedulePositionReload();
+
+        } else {
+            displayGraph.pushClusterPositions();
+        }
+    }
+
+    /** @return the position of the node that is being dragged, or the focus of the camera if there is none */
+    private Vector3fc getLayoutFocus() {
+        State selected = getVisibleGraph().getSelectedNode();
+        return selected != null ? selected.position : camera.getFocus();
+    }
+
     public Camera camera() {
         return camera;
     }
@@ -252,50 +301,259 @@ public class Main {
     }
 
     private void cleanup() {
+        // the layout is stopped, so it no longer moves the graph after its current iteration
+        synchronized (springLayout) {
+            storeSnapshot(graph, isLayoutChanged);
+        }
+
         synchronized (graphLock) {
             inputHandler.cleanup();
             graph.cleanup();
+            if (loadingGraph != null) loadingGraph.cleanup();
             window.cleanup();
         }
     }
 
+    /**
+     * loads the given graph file. If progressive loading is enabled and the file is an .aut file, this returns
+     * immediately, and the graph is shown and laid out while it is being read.
+     * @see #setGraph(File)
+     */
+    public void loadGraph(File graphFile) {
+        if (!settings.PROGRESSIVE_LOADING || Mcrl2LtsReader.isLtsFile(graphFile)) {
+            setGraph(graphFile);
+            return;
+        }
+
+        Thread loader = new Thread(() -> loadProgressively(graphFile), "Loader " + graphFile.getName());
+        loader.setDaemon(true);
+        loader.start();
+    }
+
     public void setGraph(File newGraphFile) {
         try {
-            setGraph(SourceGraph.parse(newGraphFile, this));
+            setGraph(newGraphFile, SourceGraph.load(newGraphFile, this));
 
         } catch (IOException e) {
             Logger.ERROR.print(newGraphFile.getName(), e);
         }
     }
 
+    /** sets the graph read from the given file, with the positions of its layout file or snapshot if it has one */
+    private void setGraph(File graphFile, SourceGraph newGraph) {
+        boolean isRestored = settings.RESTORE_LAYOUTS && LayoutFile.restore(newGraph, graphFile);
+        setGraph(newGraph, !isRestored);
+    }
+
+    /**
+     * reads the given graph file on the current thread, while showing the graph read so far.
+     * @see #readProgressively(String, AutReader)
+     */
+    private void loadProgressively(File graphFile) {
+        if (settings.USE_GRAPH_CACHE) {
+            LtsData data = LtsCache.readIfValid(graphFile);
+            if (data != null) {
+                setGraph(graphFile, SourceGraph.create(data, this, graphFile.getName()));
+                return;
+            }
+        }
+
+        SFrame progressFrame = new SFrame("Loading " + graphFile.getName());
+
+        try (ReadableByteChannel channel = DecompressingChannel.open(graphFile)) {
+            long fileSize = Math.max(graphFile.length(), 1);
+            AutReader reader = new AutReader(channel);
+            LongSupplier bytesRead = (channel instanceof DecompressingChannel) ?
+                    ((DecompressingChannel) channel)::getSourceBytesRead : reader::getBytesRead;
+
+            progressFrame.setMainPanel(SPanel.column(
+                    new SProgressBar(() -> (float) bytesRead.getAsLong() / fileSize, Menu.BUTTON_PROPS),
+                    new SActiveTextArea(() -> String.format("Read %d of %d MB",
+                            bytesRead.getAsLong() >> 20, fileSize >> 20
+                    ), Menu.BUTTON_PROPS)
+            ));
+            progressFrame.pack();
+            frameManager.addFrameCenter(progressFrame, window);
+
+            LtsData data = readProgressively(graphFile.getName(), reader);
+
+            if (settings.USE_GRAPH_CACHE) {
+                LtsCache.store(graphFile, data);
+            }
+
+        } catch (IOException e) {
+            Logger.ERROR.print(graphFile.getName(), e);
+
+        } finally {
+            progressFrame.dispose();
+        }
+    }
+
+    /**
+     * reads a graph with the given reader on the current thread, while the transitions read so far are shown in a
+     * {@link ProgressiveGraph}. Batches of transitions are added on the layout thread, such that the layout only
+     * observes complete batches. When reading is finished, the full graph replaces the partial graph and inherits its
+     * layout.
+     * @param name   the name of the graph
+     * @param reader a reader on the graph. Its listener is replaced.
+     * @return the data that was read
+     * @throws IOException if the reader throws an exception. The current graph is shown again.
+     */
+    public LtsData readProgressively(String name, AutReader reader) throws IOException {
+        float natLength = springLayout.getNatLength();
+        long seed = settings.LAYOUT_SEED != null ? settings.LAYOUT_SEED : Toolbox.random.nextLong();
+        ProgressiveGraph partial = new ProgressiveGraph(this, name, natLength, seed);
+
+        reader.setListener(new AutReader.Listener() {
+            @Override
+            public void onHeader(int initialState, int nrOfStates, int nrOfTransitions) {
+                springLayout.defer(() -> {
+                    synchronized (graphLock) {
+                        partial.setHeader(initialState, nrOfStates);
+                        loadingGraph = partial;
+                        springLayout.setGraph(partial);
+                        if (springLayout.getSpeed() == 0) springLayout.setSpeed(Menu.SPEED_MAXIMUM / 2);
+                    }
+                });
+            }
+
+            @Override
+            public void onTransitions(int[] from, int[] label, int[] to, int start, int end, String[] labels) {
+                int[] batchFrom = Arrays.copyOfRange(from, start, end);
+                int[] batchLabel = Arrays.copyOfRange(label, start, end);
+                int[] batchTo = Arrays.copyOfRange(to, start, end);
+
+                springLayout.defer(() -> {
+                    synchronized (graphLock) {
+                        partial.addTransitions(batchFrom, batchLabel, batchTo, end - start, labels);
+                    }
+                });
+            }
+        }, PROGRESSIVE_BATCH_SIZE);
+
+        try {
+            long startTime = System.nanoTime();
+            LtsData data = reader.read();
+            Logger.DEBUG.printf("Read %s in %d ms", name, (System.nanoTime() - startTime) / 1_000_000);
+
+            SourceGraph newGraph = SourceGraph.create(data, this, name);
+            randomLayout(newGraph);
+
+            // the layout thread has added all batches once this executes
+            CountDownLatch positionsCopied = new CountDownLatch(1);
+            springLayout.defer(() -> {
+                partial.copyPositionsTo(newGraph);
+                positionsCopied.countDown();
+            });
+            positionsCopied.await();
+
+            setGraph(newGraph, false);
+            return data;
+
+        } catch (IOException | InterruptedException ex) {
+            springLayout.defer(() -> {
+                synchronized (graphLock) {
+                    if (loadingGraph == partial) {
+                        loadingGraph = null;
+                        springLayout.setGraph(doComputeSourceLayout ? graph : displayGraph);
+                    }
+                }
+                partial.cleanup();
+            });
+
+            if (ex instanceof IOException) throw (IOException) ex;
+            throw new InterruptedIOException("Interrupted while loading " + name);
+        }
+    }
+
     public void setGraph(SourceGraph newGraph) {
-//        springLayout.defer(() -> {
-        synchronized (graphLock) {
-            graph.cleanup();
-            graph = newGraph;
+        setGraph(newGraph, true);
+    }
+
+    /** sets the positions of the graph at random, from the layout seed if one is given */
+    private void randomLayout(SourceGraph graph) {
+        if (settings.LAYOUT_SEED != null) {
+            SourceGraph.randomLayout(graph, springLayout.getNatLength(), settings.LAYOUT_SEED);
+        } else {
+            SourceGraph.randomLayout(graph, springLayout.getNatLength());
+        }
+    }
+
+    /** sets the positions of the graph with a multilevel layout, using the parameters of the spring layout */
+    private void applyMultilevelLayout(SourceGraph graph) {
+        MultilevelLayout multilevel = new MultilevelLayout(settings.NUM_WORKER_THREADS);
+        try {
+            multilevel.copyParameters(springLayout);
+            if (settings.LAYOUT_SEED != null) multilevel.setSeed(settings.LAYOUT_SEED);
+            multilevel.applyTo(graph);
+
+        } catch (Exception ex) {
+            Logger.ERROR.print("Multilevel layout failed, using a random layout instead", ex);
+            randomLayout(graph);
+
+        } finally {
+            multilevel.cleanup();
+        }
+    }
 
-            if (!settings.RANDOM_LAYOUT && graph.states.length > 2 && graph.isFullyReachable()) {
-                HDEPositioning.applyTo(graph, springLayout.getNatLength());
+    /**
+     * replaces the current graph with the given graph
+     * @param doLayout if true, the positions of the graph are initialized and the layout is paused. If false, the
+     *                 current positions of the graph are kept.
+     */
+    public void setGraph(SourceGraph newGraph, boolean doLayout) {
+//        springLayout.defer(() -> {
+        // the new graph is not visible to the renderer yet, thus it is prepared without blocking the renderer
+        if (doLayout) {
+            if (settings.MULTILEVEL_LAYOUT) {
+                applyMultilevelLayout(newGraph);
+            } else if (!settings.RANDOM_LAYOUT && newGraph.states.length > 2 && newGraph.isFullyReachable()) {
+                HDEPositioning.applyTo(newGraph, springLayout.getNatLength());
             } else {
-                SourceGraph.randomLayout(graph, springLayout.getNatLength());
+                randomLayout(newGraph);
             }
+        }
 
-            graph.init();
+        newGraph.init();
+        NodeClustering newDisplayGraph = new NodeClustering(newGraph);
 
-            displayGraph = new NodeClustering(graph);
+        SourceGraph oldGraph;
+        boolean isOldLayoutChanged;
+        synchronized (graphLock) {
+            oldGraph = graph;
+            isOldLayoutChanged = isLayoutChanged;
+            graph = newGraph;
+            isLayoutChanged = false;
+            displayGraph = newDisplayGraph;
 
             markings.clear();
 
+            if (loadingGraph != null) {
+                loadingGraph.cleanup();
+                loadingGraph = null;
+            }
+
             springLayout.setGraph(doComputeSourceLayout ? graph : displayGraph);
-            springLayout.setSpeed(0);
-            Logger.INFO.print("Loaded graph with " + graph.states.length + " nodes and " + graph.edges.length + " edges");
+            if (doLayout) springLayout.setSpeed(0);
         }
 
+        // the layout no longer moves the old graph
+        storeSnapshot(oldGraph, isOldLayoutChanged);
+        oldGraph.cleanup();
+        Logger.INFO.print("Loaded graph with " + newGraph.states.length + " nodes and " + newGraph.edges.length + " edges");
+
         onNodePositionChange();
         menu.reloadUI();
 //        });
     }
 
+    /** writes the snapshot of the layout of the given graph, if it is restored later and it changed since it was set */
+    private void storeSnapshot(SourceGraph graph, boolean isChanged) {
+        if (settings.RESTORE_LAYOUTS && isChanged && graph.states.length > 0) {
+            LayoutFile.storeSnapshot(graph);
+        }
+    }
+
     public void doSourceLayout(boolean doSource) {
         doComputeSourceLayout = doSource;
         springLayout.setGraph(doSource ? graph : displayGraph);
@@ -348,10 +606,11 @@ public class Main {
 
     public List<Transition> getMarkedEdges() {
         Set<String> markedActionLabels = getMarkedLabels(menu.markButtons);
+        boolean[] isMarked = graph.getLabelTable().maskOf(markedActionLabels);
 
         List<Transition> markedEdges = new ArrayList<>();
         for (Transition edge : graph.getEdgeMesh().edgeList()) {
-            if (markedActionLabels.contains(edge.label)) {
+            if (isMarked[edge.labelId]) {
                 markedEdges.add(edge);
             }
         }
@@ -541,7 +800,8 @@ public class Main {
     }
 
     public Graph getVisibleGraph() {
-        return displayGraph;
+        Graph loading = loadingGraph;
+        return loading != null ? loading : displayGraph;
     }
 
     public boolean doOnMouseSelection(Consumer<State> nodeAction, Consumer<Transition> edgeAction) {
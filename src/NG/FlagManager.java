@@ -10,6 +10,7 @@ class FlagManager {
     private final Map<String, Parameter> parameters = new HashMap<>();
     private final Map<String, String> defaultParameters = new HashMap<>();
     private final Collection<Collection<String>> exclusives = new ArrayList<>();
+    private final List<String> notes = new ArrayList<>();
 
     /**
      * create a new flag manager with an automatic 'help' flag which shows the available parameters, and force quits the
@@ -31,11 +32,24 @@ class FlagManager {
                         System.out.println("\t\t" + p.description);
                     }
 
+                    if (!notes.isEmpty()) System.out.println("Notes:");
+                    for (String note : notes) {
+                        System.out.println("\t" + note);
+                    }
+
                     System.exit(1);
                 }
         ));
     }
 
+    /**
+     * adds a note that the 'help' flag shows after the flags and parameters
+     */
+    public FlagManager addNote(String note) {
+        notes.add(note);
+        return this;
+    }
+
     /**
      * if the given flag is found in the arguments, the {@code ifPresent} action will be executed
      */
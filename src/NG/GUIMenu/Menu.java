@@ -8,9 +8,14 @@ import NG.GUIMenu.Components.*;
 import NG.GUIMenu.FrameManagers.UIFrameManager;
 import NG.GUIMenu.Rendering.NGFonts;
 import NG.GUIMenu.Rendering.SFrameLookAndFeel;
+import NG.Graph.AutReader;
 import NG.Graph.Graph;
 import NG.Graph.GraphPathFinder;
+import NG.Graph.GrowingFileChannel;
+import NG.Graph.Mcrl2LtsReader;
 import NG.Graph.Layout.SpringLayout;
+import NG.Graph.LtsCache;
+import NG.Graph.LtsData;
 import NG.Graph.Rendering.EdgeShader;
 import NG.Graph.Rendering.GraphColorTool;
 import NG.Graph.Rendering.GraphElement;
@@ -25,12 +30,17 @@ import org.lwjgl.glfw.GLFW;
 import java.awt.*;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static NG.Core.Main.PATH_COLOR;
 
@@ -50,6 +60,8 @@ public class Menu extends SDecorator {
     public static final Color4f A_COLOR = Color4f.rgb(200, 83, 0, 0.8f);
     public static final Color4f B_COLOR = Color4f.rgb(0, 134, 19, 0.8f);
 
+    /** the graph files that can be loaded, where compressed files are recognised by their contents */
+    private static final String[] GRAPH_EXTENSIONS = {".aut", Mcrl2LtsReader.EXTENSION, ".gz", ".xz", ".zst"};
     private static final PairList<String, Color4f> PAINT_COLORS = new PairList.Builder<String, Color4f>()
             .add("Red", Color4f.rgb(200, 25, 25, 0.8f))
             .add("Orange", Color4f.rgb(220, 105, 20, 0.8f))
@@ -80,7 +92,7 @@ public class Menu extends SDecorator {
         UIFrameManager frameManager = main.gui();
         GraphColorTool colorTool = new GraphColorTool(main, PAINT_COLORS.right(INITIAL_COLOR_INDEX));
 
-        actionLabels = graph.getEdgeLabels().stream().distinct().sorted().toArray(String[]::new);
+        actionLabels = graph.getEdgeLabels().stream().sorted().toArray(String[]::new);
 
         markButtons = new SToggleButton[actionLabels.length];
         for (int i = 0; i < actionLabels.length; i++) {
@@ -142,8 +154,8 @@ public class Menu extends SDecorator {
                                     openFileDialog(
                                             file -> {
                                                 currentGraphFile = file;
-                                                main.setGraph(file);
-                                            }, "*.aut"
+                                                main.loadGraph(file);
+                                            }, GRAPH_EXTENSIONS
                                     );
                                     // reset timers
                                     renderLoop.defer(renderLoop.timer::reset);
@@ -157,10 +169,10 @@ public class Menu extends SDecorator {
                                                 () -> {
                                                     currentGraphFile = file;
                                                     File newGraphFile = processMcrl2File(file);
-                                                    main.setGraph(newGraphFile);
+                                                    if (newGraphFile != null) main.loadGraph(newGraphFile);
                                                 }
                                             ).start()
-                                            , "*.mcrl2"
+                                            , ".mcrl2"
                                     );
                                     renderLoop.defer(renderLoop.timer::reset);
                                     updateLoop.defer(updateLoop.timer::reset);
@@ -168,7 +180,7 @@ public class Menu extends SDecorator {
                         ),
                         SContainer.row(
                                 new SButton("Load Modal Mu-Formula",
-                                        () -> openFileDialog(main::applyMuFormulaMarking, "*.mcf"),
+                                        () -> openFileDialog(main::applyMuFormulaMarking, ".mcf"),
                                         BUTTON_PROPS
                                 ),
                                 new SCloseButton(BUTTON_PROPS.minHeight,
@@ -249,6 +261,11 @@ public class Menu extends SDecorator {
         ));
     }
 
+    /**
+     * generates the state space of the given mCRL2 specification. If progressive loading is enabled, the output of
+     * lps2lts is loaded into the visualiser while it is written, and null is returned.
+     * @return the generated .aut file, or null if the state space is already loaded
+     */
     private File processMcrl2File(File file) {
         String fileName = file.getName();
         fileName = fileName.substring(0, fileName.indexOf('.'));
@@ -290,7 +307,13 @@ public class Menu extends SDecorator {
             }
             progressValue[0] = 0.5f;
 
-            if (commandErrorValue == 0) {
+            if (commandErrorValue == 0 && main.settings().PROGRESSIVE_LOADING) {
+                streamLps2lts(fileName, progressFrame, progressText);
+                progressValue[0] = 1f;
+                progressFrame.dispose();
+                return null;
+
+            } else if (commandErrorValue == 0) {
                 Process process = Runtime.getRuntime().exec(String.format(
                 "lps2lts -v \"%s.lps\" \"%s.aut\"", fileName, fileName
                 ));
@@ -319,10 +342,66 @@ public class Menu extends SDecorator {
         return new File(fileName + ".aut");
     }
 
-    private void openFileDialog(Consumer<File> action, String extension) {
+    /**
+     * runs lps2lts on the given linear process, and loads the .aut file that it writes while it is generated. lps2lts
+     * seeks back to finish the header of the file, so it writes to a regular file rather than a pipe. The file is
+     * cached like any loaded .aut file.
+     * @throws IOException if lps2lts fails. The previous graph is shown again.
+     */
+    private void streamLps2lts(String fileName, SFrame progressFrame, STextArea progressText) throws Exception {
+        File autFile = new File(fileName + ".aut");
+        // the output of an earlier run must not be read as the output of this run
+        Files.deleteIfExists(autFile.toPath());
+
+        Process process = new ProcessBuilder("lps2lts", "-v", fileName + ".lps", autFile.getPath()).start();
+        progressFrame.onDispose(() -> process.destroy());
+
+        Thread outputReader = new Thread(() -> {
+            try {
+                BufferedReader processOutputStream = new BufferedReader(new InputStreamReader(process.getInputStream()));
+                String s;
+                while ((s = processOutputStream.readLine()) != null) {
+                    progressText.setText(s);
+                }
+
+            } catch (IOException ex) {
+                Logger.ERROR.print(ex);
+            }
+        }, "lps2lts output");
+        outputReader.setDaemon(true);
+        outputReader.start();
+
+        try (ReadableByteChannel channel = GrowingFileChannel.open(autFile, process, "lps2lts")) {
+            LtsData data = main.readProgressively(autFile.getName(), new AutReader(channel).setStream(true));
+
+            if (main.settings().USE_GRAPH_CACHE) {
+                LtsCache.store(autFile, data);
+            }
+
+        } finally {
+            // lps2lts is still running if its output could not be read
+            process.destroy();
+            outputReader.join();
+            progressFrame.onDispose(null);
+        }
+    }
+
+    /**
+     * opens a dialog that shows the files with any of the given extensions, and executes the action on the chosen file.
+     * Special files, such as named pipes, are shown as well.
+     */
+    private void openFileDialog(Consumer<File> action, String... extensions) {
         FileDialog fd = new FileDialog((Frame) null, "Choose a file", FileDialog.LOAD);
         fd.setDirectory(currentGraphFile.getAbsolutePath());
-        fd.setFile(extension);
+        // the pattern is used on Windows, the filter on other platforms
+        fd.setFile(Arrays.stream(extensions).map(e -> "*" + e).collect(Collectors.joining(";")));
+        fd.setFilenameFilter((directory, name) -> {
+            for (String extension : extensions) {
+                if (name.endsWith(extension)) return true;
+            }
+            Path path = directory.toPath().resolve(name);
+            return Files.exists(path) && !Files.isRegularFile(path) && !Files.isDirectory(path);
+        });
         fd.setVisible(true);
 
         String filename = fd.getFile();
@@ -356,6 +435,14 @@ public class Menu extends SDecorator {
                     }, {
                             new SActiveTextArea(() -> String.format("Heuristic Effect: %4.02f", updateLoop.getBarnesHutTheta()), BUTTON_PROPS),
                             new SSlider(0, 2f, updateLoop.getBarnesHutTheta(), BUTTON_PROPS, updateLoop::setBarnesHutTheta)
+                    }, {
+                            new STextArea("Repulsion Heuristic", BUTTON_PROPS),
+                            new SToggleButton("Fast Multipole", BUTTON_PROPS, updateLoop.doFastMultipole())
+                                    .addStateChangeListener(updateLoop::setFastMultipole)
+                    }, {
+                            new STextArea("Layout Engine", BUTTON_PROPS),
+                            new SToggleButton("Stress Majorization", BUTTON_PROPS, updateLoop.doStressMajorization())
+                                    .addStateChangeListener(updateLoop::setStressMajorization)
                     }}
             ));
             setGrowthPolicy(true, false);
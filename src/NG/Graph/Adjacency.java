@@ -0,0 +1,225 @@
+package NG.Graph;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * An immutable compressed-sparse-row representation of the transitions of a graph. Transitions are identified by their
+ * edge index {@code e} in {@code [0, nrOfEdges())}, states by their {@link State#index}.
+ * <p>
+ * The outgoing transitions of state {@code s} are at the positions {@code i} in {@code [outStart(s), outEnd(s))}, where
+ * {@link #target(int) target(i)} is the end state, {@link #outLabel(int) outLabel(i)} the label id and {@link
+ * #outEdge(int) outEdge(i)} the edge index of the transition. The incoming transitions are stored likewise, using
+ * {@link #inStart(int)}, {@link #inEnd(int)}, {@link #source(int)}, {@link #inLabel(int)} and {@link #inEdge(int)}.
+ * Within one state, transitions are in order of edge index.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public final class Adjacency {
+    private final int nrOfStates;
+    private final int[] from;
+    private final int[] to;
+    private final int[] label;
+
+    private final int[] outOffset;
+    private final int[] outTarget;
+    private final int[] outLabel;
+    private final int[] outEdge;
+
+    private final int[] inOffset;
+    private final int[] inSource;
+    private final int[] inLabel;
+    private final int[] inEdge;
+
+    /**
+     * builds the adjacency of the given transitions, where transition {@code e} goes from {@code from[e]} to {@code
+     * to[e]} with label id {@code label[e]}. The arrays are not copied, and must not be modified afterwards.
+     */
+    public Adjacency(int nrOfStates, int[] from, int[] label, int[] to) {
+        assert from.length == label.length && label.length == to.length;
+        this.nrOfStates = nrOfStates;
+        this.from = from;
+        this.to = to;
+        this.label = label;
+
+        int nrOfEdges = from.length;
+
+        outOffset = offsetsOf(from, nrOfStates);
+        outTarget = new int[nrOfEdges];
+        outLabel = new int[nrOfEdges];
+        outEdge = new int[nrOfEdges];
+        fill(outOffset, from, to, outTarget, outLabel, outEdge);
+
+        inOffset = offsetsOf(to, nrOfStates);
+        inSource = new int[nrOfEdges];
+        inLabel = new int[nrOfEdges];
+        inEdge = new int[nrOfEdges];
+        fill(inOffset, to, from, inSource, inLabel, inEdge);
+    }
+
+    /**
+     * builds the adjacency of the given states and transitions. The index of each state must be equal to its position
+     * in the list, and the edge index of each transition is its position in the list.
+     */
+    public static Adjacency of(List<State> states, List<Transition> edges) {
+        int nrOfEdges = edges.size();
+        int[] from = new int[nrOfEdges];
+        int[] label = new int[nrOfEdges];
+        int[] to = new int[nrOfEdges];
+
+        for (int e = 0; e < nrOfEdges; e++) {
+            Transition edge = edges.get(e);
+            assert states.get(edge.from.index) == edge.from && states.get(edge.to.index) == edge.to : edge;
+            from[e] = edge.from.index;
+            label[e] = edge.labelId;
+            to[e] = edge.to.index;
+        }
+
+        return new Adjacency(states.size(), from, label, to);
+    }
+
+    /** @return the cumulative degree, such that the transitions of state s are in [offsets[s], offsets[s + 1]) */
+    private static int[] offsetsOf(int[] endpoints, int nrOfStates) {
+        int[] offsets = new int[nrOfStates + 1];
+        for (int s : endpoints) {
+            offsets[s + 1]++;
+        }
+        for (int s = 0; s < nrOfStates; s++) {
+            offsets[s + 1] += offsets[s];
+        }
+        return offsets;
+    }
+
+    /** stable counting sort of all edges on their key */
+    private void fill(int[] offsets, int[] key, int[] other, int[] otherTarget, int[] labelTarget, int[] edgeTarget) {
+        int[] next = new int[nrOfStates];
+        System.arraycopy(offsets, 0, next, 0, nrOfStates);
+
+        for (int e = 0; e < key.length; e++) {
+            int i = next[key[e]]++;
+            otherTarget[i] = other[e];
+            labelTarget[i] = label[e];
+            edgeTarget[i] = e;
+        }
+    }
+
+    public int nrOfStates() {
+        return nrOfStates;
+    }
+
+    public int nrOfEdges() {
+        return from.length;
+    }
+
+    /** @return the start state of edge e */
+    public int from(int e) {
+        return from[e];
+    }
+
+    /** @return the end state of edge e */
+    public int to(int e) {
+        return to[e];
+    }
+
+    /** @return the label id of edge e */
+    public int label(int e) {
+        return label[e];
+    }
+
+    /** @return the first position of the outgoing transitions of state s */
+    public int outStart(int s) {
+        return outOffset[s];
+    }
+
+    /** @return the position after the last outgoing transition of state s */
+    public int outEnd(int s) {
+        return outOffset[s + 1];
+    }
+
+    public int outDegree(int s) {
+        return outOffset[s + 1] - outOffset[s];
+    }
+
+    /** @return the end state of the outgoing transition at position i */
+    public int target(int i) {
+        return outTarget[i];
+    }
+
+    /** @return the label id of the outgoing transition at position i */
+    public int outLabel(int i) {
+        return outLabel[i];
+    }
+
+    /** @return the edge index of the outgoing transition at position i */
+    public int outEdge(int i) {
+        return outEdge[i];
+    }
+
+    /** @return the first position of the incoming transitions of state s */
+    public int inStart(int s) {
+        return inOffset[s];
+    }
+
+    /** @return the position after the last incoming transition of state s */
+    public int inEnd(int s) {
+        return inOffset[s + 1];
+    }
+
+    public int inDegree(int s) {
+        return inOffset[s + 1] - inOffset[s];
+    }
+
+    /** @return the start state of the incoming transition at position i */
+    public int source(int i) {
+        return inSource[i];
+    }
+
+    /** @return the label id of the incoming transition at position i */
+    public int inLabel(int i) {
+        return inLabel[i];
+    }
+
+    /** @return the edge index of the incoming transition at position i */
+    public int inEdge(int i) {
+        return inEdge[i];
+    }
+
+    /** @return a read-only view on the outgoing transitions of state s, where {@code edges} is indexed by edge index */
+    public List<Transition> outgoing(int s, List<Transition> edges) {
+        return new EdgeView(edges, outEdge, outOffset[s], outOffset[s + 1]);
+    }
+
+    /** @return a read-only view on the incoming transitions of state s, where {@code edges} is indexed by edge index */
+    public List<Transition> incoming(int s, List<Transition> edges) {
+        return new EdgeView(edges, inEdge, inOffset[s], inOffset[s + 1]);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Adjacency of %d states and %d transitions", nrOfStates, from.length);
+    }
+
+    private static class EdgeView extends AbstractList<Transition> {
+        private final List<Transition> edges;
+        private final int[] edgeIndices;
+        private final int start;
+        private final int end;
+
+        EdgeView(List<Transition> edges, int[] edgeIndices, int start, int end) {
+            this.edges = edges;
+            this.edgeIndices = edgeIndices;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Transition get(int index) {
+            if (index < 0 || index >= end - start) throw new IndexOutOfBoundsException(index);
+            return edges.get(edgeIndices[start + index]);
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+}
@@ -0,0 +1,457 @@
+package NG.Graph;
+
+import NG.Tools.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads graphs in the Aldebaran (.aut) format.
+ * <p>
+ * Rather than decoding the input into lines and matching each line with a regular expression, this reader scans the
+ * raw bytes of a channel. Only the first occurrence of each action label is decoded to a String, all other fields are
+ * parsed directly into the primitive arrays of an {@link LtsData}. The accepted format is the same as {@link
+ * SourceGraph#parse(java.util.Scanner, NG.Core.Main, String)}.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class AutReader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final EdgeScanner scanner = new EdgeScanner();
+    private final LabelInterner labels = new LabelInterner();
+    private ByteBuffer buffer;
+    private boolean endOfInput = false;
+    private int lineNumber = 0;
+    private volatile long bytesRead = 0;
+
+    private Listener listener = null;
+    private int batchSize = 0;
+    private boolean isStream = false;
+
+    public AutReader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * sets a listener that receives the transitions of this reader while reading.
+     * @param listener  the listener to notify, which is called on the reading thread
+     * @param batchSize the number of transitions between two notifications
+     * @return this
+     */
+    public AutReader setListener(Listener listener, int batchSize) {
+        assert batchSize > 0;
+        this.listener = listener;
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Sets whether the input is a stream whose header may not be final. A tool that writes an .aut file while it is
+     * read may rewrite the header after it was read, so the declared numbers of states and transitions may be too
+     * small. If set, these numbers are only used as an estimate, and the actual numbers are derived from the
+     * transitions.
+     * @return this
+     */
+    public AutReader setStream(boolean isStream) {
+        this.isStream = isStream;
+        return this;
+    }
+
+    /** @return the number of bytes read from the channel so far. Can be called from any thread. */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /** reads the given file, which may be compressed in one of the formats of {@link DecompressingChannel} */
+    public static LtsData read(File autFile) throws IOException {
+        try (ReadableByteChannel channel = DecompressingChannel.open(autFile)) {
+            return new AutReader(channel).read();
+        }
+    }
+
+    /**
+     * reads the complete input of the channel of this reader. The channel is not closed.
+     * @return the graph described by the input
+     * @throws IOException if the channel throws an exception, or if the input is not a valid .aut file
+     */
+    public LtsData read() throws IOException {
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.flip();
+
+        int lineEnd = nextLine();
+        if (lineEnd < 0) throw new IOException("Empty file");
+
+        Header header = Header.parse(buffer, buffer.position(), lineEnd);
+        if (header == null) throw new IOException("Invalid header: " + lineToString(buffer.position(), lineEnd));
+        skipLine(lineEnd);
+
+        Logger.DEBUG.printf("Loading graph with %d states and %d transitions...", header.nrOfStates, header.nrOfTransitions);
+        if (listener != null) listener.onHeader(header.initialState, header.nrOfStates, header.nrOfTransitions);
+
+        int capacity = isStream ? Math.max(header.nrOfTransitions, 1 << 10) : header.nrOfTransitions;
+        int[] from = new int[capacity];
+        int[] label = new int[capacity];
+        int[] to = new int[capacity];
+        int nrOfStates = isStream ? Math.max(header.nrOfStates, header.initialState + 1) : header.nrOfStates;
+        int edgeIndex = 0;
+        int publishedIndex = 0;
+
+        while ((lineEnd = nextLine()) >= 0) {
+            int lineStart = buffer.position();
+
+            if (!isBlank(buffer, lineStart, lineEnd)) {
+                if (!scanner.scan(buffer, lineStart, lineEnd)) {
+                    throw new IOException("Line " + lineNumber + ": " + lineToString(lineStart, lineEnd));
+                }
+                if (edgeIndex == from.length) {
+                    if (!isStream) {
+                        throw new IOException("Line " + lineNumber + ": more transitions than the " + header.nrOfTransitions + " declared");
+                    }
+                    from = Arrays.copyOf(from, from.length * 2);
+                    label = Arrays.copyOf(label, label.length * 2);
+                    to = Arrays.copyOf(to, to.length * 2);
+                }
+                if (scanner.from >= nrOfStates || scanner.to >= nrOfStates) {
+                    if (!isStream) {
+                        throw new IOException("Line " + lineNumber + ": state index out of bounds: " + lineToString(lineStart, lineEnd));
+                    }
+                    nrOfStates = Math.max(scanner.from, scanner.to) + 1;
+                }
+
+                from[edgeIndex] = scanner.from;
+                label[edgeIndex] = labels.intern(buffer, scanner.labelStart, scanner.labelEnd);
+                to[edgeIndex] = scanner.to;
+                edgeIndex++;
+
+                if (listener != null && edgeIndex - publishedIndex == batchSize) {
+                    listener.onTransitions(from, label, to, publishedIndex, edgeIndex, labels.toArray());
+                    publishedIndex = edgeIndex;
+                }
+            }
+
+            skipLine(lineEnd);
+        }
+
+        if (isStream) {
+            from = Arrays.copyOf(from, edgeIndex);
+            label = Arrays.copyOf(label, edgeIndex);
+            to = Arrays.copyOf(to, edgeIndex);
+
+        } else if (edgeIndex != header.nrOfTransitions) {
+            throw new IOException("Found " + edgeIndex + " transitions, but " + header.nrOfTransitions + " were declared");
+        }
+
+        if (listener != null && edgeIndex > publishedIndex) {
+            listener.onTransitions(from, label, to, publishedIndex, edgeIndex, labels.toArray());
+        }
+
+        return new LtsData(header.initialState, nrOfStates, labels.toArray(), from, label, to);
+    }
+
+    /**
+     * makes sure that the next line is completely in the buffer, reading from the channel when necessary.
+     * @return the index of the newline character ending the line starting at the current buffer position, or the limit
+     * of the buffer if the last line has no newline. Returns -1 if there is no next line.
+     */
+    private int nextLine() throws IOException {
+        int searchStart = buffer.position();
+
+        while (true) {
+            int newLine = indexOf(buffer, (byte) '\n', searchStart, buffer.limit());
+            if (newLine >= 0) {
+                lineNumber++;
+                return newLine;
+            }
+
+            if (endOfInput) {
+                if (buffer.hasRemaining()) {
+                    lineNumber++;
+                    return buffer.limit();
+                }
+                return -1;
+            }
+
+            // the line is not complete, read more of the channel
+            int lineOffset = buffer.position();
+            searchStart = buffer.limit() - lineOffset;
+            buffer.compact();
+
+            if (!buffer.hasRemaining()) {
+                // a single line fills the whole buffer
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+
+            int newBytes = channel.read(buffer);
+            if (newBytes < 0) {
+                endOfInput = true;
+            } else {
+                bytesRead += newBytes;
+            }
+            buffer.flip();
+        }
+    }
+
+    private void skipLine(int lineEnd) {
+        buffer.position(Math.min(lineEnd + 1, buffer.limit()));
+    }
+
+    private String lineToString(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8).trim();
+    }
+
+    static int indexOf(ByteBuffer buffer, byte target, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == target) return i;
+        }
+        return -1;
+    }
+
+    static boolean isBlank(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isWhitespace(buffer.get(i))) return false;
+        }
+        return true;
+    }
+
+    /** equivalent to the regex class {@code \s} */
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+
+    static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * Receives the transitions of an {@link AutReader} while it is reading.
+     */
+    public interface Listener {
+        /**
+         * is called once, after the header has been read. If the reader reads a stream, the numbers may be estimates.
+         */
+        void onHeader(int initialState, int nrOfStates, int nrOfTransitions);
+
+        /**
+         * is called with each batch of new transitions. The arrays are owned by the reader, and only the elements before
+         * end are final.
+         * @param from   the start states of the transitions
+         * @param label  the label ids of the transitions
+         * @param to     the end states of the transitions
+         * @param start  the index of the first new transition
+         * @param end    the index after the last new transition
+         * @param labels all labels read so far, indexed by label id
+         */
+        void onTransitions(int[] from, int[] label, int[] to, int start, int end, String[] labels);
+    }
+
+    /**
+     * The parsed header line
+     * <ul>
+     * <li>aut_header           ::=  'des (' first_state ',' nr_of_transitions ',' nr_of_states ')'</li>
+     * </ul>
+     */
+    static class Header {
+        final int initialState;
+        final int nrOfTransitions;
+        final int nrOfStates;
+
+        private Header(int initialState, int nrOfTransitions, int nrOfStates) {
+            this.initialState = initialState;
+            this.nrOfTransitions = nrOfTransitions;
+            this.nrOfStates = nrOfStates;
+        }
+
+        /** @return the header on the given line, or null if the line is not a valid header */
+        static Header parse(ByteBuffer buffer, int start, int end) {
+            int i = start;
+            while (i < end && isWhitespace(buffer.get(i))) i++;
+
+            if (end - i < 5) return null;
+            if (buffer.get(i) != 'd' || buffer.get(i + 1) != 'e' || buffer.get(i + 2) != 's') return null;
+            if (buffer.get(i + 3) != ' ' || buffer.get(i + 4) != '(') return null;
+            i += 5;
+
+            int[] values = new int[3];
+            for (int v = 0; v < 3; v++) {
+                if (v > 0) {
+                    if (i >= end || buffer.get(i) != ',') return null;
+                    i++;
+                    if (i < end && isWhitespace(buffer.get(i))) i++;
+                }
+
+                int digitStart = i;
+                long value = 0;
+                while (i < end && isDigit(buffer.get(i))) {
+                    value = value * 10 + (buffer.get(i) - '0');
+                    if (value > Integer.MAX_VALUE) return null;
+                    i++;
+                }
+                if (i == digitStart) return null;
+                values[v] = (int) value;
+            }
+
+            if (i >= end || buffer.get(i) != ')') return null;
+            return new Header(values[0], values[1], values[2]);
+        }
+    }
+
+    /**
+     * Decodes a single edge line without allocating objects. After a successful {@link #scan(ByteBuffer, int, int)},
+     * the fields of this scanner describe the edge.
+     * <ul>
+     * <li>aut_edge             ::=  '(' start_state ',' label ',' end_state ')'</li>
+     * <li>start_state          ::=  number</li>
+     * <li>label                ::=  '"' string '"'</li>
+     * <li>end_state            ::=  number</li>
+     * </ul>
+     * Like the original regular expression, the label extends up to the last quote that is followed by an end state.
+     */
+    static class EdgeScanner {
+        int from;
+        int to;
+        int labelStart;
+        int labelEnd;
+
+        /** @return true iff the bytes in [start, end) of the buffer form an edge */
+        boolean scan(ByteBuffer buffer, int start, int end) {
+            int i = start;
+            while (i < end && isWhitespace(buffer.get(i))) i++;
+
+            // forward: '(' start_state ',' '"'
+            if (i >= end || buffer.get(i) != '(') return false;
+            i++;
+
+            int digitStart = i;
+            long value = 0;
+            while (i < end && isDigit(buffer.get(i))) {
+                value = value * 10 + (buffer.get(i) - '0');
+                if (value > Integer.MAX_VALUE) return false;
+                i++;
+            }
+            if (i == digitStart) return false;
+            from = (int) value;
+
+            if (i >= end || buffer.get(i) != ',') return false;
+            i++;
+            if (i < end && isWhitespace(buffer.get(i))) i++;
+            if (i >= end || buffer.get(i) != '"') return false;
+            labelStart = i + 1;
+
+            // backward: '"' ',' end_state ')'
+            int j = end - 1;
+            while (j >= labelStart && isWhitespace(buffer.get(j))) j--;
+            if (j < labelStart || buffer.get(j) != ')') return false;
+            j--;
+
+            int digitEnd = j + 1;
+            while (j >= labelStart && isDigit(buffer.get(j))) j--;
+            if (j + 1 == digitEnd) return false;
+
+            value = 0;
+            for (int k = j + 1; k < digitEnd; k++) {
+                value = value * 10 + (buffer.get(k) - '0');
+                if (value > Integer.MAX_VALUE) return false;
+            }
+            to = (int) value;
+
+            if (j >= labelStart && isWhitespace(buffer.get(j))) j--;
+            if (j < labelStart || buffer.get(j) != ',') return false;
+            j--;
+            if (j < labelStart || buffer.get(j) != '"') return false;
+            labelEnd = j;
+
+            return true;
+        }
+    }
+
+    /**
+     * Maps byte sequences to dense label ids, creating a String only for the first occurrence of each sequence.
+     */
+    static class LabelInterner {
+        private int[] table = new int[64]; // label id + 1, or 0 if empty
+        private int[] hashes = new int[16];
+        private byte[][] bytes = new byte[16][];
+        private String[] strings = new String[16];
+        private int size = 0;
+
+        /** @return the id of the label consisting of the bytes in [start, end) of the buffer */
+        int intern(ByteBuffer buffer, int start, int end) {
+            int hash = hash(buffer, start, end);
+            int mask = table.length - 1;
+
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                int entry = table[slot];
+
+                if (entry == 0) {
+                    int id = add(buffer, start, end, hash);
+                    table[slot] = id + 1;
+                    if (size * 2 > table.length) rehash();
+                    return id;
+
+                } else if (hashes[entry - 1] == hash && equals(bytes[entry - 1], buffer, start, end)) {
+                    return entry - 1;
+                }
+            }
+        }
+
+        private int add(ByteBuffer buffer, int start, int end, int hash) {
+            if (size == strings.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+                bytes = Arrays.copyOf(bytes, size * 2);
+                strings = Arrays.copyOf(strings, size * 2);
+            }
+
+            byte[] label = new byte[end - start];
+            buffer.get(start, label);
+            hashes[size] = hash;
+            bytes[size] = label;
+            strings[size] = new String(label, StandardCharsets.UTF_8);
+            return size++;
+        }
+
+        private void rehash() {
+            table = new int[table.length * 2];
+            int mask = table.length - 1;
+
+            for (int id = 0; id < size; id++) {
+                int slot = hashes[id] & mask;
+                while (table[slot] != 0) slot = (slot + 1) & mask;
+                table[slot] = id + 1;
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        String[] toArray() {
+            return Arrays.copyOf(strings, size);
+        }
+
+        private static int hash(ByteBuffer buffer, int start, int end) {
+            int hash = 0x811C9DC5;
+            for (int i = start; i < end; i++) {
+                hash = (hash ^ buffer.get(i)) * 0x01000193;
+            }
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean equals(byte[] label, ByteBuffer buffer, int start, int end) {
+            if (label.length != end - start) return false;
+            for (int i = 0; i < label.length; i++) {
+                if (label[i] != buffer.get(start + i)) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package NG.Graph;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the output terms of a stream in the streamable binary ATerm format (BAF) of mCRL2, in which the .lps and .lts
+ * files of mCRL2 are written. The subterms of the output terms are shared by index, such that each distinct subterm is
+ * only decoded once.
+ * <p>
+ * A BAF stream is a sequence of bits, of which each value is written most significant bit first. The stream starts
+ * with a zero byte, the 16-bit magic {@code 0x8baf} and a 16-bit version. After that follow packets of a 2-bit type:
+ * <ul>
+ * <li>a function symbol: its name and arity</li>
+ * <li>a subterm: the index of its function symbol followed by the indices of its arguments, which are all read
+ * before. The subterm is added to the table of terms. A function symbol of index 0 marks the end of the stream</li>
+ * <li>an output term: the same as a subterm, but the term is not added to the table</li>
+ * <li>an output integer</li>
+ * </ul>
+ * Indices are written in as many bits as needed for the size of their table, other integers are written as a sequence
+ * of bytes of 7 bits, least significant first, where the high bit marks that another byte follows.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class BafReader {
+    public static final String INT_SYMBOL = "<aterm_int>";
+    public static final String LIST_SYMBOL = "<list_constructor>";
+    public static final String EMPTY_LIST_SYMBOL = "<empty_list>";
+
+    private static final int BAF_MAGIC = 0x8baf;
+    private static final int MIN_VERSION = 0x8306;
+    private static final int MAX_VERSION = 0x8308;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int PACKET_BITS = 2;
+    private static final int FUNCTION_SYMBOL = 0;
+    private static final int ATERM_OUTPUT = 2;
+    private static final int ATERM_INT_OUTPUT = 3;
+    private static final Symbol OUTPUT_INT_SYMBOL = new Symbol(INT_SYMBOL, 0);
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final List<Symbol> symbols = new ArrayList<>();
+    private final List<Term> terms = new ArrayList<>();
+    private long bits = 0;
+    private int nrOfBits = 0;
+
+    /**
+     * reads the header of the stream. The channel is not closed by this reader.
+     * @throws IOException if the channel throws an exception, or if the stream does not start with a supported BAF
+     *                     header
+     */
+    public BafReader(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        buffer.flip();
+        // index 0 marks the end of the stream
+        symbols.add(null);
+
+        if (readBits(8) != 0 || readBits(16) != BAF_MAGIC) {
+            throw new IOException("Missing the magic number of the binary ATerm format");
+        }
+        int version = readBits(16);
+        if (version < MIN_VERSION || version > MAX_VERSION) {
+            throw new IOException(String.format("Unsupported binary ATerm format version 0x%x", version));
+        }
+    }
+
+    /** @return the next output term, or null at the end of the stream */
+    public Term next() throws IOException {
+        while (true) {
+            int packet = readBits(PACKET_BITS);
+
+            if (packet == FUNCTION_SYMBOL) {
+                String name = readString();
+                long arity = readInteger();
+                if (arity < 0 || arity > Integer.MAX_VALUE) throw new IOException("Invalid arity " + arity);
+                symbols.add(new Symbol(name, (int) arity));
+
+            } else if (packet == ATERM_INT_OUTPUT) {
+                return new Term(OUTPUT_INT_SYMBOL, readInteger());
+
+            } else {
+                int symbolIndex = readBits(widthOf(symbols.size()));
+                if (symbolIndex >= symbols.size()) throw new IOException("Invalid function symbol " + symbolIndex);
+                Symbol symbol = symbols.get(symbolIndex);
+                if (symbol == null) return null;
+
+                Term term;
+                if (symbol.name.equals(INT_SYMBOL) && symbol.arity == 0) {
+                    term = new Term(symbol, readInteger());
+
+                } else {
+                    Term[] args = new Term[symbol.arity];
+                    int width = widthOf(terms.size());
+                    for (int i = 0; i < args.length; i++) {
+                        int termIndex = readBits(width);
+                        if (termIndex >= terms.size()) throw new IOException("Invalid term " + termIndex);
+                        args[i] = terms.get(termIndex);
+                    }
+                    term = new Term(symbol, args);
+                }
+
+                if (packet == ATERM_OUTPUT) return term;
+                terms.add(term);
+            }
+        }
+    }
+
+    /** @return the number of bits of an index into a table of the given size */
+    private static int widthOf(int size) {
+        return 32 - Integer.numberOfLeadingZeros(size);
+    }
+
+    /** reads an unsigned value of at most 31 bits */
+    private int readBits(int nrOfBits) throws IOException {
+        assert nrOfBits < 32;
+        while (this.nrOfBits < nrOfBits) {
+            bits = (bits << 8) | nextByte();
+            this.nrOfBits += 8;
+        }
+        this.nrOfBits -= nrOfBits;
+        return (int) ((bits >>> this.nrOfBits) & ((1L << nrOfBits) - 1));
+    }
+
+    private long readInteger() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int part = readBits(8);
+            value |= (long) (part & 0x7F) << shift;
+            if ((part & 0x80) == 0) return value;
+        }
+        throw new IOException("Integer too large");
+    }
+
+    private String readString() throws IOException {
+        long length = readInteger();
+        if (length < 0 || length > Integer.MAX_VALUE) throw new IOException("Invalid string length " + length);
+
+        byte[] bytes = new byte[(int) length];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) readBits(8);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int nextByte() throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            buffer.flip();
+            if (read < 0) throw new EOFException("Unexpected end of the binary ATerm stream");
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    /** a function symbol of a BAF stream */
+    public static final class Symbol {
+        public final String name;
+        public final int arity;
+
+        Symbol(String name, int arity) {
+            this.name = name;
+            this.arity = arity;
+        }
+    }
+
+    /** a term of a BAF stream. Integer terms have no arguments and a value */
+    public static final class Term {
+        private static final Term[] NO_ARGS = new Term[0];
+        public final Symbol symbol;
+        public final Term[] args;
+        public final long value;
+        /** the text of this term, cached by the reader that prints it */
+        String text = null;
+
+        Term(Symbol symbol, Term[] args) {
+            this.symbol = symbol;
+            this.args = args;
+            this.value = 0;
+        }
+
+        Term(Symbol intSymbol, long value) {
+            this.symbol = intSymbol;
+            this.args = NO_ARGS;
+            this.value = value;
+        }
+
+        public boolean isInt() {
+            return symbol.name.equals(INT_SYMBOL) && symbol.arity == 0;
+        }
+
+        /** @return true if this term has the given function symbol, of any arity */
+        public boolean is(String name) {
+            return symbol.name.equals(name);
+        }
+
+        public boolean is(String name, int arity) {
+            return symbol.arity == arity && symbol.name.equals(name);
+        }
+
+        /** @return the term in the plain ATerm notation, for example {@code f(a, 1)} */
+        @Override
+        public String toString() {
+            if (isInt()) return Long.toUnsignedString(value);
+            if (args.length == 0) return symbol.name;
+
+            StringBuilder builder = new StringBuilder(symbol.name).append('(');
+            for (int i = 0; i < args.length; i++) {
+                if (i > 0) builder.append(", ");
+                builder.append(args[i]);
+            }
+            return builder.append(')').toString();
+        }
+    }
+}
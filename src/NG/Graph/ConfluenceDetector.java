@@ -11,15 +11,14 @@ import java.util.concurrent.Callable;
  */
 public class ConfluenceDetector implements Callable<Collection<List<State>>> {
     private final Graph graph;
-    private final Set<String> internalActions;
+    private final Adjacency adjacency;
+    private final boolean[] isInternalAction; // indexed by label id
 
     /**
      * creates a confluence detector that considers all "tau" labels as internal
      */
     public ConfluenceDetector(Graph graph) {
-        this.graph = graph;
-        this.internalActions = new HashSet<>();
-        internalActions.add("tau");
+        this(graph, Collections.singleton("tau"));
     }
 
     /**
@@ -27,7 +26,8 @@ public class ConfluenceDetector implements Callable<Collection<List<State>>> {
      */
     public ConfluenceDetector(Graph graph, Set<String> internalActions) {
         this.graph = graph;
-        this.internalActions = new HashSet<>(internalActions);
+        this.adjacency = graph.getAdjacency();
+        this.isInternalAction = graph.getLabelTable().maskOf(internalActions);
     }
 
     /**
@@ -36,7 +36,7 @@ public class ConfluenceDetector implements Callable<Collection<List<State>>> {
      * bi-similar to each other.
      */
     public Collection<List<State>> call() {
-        Set<Transition> candidates = computeConfluentTransitions();
+        boolean[] candidates = computeConfluentTransitions();
         Map<State, State> leaderMap = extractLeaderMap(candidates);
         return classify(leaderMap);
     }
@@ -47,57 +47,66 @@ public class ConfluenceDetector implements Callable<Collection<List<State>>> {
      * bi-similar to each other.
      */
     public Map<State, State> getLeaderMap() {
-        Set<Transition> candidates = computeConfluentTransitions();
+        boolean[] candidates = computeConfluentTransitions();
         return extractLeaderMap(candidates);
     }
 
     /**
-     * @return the set of silent transitions T_conf, where each transition connects two branching bi-similar states
+     * @return the set of silent transitions T_conf, where each transition connects two branching bi-similar states. The
+     * set is returned as a mask over the edge indices of the {@link Adjacency} of the graph.
      */
-    public Set<Transition> computeConfluentTransitions() {
-        List<Transition> edges = graph.getEdgeMesh().edgeList();
-        Deque<Transition> stack = new ArrayDeque<>(edges);
-
-        Set<Transition> candidates = new HashSet<>();
-        for (Transition edge : edges) {
-            if (isInternal(edge)) {
-                candidates.add(edge);
+    public boolean[] computeConfluentTransitions() {
+        int nrOfEdges = adjacency.nrOfEdges();
+        IntQueue stack = new IntQueue(nrOfEdges);
+
+        boolean[] candidates = new boolean[nrOfEdges];
+        for (int e = 0; e < nrOfEdges; e++) {
+            stack.add(e);
+            if (isInternal(e)) {
+                candidates[e] = true;
             }
         }
 
+        int[] targetNextTau = new int[16];
+
         while (!stack.isEmpty()) {
-            Transition target = stack.remove();
+            int target = stack.remove();
             // target = s -a> s'
-            List<Transition> sPrimeConnections = target.to.getOutgoing();
+            int s = adjacency.from(target);
+            int sPrime = adjacency.to(target);
 
             // collect all transitions where for any s''': s' -tau> s''', and is candidate
-            List<Transition> targetNextTau = new ArrayList<>();
-            for (Transition t : sPrimeConnections) {
-//                if (!t.label.equals("tau")) continue; // follows from being a candidate
-                if (!candidates.contains(t)) continue;
-
-                targetNextTau.add(t);
+            int nrOfNextTau = 0;
+            for (int i = adjacency.outStart(sPrime); i < adjacency.outEnd(sPrime); i++) {
+                int t = adjacency.outEdge(i);
+//                if (!isInternal(t)) continue; // follows from being a candidate
+                if (!candidates[t]) continue;
+
+                if (nrOfNextTau == targetNextTau.length) {
+                    targetNextTau = Arrays.copyOf(targetNextTau, nrOfNextTau * 2);
+                }
+                targetNextTau[nrOfNextTau++] = t;
             }
 
-            List<Transition> fromConnections = target.from.getOutgoing();
             boolean anyFail = false;
 
-            for (Transition other : fromConnections) {
-//                if (!other.label.equals("tau")) continue;
-                if (!candidates.contains(other)) continue;
+            for (int i = adjacency.outStart(s); i < adjacency.outEnd(s); i++) {
+                int other = adjacency.outEdge(i);
+                if (!candidates[other]) continue;
                 // other = s -tau> s'' && candidate
 
-                boolean isConfluent = checkConfluence(target, other, targetNextTau, candidates);
+                boolean isConfluent = checkConfluence(target, other, targetNextTau, nrOfNextTau, candidates);
 
                 if (!isConfluent) {
-                    candidates.remove(other);
+                    candidates[other] = false;
                     anyFail = true;
                 }
             }
 
             if (anyFail) {
-                List<Transition> incoming = target.from.getIncoming();
-                stack.addAll(incoming);
+                for (int i = adjacency.inStart(s); i < adjacency.inEnd(s); i++) {
+                    stack.add(adjacency.inEdge(i));
+                }
             }
         }
 
@@ -105,55 +114,62 @@ public class ConfluenceDetector implements Callable<Collection<List<State>>> {
     }
 
     public boolean isInternal(Transition edge) {
-//        return edge.label.equals("tau");
-        return internalActions.contains(edge.label);
+        return isInternalAction[edge.labelId];
+    }
+
+    private boolean isInternal(int edgeIndex) {
+        return isInternalAction[adjacency.label(edgeIndex)];
     }
 
     /**
      * @param target        s -a> s'
      * @param other         s -tau> s'' and candidate
-     * @param targetNextTau {for all s''' in S | s' -tau> s''' && candidate}
+     * @param targetNextTau {for all s''' in S | s' -tau> s''' && candidate}, in the first nrOfNextTau elements
      */
     private boolean checkConfluence(
-            Transition target, Transition other, List<Transition> targetNextTau,
-            Set<Transition> candidates
+            int target, int other, int[] targetNextTau, int nrOfNextTau, boolean[] candidates
     ) {
+        int sPrime = adjacency.to(target);
+        int sDoublePrime = adjacency.to(other);
+
         // a == tau && s' == s''
         // other ~= target : any edge is confluent with itself
-        if (isInternal(target) && target.to == other.to) return true;
-
-        // all neighbors of s''
-        List<State> outgoingStates = new ArrayList<>();
-        for (Transition t : other.to.getOutgoing()) {
-            outgoingStates.add(t.to);
-        }
+        if (isInternal(target) && sPrime == sDoublePrime) return true;
 
         // s'' -a> s'
-        int index = outgoingStates.indexOf(target.to);
-        if (index >= 0) return true;
+        if (hasTransition(sDoublePrime, sPrime)) return true;
 
         // for any s''': s'' -a> s''' && s' -tau> s''', where (s' -tau> s''') is candidate
-        for (Transition nextTarget : targetNextTau) {
-            if (!candidates.contains(nextTarget)) continue;
+        for (int j = 0; j < nrOfNextTau; j++) {
+            int nextTarget = targetNextTau[j];
+            if (!candidates[nextTarget]) continue;
 
             // nextTarget = s' -tau> s'''
-            int index2 = outgoingStates.indexOf(nextTarget.to);
-            if (index2 >= 0) return true;
+            if (hasTransition(sDoublePrime, adjacency.to(nextTarget))) return true;
         }
 
         // a == tau and (s' -tau> s'') is candidate
         if (isInternal(target)) {
             // search for candidate s' -tau> s''' where s''' == s''
-            for (Transition nextTauTarget : targetNextTau) {
-                if (!candidates.contains(nextTauTarget)) continue;
+            for (int j = 0; j < nrOfNextTau; j++) {
+                int nextTauTarget = targetNextTau[j];
+                if (!candidates[nextTauTarget]) continue;
 
-                if (nextTauTarget.to == other.to) return true;
+                if (adjacency.to(nextTauTarget) == sDoublePrime) return true;
             }
         }
 
         return false;
     }
 
+    /** @return true iff there is a transition from state a to state b */
+    private boolean hasTransition(int a, int b) {
+        for (int i = adjacency.outStart(a); i < adjacency.outEnd(a); i++) {
+            if (adjacency.target(i) == b) return true;
+        }
+        return false;
+    }
+
     private List<List<State>> classify(Map<State, State> leaderMap) {
         Map<State, List<State>> confluenceMap = new HashMap<>();
 
@@ -176,20 +192,61 @@ public class ConfluenceDetector implements Callable<Collection<List<State>>> {
         return new ArrayList<>(confluenceMap.values());
     }
 
-    private Map<State, State> extractLeaderMap(Set<Transition> confluentSet) {
+    private Map<State, State> extractLeaderMap(boolean[] confluentSet) {
         Map<State, State> leaderMap = new HashMap<>();
+        List<State> states = graph.getNodeMesh().nodeList();
 
         // have each state point to a confluent state with lower index
-        for (Transition transition : confluentSet) {
+        for (int e = 0; e < confluentSet.length; e++) {
+            if (!confluentSet[e]) continue;
+
+            int from = adjacency.from(e);
+            int to = adjacency.to(e);
             // ignore self-loops
-            if (transition.from == transition.to) continue;
+            if (from == to) continue;
 
-            if (transition.from.index > transition.to.index) {
-                leaderMap.put(transition.from, transition.to);
+            if (from > to) {
+                leaderMap.put(states.get(from), states.get(to));
             } else {
-                leaderMap.put(transition.to, transition.from);
+                leaderMap.put(states.get(to), states.get(from));
             }
         }
         return leaderMap;
     }
+
+    /** a first-in-first-out queue of primitive integers */
+    private static class IntQueue {
+        private int[] elements;
+        private int head = 0;
+        private int size = 0;
+
+        IntQueue(int initialCapacity) {
+            elements = new int[Math.max(initialCapacity, 16)];
+        }
+
+        void add(int value) {
+            if (size == elements.length) {
+                int[] larger = new int[elements.length * 2];
+                int firstPart = elements.length - head;
+                System.arraycopy(elements, head, larger, 0, firstPart);
+                System.arraycopy(elements, 0, larger, firstPart, head);
+                elements = larger;
+                head = 0;
+            }
+
+            elements[(head + size) % elements.length] = value;
+            size++;
+        }
+
+        int remove() {
+            int value = elements[head];
+            head = (head + 1) % elements.length;
+            size--;
+            return value;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
 }
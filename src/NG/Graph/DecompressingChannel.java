@@ -0,0 +1,247 @@
+package NG.Graph;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A channel on the decompressed contents of a compressed file. The compression format is detected from the magic bytes
+ * of the file. Decompression runs on a separate thread, which passes the data through a bounded queue of buffers, such
+ * that decompression and parsing overlap while the decompressor is never more than {@value #QUEUE_LENGTH} buffers
+ * ahead of the reader. The buffers are reused.
+ * <p>
+ * Gzip is decompressed by the JDK. Xz and zstd are decompressed by the {@code xz} and {@code zstd} command line tools,
+ * which must be on the path.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class DecompressingChannel implements ReadableByteChannel {
+    private static final int CHUNK_SIZE = 1 << 20;
+    private static final int QUEUE_LENGTH = 8;
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final BlockingQueue<ByteBuffer> filledChunks = new ArrayBlockingQueue<>(QUEUE_LENGTH + 1);
+    private final BlockingQueue<ByteBuffer> freeChunks = new ArrayBlockingQueue<>(QUEUE_LENGTH);
+    private final InputStream source;
+    private final Process process;
+    private final Thread decompressor;
+    private final Thread feeder;
+
+    private volatile long sourceBytesRead = 0;
+    private volatile IOException failure = null;
+    private ByteBuffer current = null;
+    private boolean isOpen = true;
+
+    public enum Format {
+        GZIP(".gz", null, 0x1f, 0x8b),
+        XZ(".xz", "xz", 0xfd, '7', 'z', 'X', 'Z', 0x00),
+        ZSTD(".zst", "zstd", 0x28, 0xb5, 0x2f, 0xfd);
+
+        /** the usual file extension of this format */
+        public final String extension;
+        /** the command line tool that decompresses this format, or null if it is supported by the JDK */
+        public final String tool;
+        private final byte[] magic;
+
+        Format(String extension, String tool, int... magic) {
+            this.extension = extension;
+            this.tool = tool;
+            this.magic = new byte[magic.length];
+            for (int i = 0; i < magic.length; i++) {
+                this.magic[i] = (byte) magic[i];
+            }
+        }
+    }
+
+    /**
+     * starts decompressing the given file
+     * @param file   the compressed file
+     * @param format the compression format of the file
+     * @throws IOException if the file could not be opened, or the decompressing tool could not be started. In the
+     *                     latter case, the message names the missing tool
+     */
+    public DecompressingChannel(File file, Format format) throws IOException {
+        this.source = new CountingInputStream(new FileInputStream(file));
+
+        for (int i = 0; i < QUEUE_LENGTH; i++) {
+            freeChunks.add(ByteBuffer.allocate(CHUNK_SIZE));
+        }
+
+        InputStream decompressed;
+        if (format.tool == null) {
+            this.process = null;
+            this.feeder = null;
+            decompressed = new GZIPInputStream(source, 1 << 16);
+
+        } else {
+            try {
+                this.process = new ProcessBuilder(format.tool, "-dc")
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+
+            } catch (IOException ex) {
+                source.close();
+                throw new IOException(String.format(
+                        "Cannot decompress %s: this requires the program %s, which is not installed or not on the " +
+                                "path. Install %2$s, or compress the file with gzip, which is read without it",
+                        file.getName(), format.tool
+                ), ex);
+            }
+
+            this.feeder = new Thread(this::feed, "Feeder " + file.getName());
+            feeder.setDaemon(true);
+            feeder.start();
+            decompressed = process.getInputStream();
+        }
+
+        this.decompressor = new Thread(() -> decompress(decompressed, format), "Decompressor " + file.getName());
+        decompressor.setDaemon(true);
+        decompressor.start();
+    }
+
+    /**
+     * opens a channel on the contents of the given file, decompressing it if it is compressed in one of the {@link
+     * Format formats}.
+     */
+    public static ReadableByteChannel open(File file) throws IOException {
+        Format format = detect(file);
+        if (format == null) {
+            return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        }
+
+        return new DecompressingChannel(file, format);
+    }
+
+    /** @return the compression format of the given file, or null if the file is not compressed */
+    public static Format detect(File file) throws IOException {
+        byte[] header = new byte[8];
+        int length;
+        try (InputStream stream = new FileInputStream(file)) {
+            length = stream.readNBytes(header, 0, header.length);
+        }
+
+        for (Format format : Format.values()) {
+            int n = format.magic.length;
+            if (length >= n && Arrays.equals(header, 0, n, format.magic, 0, n)) return format;
+        }
+
+        return null;
+    }
+
+    /** copies the compressed file to the input of the decompressing process */
+    private void feed() {
+        try (OutputStream processInput = process.getOutputStream()) {
+            source.transferTo(processInput);
+
+        } catch (IOException ex) {
+            // the process stopped reading, which is reported by the exit value of the process
+        }
+    }
+
+    private void decompress(InputStream decompressed, Format format) {
+        try (decompressed) {
+            int bytesRead;
+            do {
+                ByteBuffer chunk = freeChunks.take();
+                chunk.clear();
+                bytesRead = decompressed.readNBytes(chunk.array(), 0, chunk.capacity());
+                chunk.limit(bytesRead);
+
+                if (bytesRead > 0) {
+                    filledChunks.put(chunk);
+                } else {
+                    freeChunks.put(chunk);
+                }
+            } while (bytesRead == CHUNK_SIZE);
+
+            if (process != null) {
+                int exitValue = process.waitFor();
+                if (exitValue != 0) failure = new IOException(format.tool + " returned " + exitValue);
+            }
+
+        } catch (IOException ex) {
+            failure = ex;
+
+        } catch (InterruptedException ex) {
+            return; // channel is closed
+        }
+
+        try {
+            filledChunks.put(END);
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer target) throws IOException {
+        if (!isOpen) throw new ClosedChannelException();
+
+        if (current == null || !current.hasRemaining()) {
+            if (current == END) return -1;
+            if (current != null) freeChunks.add(current);
+
+            try {
+                current = filledChunks.take();
+
+            } catch (InterruptedException ex) {
+                throw new InterruptedIOException("Interrupted while waiting for decompressed data");
+            }
+
+            if (current == END) {
+                if (failure != null) throw new IOException("Could not decompress input", failure);
+                return -1;
+            }
+        }
+
+        int length = Math.min(target.remaining(), current.remaining());
+        target.put(current.array(), current.position(), length);
+        current.position(current.position() + length);
+        return length;
+    }
+
+    /** @return the number of compressed bytes read from the file so far. Can be called from any thread. */
+    public long getSourceBytesRead() {
+        return sourceBytesRead;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return isOpen;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!isOpen) return;
+        isOpen = false;
+
+        decompressor.interrupt();
+        if (process != null) process.destroy();
+        source.close();
+    }
+
+    private class CountingInputStream extends FilterInputStream {
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) sourceBytesRead++;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int bytesRead = super.read(b, off, len);
+            if (bytesRead > 0) sourceBytesRead += bytesRead;
+            return bytesRead;
+        }
+    }
+}
@@ -29,7 +29,7 @@ public abstract class Graph implements MouseMoveListener, MouseReleaseListener {
     protected transient Main root;
     private final String name;
     // the node that the mouse is holding
-    private State selectedNode = null;
+    private volatile State selectedNode = null;
     private float selectedNodeZPlane = 0;
 
     private Transition hoveredEdge = null;
@@ -80,7 +80,7 @@ public abstract class Graph implements MouseMoveListener, MouseReleaseListener {
 
             } else if (oldHoveredEdge != null) {
                 if (oldHoveredEdge != hoveredEdge) {
-                    forActionLabel(oldHoveredEdge.label, e -> e.resetColor(GraphElement.Priority.HOVER));
+                    forActionLabel(oldHoveredEdge.labelId, e -> e.resetColor(GraphElement.Priority.HOVER));
                     getEdgeMesh().scheduleColorReload();
                 }
             }
@@ -90,7 +90,7 @@ public abstract class Graph implements MouseMoveListener, MouseReleaseListener {
                 getNodeMesh().scheduleColorReload();
 
             } else if (hoveredEdge != null) {
-                forActionLabel(hoveredEdge.label, edge -> edge.addColor(Main.HOVER_COLOR, GraphElement.Priority.HOVER));
+                forActionLabel(hoveredEdge.labelId, edge -> edge.addColor(Main.HOVER_COLOR, GraphElement.Priority.HOVER));
                 getEdgeMesh().scheduleColorReload();
             }
 
@@ -119,6 +119,11 @@ public abstract class Graph implements MouseMoveListener, MouseReleaseListener {
         }
     }
 
+    /** @return the node that is being dragged, or null if no node is being dragged */
+    public State getSelectedNode() {
+        return selectedNode;
+    }
+
     public PairList<Transition, State> connectionsOf(State node) {
         PairList<Transition, State> pairs = new PairList<>();
 
@@ -147,13 +152,30 @@ public abstract class Graph implements MouseMoveListener, MouseReleaseListener {
         return getEdgeMesh().edgeList().size();
     }
 
+    /** @return the distinct action labels of this graph */
     public abstract Collection<String> getEdgeLabels();
 
+    /** @return the table that maps the labels of this graph to the {@link Transition#labelId} of its edges */
+    public abstract LabelTable getLabelTable();
+
+    /**
+     * @return the transitions of this graph, where the state indices are the positions in {@link
+     * NodeMesh#nodeList()} and the edge indices are the positions in {@link EdgeMesh#edgeList()}
+     */
+    public abstract Adjacency getAdjacency();
+
     public void forActionLabel(String label, Consumer<Transition> action) {
+        int labelId = getLabelTable().idOf(label);
+        if (labelId == LabelTable.NONE) return;
+
+        forActionLabel(labelId, action);
+    }
+
+    public void forActionLabel(int labelId, Consumer<Transition> action) {
         EdgeMesh edges = getEdgeMesh();
 
         for (Transition edge : edges.edgeList()) {
-            if (edge.label.equals(label)) {
+            if (edge.labelId == labelId) {
                 action.accept(edge);
             }
         }
@@ -20,19 +20,19 @@ public class GraphPathFinder implements Callable<List<Transition>> {
 
     @Override
     public List<Transition> call() {
-        ArrayDeque<State> open = new ArrayDeque<>();
-        open.add(startNode);
+        Adjacency adjacency = graph.getAdjacency();
+        List<Transition> edgeList = graph.getEdgeMesh().edgeList();
 
-        Map<State, Transition> predecessors = BFS(open);
+        int[] predecessors = BFS(adjacency, startNode.index);
         if (predecessors == null) return null;
 
-        State current = this.endNode;
+        int current = endNode.index;
         List<Transition> edges = new ArrayList<>();
 
-        while (current != startNode) {
-            Transition edge = predecessors.get(current);
-            edges.add(edge);
-            current = edge.from;
+        while (current != startNode.index) {
+            int edge = predecessors[current];
+            edges.add(edgeList.get(edge));
+            current = adjacency.from(edge);
         }
 
         Collections.reverse(edges);
@@ -41,27 +41,33 @@ public class GraphPathFinder implements Callable<List<Transition>> {
 
     /**
      * computes all nearest predecessors
-     * @param open a collection of nodes to start searching from. Usually, contains only the starting node. Upon
-     *             returning, its contents is undefined.
-     * @return the nearest node in {@code targets} found.
+     * @param start the index of the node to start searching from.
+     * @return for each node index the edge index of the transition to that node on a shortest path from start, or null
+     * if the end node is not reachable.
      */
-    private Map<State, Transition> BFS(ArrayDeque<State> open) {
-        Map<State, Transition> predecessors = new HashMap<>();
+    private int[] BFS(Adjacency adjacency, int start) {
+        int nrOfStates = adjacency.nrOfStates();
+        int[] predecessors = new int[nrOfStates];
+        boolean[] isVisited = new boolean[nrOfStates];
+        int[] open = new int[nrOfStates];
+        int head = 0;
+        int tail = 0;
 
-        while (!open.isEmpty()) {
-            State node = open.remove();
-            if (node == endNode) return predecessors;
+        open[tail++] = start;
+        isVisited[start] = true;
 
-            List<Transition> outgoing = node.getOutgoing();
+        while (head < tail) {
+            int node = open[head++];
+            if (node == endNode.index) return predecessors;
 
-            for (Transition nextEdge : outgoing) {
-                State nextNode = nextEdge.to;
+            for (int i = adjacency.outStart(node); i < adjacency.outEnd(node); i++) {
+                int nextNode = adjacency.target(i);
 
-                if (nextNode == node) continue; // self-loop
-                if (predecessors.containsKey(nextNode)) continue;
+                if (isVisited[nextNode]) continue; // includes self-loops
 
-                predecessors.put(nextNode, nextEdge);
-                open.add(nextNode);
+                isVisited[nextNode] = true;
+                predecessors[nextNode] = adjacency.outEdge(i);
+                open[tail++] = nextNode;
             }
         }
 
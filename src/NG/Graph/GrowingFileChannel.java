@@ -0,0 +1,98 @@
+package NG.Graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file while a process writes it, such as the .aut output of a state space generator. At the end of the file,
+ * a read waits for more output until the process has exited. Unlike a named pipe, the file is a regular file, such that
+ * the writer may seek back to finish its header after the transitions are written, and the complete file stays on disk
+ * for the next time it is opened. A header that is rewritten after it was read is not read again, so the file should be
+ * read with {@link AutReader#setStream(boolean) streaming} enabled.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class GrowingFileChannel implements ReadableByteChannel {
+    private static final long POLL_INTERVAL_MILLIS = 20;
+
+    private final FileChannel channel;
+    private final Process writer;
+    private final String writerName;
+
+    private GrowingFileChannel(FileChannel channel, Process writer, String writerName) {
+        this.channel = channel;
+        this.writer = writer;
+        this.writerName = writerName;
+    }
+
+    /**
+     * opens the given file, waiting until the writer has created it. The file must not exist before the writer is
+     * started, or its old contents are read instead.
+     * @param file       the file that the writer writes
+     * @param writer     the process that writes the file
+     * @param writerName the name of the writer, for error messages
+     * @throws IOException if the writer exits without creating the file
+     */
+    public static GrowingFileChannel open(File file, Process writer, String writerName) throws IOException {
+        while (!file.exists()) {
+            if (!writer.isAlive()) {
+                checkExitValue(writer, writerName);
+                throw new IOException(writerName + " did not write " + file.getName());
+            }
+            sleep();
+        }
+
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        return new GrowingFileChannel(channel, writer, writerName);
+    }
+
+    /**
+     * reads the next bytes of the file, waiting for the writer if it has not written them yet
+     * @return the number of bytes read, or -1 if the writer has exited and the whole file is read
+     * @throws IOException if the writer exited with a nonzero exit value
+     */
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        while (true) {
+            // checked before reading, such that output written just before exiting is not missed
+            boolean hasExited = !writer.isAlive();
+
+            int read = channel.read(dst);
+            if (read >= 0) return read;
+
+            if (hasExited) {
+                checkExitValue(writer, writerName);
+                return -1;
+            }
+            sleep();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static void checkExitValue(Process writer, String writerName) throws IOException {
+        int exitValue = writer.exitValue();
+        if (exitValue != 0) throw new IOException(writerName + " returned " + exitValue);
+    }
+
+    private static void sleep() throws InterruptedIOException {
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+
+        } catch (InterruptedException ex) {
+            throw new InterruptedIOException("Interrupted while waiting for output");
+        }
+    }
+}
@@ -19,6 +19,7 @@ public class IgnoringGraph extends Graph {
     private final Graph source;
     private final Set<String> edgeActionLabels;
     private final EdgeMesh edgeMesh;
+    private final Adjacency adjacency;
 
     public IgnoringGraph(Graph source, Collection<String> ignoredLabels) {
         super(source.root, "Ignoring of " + source.toString());
@@ -27,16 +28,19 @@ public class IgnoringGraph extends Graph {
         this.edgeActionLabels = new HashSet<>(source.getEdgeLabels());
         this.edgeActionLabels.removeAll(ignoredLabels);
 
+        boolean[] isIgnored = source.getLabelTable().maskOf(ignoredLabels);
         List<Transition> edges = source.getEdgeMesh().edgeList();
         for (Transition sourceEdge : edges) {
-            Transition newEdge = new Transition(sourceEdge.from, sourceEdge.to, sourceEdge.label);
+            Transition newEdge = new Transition(sourceEdge.from, sourceEdge.to, sourceEdge.label, sourceEdge.labelId);
 
-            Color4f color = ignoredLabels.contains(sourceEdge.label) ? IGNORED_COLOR : sourceEdge.getColor();
+            Color4f color = isIgnored[sourceEdge.labelId] ? IGNORED_COLOR : sourceEdge.getColor();
             newEdge.addColor(color, GraphElement.Priority.IGNORE);
             newEdge.handlePos.set(sourceEdge.handlePos);
 
             edgeMesh.addParticle(newEdge);
         }
+
+        this.adjacency = Adjacency.of(source.getNodeMesh().nodeList(), edgeMesh.edgeList());
     }
 
     public void setIgnore(String label, boolean doIgnore) {
@@ -69,6 +73,16 @@ public class IgnoringGraph extends Graph {
         return edgeActionLabels;
     }
 
+    @Override
+    public LabelTable getLabelTable() {
+        return source.getLabelTable();
+    }
+
+    @Override
+    public Adjacency getAdjacency() {
+        return adjacency;
+    }
+
     @Override
     public State getInitialState() {
         return source.getInitialState();
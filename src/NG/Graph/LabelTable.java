@@ -0,0 +1,64 @@
+package NG.Graph;
+
+import java.util.*;
+
+/**
+ * The action labels of a graph, where each distinct label is mapped to a dense id in {@code [0, size())}. Transitions
+ * refer to their label by this id, such that labels can be compared by id rather than by string.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class LabelTable {
+    /** the id returned for labels that do not occur in the table */
+    public static final int NONE = -1;
+
+    private final String[] labels;
+    private final Map<String, Integer> ids;
+
+    /**
+     * @param labels the distinct labels, where the index of each label is its id
+     */
+    public LabelTable(String[] labels) {
+        this.labels = labels;
+        this.ids = new HashMap<>(labels.length * 2);
+
+        for (int i = 0; i < labels.length; i++) {
+            Integer previous = ids.put(labels[i], i);
+            assert previous == null : "duplicate label " + labels[i];
+        }
+    }
+
+    /** @return the label with the given id */
+    public String get(int id) {
+        return labels[id];
+    }
+
+    /** @return the id of the given label, or {@link #NONE} if the label does not occur */
+    public int idOf(String label) {
+        return ids.getOrDefault(label, NONE);
+    }
+
+    /** @return a mask where {@code mask[id]} is true iff the label of that id is in the given collection */
+    public boolean[] maskOf(Collection<String> selection) {
+        boolean[] mask = new boolean[labels.length];
+        for (String label : selection) {
+            int id = idOf(label);
+            if (id != NONE) mask[id] = true;
+        }
+        return mask;
+    }
+
+    /** @return the number of distinct labels */
+    public int size() {
+        return labels.length;
+    }
+
+    /** @return an unmodifiable list of all distinct labels, indexed by id */
+    public List<String> asList() {
+        return Collections.unmodifiableList(Arrays.asList(labels));
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(labels);
+    }
+}
@@ -1,195 +1,120 @@
 package NG.Graph.Layout;
 
 import org.joml.Vector3f;
-import org.joml.Vector3fc;
-
-import java.util.ArrayList;
-import java.util.List;
-import java.util.function.BiFunction;
 
 /**
+ * A Barnes-Hut approximation of the net force on each body of an {@link Octree}. A node of the tree is treated as a
+ * single body in its center of mass if it is sufficiently far away from the body to compute.
  * @author Geert van Ieperen created on 25-9-2020.
  */
-public class BarnesHutTree {
-    private final InternalNode root;
-    private BiFunction<Vector3fc, Vector3fc, Vector3f> function;
+public class BarnesHutTree extends Octree {
+    private ForceFunction function;
+    private BlockForceFunction leafFunction = null;
     private float maxTheta;
-    private int maxDepth = 8;
 
-    public BarnesHutTree(float universeSize) {
-        root = new InternalNode(new Vector3f(), universeSize, 0);
-        setForceComputation((a, b) -> new Vector3f(a).sub(b).div(a.distanceSquared(b)));
+    public BarnesHutTree() {
+        setForceComputation((a, ax, ay, az, bx, by, bz, target, offset) -> {
+            float inverse = 1f / Vector3f.distanceSquared(ax, ay, az, bx, by, bz);
+            target[offset] = (ax - bx) * inverse;
+            target[offset + 1] = (ay - by) * inverse;
+            target[offset + 2] = (az - bz) * inverse;
+        });
         setMaxTheta(0.5f);
     }
 
-    public void setForceComputation(BiFunction<Vector3fc, Vector3fc, Vector3f> function) {
+    public void setForceComputation(ForceFunction function) {
         this.function = function;
     }
 
-    public void setMaxTheta(float maxTheta) {
-        this.maxTheta = maxTheta;
+    /**
+     * Sets the function that computes the bodies of a leaf at once, which must compute the same force as the force
+     * computation. If null, each body of a leaf is computed with the force computation.
+     */
+    public void setLeafComputation(BlockForceFunction leafFunction) {
+        this.leafFunction = leafFunction;
     }
 
-    public void setMaxDepth(int maxDepth) {
-        this.maxDepth = maxDepth;
+    public void setMaxTheta(float maxTheta) {
+        this.maxTheta = maxTheta;
     }
 
-    public void add(Vector3f position) {
-        // limit node position to tree area
-        float maxValue = root.voxelSize / 2;
-        if (position.x > maxValue) position.x = maxValue;
-        if (position.x < -maxValue) position.x = -maxValue;
-        if (position.y > maxValue) position.y = maxValue;
-        if (position.y < -maxValue) position.y = -maxValue;
-        if (position.z > maxValue) position.z = maxValue;
-        if (position.z < -maxValue) position.z = -maxValue;
-
-        root.add(position);
+    /** @return the number of elements of the stack of {@link #getForceOn(int, float[], int, int[], float[])} */
+    public int getStackSize() {
+        // every level on the path to a node leaves at most 7 siblings on the stack
+        return 8 * (maxDepth + 1);
     }
 
     /**
-     * Computes the net force of an element at the given position. If element is not null, the given element is assumed
-     * to be the target element and is ignored.
-     * @param position the position of the element to compute
-     * @return the net force exerted on an element on the given position
+     * Computes the net force of the other bodies on the given body, without allocating. The tree must be updated
+     * with the current positions.
+     * @param body        the index of the body to compute
+     * @param target      the array to store the force in
+     * @param offset      the force is stored in target[offset] to target[offset + 2]
+     * @param stack       an array of at least {@link #getStackSize()} elements, which is overwritten
+     * @param interaction an array of at least 3 elements, which is overwritten
      */
-    public Vector3f getForceOn(Vector3fc position) {
-        return root.getForce(position);
-    }
-
-    interface Node {
-        /**
-         * @param position the position of the element to compute
-         * @return the cumulative force that this node exerts on the given element.
-         */
-        Vector3f getForce(Vector3fc position);
-
-        void add(Vector3fc position);
-    }
-
-    private class InternalNode implements Node {
-        private final List<Node> children;
-        private final Vector3f middle;
-        private final float voxelSize;
-        private final Vector3f centerOfMass;
-        private final int depth;
-        private int nrOfElements;
-
-        public InternalNode(Vector3f middle, float voxelSize, int depth) {
-            this.children = new ArrayList<>(8);
-            this.middle = middle;
-            this.voxelSize = voxelSize;
-            this.depth = depth;
-            centerOfMass = new Vector3f();
-
-            for (int i = 0; i < 8; i++) {
-                children.add(null);
-            }
-        }
-
-        public void add(Vector3fc position) {
-            float x = position.x();
-            float y = position.y();
-            float z = position.z();
-
-            assert x >= middle.x - voxelSize / 2 && x <= middle.x + voxelSize / 2;
-            assert y >= middle.y - voxelSize / 2 && y <= middle.y + voxelSize / 2;
-            assert z >= middle.z - voxelSize / 2 && z <= middle.z + voxelSize / 2;
-
-            int i = 0;
-            if (x < middle.x) i += 4;
-            if (y < middle.y) i += 2;
-            if (z < middle.z) i += 1;
-            Node elt = children.get(i);
-
-            if (elt == null) {
-                elt = new ExternalNode(position);
-                children.set(i, elt);
-
-            } else {
-                if (elt instanceof ExternalNode && depth < maxDepth) {
-                    // expand node
-                    Vector3f newMiddle = new Vector3f(middle);
-                    float quarter = voxelSize / 4;
-                    newMiddle.x += (x < middle.x) ? -quarter : quarter;
-                    newMiddle.y += (y < middle.y) ? -quarter : quarter;
-                    newMiddle.z += (z < middle.z) ? -quarter : quarter;
-
-                    // transform to internal
-                    ExternalNode oldElt = (ExternalNode) elt;
-                    InternalNode newNode = new InternalNode(newMiddle, voxelSize / 2, depth + 1);
-                    newNode.placeExternal(oldElt);
-
-                    elt = newNode;
-                    children.set(i, elt);
+    public void getForceOn(int body, float[] target, int offset, int[] stack, float[] interaction) {
+        float x = positions.get(3 * body);
+        float y = positions.get(3 * body + 1);
+        float z = positions.get(3 * body + 2);
+        float fx = 0, fy = 0, fz = 0;
+
+        int stackSize = 0;
+        if (nrOfNodes > 0) stack[stackSize++] = 0;
+
+        while (stackSize > 0) {
+            int node = stack[--stackSize];
+            int start = nodeStart[node];
+            int end = nodeEnd[node];
+
+            if (end - start > 1) {
+                // To determine if a node is sufficiently far away, compute the quotient s / d, where s is the width of
+                // the region represented by the node, and d is the distance between the body and the node's center-of-mass
+                float cx = centerX[node], cy = centerY[node], cz = centerZ[node];
+                float theta = nodeSize[node] / Vector3f.distance(x, y, z, cx, cy, cz);
+
+                if (theta < maxTheta) {
+                    // treat as single body
+                    function.apply(body, x, y, z, cx, cy, cz, interaction, 0);
+                    float mass = end - start;
+                    fx += interaction[0] * mass;
+                    fy += interaction[1] * mass;
+                    fz += interaction[2] * mass;
+                    continue;
                 }
-
-                elt.add(position);
             }
 
-            centerOfMass.mul(nrOfElements).add(position).div(nrOfElements + 1);
-            nrOfElements++;
-        }
+            if (nrOfChildren[node] == 0 && leafFunction != null) {
+                int skip = -1;
+                for (int k = start; k < end; k++) {
+                    if (order[k] == body) skip = k;
+                }
 
-        private void placeExternal(ExternalNode elt) {
-            for (Vector3fc pos : elt.positions) {
-                add(pos);
-            }
-        }
+                leafFunction.apply(body, x, y, z, sortedX, sortedY, sortedZ, start, end, skip, interaction, 0);
+                fx += interaction[0];
+                fy += interaction[1];
+                fz += interaction[2];
 
-        @Override
-        public Vector3f getForce(Vector3fc position) {
-            // To determine if a node is sufficiently far away, compute the quotient s / d, where s is the width of the
-            // region represented by the internal node, and d is the distance between the body and the node’s center-of-mass
-            float theta = voxelSize / position.distance(centerOfMass);
+            } else if (nrOfChildren[node] == 0) {
+                for (int k = start; k < end; k++) {
+                    if (order[k] == body) continue;
 
-            if (theta < maxTheta) {
-                // treat as single body
-                Vector3f force = function.apply(position, centerOfMass);
-                return force.mul(nrOfElements);
+                    function.apply(body, x, y, z, sortedX[k], sortedY[k], sortedZ[k], interaction, 0);
+                    fx += interaction[0];
+                    fy += interaction[1];
+                    fz += interaction[2];
+                }
 
             } else {
-                Vector3f total = new Vector3f();
-                for (Node node : children) {
-                    if (node == null) continue;
-                    Vector3f force = node.getForce(position);
-                    total = total.add(force);
+                int lastChild = firstChild[node] + nrOfChildren[node];
+                for (int child = firstChild[node]; child < lastChild; child++) {
+                    stack[stackSize++] = child;
                 }
-                return total;
             }
         }
-    }
-
-    private class ExternalNode implements Node {
-        public final List<Vector3fc> positions;
-
-        public ExternalNode(Vector3fc position) {
-            this.positions = new ArrayList<>();
-            positions.add(position);
-        }
-
-        @Override
-        public void add(Vector3fc position) {
-            positions.add(position);
-        }
-
-        @Override
-        public Vector3f getForce(Vector3fc position) {
-            Vector3f combinedForce = new Vector3f();
-
-            boolean foundEqual = false;
-            for (Vector3fc other : positions) {
-                // the requested position occurs exactly once in this node already, we ignore it.
-                if (position.equals(other) && !foundEqual) {
-                    foundEqual = true;
-                    continue;
-                }
 
-                Vector3f force = function.apply(position, other);
-                combinedForce.add(force);
-            }
-
-            return combinedForce;
-        }
+        target[offset] = fx;
+        target[offset + 1] = fy;
+        target[offset + 2] = fz;
     }
 }
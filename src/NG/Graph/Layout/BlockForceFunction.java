@@ -0,0 +1,19 @@
+package NG.Graph.Layout;
+
+/**
+ * A force function that computes the net force on a, affected by a block of bodies stored as separate x, y and z
+ * arrays. Implementations must not allocate, as this is called for every leaf interaction.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public interface BlockForceFunction {
+    /**
+     * stores the net force on a, affected by the bodies in [start, end) except skip, in target[offset] to target[offset
+     * + 2]
+     * @param a    the index of body a, which identifies a in random choices
+     * @param skip the index of a in the block to exclude, or -1 if a is not in the block
+     */
+    void apply(
+            int a, float ax, float ay, float az, float[] xs, float[] ys, float[] zs, int start, int end, int skip,
+            float[] target, int offset
+    );
+}
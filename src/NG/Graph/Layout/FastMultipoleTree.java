@@ -0,0 +1,613 @@
+package NG.Graph.Layout;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * A Fast Multipole approximation of the net force on each body of an {@link Octree}, for forces that follow an inverse
+ * square law beyond some distance. Where Barnes-Hut approximates the interaction of a body with a distant node, this
+ * approximates the interaction of a node with a distant node.
+ * <p>
+ * The bodies of each node are expanded into a multipole expansion around its center of mass, built from the
+ * expansions of the children (P2M, M2M). A dual tree traversal finds the pairs of well-separated nodes, and converts
+ * the multipole expansion of the source into a local expansion of the potential around the center of the sink (M2L).
+ * The local expansions are then shifted down the tree (L2L) and evaluated at the bodies in the leaves (L2P). Pairs of
+ * leaves that are not well-separated are computed exactly with the near field force function, which also covers all
+ * pairs closer than the minimum distance of the far field. The traversal uses larger leaves than the octree, as a
+ * conversion costs about as much as summing a few hundred pairs.
+ * <p>
+ * The expansions are Cartesian Taylor series of the potential 1/r up to the {@link #setOrder(int) order} p: a multipole
+ * holds the moments M_n = sum (c - x)^n / n! of its bodies x around its center c, and a local expansion holds the
+ * derivatives L_k of the potential, for all multi-indices n and k of degree at most p. An M2L adds M_n times the
+ * derivative n + k of 1/r to L_k, for all pairs of which the sum of the degrees is at most p. As the centers are the
+ * centers of mass, the moments of degree 1 are zero, and are skipped. The error of a far field interaction decreases
+ * with theta to the power p + 1.
+ * <p>
+ * The traversal is split in targets: disjoint subtrees that together cover all bodies. The traversal of a target only
+ * writes the local expansions of its own nodes and the forces on its own bodies, such that different targets can be
+ * computed in parallel without reductions.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class FastMultipoleTree extends Octree {
+    public static final int MAX_ORDER = 8;
+
+    private ForceFunction nearField;
+    private float farFieldStrength;
+    private float farFieldMinDistance;
+    private float maxTheta;
+    private int leafSize;
+    private int minNrOfTargets = 1;
+    private Terms terms;
+
+    // indexed by terms.size * node index + term index
+    private float[] multipoles = new float[0];
+    private float[] locals = new float[0];
+    // indexed by node index: an upper bound of the distance of the center of mass to the bodies of the node
+    private float[] radius = new float[0];
+
+    private int[] targets = new int[0];
+    private int nrOfTargets = 0;
+    private float[] monomials = new float[0];
+
+    public FastMultipoleTree() {
+        setFarField(1, 0);
+        setNearField((a, ax, ay, az, bx, by, bz, target, offset) -> {
+            float dx = ax - bx, dy = ay - by, dz = az - bz;
+            float dist = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+            float scalar = farFieldStrength / (dist * dist * dist);
+            target[offset] = dx * scalar;
+            target[offset + 1] = dy * scalar;
+            target[offset + 2] = dz * scalar;
+        });
+        setMaxTheta(0.5f);
+        setOrder(3);
+        setLeafSize(32);
+    }
+
+    /**
+     * sets the force computation of bodies that are close together. Beyond the minimum distance of the far field, this
+     * must be equal to the far field.
+     */
+    public void setNearField(ForceFunction function) {
+        this.nearField = function;
+    }
+
+    /**
+     * Sets the far field to F(a, b) = strength * (a - b) / |a - b|^3. Node pairs are only approximated when all their
+     * bodies are at least minDistance apart.
+     */
+    public void setFarField(float strength, float minDistance) {
+        this.farFieldStrength = strength;
+        this.farFieldMinDistance = minDistance;
+    }
+
+    /**
+     * Two nodes are approximated when the sum of their radii is less than maxTheta times the distance between them. A
+     * theta of 0 computes all interactions exactly. The expansions only converge for a theta below 1, higher values are
+     * treated as 1.
+     */
+    public void setMaxTheta(float maxTheta) {
+        this.maxTheta = Math.min(maxTheta, 1);
+    }
+
+    /**
+     * Sets the highest degree of the terms of the expansions, between 1 and {@value #MAX_ORDER}. A higher order is more
+     * accurate for the same theta, but every interaction of two nodes takes longer. Takes effect at the next update.
+     */
+    public void setOrder(int order) {
+        assert order >= 1 && order <= MAX_ORDER : order;
+        if (terms == null || terms.order != order) terms = new Terms(order);
+    }
+
+    public int getOrder() {
+        return terms.order;
+    }
+
+    /**
+     * Nodes with at most this many bodies are not split by the traversal. Larger leaves compute more pairs exactly, but
+     * need fewer conversions between expansions. Takes effect at the next update.
+     */
+    public void setLeafSize(int leafSize) {
+        this.leafSize = leafSize;
+    }
+
+    /** sets the number of targets that the next update should create, if the tree has enough nodes */
+    public void setMinNrOfTargets(int minNrOfTargets) {
+        this.minNrOfTargets = minNrOfTargets;
+    }
+
+    /** @return the number of targets of {@link #computeForces(int, float[], int[], float[])} */
+    public int getNrOfTargets() {
+        return nrOfTargets;
+    }
+
+    /** @return the number of elements of the stack of {@link #computeForces(int, float[], int[], float[])} */
+    public int getStackSize() {
+        // every split of either node of a pair leaves at most 7 pairs on the stack, and adds at most 8
+        return 2 * 8 * (2 * maxDepth + 3);
+    }
+
+    /** @return the number of elements of the scratch array of {@link #computeForces(int, float[], int[], float[])} */
+    public int getScratchSize() {
+        return terms.size;
+    }
+
+    @Override
+    public boolean update(FloatBuffer positions, int nrOfBodies) {
+        boolean isRebuilt = super.update(positions, nrOfBodies);
+        computeMultipoles();
+        computeTargets();
+        return isRebuilt;
+    }
+
+    /**
+     * Computes the net force on all bodies of the given target, without allocating. The tree must be updated with the
+     * current positions. Only the forces of the bodies of the target and the local expansions of its nodes are written,
+     * such that different targets can be computed in parallel.
+     * @param targetIndex the index of the target, less than {@link #getNrOfTargets()}
+     * @param target      the array to store the forces in, indexed by 3 * body index
+     * @param stack       an array of at least {@link #getStackSize()} elements, which is overwritten
+     * @param scratch     an array of at least {@link #getScratchSize()} elements, which is overwritten
+     */
+    public void computeForces(int targetIndex, float[] target, int[] stack, float[] scratch) {
+        int root = targets[targetIndex];
+        int size = terms.size;
+
+        for (int k = nodeStart[root]; k < nodeEnd[root]; k++) {
+            int i = 3 * order[k];
+            target[i] = 0;
+            target[i + 1] = 0;
+            target[i + 2] = 0;
+        }
+
+        int stackSize = 0;
+        stack[stackSize++] = root;
+        while (stackSize > 0) {
+            int node = stack[--stackSize];
+            Arrays.fill(locals, size * node, size * (node + 1), 0);
+            if (isLeaf(node)) continue;
+
+            int end = firstChild[node] + nrOfChildren[node];
+            for (int child = firstChild[node]; child < end; child++) {
+                stack[stackSize++] = child;
+            }
+        }
+
+        // one-sided dual tree traversal, only the nodes of the target receive forces
+        stack[stackSize++] = root;
+        stack[stackSize++] = 0;
+        while (stackSize > 0) {
+            int source = stack[--stackSize];
+            int sink = stack[--stackSize];
+
+            if (isWellSeparated(sink, source)) {
+                multipoleToLocal(sink, source, scratch);
+                continue;
+            }
+
+            boolean sinkIsLeaf = isLeaf(sink);
+            boolean sourceIsLeaf = isLeaf(source);
+
+            if (sinkIsLeaf && sourceIsLeaf) {
+                computeNearField(sink, source, target, scratch);
+
+            } else if (!sourceIsLeaf && (sinkIsLeaf || radius[source] >= radius[sink])) {
+                int end = firstChild[source] + nrOfChildren[source];
+                for (int child = firstChild[source]; child < end; child++) {
+                    stack[stackSize++] = sink;
+                    stack[stackSize++] = child;
+                }
+
+            } else {
+                int end = firstChild[sink] + nrOfChildren[sink];
+                for (int child = firstChild[sink]; child < end; child++) {
+                    stack[stackSize++] = child;
+                    stack[stackSize++] = source;
+                }
+            }
+        }
+
+        // pass the local expansions down to the bodies
+        stack[stackSize++] = root;
+        while (stackSize > 0) {
+            int node = stack[--stackSize];
+
+            if (isLeaf(node)) {
+                localToBodies(node, target, scratch);
+
+            } else {
+                int end = firstChild[node] + nrOfChildren[node];
+                for (int child = firstChild[node]; child < end; child++) {
+                    localToLocal(node, child, scratch);
+                    stack[stackSize++] = child;
+                }
+            }
+        }
+    }
+
+    private boolean isLeaf(int node) {
+        return nrOfChildren[node] == 0 || nodeEnd[node] - nodeStart[node] <= leafSize;
+    }
+
+    private boolean isWellSeparated(int sink, int source) {
+        float dx = centerX[sink] - centerX[source];
+        float dy = centerY[sink] - centerY[source];
+        float dz = centerZ[sink] - centerZ[source];
+        float dist = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        float radii = radius[sink] + radius[source];
+
+        return radii < maxTheta * dist && dist - radii >= farFieldMinDistance;
+    }
+
+    /** computes the force of all bodies of source on all bodies of sink exactly */
+    private void computeNearField(int sink, int source, float[] target, float[] scratch) {
+        for (int k = nodeStart[sink]; k < nodeEnd[sink]; k++) {
+            float x = sortedX[k], y = sortedY[k], z = sortedZ[k];
+            int body = order[k];
+            float fx = 0, fy = 0, fz = 0;
+
+            for (int j = nodeStart[source]; j < nodeEnd[source]; j++) {
+                if (j == k) continue;
+
+                nearField.apply(body, x, y, z, sortedX[j], sortedY[j], sortedZ[j], scratch, 0);
+                fx += scratch[0];
+                fy += scratch[1];
+                fz += scratch[2];
+            }
+
+            int i = 3 * body;
+            target[i] += fx;
+            target[i + 1] += fy;
+            target[i + 2] += fz;
+        }
+    }
+
+    /** adds the potential of the multipole expansion of source to the local expansion of sink (M2L) */
+    private void multipoleToLocal(int sink, int source, float[] scratch) {
+        terms.derivatives(
+                centerX[sink] - centerX[source], centerY[sink] - centerY[source], centerZ[sink] - centerZ[source],
+                scratch
+        );
+
+        int l = terms.size * sink;
+        int m = terms.size * source;
+        int[] local = terms.m2lLocal;
+        int[] multipole = terms.m2lMultipole;
+        int[] derivative = terms.m2lDerivative;
+        for (int q = 0; q < local.length; q++) {
+            locals[l + local[q]] += multipoles[m + multipole[q]] * scratch[derivative[q]];
+        }
+    }
+
+    /** adds the local expansion of parent, shifted to the center of child, to the local expansion of child (L2L) */
+    private void localToLocal(int parent, int child, float[] scratch) {
+        terms.monomials(
+                centerX[child] - centerX[parent], centerY[child] - centerY[parent], centerZ[child] - centerZ[parent],
+                scratch
+        );
+
+        int c = terms.size * child;
+        int p = terms.size * parent;
+        int[] shifted = terms.l2lTarget;
+        int[] monomial = terms.l2lMonomial;
+        int[] local = terms.l2lSource;
+        for (int q = 0; q < shifted.length; q++) {
+            locals[c + shifted[q]] += scratch[monomial[q]] * locals[p + local[q]];
+        }
+    }
+
+    /** adds the force of the local expansion of a leaf to its bodies (L2P) */
+    private void localToBodies(int node, float[] target, float[] scratch) {
+        int l = terms.size * node;
+        float s = -farFieldStrength;
+        int[] monomial = terms.gradientMonomial;
+        int[] localX = terms.gradientX;
+        int[] localY = terms.gradientY;
+        int[] localZ = terms.gradientZ;
+
+        for (int k = nodeStart[node]; k < nodeEnd[node]; k++) {
+            terms.monomials(sortedX[k] - centerX[node], sortedY[k] - centerY[node], sortedZ[k] - centerZ[node], scratch);
+
+            float gx = 0, gy = 0, gz = 0;
+            for (int q = 0; q < monomial.length; q++) {
+                float factor = scratch[monomial[q]];
+                gx += factor * locals[l + localX[q]];
+                gy += factor * locals[l + localY[q]];
+                gz += factor * locals[l + localZ[q]];
+            }
+
+            int i = 3 * order[k];
+            target[i] += s * gx;
+            target[i + 1] += s * gy;
+            target[i + 2] += s * gz;
+        }
+    }
+
+    /** computes the multipole expansions and radii of all nodes, children before parents (P2M and M2M) */
+    private void computeMultipoles() {
+        int size = terms.size;
+        multipoles = ensureSize(multipoles, size * nrOfNodes);
+        locals = ensureSize(locals, size * nrOfNodes);
+        radius = ensureSize(radius, nrOfNodes);
+        monomials = ensureSize(monomials, size);
+
+        for (int node = nrOfNodes - 1; node >= 0; node--) {
+            float cx = centerX[node], cy = centerY[node], cz = centerZ[node];
+            int m = size * node;
+            Arrays.fill(multipoles, m, m + size, 0);
+            float maxDistance = 0;
+
+            if (nrOfChildren[node] == 0) {
+                for (int k = nodeStart[node]; k < nodeEnd[node]; k++) {
+                    float dx = cx - sortedX[k], dy = cy - sortedY[k], dz = cz - sortedZ[k];
+                    terms.monomials(dx, dy, dz, monomials);
+                    for (int t = 0; t < size; t++) {
+                        multipoles[m + t] += monomials[t];
+                    }
+                    maxDistance = Math.max(maxDistance, dx * dx + dy * dy + dz * dz);
+                }
+                maxDistance = (float) Math.sqrt(maxDistance);
+
+            } else {
+                int[] shifted = terms.m2mTarget;
+                int[] monomial = terms.m2mMonomial;
+                int[] moment = terms.m2mSource;
+                int end = firstChild[node] + nrOfChildren[node];
+
+                for (int child = firstChild[node]; child < end; child++) {
+                    float dx = cx - centerX[child], dy = cy - centerY[child], dz = cz - centerZ[child];
+                    terms.monomials(dx, dy, dz, monomials);
+                    int c = size * child;
+                    for (int q = 0; q < shifted.length; q++) {
+                        multipoles[m + shifted[q]] += monomials[monomial[q]] * multipoles[c + moment[q]];
+                    }
+                    float distance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+                    maxDistance = Math.max(maxDistance, distance + radius[child]);
+                }
+            }
+
+            // the bounds of the node limit the radius as well
+            float rx = Math.max(cx - minX[node], maxX[node] - cx);
+            float ry = Math.max(cy - minY[node], maxY[node] - cy);
+            float rz = Math.max(cz - minZ[node], maxZ[node] - cz);
+            radius[node] = Math.min(maxDistance, (float) Math.sqrt(rx * rx + ry * ry + rz * rz));
+        }
+    }
+
+    /** splits the tree in at least {@link #minNrOfTargets} targets, by repeatedly splitting the largest target */
+    private void computeTargets() {
+        nrOfTargets = 0;
+        if (nrOfNodes == 0) return;
+
+        targets = ensureSize(targets, 1);
+        targets[nrOfTargets++] = 0;
+
+        while (nrOfTargets < minNrOfTargets) {
+            int largest = -1;
+            int largestSize = 0;
+            for (int t = 0; t < nrOfTargets; t++) {
+                int node = targets[t];
+                int size = nodeEnd[node] - nodeStart[node];
+                if (!isLeaf(node) && size > largestSize) {
+                    largest = t;
+                    largestSize = size;
+                }
+            }
+            if (largest < 0) break;
+
+            int node = targets[largest];
+            if (targets.length < nrOfTargets + nrOfChildren[node]) {
+                targets = Arrays.copyOf(targets, 2 * (nrOfTargets + nrOfChildren[node]));
+            }
+
+            targets[largest] = firstChild[node];
+            int end = firstChild[node] + nrOfChildren[node];
+            for (int child = firstChild[node] + 1; child < end; child++) {
+                targets[nrOfTargets++] = child;
+            }
+        }
+    }
+
+    /**
+     * The multi-indices n = (a, b, c) of degree |n| = a + b + c up to the order of the expansions, sorted on degree, and
+     * the tables of the operators on expansions as flat lists of index triples.
+     */
+    private static class Terms {
+        final int order;
+        final int size;
+        // the index of each multi-index, or -1 if its degree exceeds the order
+        private final int[][][] index;
+
+        // monomials y^n / n! are computed from the monomial of n minus one unit in the given dimension
+        private final int[] monomialParent;
+        private final int[] monomialDimension;
+        private final float[] monomialFactor;
+
+        // derivatives of 1/r are computed from the derivatives of n - e_i and n - 2e_i, for each dimension i
+        private final int[][] derivativeParent;
+        private final int[][] derivativeGrandParent;
+        private final float[][] derivativeParentFactor;
+        private final float[][] derivativeGrandParentFactor;
+
+        // M2L: locals[k] += multipoles[n] * derivatives[n + k]
+        final int[] m2lLocal;
+        final int[] m2lMultipole;
+        final int[] m2lDerivative;
+        // M2M: multipoles[n] += monomials[n - m] * child multipoles[m]
+        final int[] m2mTarget;
+        final int[] m2mMonomial;
+        final int[] m2mSource;
+        // L2L: locals[j] += monomials[m] * parent locals[j + m]
+        final int[] l2lTarget;
+        final int[] l2lMonomial;
+        final int[] l2lSource;
+        // L2P: gradient[i] += monomials[j] * locals[j + e_i]
+        final int[] gradientMonomial;
+        final int[] gradientX;
+        final int[] gradientY;
+        final int[] gradientZ;
+
+        Terms(int order) {
+            this.order = order;
+            this.size = (order + 1) * (order + 2) * (order + 3) / 6;
+            index = new int[order + 1][order + 1][order + 1];
+            int[][] exponents = new int[size][];
+
+            for (int[][] plane : index) {
+                for (int[] row : plane) {
+                    Arrays.fill(row, -1);
+                }
+            }
+            int t = 0;
+            for (int degree = 0; degree <= order; degree++) {
+                for (int a = degree; a >= 0; a--) {
+                    for (int b = degree - a; b >= 0; b--) {
+                        int c = degree - a - b;
+                        index[a][b][c] = t;
+                        exponents[t++] = new int[]{a, b, c};
+                    }
+                }
+            }
+
+            monomialParent = new int[size];
+            monomialDimension = new int[size];
+            monomialFactor = new float[size];
+            derivativeParent = new int[3][size];
+            derivativeGrandParent = new int[3][size];
+            derivativeParentFactor = new float[3][size];
+            derivativeGrandParentFactor = new float[3][size];
+
+            for (t = 1; t < size; t++) {
+                int[] n = exponents[t];
+                int degree = n[0] + n[1] + n[2];
+
+                int dimension = n[0] > 0 ? 0 : (n[1] > 0 ? 1 : 2);
+                monomialParent[t] = indexOf(n, dimension, -1);
+                monomialDimension[t] = dimension;
+                monomialFactor[t] = 1f / n[dimension];
+
+                // degree * r^2 * D_n = -(2 degree - 1) sum n_i x_i D_{n - e_i} - (degree - 1) sum n_i (n_i - 1) D_{n - 2e_i}
+                for (int i = 0; i < 3; i++) {
+                    derivativeParent[i][t] = n[i] >= 1 ? indexOf(n, i, -1) : 0;
+                    derivativeParentFactor[i][t] = -(2f * degree - 1) * n[i] / degree;
+                    derivativeGrandParent[i][t] = n[i] >= 2 ? indexOf(n, i, -2) : 0;
+                    derivativeGrandParentFactor[i][t] = -(degree - 1f) * n[i] * (n[i] - 1) / degree;
+                }
+            }
+
+            IntList m2lLocalList = new IntList(), m2lMultipoleList = new IntList(), m2lDerivativeList = new IntList();
+            IntList m2mTargetList = new IntList(), m2mMonomialList = new IntList(), m2mSourceList = new IntList();
+            IntList l2lTargetList = new IntList(), l2lMonomialList = new IntList(), l2lSourceList = new IntList();
+
+            for (int k = 0; k < size; k++) {
+                int[] a = exponents[k];
+                for (int n = 0; n < size; n++) {
+                    int[] b = exponents[n];
+                    int sum = indexOf(a[0] + b[0], a[1] + b[1], a[2] + b[2]);
+                    if (sum < 0) continue;
+
+                    // the potential itself and the moments of degree 1 do not contribute to the forces
+                    if (degreeOf(a) >= 1 && degreeOf(b) != 1) {
+                        m2lLocalList.add(k);
+                        m2lMultipoleList.add(n);
+                        m2lDerivativeList.add(sum);
+                    }
+                    if (degreeOf(b) != 1) {
+                        m2mTargetList.add(sum);
+                        m2mMonomialList.add(k);
+                        m2mSourceList.add(n);
+                    }
+                    if (degreeOf(a) >= 1) {
+                        l2lTargetList.add(k);
+                        l2lMonomialList.add(n);
+                        l2lSourceList.add(sum);
+                    }
+                }
+            }
+
+            m2lLocal = m2lLocalList.toArray();
+            m2lMultipole = m2lMultipoleList.toArray();
+            m2lDerivative = m2lDerivativeList.toArray();
+            m2mTarget = m2mTargetList.toArray();
+            m2mMonomial = m2mMonomialList.toArray();
+            m2mSource = m2mSourceList.toArray();
+            l2lTarget = l2lTargetList.toArray();
+            l2lMonomial = l2lMonomialList.toArray();
+            l2lSource = l2lSourceList.toArray();
+
+            int nrOfGradientTerms = order * (order + 1) * (order + 2) / 6;
+            gradientMonomial = new int[nrOfGradientTerms];
+            gradientX = new int[nrOfGradientTerms];
+            gradientY = new int[nrOfGradientTerms];
+            gradientZ = new int[nrOfGradientTerms];
+            for (int j = 0; j < nrOfGradientTerms; j++) {
+                int[] n = exponents[j];
+                gradientMonomial[j] = j;
+                gradientX[j] = indexOf(n, 0, 1);
+                gradientY[j] = indexOf(n, 1, 1);
+                gradientZ[j] = indexOf(n, 2, 1);
+            }
+        }
+
+        /** stores y^n / n! for all multi-indices n in target */
+        void monomials(float x, float y, float z, float[] target) {
+            target[0] = 1;
+            for (int t = 1; t < size; t++) {
+                int dimension = monomialDimension[t];
+                float value = dimension == 0 ? x : (dimension == 1 ? y : z);
+                target[t] = target[monomialParent[t]] * value * monomialFactor[t];
+            }
+        }
+
+        /** stores the derivative n of 1/r at (x, y, z) for all multi-indices n in target */
+        void derivatives(float x, float y, float z, float[] target) {
+            float inverseSquared = 1f / (x * x + y * y + z * z);
+            target[0] = (float) Math.sqrt(inverseSquared);
+
+            int[] parentX = derivativeParent[0], parentY = derivativeParent[1], parentZ = derivativeParent[2];
+            int[] grandX = derivativeGrandParent[0], grandY = derivativeGrandParent[1], grandZ = derivativeGrandParent[2];
+            float[] factorX = derivativeParentFactor[0], factorY = derivativeParentFactor[1];
+            float[] factorZ = derivativeParentFactor[2];
+            float[] grandFactorX = derivativeGrandParentFactor[0], grandFactorY = derivativeGrandParentFactor[1];
+            float[] grandFactorZ = derivativeGrandParentFactor[2];
+
+            for (int t = 1; t < size; t++) {
+                float value = factorX[t] * x * target[parentX[t]]
+                        + factorY[t] * y * target[parentY[t]]
+                        + factorZ[t] * z * target[parentZ[t]]
+                        + grandFactorX[t] * target[grandX[t]]
+                        + grandFactorY[t] * target[grandY[t]]
+                        + grandFactorZ[t] * target[grandZ[t]];
+                target[t] = value * inverseSquared;
+            }
+        }
+
+        private int indexOf(int a, int b, int c) {
+            if (a + b + c > order) return -1;
+            return index[a][b][c];
+        }
+
+        /** @return the index of n with delta added to dimension i, or -1 if the degree exceeds the order */
+        private int indexOf(int[] n, int i, int delta) {
+            return indexOf(n[0] + (i == 0 ? delta : 0), n[1] + (i == 1 ? delta : 0), n[2] + (i == 2 ? delta : 0));
+        }
+
+        private static int degreeOf(int[] n) {
+            return n[0] + n[1] + n[2];
+        }
+    }
+
+    private static class IntList {
+        private int[] values = new int[64];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
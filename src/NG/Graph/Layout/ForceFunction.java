@@ -0,0 +1,14 @@
+package NG.Graph.Layout;
+
+/**
+ * A force function that computes the force on a, affected by b. Implementations must not allocate, as this is called
+ * for every interaction.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public interface ForceFunction {
+    /**
+     * stores the force on a, affected by b, in target[offset] to target[offset + 2]
+     * @param a the index of body a, which identifies a in random choices
+     */
+    void apply(int a, float ax, float ay, float az, float bx, float by, float bz, float[] target, int offset);
+}
@@ -1,17 +1,18 @@
 package NG.Graph.Layout;
 
+import NG.Graph.Adjacency;
 import NG.Graph.SourceGraph;
 import NG.Graph.State;
 import NG.Graph.Transition;
 
-import java.util.*;
+import java.util.Arrays;
 
 /**
  * @author Geert van Ieperen created on 20-7-2020.
  */
 public final class HDEPositioning {
     public static final int PCA_OFFSET = 0; // sometimes ignoring the first axis gives better results
-    private static final int NUM_INITIAL_DIMENSIONS = 30; // m
+    static final int NUM_INITIAL_DIMENSIONS = 30; // m
     private static final int NUM_TARGET_DIMENSIONS = 3; // k
     private static final double THRESHOLD = 1 / 128f;
 
@@ -20,7 +21,7 @@ public final class HDEPositioning {
         Transition[] edges = graph.edges;
 
         // create position mapping
-        double[][] positions = position(edges, states);
+        double[][] positions = position(graph.getAdjacency());
 
         // set state position
         for (int i = 0; i < states.length; i++) {
@@ -41,20 +42,11 @@ public final class HDEPositioning {
         graph.getEdgeMesh().schedulePositionReload();
     }
 
-    public static double[][] position(Transition[] edges, State[] nodes) {
-        int initialDimensions = Math.min(NUM_INITIAL_DIMENSIONS, nodes.length);
-
-        // make mapping bidirectional
-        HashMap<State, Collection<State>> biMapping = new HashMap<>();
-        for (Transition edge : edges) {
-            biMapping.computeIfAbsent(edge.from, n -> new HashSet<>())
-                    .add(edge.to);
-            biMapping.computeIfAbsent(edge.to, n -> new HashSet<>())
-                    .add(edge.from);
-        }
+    public static double[][] position(Adjacency adjacency) {
+        int initialDimensions = Math.min(NUM_INITIAL_DIMENSIONS, adjacency.nrOfStates());
 
         // get coordinates as [nodes.length][NUM_INITIAL_DIMENSIONS]
-        double[][] coordinates = getHighDimensionLayout(biMapping, nodes, initialDimensions); // X
+        double[][] coordinates = getHighDimensionLayout(adjacency, initialDimensions); // X
 
         // get covariance matrix as [NUM_INITIAL_DIMENSIONS][NUM_INITIAL_DIMENSIONS]
         center(coordinates);
@@ -100,30 +92,51 @@ public final class HDEPositioning {
         }
     }
 
-    private static double[][] getHighDimensionLayout(
-            Map<State, Collection<State>> mapping, State[] nodes, int initialDimensions
-    ) {
-        double[][] coordinates = new double[nodes.length][initialDimensions];
-        int[] anchorDistance = new int[nodes.length]; // distance to any picked coordinate
-        Arrays.fill(anchorDistance, Integer.MAX_VALUE);
+    private static double[][] getHighDimensionLayout(Adjacency adjacency, int initialDimensions) {
+        int nrOfNodes = adjacency.nrOfStates();
+        int[][] distances = getPivotDistances(adjacency, new int[initialDimensions]);
+        double[][] coordinates = new double[nrOfNodes][initialDimensions];
 
-        State pivot = nodes[0];
         for (int i = 0; i < initialDimensions; i++) {
+            for (int j = 0; j < nrOfNodes; j++) {
+                assert distances[i][j] >= 0 : "state " + j + " is not connected to pivot " + i;
+                coordinates[j][i] = distances[i][j];
+            }
+        }
+
+        return coordinates;
+    }
+
+    /**
+     * Chooses pivots and computes the undirected distance of every node to each pivot. The first pivot is node 0, and
+     * each next pivot is the node furthest from all previous pivots. Nodes that are not connected to any previous pivot
+     * are furthest, such that every component receives a pivot if there are enough.
+     * @param adjacency the graph
+     * @param pivots    receives the pivots, one for each element
+     * @return the distances, where element [i][j] is the distance of node j to pivot i, or -1 if j is not connected to
+     * pivot i
+     */
+    static int[][] getPivotDistances(Adjacency adjacency, int[] pivots) {
+        int nrOfNodes = adjacency.nrOfStates();
+        int[][] distances = new int[pivots.length][];
+        int[] anchorDistance = new int[nrOfNodes]; // distance to any picked pivot
+        Arrays.fill(anchorDistance, Integer.MAX_VALUE);
+        int[] open = new int[nrOfNodes];
+
+        int pivot = 0;
+        for (int i = 0; i < pivots.length; i++) {
             // compute all distances to pivot
-            Map<State, Integer> distances = getAllDistances(pivot, mapping);
+            pivots[i] = pivot;
+            distances[i] = new int[nrOfNodes];
+            getAllDistances(pivot, adjacency, distances[i], open);
             int bestPivotDistance = 0;
             int bestPivotIndex = 0;
 
-            for (int j = 0; j < nodes.length; j++) {
-                State node = nodes[j];
-                assert distances.containsKey(node) : node;
-
-                // write distances from this node to this pivot
-                int dist = distances.get(node);
-                coordinates[j][i] = dist;
+            for (int j = 0; j < nrOfNodes; j++) {
+                int dist = distances[i][j];
 
                 // also look for the best next pivot
-                int thisAnchorDist = Math.min(anchorDistance[j], dist);
+                int thisAnchorDist = dist < 0 ? anchorDistance[j] : Math.min(anchorDistance[j], dist);
                 anchorDistance[j] = thisAnchorDist;
                 if (thisAnchorDist > bestPivotDistance) {
                     bestPivotDistance = thisAnchorDist;
@@ -132,55 +145,48 @@ public final class HDEPositioning {
             }
 
             // next pivot is the furthest away from the known pivots
-            pivot = nodes[bestPivotIndex];
+            pivot = bestPivotIndex;
         }
 
-        return coordinates;
+        return distances;
     }
 
-    private static double[][] getHighDimensionLayout2(
-            Map<State, Collection<State>> mapping, State[] nodes, int initialDimensions
-    ) {
-        double[][] coordinates = new double[nodes.length][initialDimensions];
-
-        return coordinates;
-    }
+    /**
+     * computes the undirected distance of each node to the given node using breadth-first search
+     * @param source    the node to compute the distances to
+     * @param adjacency the graph
+     * @param distances receives the distance of each node to source, or -1 for nodes that are not connected to source
+     * @param open      an array of at least the number of nodes, used as queue
+     */
+    static void getAllDistances(int source, Adjacency adjacency, int[] distances, int[] open) {
+        Arrays.fill(distances, -1);
+        int head = 0;
+        int tail = 0;
+
+        open[tail++] = source;
+        distances[source] = 0;
+
+        while (head < tail) {
+            int node = open[head++];
+            int nextDist = distances[node] + 1;
+
+            // the graph is treated as undirected
+            for (int i = adjacency.outStart(node); i < adjacency.outEnd(node); i++) {
+                int secondary = adjacency.target(i);
+                if (distances[secondary] < 0) {
+                    distances[secondary] = nextDist;
+                    open[tail++] = secondary;
+                }
+            }
 
-    private static Map<State, Integer> getAllDistances(
-            State p1, Map<State, Collection<State>> mapping
-    ) {
-        Map<State, Integer> distances = new HashMap<>();
-        Queue<State> open = new ArrayDeque<>();
-        open.add(p1);
-        distances.put(p1, 0);
-
-        while (!open.isEmpty()) {
-            State node = open.remove();
-            int baseDist = distances.get(node);
-
-            if (mapping.containsKey(node)) { // deadlocks have no outgoing transitions
-                for (State secondary : mapping.get(node)) {
-
-                    if (distances.containsKey(secondary)) {
-                        int secDist = distances.get(secondary);
-                        if (baseDist + 1 < secDist) {
-                            distances.put(secondary, baseDist + 1);
-                        }
-                        // mutual
-                        if (baseDist > secDist + 1) {
-                            distances.put(node, secDist + 1);
-                        }
-
-                    } else {
-                        int current = baseDist + 1;
-                        distances.put(secondary, current);
-                        open.add(secondary);
-                    }
+            for (int i = adjacency.inStart(node); i < adjacency.inEnd(node); i++) {
+                int secondary = adjacency.source(i);
+                if (distances[secondary] < 0) {
+                    distances[secondary] = nextDist;
+                    open[tail++] = secondary;
                 }
             }
         }
-
-        return distances;
     }
 
     /**
@@ -0,0 +1,270 @@
+package NG.Graph.Layout;
+
+import NG.Graph.Adjacency;
+import NG.Graph.SourceGraph;
+import NG.Graph.State;
+import NG.Tools.CounterRandom;
+import NG.Tools.Directory;
+import NG.Tools.Logger;
+import org.joml.Vector3f;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A binary file with the positions of the states and edge handles of a graph, and which states are fixed. A layout
+ * file is only applied to a graph with the same structure as the graph it was written from. The order of the
+ * transitions may differ, as the structure hash does not depend on it, and the handles are stored in the
+ * {@link #canonicalOrder(Adjacency) canonical order} of the transitions.
+ * <p>
+ * Layout files are either stored next to the graph file, or as snapshot in the {@link Directory#layouts layouts
+ * directory}, named after the hash of the graph structure. Snapshots are found independent of the location of the
+ * graph file. Only the {@value #MAX_NR_OF_SNAPSHOTS} most recently written snapshots are kept.
+ * <p>
+ * Format, all values little-endian:
+ * <ul>
+ * <li>header      ::= magic version nr_of_states nr_of_transitions structure_hash (int int int int long), padded to
+ * {@value #HEADER_SIZE} bytes</li>
+ * <li>states      ::= float[3 * nr_of_states], the x, y, z position of each state</li>
+ * <li>handles     ::= float[3 * nr_of_transitions], the x, y, z position of the handle of each transition, in canonical
+ * order</li>
+ * <li>flags       ::= byte[nr_of_states], with bit 0 for {@link State#isFixed} and bit 1 for {@link State#stayFixed}</li>
+ * </ul>
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public final class LayoutFile {
+    public static final String EXTENSION = ".layout";
+    private static final int MAGIC = 0x5459414C; // "LAYT"
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 32;
+    private static final int IO_BUFFER_SIZE = 1 << 20;
+    private static final byte IS_FIXED = 1;
+    private static final byte STAY_FIXED = 2;
+    private static final int MAX_NR_OF_SNAPSHOTS = 20;
+
+    private LayoutFile() {
+    }
+
+    /** @return the file where the layout of the given graph file is stored */
+    public static File layoutFileOf(File graphFile) {
+        return new File(graphFile.getPath() + EXTENSION);
+    }
+
+    /** @return the file where the snapshot of the layout of the given graph is stored */
+    public static File snapshotFileOf(SourceGraph graph) {
+        String name = String.format("%016x%s", structureHash(graph.getAdjacency()), EXTENSION);
+        return Directory.layouts.getFile(name);
+    }
+
+    /**
+     * applies the most recent of the layout file next to the given graph file and the snapshot of the graph, if any of
+     * these belongs to the graph. Failing to read a layout file is logged.
+     * @return true if a layout is applied
+     */
+    public static boolean restore(SourceGraph graph, File graphFile) {
+        File[] candidates = {layoutFileOf(graphFile), snapshotFileOf(graph)};
+        Arrays.sort(candidates, Comparator.comparingLong(File::lastModified).reversed());
+
+        for (File layoutFile : candidates) {
+            if (!layoutFile.exists()) continue;
+
+            long startTime = System.nanoTime();
+            try {
+                if (read(graph, layoutFile)) {
+                    Logger.DEBUG.printf("Read layout %s in %d ms", layoutFile.getName(), (System.nanoTime() - startTime) / 1_000_000);
+                    return true;
+                }
+
+                Logger.DEBUG.print(layoutFile.getName() + " belongs to a different graph");
+
+            } catch (IOException ex) {
+                Logger.WARN.print("Could not read layout " + layoutFile + ": " + ex.getMessage());
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * writes the snapshot of the given graph, and deletes the oldest snapshots. Failing to write the snapshot is
+     * logged, but otherwise ignored.
+     */
+    public static void storeSnapshot(SourceGraph graph) {
+        File snapshotFile = snapshotFileOf(graph);
+
+        try {
+            long startTime = System.nanoTime();
+            write(graph, snapshotFile);
+            Logger.DEBUG.printf("Wrote layout snapshot %s in %d ms", snapshotFile.getName(), (System.nanoTime() - startTime) / 1_000_000);
+
+        } catch (IOException ex) {
+            Logger.WARN.print("Could not write layout snapshot " + snapshotFile + ": " + ex.getMessage());
+        }
+
+        deleteOldSnapshots(Directory.layouts.getDirectory(), MAX_NR_OF_SNAPSHOTS);
+    }
+
+    /** deletes all but the given number of most recently written layout files in the given directory */
+    public static void deleteOldSnapshots(File directory, int nrToKeep) {
+        File[] snapshots = directory.listFiles((d, name) -> name.endsWith(EXTENSION));
+        if (snapshots == null || snapshots.length <= nrToKeep) return;
+
+        Arrays.sort(snapshots, Comparator.comparingLong(File::lastModified).reversed());
+        for (int i = nrToKeep; i < snapshots.length; i++) {
+            if (!snapshots[i].delete()) Logger.WARN.print("Could not delete layout snapshot " + snapshots[i]);
+        }
+    }
+
+    /**
+     * writes the positions of the given graph to a layout file. The file is first written to a temporary file, which
+     * then replaces the layout file.
+     */
+    public static void write(SourceGraph graph, File layoutFile) throws IOException {
+        Path target = layoutFile.toPath();
+        Path temporary = target.resolveSibling(layoutFile.getName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE
+        )) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(MAGIC).putInt(VERSION)
+                    .putInt(graph.states.length).putInt(graph.edges.length)
+                    .putLong(structureHash(graph.getAdjacency()));
+            buffer.position(HEADER_SIZE);
+
+            for (State state : graph.states) {
+                if (buffer.remaining() < 12) flush(channel, buffer);
+                buffer.putFloat(state.position.x).putFloat(state.position.y).putFloat(state.position.z);
+            }
+            for (int e : canonicalOrder(graph.getAdjacency())) {
+                if (buffer.remaining() < 12) flush(channel, buffer);
+                Vector3f handle = graph.edges[e].handlePos;
+                buffer.putFloat(handle.x).putFloat(handle.y).putFloat(handle.z);
+            }
+            for (State state : graph.states) {
+                if (!buffer.hasRemaining()) flush(channel, buffer);
+                buffer.put((byte) ((state.isFixed ? IS_FIXED : 0) | (state.stayFixed ? STAY_FIXED : 0)));
+            }
+            flush(channel, buffer);
+        }
+
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * sets the positions of the given graph to those in the given layout file, if the file belongs to a graph of the
+     * same structure.
+     * @return true if the positions are applied, false if the file belongs to a different graph
+     * @throws IOException if the file could not be read or is corrupted
+     */
+    public static boolean read(SourceGraph graph, File layoutFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(layoutFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) return false;
+
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) return false;
+            if (header.getInt() != graph.states.length || header.getInt() != graph.edges.length) return false;
+            if (header.getLong() != structureHash(graph.getAdjacency())) return false;
+
+            int nrOfStates = graph.states.length;
+            int nrOfEdges = graph.edges.length;
+            long positionBytes = 12L * (nrOfStates + nrOfEdges);
+            if (channel.size() != HEADER_SIZE + positionBytes + nrOfStates) {
+                throw new IOException("Unexpected layout file size");
+            }
+
+            ByteBuffer body = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, positionBytes + nrOfStates)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            float[] positions = new float[3 * Math.max(nrOfStates, nrOfEdges)];
+            FloatBuffer floats = body.asFloatBuffer();
+
+            floats.get(positions, 0, 3 * nrOfStates);
+            for (int i = 0; i < nrOfStates; i++) {
+                graph.states[i].position.set(positions[3 * i], positions[3 * i + 1], positions[3 * i + 2]);
+            }
+            floats.get(positions, 0, 3 * nrOfEdges);
+            int[] order = canonicalOrder(graph.getAdjacency());
+            for (int i = 0; i < nrOfEdges; i++) {
+                graph.edges[order[i]].handlePos.set(positions[3 * i], positions[3 * i + 1], positions[3 * i + 2]);
+            }
+
+            body.position((int) positionBytes);
+            for (State state : graph.states) {
+                byte flags = body.get();
+                state.isFixed = (flags & IS_FIXED) != 0;
+                state.stayFixed = (flags & STAY_FIXED) != 0;
+            }
+        }
+
+        graph.getNodeMesh().schedulePositionReload();
+        graph.getEdgeMesh().schedulePositionReload();
+        return true;
+    }
+
+    /**
+     * @return a hash of the number of states, and the source, label and target of each transition. The hashes of the
+     * transitions are summed, such that the hash does not depend on the order of the transitions.
+     */
+    public static long structureHash(Adjacency adjacency) {
+        long sum = 0;
+        for (int e = 0; e < adjacency.nrOfEdges(); e++) {
+            long endPoints = ((long) adjacency.from(e) << 32) | adjacency.to(e);
+            sum += CounterRandom.hash(endPoints, adjacency.label(e));
+        }
+        return CounterRandom.hash(sum, adjacency.nrOfStates());
+    }
+
+    /**
+     * @return the edge indices sorted on source, then label, then target. Transitions that are equal on all three keep
+     * the order of their edge indices.
+     */
+    static int[] canonicalOrder(Adjacency adjacency) {
+        int nrOfEdges = adjacency.nrOfEdges();
+        int nrOfLabels = 0;
+        int[] order = new int[nrOfEdges];
+        for (int e = 0; e < nrOfEdges; e++) {
+            order[e] = e;
+            nrOfLabels = Math.max(nrOfLabels, adjacency.label(e) + 1);
+        }
+
+        // stable counting sorts, from the least to the most significant key
+        order = sortStable(order, adjacency::to, adjacency.nrOfStates());
+        order = sortStable(order, adjacency::label, nrOfLabels);
+        return sortStable(order, adjacency::from, adjacency.nrOfStates());
+    }
+
+    /** @return the elements of order, stably sorted on the given key in [0, range) */
+    private static int[] sortStable(int[] order, IntUnaryOperator key, int range) {
+        int[] offsets = new int[range + 1];
+        for (int e : order) {
+            offsets[key.applyAsInt(e) + 1]++;
+        }
+        for (int k = 0; k < range; k++) {
+            offsets[k + 1] += offsets[k];
+        }
+
+        int[] sorted = new int[order.length];
+        for (int e : order) {
+            sorted[offsets[key.applyAsInt(e)]++] = e;
+        }
+        return sorted;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+}
@@ -0,0 +1,270 @@
+package NG.Graph.Layout;
+
+import NG.Graph.Adjacency;
+import NG.Graph.LtsData;
+import NG.Graph.SourceGraph;
+import NG.Graph.State;
+import NG.Graph.Transition;
+import NG.Tools.CounterRandom;
+import NG.Tools.Logger;
+import NG.Tools.Toolbox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes an initial layout by coarsening the graph into a hierarchy of smaller graphs. The coarsest graph is laid out
+ * from a random start, after which the positions are passed down level by level, each followed by a few refinement
+ * iterations. The global structure is thus untangled on the small graphs, where iterations are cheap, such that the
+ * layout of the full graph only has to resolve local detail.
+ * <p>
+ * Each level is coarsened by matching every node with an unmatched neighbour of lowest degree. Nodes that remain
+ * unmatched join the group of a neighbour, such that stars and chains shrink as well. The positions of the full graph
+ * are set, but the full graph itself is not iterated; that is left to the layout that continues on the full graph.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class MultilevelLayout {
+    /** graphs of at most this many states are not coarsened further */
+    private static final int COARSEST_SIZE = 64;
+    /** coarsening stops when a level has more than this fraction of the states of the finer level */
+    private static final float MIN_REDUCTION = 0.8f;
+
+    private final SpringLayout levelLayout;
+    private long seed = Toolbox.random.nextLong();
+    private int coarsestIterations = 200;
+    private int iterationsPerLevel = 40;
+
+    /** @param numThreads the number of threads used by the iterations on each level */
+    public MultilevelLayout(int numThreads) {
+        levelLayout = new SpringLayout(100, numThreads);
+        levelLayout.setSpeed(0.01f);
+    }
+
+    /** uses the forces, the natural length and the repulsion approximation of the given layout on every level */
+    public void copyParameters(SpringLayout source) {
+        levelLayout.setNatLength(source.getNatLength());
+        levelLayout.setRepulsionFactor(source.getRepulsionFactor());
+        levelLayout.setAttractionFactor(source.getAttractionFactor());
+        levelLayout.setEdgeRepulsionFactor(source.getEdgeRepulsionFactor());
+        levelLayout.setBarnesHutTheta(source.getBarnesHutTheta());
+        levelLayout.setFastMultipole(source.doFastMultipole());
+    }
+
+    public void setSpeed(float speed) {
+        levelLayout.setSpeed(speed);
+    }
+
+    /** sets the seed of the random layout of the coarsest level, the offsets of the states and the iterations */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        levelLayout.setSeed(seed);
+    }
+
+    public void setIterations(int coarsestIterations, int iterationsPerLevel) {
+        this.coarsestIterations = coarsestIterations;
+        this.iterationsPerLevel = iterationsPerLevel;
+    }
+
+    /**
+     * sets the positions of the states and edge handles of the given graph.
+     * @throws Exception if an iteration of the layout fails
+     */
+    public void applyTo(SourceGraph graph) throws Exception {
+        float natLength = levelLayout.getNatLength();
+        long startMillis = System.currentTimeMillis();
+
+        // levels.get(i + 1) is the coarsening of levels.get(i), with groups.get(i) the index in the coarser level
+        List<SourceGraph> levels = new ArrayList<>();
+        List<int[]> groups = new ArrayList<>();
+        levels.add(graph);
+
+        SourceGraph current = graph;
+        while (current.states.length > COARSEST_SIZE) {
+            Adjacency adjacency = current.getAdjacency();
+            int[] group = new int[adjacency.nrOfStates()];
+            int nrOfGroups = match(adjacency, group);
+            if (nrOfGroups > MIN_REDUCTION * adjacency.nrOfStates()) break;
+
+            current = coarsen(adjacency, group, nrOfGroups, levels.size());
+            levels.add(current);
+            groups.add(group);
+        }
+
+        SourceGraph coarsest = levels.get(levels.size() - 1);
+        SourceGraph.randomLayout(coarsest, natLength, seed);
+        iterate(coarsest, coarsestIterations);
+
+        for (int level = levels.size() - 2; level >= 0; level--) {
+            SourceGraph fine = levels.get(level);
+            SourceGraph coarse = levels.get(level + 1);
+            prolong(coarse, fine, groups.get(level), natLength, CounterRandom.hash(seed, level));
+
+            if (level > 0) iterate(fine, iterationsPerLevel);
+        }
+
+        graph.getNodeMesh().schedulePositionReload();
+        graph.getEdgeMesh().schedulePositionReload();
+
+        Logger.DEBUG.printf("Multilevel layout of %d levels, coarsest %d states (%d ms)",
+                levels.size(), coarsest.states.length, System.currentTimeMillis() - startMillis
+        );
+    }
+
+    public void cleanup() {
+        levelLayout.cleanup();
+    }
+
+    private void iterate(SourceGraph graph, int iterations) throws Exception {
+        levelLayout.setGraph(graph);
+        for (int i = 0; i < iterations; i++) {
+            levelLayout.update(0);
+        }
+    }
+
+    /**
+     * places each state of fine at the position of its group in coarse, with a small random offset. The coarse layout
+     * is scaled up such that the density of the states stays about the same. The offsets are drawn from the given key.
+     */
+    private static void prolong(SourceGraph coarse, SourceGraph fine, int[] group, float natLength, long key) {
+        float scale = (float) Math.cbrt((double) fine.states.length / coarse.states.length);
+        float offset = natLength / 4;
+
+        for (State state : fine.states) {
+            long i = 3L * state.index;
+            state.position.set(coarse.states[group[state.index]].position).mul(scale).add(
+                    (CounterRandom.nextFloat(key, i) - 0.5f) * offset,
+                    (CounterRandom.nextFloat(key, i + 1) - 0.5f) * offset,
+                    (CounterRandom.nextFloat(key, i + 2) - 0.5f) * offset
+            );
+        }
+
+        for (Transition edge : fine.edges) {
+            edge.handlePos.set(edge.fromPosition).lerp(edge.toPosition, 0.5f);
+        }
+    }
+
+    /**
+     * assigns every state to a group of the coarser level.
+     * @param group receives the group of each state
+     * @return the number of groups
+     */
+    private static int match(Adjacency adjacency, int[] group) {
+        int nrOfStates = adjacency.nrOfStates();
+        Arrays.fill(group, -1);
+
+        // visit states with a low degree first, such that these find a free neighbour
+        int[] visitOrder = sortByDegree(adjacency);
+
+        int nrOfGroups = 0;
+        for (int s : visitOrder) {
+            if (group[s] >= 0) continue;
+
+            int partner = -1;
+            int partnerDegree = Integer.MAX_VALUE;
+            for (int i = adjacency.outStart(s); i < adjacency.outEnd(s); i++) {
+                int other = adjacency.target(i);
+                if (other != s && group[other] < 0 && degree(adjacency, other) < partnerDegree) {
+                    partner = other;
+                    partnerDegree = degree(adjacency, other);
+                }
+            }
+            for (int i = adjacency.inStart(s); i < adjacency.inEnd(s); i++) {
+                int other = adjacency.source(i);
+                if (other != s && group[other] < 0 && degree(adjacency, other) < partnerDegree) {
+                    partner = other;
+                    partnerDegree = degree(adjacency, other);
+                }
+            }
+
+            if (partner >= 0) {
+                group[s] = nrOfGroups;
+                group[partner] = nrOfGroups;
+                nrOfGroups++;
+            }
+        }
+
+        // unmatched states join any neighbour, or form a group of their own
+        for (int s : visitOrder) {
+            if (group[s] >= 0) continue;
+
+            if (adjacency.outDegree(s) > 0 && adjacency.target(adjacency.outStart(s)) != s) {
+                group[s] = group[adjacency.target(adjacency.outStart(s))];
+
+            } else if (adjacency.inDegree(s) > 0 && adjacency.source(adjacency.inStart(s)) != s) {
+                group[s] = group[adjacency.source(adjacency.inStart(s))];
+            }
+
+            // the neighbour may itself be unmatched
+            if (group[s] < 0) group[s] = nrOfGroups++;
+        }
+
+        return nrOfGroups;
+    }
+
+    /** @return all states in order of increasing degree, and in order of index for equal degree */
+    private static int[] sortByDegree(Adjacency adjacency) {
+        int nrOfStates = adjacency.nrOfStates();
+        int maxDegree = 0;
+        for (int s = 0; s < nrOfStates; s++) {
+            maxDegree = Math.max(maxDegree, degree(adjacency, s));
+        }
+
+        // counting sort: degreeStart[d] is the first position of the states of degree d
+        int[] degreeStart = new int[maxDegree + 2];
+        for (int s = 0; s < nrOfStates; s++) {
+            degreeStart[degree(adjacency, s) + 1]++;
+        }
+        for (int d = 1; d < degreeStart.length; d++) {
+            degreeStart[d] += degreeStart[d - 1];
+        }
+
+        int[] order = new int[nrOfStates];
+        for (int s = 0; s < nrOfStates; s++) {
+            order[degreeStart[degree(adjacency, s)]++] = s;
+        }
+        return order;
+    }
+
+    private static int degree(Adjacency adjacency, int s) {
+        return adjacency.outDegree(s) + adjacency.inDegree(s);
+    }
+
+    /**
+     * creates the graph of the groups, with one edge for each pair of groups that has an edge between them. The edges
+     * go from the lower to the higher group, in order of their groups.
+     */
+    private static SourceGraph coarsen(Adjacency adjacency, int[] group, int nrOfGroups, int level) {
+        // the pairs of groups, packed as (lower << 32 | higher), and sorted such that duplicates are adjacent
+        long[] pairs = new long[adjacency.nrOfEdges()];
+        int nrOfPairs = 0;
+
+        for (int e = 0; e < adjacency.nrOfEdges(); e++) {
+            int a = group[adjacency.from(e)];
+            int b = group[adjacency.to(e)];
+            if (a == b) continue;
+
+            pairs[nrOfPairs++] = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+        }
+        Arrays.sort(pairs, 0, nrOfPairs);
+
+        int[] from = new int[nrOfPairs];
+        int[] to = new int[nrOfPairs];
+        int nrOfEdges = 0;
+        for (int i = 0; i < nrOfPairs; i++) {
+            if (i > 0 && pairs[i] == pairs[i - 1]) continue;
+
+            from[nrOfEdges] = (int) (pairs[i] >>> 32);
+            to[nrOfEdges] = (int) pairs[i];
+            nrOfEdges++;
+        }
+
+        LtsData data = new LtsData(
+                0, nrOfGroups, new String[]{""},
+                Arrays.copyOf(from, nrOfEdges), new int[nrOfEdges], Arrays.copyOf(to, nrOfEdges)
+        );
+        SourceGraph coarse = SourceGraph.create(data, null, "coarsening " + level);
+        coarse.init();
+        return coarse;
+    }
+}
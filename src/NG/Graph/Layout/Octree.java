@@ -0,0 +1,380 @@
+package NG.Graph.Layout;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * An octree over a set of bodies, stored in primitive arrays. The bodies are sorted on the Morton code of their
+ * position, such that every node of the tree covers a consecutive range of sorted bodies. The nodes are stored in
+ * breadth-first order, such that the children of a node are consecutive as well.
+ * <p>
+ * The tree covers the bounding cube of the bodies at the moment it is built, and never modifies the positions. A node
+ * is split until it holds at most {@value #LEAF_SIZE} bodies, such that the depth of the tree follows the density of the
+ * bodies. Cells are not split beyond the {@link #setMinCellSize(float) minimum cell size} or the maximum depth.
+ * <p>
+ * When the bodies move only a little, the tree is refit instead of rebuilt: the sorting and the structure of the tree
+ * are kept, and only the centers of mass and the bounds of the nodes are recomputed. This is repeated until the bounds
+ * of a node have grown too large compared to its cell, at which point the tree is rebuilt.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public abstract class Octree {
+    /** the bounds of a node may grow to this factor times the size of its cell before the tree is rebuilt */
+    private static final float REFIT_TOLERANCE = 2f;
+    protected static final int MAX_SUPPORTED_DEPTH = 21;
+    private static final int RADIX_BITS = 8;
+    private static final int LEAF_SIZE = 8;
+
+    protected int maxDepth = MAX_SUPPORTED_DEPTH;
+    private float minCellSize = 0;
+
+    // the cube covered by the tree, and the depth of the codes, determined when the tree is built
+    protected float universeSize;
+    private float originX, originY, originZ;
+    private int depth;
+
+    // indexed by body index
+    protected FloatBuffer positions;
+    protected int nrOfBodies = -1;
+    private boolean isValid = false;
+
+    // indexed by sorted index
+    private long[] codes = new long[0];
+    protected int[] order = new int[0];
+    protected float[] sortedX = new float[0];
+    protected float[] sortedY = new float[0];
+    protected float[] sortedZ = new float[0];
+    private long[] codesBuffer = new long[0];
+    private int[] orderBuffer = new int[0];
+    private final int[] counts = new int[1 << RADIX_BITS];
+
+    // indexed by node index
+    protected int nrOfNodes = 0;
+    protected int[] nodeStart = new int[0];
+    protected int[] nodeEnd = new int[0];
+    protected int[] firstChild = new int[0];
+    protected int[] nrOfChildren = new int[0];
+    protected int[] level = new int[0];
+    protected float[] centerX = new float[0];
+    protected float[] centerY = new float[0];
+    protected float[] centerZ = new float[0];
+    protected float[] minX = new float[0];
+    protected float[] minY = new float[0];
+    protected float[] minZ = new float[0];
+    protected float[] maxX = new float[0];
+    protected float[] maxY = new float[0];
+    protected float[] maxZ = new float[0];
+    /** the size of each node as used for the opening criterion */
+    protected float[] nodeSize = new float[0];
+
+    /** sets the maximum depth of the tree, which is at most {@value #MAX_SUPPORTED_DEPTH} */
+    public void setMaxDepth(int maxDepth) {
+        assert maxDepth >= 1 && maxDepth <= MAX_SUPPORTED_DEPTH : maxDepth;
+        if (maxDepth != this.maxDepth) isValid = false;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Cells are not split when they are smaller than the given size. Bodies closer than this are always summed
+     * directly, so this should be about the distance below which the force function no longer changes much.
+     */
+    public void setMinCellSize(float minCellSize) {
+        this.minCellSize = minCellSize;
+    }
+
+    /** @return the number of bodies of the last update, or -1 if the tree must be rebuilt */
+    public int getNrOfBodies() {
+        return isValid ? nrOfBodies : -1;
+    }
+
+    /** makes sure that the next call to {@link #update(FloatBuffer, int)} rebuilds the tree */
+    public void invalidate() {
+        isValid = false;
+    }
+
+    /**
+     * Updates the tree to the given positions. If the number of bodies is unchanged and the bodies moved only a little
+     * since the previous update, the tree is refit, otherwise it is rebuilt.
+     * @param positions  the positions of the bodies as consecutive x, y, z values, indexed by 3 * body index. This
+     *                   buffer is read with absolute gets until the next update, or until {@link
+     *                   #setPositions(FloatBuffer)}.
+     * @param nrOfBodies the number of bodies
+     * @return true if the tree was rebuilt, false if it was refit
+     */
+    public boolean update(FloatBuffer positions, int nrOfBodies) {
+        this.positions = positions;
+
+        if (isValid && nrOfBodies == this.nrOfBodies) {
+            copySortedPositions();
+            if (computeNodeProperties()) return false;
+        }
+
+        rebuild(nrOfBodies);
+        return true;
+    }
+
+    /** @see #update(FloatBuffer, int) */
+    public boolean update(float[] positions, int nrOfBodies) {
+        return update(FloatBuffer.wrap(positions), nrOfBodies);
+    }
+
+    /**
+     * Replaces the buffer from which the positions of the bodies are read by queries, without updating the tree. The
+     * tree keeps the structure and the centers of mass of the last update.
+     * @param positions the positions of the same bodies, in the format of {@link #update(FloatBuffer, int)}
+     */
+    public void setPositions(FloatBuffer positions) {
+        this.positions = positions;
+    }
+
+    private void rebuild(int nrOfBodies) {
+        this.nrOfBodies = nrOfBodies;
+        codes = ensureSize(codes, nrOfBodies);
+        order = ensureSize(order, nrOfBodies);
+        codesBuffer = ensureSize(codesBuffer, nrOfBodies);
+        orderBuffer = ensureSize(orderBuffer, nrOfBodies);
+        sortedX = ensureSize(sortedX, nrOfBodies);
+        sortedY = ensureSize(sortedY, nrOfBodies);
+        sortedZ = ensureSize(sortedZ, nrOfBodies);
+
+        computeUniverse();
+        float cellsPerUnit = (1 << depth) / universeSize;
+        for (int i = 0; i < nrOfBodies; i++) {
+            int x = toCell(positions.get(3 * i) - originX, cellsPerUnit);
+            int y = toCell(positions.get(3 * i + 1) - originY, cellsPerUnit);
+            int z = toCell(positions.get(3 * i + 2) - originZ, cellsPerUnit);
+            codes[i] = (spread(x) << 2) | (spread(y) << 1) | spread(z);
+            order[i] = i;
+        }
+
+        sortOnCodes();
+        copySortedPositions();
+        buildNodes();
+        computeNodeProperties();
+        isValid = true;
+    }
+
+    /** sets the universe to the bounding cube of the bodies, and chooses the depth of the codes */
+    private void computeUniverse() {
+        float lowX = Float.POSITIVE_INFINITY, lowY = Float.POSITIVE_INFINITY, lowZ = Float.POSITIVE_INFINITY;
+        float highX = Float.NEGATIVE_INFINITY, highY = Float.NEGATIVE_INFINITY, highZ = Float.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < 3 * nrOfBodies; i += 3) {
+            lowX = Math.min(lowX, positions.get(i));
+            lowY = Math.min(lowY, positions.get(i + 1));
+            lowZ = Math.min(lowZ, positions.get(i + 2));
+            highX = Math.max(highX, positions.get(i));
+            highY = Math.max(highY, positions.get(i + 1));
+            highZ = Math.max(highZ, positions.get(i + 2));
+        }
+
+        float extent = Math.max(highX - lowX, Math.max(highY - lowY, highZ - lowZ));
+        if (extent > 0) {
+            // the bodies on the upper bounds must still fall inside the cube
+            universeSize = extent * 1.001f;
+            originX = lowX;
+            originY = lowY;
+            originZ = lowZ;
+
+        } else {
+            universeSize = 1;
+            originX = (nrOfBodies > 0) ? lowX - 0.5f : 0;
+            originY = (nrOfBodies > 0) ? lowY - 0.5f : 0;
+            originZ = (nrOfBodies > 0) ? lowZ - 0.5f : 0;
+        }
+
+        depth = 1;
+        while (depth < maxDepth && universeSize / (1 << depth) > minCellSize) {
+            depth++;
+        }
+    }
+
+    /** sorts the codes and the order on the codes with a least-significant-digit radix sort */
+    private void sortOnCodes() {
+        int mask = counts.length - 1;
+
+        for (int shift = 0; shift < 3 * depth; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < nrOfBodies; i++) {
+                counts[(int) (codes[i] >>> shift) & mask]++;
+            }
+
+            int sum = 0;
+            for (int d = 0; d < counts.length; d++) {
+                int count = counts[d];
+                counts[d] = sum;
+                sum += count;
+            }
+
+            for (int i = 0; i < nrOfBodies; i++) {
+                int target = counts[(int) (codes[i] >>> shift) & mask]++;
+                codesBuffer[target] = codes[i];
+                orderBuffer[target] = order[i];
+            }
+
+            long[] swapCodes = codes;
+            codes = codesBuffer;
+            codesBuffer = swapCodes;
+            int[] swapOrder = order;
+            order = orderBuffer;
+            orderBuffer = swapOrder;
+        }
+    }
+
+    private void copySortedPositions() {
+        for (int k = 0; k < nrOfBodies; k++) {
+            int i = 3 * order[k];
+            sortedX[k] = positions.get(i);
+            sortedY[k] = positions.get(i + 1);
+            sortedZ[k] = positions.get(i + 2);
+        }
+    }
+
+    /** creates the nodes in breadth-first order from the sorted codes */
+    private void buildNodes() {
+        nrOfNodes = 0;
+        if (nrOfBodies == 0) return;
+
+        addNode(0, nrOfBodies, 0);
+
+        for (int node = 0; node < nrOfNodes; node++) {
+            int start = nodeStart[node];
+            int end = nodeEnd[node];
+            int nodeLevel = level[node];
+
+            if (end - start <= LEAF_SIZE || nodeLevel == depth) {
+                nrOfChildren[node] = 0;
+                continue;
+            }
+
+            // the children are the ranges of bodies with the same octant on the next level
+            int shift = 3 * (depth - nodeLevel - 1);
+            firstChild[node] = nrOfNodes;
+            int childStart = start;
+            for (int k = start + 1; k <= end; k++) {
+                if (k == end || ((codes[k] >>> shift) & 7) != ((codes[childStart] >>> shift) & 7)) {
+                    addNode(childStart, k, nodeLevel + 1);
+                    childStart = k;
+                }
+            }
+            nrOfChildren[node] = nrOfNodes - firstChild[node];
+        }
+    }
+
+    private void addNode(int start, int end, int nodeLevel) {
+        if (nrOfNodes == nodeStart.length) {
+            int capacity = Math.max(16, 2 * nrOfNodes);
+            nodeStart = Arrays.copyOf(nodeStart, capacity);
+            nodeEnd = Arrays.copyOf(nodeEnd, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nrOfChildren = Arrays.copyOf(nrOfChildren, capacity);
+            level = Arrays.copyOf(level, capacity);
+            centerX = Arrays.copyOf(centerX, capacity);
+            centerY = Arrays.copyOf(centerY, capacity);
+            centerZ = Arrays.copyOf(centerZ, capacity);
+            minX = Arrays.copyOf(minX, capacity);
+            minY = Arrays.copyOf(minY, capacity);
+            minZ = Arrays.copyOf(minZ, capacity);
+            maxX = Arrays.copyOf(maxX, capacity);
+            maxY = Arrays.copyOf(maxY, capacity);
+            maxZ = Arrays.copyOf(maxZ, capacity);
+            nodeSize = Arrays.copyOf(nodeSize, capacity);
+        }
+
+        nodeStart[nrOfNodes] = start;
+        nodeEnd[nrOfNodes] = end;
+        level[nrOfNodes] = nodeLevel;
+        nrOfNodes++;
+    }
+
+    /**
+     * computes the center of mass, the bounds and the size of all nodes from the sorted positions, children before
+     * parents.
+     * @return false if the bounds of a node exceed {@link #REFIT_TOLERANCE} times the size of its cell
+     */
+    private boolean computeNodeProperties() {
+        boolean isWithinTolerance = true;
+
+        for (int node = nrOfNodes - 1; node >= 0; node--) {
+            float cx = 0, cy = 0, cz = 0;
+            float lowX = Float.POSITIVE_INFINITY, lowY = Float.POSITIVE_INFINITY, lowZ = Float.POSITIVE_INFINITY;
+            float highX = Float.NEGATIVE_INFINITY, highY = Float.NEGATIVE_INFINITY, highZ = Float.NEGATIVE_INFINITY;
+            float mass = nodeEnd[node] - nodeStart[node];
+
+            if (nrOfChildren[node] == 0) {
+                for (int k = nodeStart[node]; k < nodeEnd[node]; k++) {
+                    float x = sortedX[k], y = sortedY[k], z = sortedZ[k];
+                    cx += x;
+                    cy += y;
+                    cz += z;
+                    lowX = Math.min(lowX, x);
+                    lowY = Math.min(lowY, y);
+                    lowZ = Math.min(lowZ, z);
+                    highX = Math.max(highX, x);
+                    highY = Math.max(highY, y);
+                    highZ = Math.max(highZ, z);
+                }
+
+            } else {
+                int end = firstChild[node] + nrOfChildren[node];
+                for (int child = firstChild[node]; child < end; child++) {
+                    float childMass = nodeEnd[child] - nodeStart[child];
+                    cx += centerX[child] * childMass;
+                    cy += centerY[child] * childMass;
+                    cz += centerZ[child] * childMass;
+                    lowX = Math.min(lowX, minX[child]);
+                    lowY = Math.min(lowY, minY[child]);
+                    lowZ = Math.min(lowZ, minZ[child]);
+                    highX = Math.max(highX, maxX[child]);
+                    highY = Math.max(highY, maxY[child]);
+                    highZ = Math.max(highZ, maxZ[child]);
+                }
+            }
+
+            centerX[node] = cx / mass;
+            centerY[node] = cy / mass;
+            centerZ[node] = cz / mass;
+            minX[node] = lowX;
+            minY[node] = lowY;
+            minZ[node] = lowZ;
+            maxX[node] = highX;
+            maxY[node] = highY;
+            maxZ[node] = highZ;
+
+            float cellSize = universeSize / (1 << level[node]);
+            float extent = Math.max(highX - lowX, Math.max(highY - lowY, highZ - lowZ));
+            nodeSize[node] = Math.max(cellSize, extent);
+            if (extent > REFIT_TOLERANCE * cellSize) isWithinTolerance = false;
+        }
+
+        return isWithinTolerance;
+    }
+
+    /** @return the cell of the given distance to the origin, on the deepest level */
+    private int toCell(float relative, float cellsPerUnit) {
+        int cell = (int) (relative * cellsPerUnit);
+        return Math.max(0, Math.min(cell, (1 << depth) - 1));
+    }
+
+    /** spreads the lowest 21 bits of value such that there are two zero bits between each of them */
+    private static long spread(int value) {
+        long x = value & 0x1fffffL;
+        x = (x | x << 32) & 0x1f00000000ffffL;
+        x = (x | x << 16) & 0x1f0000ff0000ffL;
+        x = (x | x << 8) & 0x100f00f00f00f00fL;
+        x = (x | x << 4) & 0x10c30c30c30c30c3L;
+        x = (x | x << 2) & 0x1249249249249249L;
+        return x;
+    }
+
+    private static long[] ensureSize(long[] array, int size) {
+        return array.length >= size ? array : new long[size];
+    }
+
+    protected static int[] ensureSize(int[] array, int size) {
+        return array.length >= size ? array : new int[size];
+    }
+
+    protected static float[] ensureSize(float[] array, int size) {
+        return array.length >= size ? array : new float[size];
+    }
+}
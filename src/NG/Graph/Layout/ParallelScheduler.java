@@ -0,0 +1,217 @@
+package NG.Graph.Layout;
+
+import NG.Tools.TimeObserver;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Executes the parallel phases of the layout on a work-stealing {@link ForkJoinPool}. A phase is split in
+ * {@link Chunks chunks} of consecutive indices, which are divided recursively over the threads. A thread that runs out
+ * of chunks takes over chunks of the other threads, such that a chunk that takes longer than estimated does not hold up
+ * the phase.
+ * <p>
+ * Every thread has its own worker of type W, which holds the buffers a chunk needs. Workers must not hold results that
+ * are combined after the phase, as the assignment of chunks to threads differs between runs; such results are stored by
+ * chunk index instead.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class ParallelScheduler<W> {
+    private final ForkJoinPool pool;
+    private final Supplier<W> workerFactory;
+    private final List<Slot> slots = new CopyOnWriteArrayList<>();
+    /** for the caller, when it executes a chunk while waiting on the pool */
+    private final Slot callerSlot;
+    private int nrOfCreatedThreads = 0;
+    private long phaseNanos = 0;
+
+    public ParallelScheduler(String name, int numThreads, Supplier<W> workerFactory) {
+        this.workerFactory = workerFactory;
+        this.callerSlot = new Slot("caller", workerFactory.get());
+        this.pool = new ForkJoinPool(numThreads, pool -> new SchedulerThread(pool, name), null, false);
+    }
+
+    public int getNrOfThreads() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * executes the task on every chunk, and returns when all chunks are done.
+     * @throws RuntimeException if a task throws an exception
+     */
+    public void run(Chunks chunks, ChunkTask<W> task) {
+        if (chunks.count() == 0) return;
+
+        long startTime = System.nanoTime();
+        pool.invoke(new ChunkAction(chunks, task, 0, chunks.count()));
+        phaseNanos += System.nanoTime() - startTime;
+    }
+
+    /**
+     * adds the fraction of time that each thread executed chunks since the previous call, relative to the total time of
+     * the phases, to the utilisation of the timer
+     */
+    public void reportUtilisation(TimeObserver timer) {
+        if (phaseNanos == 0) return;
+
+        for (Slot slot : slots) {
+            timer.addUtilisation(slot.name, (float) slot.busyNanos / phaseNanos);
+            slot.busyNanos = 0;
+        }
+        if (callerSlot.busyNanos > 0) {
+            timer.addUtilisation(callerSlot.name, (float) callerSlot.busyNanos / phaseNanos);
+            callerSlot.busyNanos = 0;
+        }
+        phaseNanos = 0;
+    }
+
+    /** stops all threads, interrupting running chunks */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public interface ChunkTask<W> {
+        void run(W worker, int chunk, int startIndex, int endIndex);
+    }
+
+    /** the time spent by one thread, and its worker */
+    private static final class Slot {
+        final String name;
+        final Object worker;
+        volatile long busyNanos = 0;
+
+        Slot(String name, Object worker) {
+            this.name = name;
+            this.worker = worker;
+        }
+    }
+
+    private final class SchedulerThread extends ForkJoinWorkerThread {
+        private final Slot slot;
+
+        SchedulerThread(ForkJoinPool pool, String name) {
+            super(pool);
+            synchronized (ParallelScheduler.this) {
+                int index = nrOfCreatedThreads++;
+                setName(name + " worker " + index);
+                slot = new Slot("worker " + index, workerFactory.get());
+            }
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            slots.add(slot);
+        }
+
+        @Override
+        protected void onTermination(Throwable exception) {
+            slots.remove(slot);
+            super.onTermination(exception);
+        }
+    }
+
+    /** executes the chunks in [first, last), by splitting it in halves until a single chunk remains */
+    @SuppressWarnings("serial")
+    private final class ChunkAction extends RecursiveAction {
+        private final Chunks chunks;
+        private final ChunkTask<W> task;
+        private final int first;
+        private final int last;
+
+        ChunkAction(Chunks chunks, ChunkTask<W> task, int first, int last) {
+            this.chunks = chunks;
+            this.task = task;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void compute() {
+            if (last - first > 1) {
+                int middle = (first + last) >>> 1;
+                invokeAll(new ChunkAction(chunks, task, first, middle), new ChunkAction(chunks, task, middle, last));
+                return;
+            }
+
+            // the caller may execute a chunk itself while it waits
+            Thread thread = Thread.currentThread();
+            boolean isOwnThread = thread instanceof ParallelScheduler.SchedulerThread &&
+                    ((ForkJoinWorkerThread) thread).getPool() == pool;
+            Slot slot = isOwnThread ? ((SchedulerThread) thread).slot : callerSlot;
+
+            long startTime = System.nanoTime();
+            task.run((W) slot.worker, first, chunks.start(first), chunks.end(first));
+            slot.busyNanos += System.nanoTime() - startTime;
+        }
+    }
+
+    /**
+     * A division of [0, size) in consecutive chunks. The boundaries are either uniform, or balanced on an estimate of
+     * the cost of each index.
+     */
+    public static class Chunks {
+        private int[] starts = new int[1];
+        private int count = 0;
+
+        public int count() {
+            return count;
+        }
+
+        public int start(int chunk) {
+            return starts[chunk];
+        }
+
+        public int end(int chunk) {
+            return starts[chunk + 1];
+        }
+
+        /** divides [0, size) in at most nrOfChunks chunks of about equal size, each of at least minSize indices */
+        public Chunks setUniform(int size, int nrOfChunks, int minSize) {
+            int chunkSize = Math.max(Math.max(minSize, 1), (size + nrOfChunks - 1) / Math.max(nrOfChunks, 1));
+            count = (size + chunkSize - 1) / chunkSize;
+            ensureCapacity(count);
+
+            for (int c = 0; c < count; c++) {
+                starts[c] = c * chunkSize;
+            }
+            starts[count] = size;
+            return this;
+        }
+
+        /**
+         * divides [0, size) in at most nrOfChunks chunks, such that the sum of the costs in each chunk is about equal.
+         * @param cost the estimated cost of each index, which must not be negative
+         */
+        public Chunks setBalanced(float[] cost, int size, int nrOfChunks) {
+            double total = 0;
+            for (int i = 0; i < size; i++) {
+                total += cost[i];
+            }
+            if (!(total > 0)) return setUniform(size, nrOfChunks, 1);
+
+            nrOfChunks = Math.min(nrOfChunks, size);
+            ensureCapacity(nrOfChunks);
+            double chunkCost = total / nrOfChunks;
+
+            count = 0;
+            double sum = 0;
+            for (int i = 0; i < size; i++) {
+                // start a new chunk when the previous chunks have received their share
+                if (count < nrOfChunks && sum >= count * chunkCost) starts[count++] = i;
+                sum += cost[i];
+            }
+            starts[count] = size;
+            return this;
+        }
+
+        private void ensureCapacity(int nrOfChunks) {
+            if (starts.length < nrOfChunks + 1) starts = new int[nrOfChunks + 1];
+        }
+    }
+}
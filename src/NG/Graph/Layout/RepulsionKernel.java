@@ -0,0 +1,103 @@
+package NG.Graph.Layout;
+
+import NG.Tools.Logger;
+
+/**
+ * Sums the {@link SpringLayout#getRepulsion(float, float, float, float, float, float, float, float, long, float[], int)
+ * repulsion} of a block of bodies on a single body. The {@link #SCALAR scalar kernel} computes one pair at a time,
+ * while the vectorised kernel computes several pairs at once using the Vector API. The vectorised kernel is only
+ * available when the {@code jdk.incubator.vector} module is resolved, which requires starting the program with
+ * {@code --add-modules jdk.incubator.vector}, as the launchers next to the jar do.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public abstract class RepulsionKernel {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL_CLASS = "NG.Graph.Layout.VectorRepulsionKernel";
+
+    public static final RepulsionKernel SCALAR = new RepulsionKernel() {
+        @Override
+        public void getRepulsion(
+                float ax, float ay, float az, float[] xs, float[] ys, float[] zs, int start, int end, int skip,
+                float natLength, float repulsion, long key, float[] target, int offset
+        ) {
+            float fx = 0, fy = 0, fz = 0;
+
+            for (int j = start; j < end; j++) {
+                if (j == skip) continue;
+                SpringLayout.getRepulsion(ax, ay, az, xs[j], ys[j], zs[j], natLength, repulsion, key, target, offset);
+                fx += target[offset];
+                fy += target[offset + 1];
+                fz += target[offset + 2];
+            }
+
+            target[offset] = fx;
+            target[offset + 1] = fy;
+            target[offset + 2] = fz;
+        }
+
+        @Override
+        public int getNrOfLanes() {
+            return 1;
+        }
+
+        @Override
+        public String toString() {
+            return "scalar kernel";
+        }
+    };
+
+    private static final RepulsionKernel VECTORISED = loadVectorised();
+
+    /**
+     * stores the net repulsion on a, affected by the bodies in [start, end) except skip, in target[offset] to
+     * target[offset + 2]. Must not allocate.
+     * @param skip the index of a to exclude, or -1 if a is not in the block
+     * @param key  the random key of a, see {@link SpringLayout#getRepulsion(float, float, float, float, float, float,
+     *             float, float, long, float[], int) getRepulsion}
+     */
+    public abstract void getRepulsion(
+            float ax, float ay, float az, float[] xs, float[] ys, float[] zs, int start, int end, int skip,
+            float natLength, float repulsion, long key, float[] target, int offset
+    );
+
+    /** @return the number of pairs that are computed at once */
+    public abstract int getNrOfLanes();
+
+    /** @return the vectorised kernel, or null if the Vector API is not available */
+    public static RepulsionKernel getVectorised() {
+        return VECTORISED;
+    }
+
+    /** @return the vectorised kernel if it is available, or the scalar kernel otherwise */
+    public static RepulsionKernel getFastest() {
+        return VECTORISED != null ? VECTORISED : SCALAR;
+    }
+
+    private static RepulsionKernel loadVectorised() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            Logger.INFO.print(
+                    "Module " + VECTOR_MODULE + " is not available, using scalar force kernels. " +
+                            "Start with --add-modules " + VECTOR_MODULE + " or use the lts-visualiser launcher"
+            );
+            return null;
+        }
+
+        try {
+            // loaded by name, such that this class never links against the Vector API when it is not available
+            RepulsionKernel kernel = (RepulsionKernel) Class.forName(VECTOR_KERNEL_CLASS)
+                    .getDeclaredConstructor().newInstance();
+
+            if (kernel.getNrOfLanes() < 2) {
+                Logger.DEBUG.print("No vector instructions for floats, using scalar force kernels");
+                return null;
+            }
+
+            Logger.DEBUG.print("Using vectorised force kernels of " + kernel.getNrOfLanes() + " lanes");
+            return kernel;
+
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            Logger.WARN.print("Could not load vectorised force kernels: " + ex);
+            return null;
+        }
+    }
+}
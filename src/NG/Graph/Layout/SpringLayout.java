@@ -4,9 +4,14 @@ import NG.Core.AbstractGameLoop;
 import NG.Core.Main;
 import NG.Core.ToolElement;
 import NG.DataStructures.Generic.AveragingQueue;
-import NG.DataStructures.Generic.PairList;
+import NG.Graph.Adjacency;
 import NG.Graph.Graph;
+import NG.Graph.Rendering.EdgeMesh;
+import NG.Graph.Rendering.NodeMesh;
+import NG.Graph.Rendering.PositionExchange;
+import NG.Graph.Rendering.PositionStore;
 import NG.Graph.Transition;
+import NG.Tools.CounterRandom;
 import NG.Tools.Logger;
 import NG.Tools.TimeObserver;
 import NG.Tools.Toolbox;
@@ -15,12 +20,12 @@ import org.joml.Math;
 import org.joml.Vector3f;
 import org.joml.Vector3fc;
 
-import java.util.*;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 import static java.lang.Math.log;
 
@@ -30,11 +35,29 @@ import static java.lang.Math.log;
 public class SpringLayout extends AbstractGameLoop implements ToolElement {
     private static final float EDGE_HANDLE_DISTANCE = 0.2f;
     private static final float MAX_NODE_MOVEMENT = 2f;
+    /** the step is multiplied by this factor when the net force increases */
+    private static final float COOLING_FACTOR = 0.9f;
+    /** the step is divided by the cooling factor after this many iterations of decreasing net force */
+    private static final int STEP_INCREASE_DELAY = 5;
+    private static final float MIN_STEP_FACTOR = 1f / 64;
+    /** the layout is converged when the nodes move less than this fraction of the natural length per iteration */
+    private static final float CONVERGENCE_MOVEMENT = 1f / 1000;
+    private static final int IDLE_ITERATIONS_PER_SECOND = 4;
+    /** the phases are split in this many chunks per thread, such that idle threads can take over work */
+    private static final int CHUNKS_PER_THREAD = 8;
+    /** the minimum size of the chunks of phases with a low cost per element */
+    private static final int MIN_CHUNK_SIZE = 256;
+    /** the assumed time to compute and apply the force on a single node, until it is measured */
+    private static final float INITIAL_NANOS_PER_NODE = 2_000;
+    /** the minimum number of nodes moved by a partial iteration, even if these do not fit in the frame budget */
+    private static final int MIN_PARTIAL_NODES = 64;
+    /** partial iterations update the Barnes-Hut tree once every this many iterations, as few nodes move in each */
+    private static final int PARTIAL_TREE_INTERVAL = 8;
 
     public final TimeObserver timer = new TimeObserver(4, false);
-    private final ExecutorService executor;
     private final List<Runnable> updateListeners = new ArrayList<>();
     private final int numThreads;
+    private final int iterationsPerSecond;
     private float natLength = 2f;
     private float repulsion = 5f;
     private float attraction = 1f; // 1/100th of what LTSGraph uses
@@ -44,17 +67,107 @@ public class SpringLayout extends AbstractGameLoop implements ToolElement {
     private Graph graph;
     private boolean allow3D = true;
     private float barnesHutTheta = 0.5f;
+    private boolean fastMultipole = false;
+    private RepulsionKernel repulsionKernel = RepulsionKernel.getFastest();
+
+    // random choices are drawn from counter-based streams, keyed by the seed, the iteration and the element index
+    private long seed = Toolbox.random.nextLong();
+    private long iteration = 0;
+    private long iterationKey;
 
     private final AveragingQueue nodeNetForce = new AveragingQueue(16);
     private final AveragingQueue nodeTension = new AveragingQueue(16);
     private boolean isFirstIteration = true;
 
+    // adaptive step size and convergence, with the step size equal to speed * stepFactor
+    private boolean doCooling = true;
+    private float stepFactor = 1;
+    private float stepSize = 0;
+    private float previousNetForce = Float.POSITIVE_INFINITY;
+    private int nrOfDecreases = 0;
+    private boolean isConverged = false;
+    private volatile boolean isWakeUpRequested = false;
+
     private BiConsumer<Float, Float> tensionReader = null;
 
+    // buffers of the iteration kernel, reused between iterations. Vectors are stored as consecutive x, y, z floats,
+    // indexed by 3 * state index or 3 * edge index. The positions are views on the position stores of the snapshots
+    // that the current iteration writes, such that the forces are computed from the same memory that is uploaded
+    private FloatBuffer nodePositions = null;
+    // the node positions as separate coordinate arrays, only used by the naive repulsion
+    private float[] nodeX = new float[0];
+    private float[] nodeY = new float[0];
+    private float[] nodeZ = new float[0];
+    private float[] nodeForces = new float[0];
+    private float[] nodeRepulsions = new float[0];
+    private FloatBuffer handlePositions = null;
+    private float[] edgeHandleForces = new float[0];
+    private final BarnesHutTree barnesTree;
+    private final FastMultipoleTree multipoleTree;
+
+    // the phases with a force buffer per partition have one partition per thread, and partition 0 uses the shared
+    // nodeForces and edgeHandleForces, such that with a single partition no reduction is needed. The other phases are
+    // split in smaller chunks. Sums over a phase are stored per partition or chunk, and added in order afterwards.
+    private final ParallelScheduler<Worker> scheduler;
+    private final ParallelScheduler.Chunks nodeChunks = new ParallelScheduler.Chunks();
+    private final ParallelScheduler.Chunks edgeChunks = new ParallelScheduler.Chunks();
+    private final ParallelScheduler.Chunks repulsionChunks = new ParallelScheduler.Chunks();
+    private final ParallelScheduler.Chunks attractionPartitions = new ParallelScheduler.Chunks();
+    private final ParallelScheduler.Chunks handlePartitions = new ParallelScheduler.Chunks();
+    private final float[][] nodeForceBuffers;
+    private final float[][] handleForceBuffers;
+    private final float[] partitionTension;
+    private float[] chunkTension = new float[0];
+    private float[] chunkNetForce = new float[0];
+    /** the time the repulsion of each node, or each multipole target, took in the last iteration */
+    private float[] repulsionCosts = new float[0];
+    /** the number of pairs of handles of each node */
+    private float[] handleRepulsionCosts = new float[0];
+
+    // time-budgeted partial iterations, which only move the nodes of the highest priority
+    private long frameBudgetNanos = 0;
+    private Supplier<Vector3fc> focus = () -> null;
+    /** the measured time per node of the last iteration, and the time of a partial iteration besides its forces */
+    private float nanosPerNode = INITIAL_NANOS_PER_NODE;
+    private long partialOverheadNanos = 0;
+    /** the net force on each node when it was last computed, or infinity if it never was */
+    private float[] residualForces = new float[0];
+    /** the iteration in which each node was last computed */
+    private long[] lastComputed = new long[0];
+    private float[] priorities = new float[0];
+    private int[] activeNodes = new int[0];
+    private float[] activeForces = new float[0];
+    private final ParallelScheduler.Chunks activeChunks = new ParallelScheduler.Chunks();
+    private final Vector3f activeMovement = new Vector3f();
+    private int partialTreeAge = Integer.MAX_VALUE;
+
+    // stress majorization, which replaces the iterations when enabled
+    private boolean stressMajorization = false;
+    private StressLayout stressLayout = null;
+    private float stressNatLength = 0;
+
     public SpringLayout(int iterationsPerSecond, int numThreads) {
         super("layout", iterationsPerSecond);
         this.numThreads = numThreads;
-        executor = Executors.newFixedThreadPool(numThreads);
+        this.iterationsPerSecond = iterationsPerSecond;
+        this.scheduler = new ParallelScheduler<>("layout", numThreads, Worker::new);
+        this.nodeForceBuffers = new float[numThreads][0];
+        this.handleForceBuffers = new float[numThreads][0];
+        this.partitionTension = new float[numThreads];
+
+        barnesTree = new BarnesHutTree();
+        barnesTree.setForceComputation(
+                (a, ax, ay, az, bx, by, bz, target, offset) ->
+                        getRepulsion(ax, ay, az, bx, by, bz, natLength, repulsion, iterationKey + a, target, offset)
+        );
+
+        multipoleTree = new FastMultipoleTree();
+        multipoleTree.setNearField(
+                (a, ax, ay, az, bx, by, bz, target, offset) ->
+                        getRepulsion(ax, ay, az, bx, by, bz, natLength, repulsion, iterationKey + a, target, offset)
+        );
+        // more targets than threads, as the targets differ in size
+        multipoleTree.setMinNrOfTargets(4 * numThreads);
     }
 
     @Override
@@ -62,192 +175,506 @@ public class SpringLayout extends AbstractGameLoop implements ToolElement {
         graph = root.graph();
         Logger.printOnline(() -> String.format("Node net force: %.0f", getNodeNetForce()));
         Logger.printOnline(() -> String.format("Node tension: %.0f", getNodeTension()));
+        Logger.printOnline(() -> isConverged ? "Layout converged" : String.format("Layout step: %.2f", stepFactor));
     }
 
     public synchronized void setGraph(Graph graph) {
         Logger.DEBUG.print("set graph to " + graph);
         this.graph = graph;
+        barnesTree.invalidate();
+        multipoleTree.invalidate();
+        repulsionCosts = new float[0];
+        residualForces = new float[0];
+        lastComputed = new long[0];
+        partialTreeAge = Integer.MAX_VALUE;
         timer.reset();
 
+        iteration = 0;
         isFirstIteration = true;
+        wakeUp();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the seed of all random choices of the layout. Together with the same initial positions, parameters and
+     * number of threads, this makes every run of the layout on a graph produce the same positions, independent of the
+     * order in which the threads execute. Also restarts the random streams.
+     */
+    public synchronized void setSeed(long seed) {
+        this.seed = seed;
+        this.iteration = 0;
+    }
+
+    /**
+     * Restores the full step size and iteration rate, for when the layout is disturbed, for example by dragging nodes.
+     * This takes effect at the start of the next iteration.
+     */
+    public void wakeUp() {
+        isWakeUpRequested = true;
+    }
+
+    /** @return true if the nodes hardly move anymore, in which case the iteration rate is reduced */
+    public boolean isConverged() {
+        return isConverged;
+    }
+
+    /**
+     * Sets whether the step size adapts to the net force: it is reduced when the net force increases, and restored when
+     * it keeps decreasing. The step size never exceeds the speed.
+     */
+    public void setCooling(boolean doCooling) {
+        this.doCooling = doCooling;
+        if (!doCooling) stepFactor = 1;
     }
 
     @Override
-    protected synchronized void update(float deltaTime) throws Exception {
+    public synchronized void update(float deltaTime) throws Exception {
         if (speed == 0) return;
         timer.startNewLoop();
+        long startTime = System.nanoTime();
+
+        boolean isWokenUp = isWakeUpRequested;
+        if (isWakeUpRequested) {
+            isWakeUpRequested = false;
+            isFirstIteration = true;
+            stepFactor = 1;
+            nrOfDecreases = 0;
+            previousNetForce = Float.POSITIVE_INFINITY;
+            setConverged(false);
+        }
+        stepSize = speed * stepFactor;
+        iterationKey = CounterRandom.hash(seed, iteration++);
+
+        NodeMesh nodeMesh = graph.getNodeMesh();
+        EdgeMesh edgeMesh = graph.getEdgeMesh();
+        List<NG.Graph.State> nodes = nodeMesh.nodeList();
+        List<Transition> edges = edgeMesh.edgeList();
+        Adjacency adjacency = graph.getAdjacency();
+        int nrOfNodes = nodes.size();
+        int nrOfEdges = edges.size();
+
+        if (stressMajorization) {
+            updateStress(nodes, edges, adjacency, nodeMesh, edgeMesh, isWokenUp);
+            return;
+        }
+
+        boolean useFastMultipole = barnesHutTheta > 0 && fastMultipole;
+        boolean useBarnesHut = barnesHutTheta > 0 && !fastMultipole;
+
+        // the positions are written to snapshots, which the renderer uploads once published. The elements may have
+        // been moved elsewhere, thus the snapshot starts with the positions of the elements.
+        PositionStore nodeStore = nodeMesh.startPositionUpdate(nrOfNodes);
+        PositionExchange.Snapshot edgeSnapshot = edgeMesh.startPositionUpdate(nrOfEdges);
+        PositionStore handleStore = edgeSnapshot.store(EdgeMesh.HANDLE_POSITIONS);
+        for (int s = 0; s < nrOfNodes; s++) {
+            nodeStore.set(s, nodes.get(s).position);
+        }
+        nodePositions = nodeStore.slice(0, nrOfNodes);
 
-        List<NG.Graph.State> nodes = graph.getNodeMesh().nodeList();
-        List<Transition> edges = graph.getEdgeMesh().edgeList();
+        if (isPartialIteration(nrOfNodes)) {
+            updatePartial(nodes, edges, adjacency, nodeMesh, edgeMesh, edgeSnapshot, startTime);
+            return;
+        }
+
+        for (int e = 0; e < nrOfEdges; e++) {
+            handleStore.set(e, edges.get(e).handlePos);
+        }
+        handlePositions = handleStore.slice(0, nrOfEdges);
+
+        if (barnesHutTheta <= 0) {
+            copyCoordinates(nrOfNodes);
+        }
 
-        BarnesHutTree barnesTree;
-        if (barnesHutTheta > 0) {
+        if (useBarnesHut) {
             timer.startTiming("Barnes-Hut setup");
-            barnesTree = new BarnesHutTree(1 << 10);
-            barnesTree.setForceComputation((a, b) -> getRepulsion(a, b, natLength, repulsion));
-            barnesTree.setMaxDepth(13);
             barnesTree.setMaxTheta(barnesHutTheta);
-
-            for (NG.Graph.State node : nodes) {
-                barnesTree.add(node.position);
-            }
+            // repulsion hardly changes within natLength / 10
+            barnesTree.setMinCellSize(natLength / 10);
+            barnesTree.update(nodePositions, nrOfNodes);
             timer.endTiming("Barnes-Hut setup");
 
-        } else {
-            barnesTree = null;
+        } else if (useFastMultipole) {
+            timer.startTiming("Fast Multipole setup");
+            multipoleTree.setMaxTheta(barnesHutTheta);
+            multipoleTree.setMinCellSize(natLength / 10);
+            // beyond natLength / 5, the repulsion is 8 * repulsion * d / |d|^3
+            multipoleTree.setFarField(8 * repulsion, Math.max(natLength / 5, 1f / 32));
+            multipoleTree.update(nodePositions, nrOfNodes);
+            timer.endTiming("Fast Multipole setup");
         }
 
-        int batchSize = (nodes.size() / numThreads) + 1;
-        List<Future<Vector3f[]>> futureResults = new ArrayList<>();
-        Map<NG.Graph.State, Vector3f> nodeForces = new HashMap<>();
-
-        // start node repulsion computations
-        timer.startTiming("node repulsion scheduling");
-        int index = 0;
-        while (index < nodes.size()) {
-            int startIndex = index;
-            int endIndex = Math.min(index + batchSize, nodes.size());
+        nodeForces = ensureSize(nodeForces, 3 * nrOfNodes);
+        nodeRepulsions = ensureSize(nodeRepulsions, 3 * nrOfNodes);
+        edgeHandleForces = ensureSize(edgeHandleForces, 3 * nrOfEdges);
 
-            Callable<Vector3f[]> task = () -> computeRepulsions(nodes, startIndex, endIndex, barnesTree);
+        int maxNrOfChunks = CHUNKS_PER_THREAD * numThreads;
+        nodeChunks.setUniform(nrOfNodes, maxNrOfChunks, MIN_CHUNK_SIZE);
+        edgeChunks.setUniform(nrOfEdges, maxNrOfChunks, MIN_CHUNK_SIZE);
+        chunkTension = ensureSize(chunkTension, nodeChunks.count());
+        chunkNetForce = ensureSize(chunkNetForce, nodeChunks.count());
 
-            Future<Vector3f[]> future = executor.submit(task);
-            futureResults.add(future);
+        timer.startTiming("node repulsion computation");
+        // the chunks are balanced on the time each element took in the previous iteration
+        if (useFastMultipole) {
+            int nrOfTargets = multipoleTree.getNrOfTargets();
+            if (repulsionCosts.length != nrOfTargets) repulsionCosts = uniformCosts(nrOfTargets);
+            repulsionChunks.setBalanced(repulsionCosts, nrOfTargets, maxNrOfChunks);
+            scheduler.run(repulsionChunks, (worker, chunk, start, end) -> computeMultipoleRepulsions(worker, start, end));
 
-            index = endIndex;
+        } else {
+            if (repulsionCosts.length != nrOfNodes) repulsionCosts = uniformCosts(nrOfNodes);
+            repulsionChunks.setBalanced(repulsionCosts, nrOfNodes, maxNrOfChunks);
+            scheduler.run(repulsionChunks, (worker, chunk, start, end) -> computeRepulsions(worker, nrOfNodes, start, end, useBarnesHut));
         }
+        timer.endTiming("node repulsion computation");
 
-        timer.endTiming("node repulsion scheduling");
         timer.startTiming("node attraction computation");
+        // every partition of the edges adds to its own force buffer, these are summed in the reduction
+        attractionPartitions.setUniform(nrOfEdges, numThreads, 1);
+        int nrOfAttractionBuffers = attractionPartitions.count();
+        if (nrOfAttractionBuffers == 0) Arrays.fill(nodeForces, 0, 3 * nrOfNodes, 0f);
+        scheduler.run(attractionPartitions, (worker, partition, start, end) -> computeAttractions(worker, partition, adjacency, nrOfNodes, start, end));
+        scheduler.run(nodeChunks, (worker, chunk, start, end) -> reduceNodeForces(chunk, nrOfAttractionBuffers, start, end));
+        timer.endTiming("node attraction computation");
 
-        float totalNodeTension = 0;
+        timer.startTiming("edge handle computation");
+        // linear-time edge handle centering and self-loop spacing
+        scheduler.run(edgeChunks, (worker, chunk, start, end) -> computeHandleCentering(worker, adjacency, start, end));
 
-        // node edge attraction
-        for (Transition edge : edges) {
-            if (edge.from == edge.to) continue;
+        if (edgeRepulsion != 0) {
+            // quadratic-time edge handle repulsion, partitioned by node, balanced on the number of pairs of each node
+            handleRepulsionCosts = ensureSize(handleRepulsionCosts, nrOfNodes);
+            for (int s = 0; s < nrOfNodes; s++) {
+                int degree = adjacency.outDegree(s) + adjacency.inDegree(s);
+                handleRepulsionCosts[s] = 1 + degree * (degree - 1) / 2f;
+            }
+            handlePartitions.setBalanced(handleRepulsionCosts, nrOfNodes, numThreads);
+            int nrOfRepulsionBuffers = handlePartitions.count();
+            scheduler.run(handlePartitions, (worker, partition, start, end) -> computeHandleRepulsions(worker, partition, adjacency, nrOfEdges, start, end));
 
-            Vector3f force = getEdgeEffect(edge.fromPosition, edge.toPosition, attraction, natLength);
-            assert !Vectors.isNaN(force);
-            totalNodeTension += force.length();
+            if (nrOfRepulsionBuffers > 1) {
+                scheduler.run(edgeChunks, (worker, chunk, start, end) -> reduceHandleForces(nrOfRepulsionBuffers, start, end));
+            }
+        }
+        timer.endTiming("edge handle computation");
 
-            Vector3f aForce = nodeForces.computeIfAbsent(edge.from, node -> new Vector3f());
-            Vector3f bForce = nodeForces.computeIfAbsent(edge.to, node -> new Vector3f());
+        timer.startTiming("position update");
+        // the positions are written both to the elements and to the snapshot
+        scheduler.run(edgeChunks, (worker, chunk, start, end) -> moveHandles(worker, edges, adjacency, handleStore, start, end));
+        scheduler.run(nodeChunks, (worker, chunk, start, end) -> moveNodes(worker, chunk, nodes, nodeStore, start, end));
+        scheduler.run(edgeChunks, (worker, chunk, start, end) -> copyEndPoints(adjacency, nodePositions, edgeSnapshot, start, end));
 
-            aForce.add(force);
-            bForce.add(force.negate());
+        nodeMesh.publishPositions();
+        edgeMesh.publishPositions();
+        timer.endTiming("position update");
+        scheduler.reportUtilisation(timer);
+
+        float totalNodeTension = 0;
+        float totalNodeNetForce = 0;
+        for (int p = 0; p < nrOfAttractionBuffers; p++) {
+            totalNodeTension += partitionTension[p];
+        }
+        for (int c = 0; c < nodeChunks.count(); c++) {
+            totalNodeTension += chunkTension[c];
+            totalNodeNetForce += chunkNetForce[c];
         }
 
-        timer.endTiming("node attraction computation");
-        timer.startTiming("edge handle computation");
+        // logging of tension
+        if (isFirstIteration) {
+            nodeTension.fill(totalNodeTension);
+            nodeNetForce.fill(totalNodeNetForce);
 
-        Map<Transition, Vector3f> edgeHandleForces = new HashMap<>();
+        } else {
+            nodeTension.add(totalNodeTension);
+            nodeNetForce.add(totalNodeNetForce);
+        }
 
-        // linear-time edge handle centering and self-loop spacing
-        for (Transition edge : edges) {
-            Vector3f force;
+        if (tensionReader != null) {
+            tensionReader.accept(totalNodeNetForce, totalNodeTension);
+        }
 
-            if (edge.from == edge.to) {
-                force = getEdgeEffect(edge.handlePos, edge.fromPosition, repulsion, natLength);
+        if (doCooling) updateStepFactor(totalNodeNetForce);
 
-            } else {
-                float dist = edge.fromPosition.distance(edge.toPosition) / 16;
-                force = getAttractionQuadratic(edge.handlePos, edge.fromPosition, 1f, dist);
-                force.add(getAttractionQuadratic(edge.handlePos, edge.toPosition, 1f, dist));
-            }
+        // the average movement of a node in the last iterations
+        float movement = nodeNetForce.average() * stepSize / Math.max(nrOfNodes, 1);
+        setConverged(movement < CONVERGENCE_MOVEMENT * natLength);
 
-            if (Vectors.isNaN(force)) {
-                assert false : force;
-            } else {
-                edgeHandleForces.put(edge, force);
+        updateListeners.forEach(Runnable::run);
+        isFirstIteration = false;
+        if (nrOfNodes > 0) nanosPerNode = (float) (System.nanoTime() - startTime) / nrOfNodes;
+    }
+
+    /**
+     * writes the handles of the edges and the end points in nodePositions to the given snapshot, and publishes it
+     * together with the snapshot of the nodes that holds nodePositions. The handles are read from the edges.
+     */
+    private void publishPositions(
+            List<Transition> edges, Adjacency adjacency, NodeMesh nodeMesh, EdgeMesh edgeMesh,
+            PositionExchange.Snapshot edgeSnapshot
+    ) {
+        int nrOfEdges = edges.size();
+        PositionStore handleStore = edgeSnapshot.store(EdgeMesh.HANDLE_POSITIONS);
+        edgeChunks.setUniform(nrOfEdges, CHUNKS_PER_THREAD * numThreads, MIN_CHUNK_SIZE);
+        scheduler.run(edgeChunks, (worker, chunk, start, end) -> {
+            for (int e = start; e < end; e++) {
+                handleStore.set(e, edges.get(e).handlePos);
             }
+            copyEndPoints(adjacency, nodePositions, edgeSnapshot, start, end);
+        });
+
+        nodeMesh.publishPositions();
+        edgeMesh.publishPositions();
+    }
+
+    /**
+     * Executes an epoch of the stress layout instead of an iteration. The terms of the stress layout are computed again
+     * when the graph or the natural length changes, and a wake-up continues with a few epochs of small steps.
+     * @param isWokenUp whether a wake-up was requested since the previous iteration
+     */
+    private void updateStress(
+            List<NG.Graph.State> nodes, List<Transition> edges, Adjacency adjacency, NodeMesh nodeMesh,
+            EdgeMesh edgeMesh, boolean isWokenUp
+    ) {
+        int nrOfNodes = nodes.size();
+
+        timer.startTiming("stress epoch");
+        if (stressLayout == null) stressLayout = new StressLayout(numThreads);
+        stressLayout.setAllow3D(allow3D);
+
+        if (stressLayout.getAdjacency() != adjacency || stressNatLength != natLength) {
+            stressLayout.setSeed(seed);
+            stressLayout.setNatLength(natLength);
+            stressLayout.setGraph(graph);
+            stressNatLength = natLength;
+
+        } else if (isWokenUp) {
+            stressLayout.reheat();
         }
 
-        if (edgeRepulsion != 0) {
-            // quadratic-time edge handle repulsion
-            for (NG.Graph.State node : nodes) {
-                PairList<Transition, NG.Graph.State> neighbours = graph.connectionsOf(node);
-                List<Transition> connections = new ArrayList<>(node.getOutgoing());
-                connections.addAll(node.getIncoming());
+        if (!stressLayout.isConverged()) stressLayout.step();
+        timer.endTiming("stress epoch");
 
-                assert neighbours != null : node;
+        timer.startTiming("position update");
+        PositionStore nodeStore = nodeMesh.startPositionUpdate(nrOfNodes);
+        for (int s = 0; s < nrOfNodes; s++) {
+            nodeStore.set(s, nodes.get(s).position);
+        }
+        nodePositions = nodeStore.slice(0, nrOfNodes);
+        publishPositions(edges, adjacency, nodeMesh, edgeMesh, edgeMesh.startPositionUpdate(edges.size()));
+        timer.endTiming("position update");
+
+        setConverged(stressLayout.isConverged());
+        updateListeners.forEach(Runnable::run);
+        isFirstIteration = false;
+    }
 
-                for (int i = 0; i < connections.size(); i++) {
-                    Transition a = connections.get(i);
+    /** @return true if a full iteration on the given number of nodes is not expected to fit in the frame budget */
+    private boolean isPartialIteration(int nrOfNodes) {
+        return frameBudgetNanos > 0 && nrOfNodes > MIN_PARTIAL_NODES && nrOfNodes * nanosPerNode > frameBudgetNanos;
+    }
 
-                    for (int j = i + 1; j < connections.size(); j++) {
-                        Transition b = connections.get(j);
+    /**
+     * Executes an iteration that only computes and applies the forces on the nodes of the highest priority, as many as
+     * fit in the frame budget. The priority of a node is its net force when it was last computed, multiplied by the
+     * number of iterations since then, and divided by one plus its distance to the focus in natural lengths. The
+     * repulsion is approximated with Barnes-Hut, also when the fast multipole method is selected, and the tree is only
+     * updated every {@value #PARTIAL_TREE_INTERVAL} partial iterations. The handles of the edges move along with their
+     * nodes. The node positions are read into nodePositions before this is called.
+     * @param edgeSnapshot the snapshot of the edges that this iteration writes
+     * @param startTime    the start of the iteration, as given by {@link System#nanoTime()}
+     */
+    private void updatePartial(
+            List<NG.Graph.State> nodes, List<Transition> edges, Adjacency adjacency, NodeMesh nodeMesh,
+            EdgeMesh edgeMesh, PositionExchange.Snapshot edgeSnapshot, long startTime
+    ) {
+        int nrOfNodes = nodes.size();
+        int nrOfEdges = edges.size();
+        boolean useBarnesHut = barnesHutTheta > 0;
 
-                        Vector3f force = getRepulsion(a.handlePos, b.handlePos, EDGE_HANDLE_DISTANCE, edgeRepulsion);
+        timer.startTiming("partial iteration setup");
+        if (useBarnesHut) {
+            // in between updates, the other nodes repel from their positions at the last update
+            barnesTree.setMaxTheta(barnesHutTheta);
+            if (partialTreeAge >= PARTIAL_TREE_INTERVAL || barnesTree.getNrOfBodies() != nrOfNodes) {
+                barnesTree.setMinCellSize(natLength / 10);
+                barnesTree.update(nodePositions, nrOfNodes);
+                partialTreeAge = 0;
 
-                        if (!Vectors.isNaN(force)) {
-                            edgeHandleForces.get(a).add(force);
-                            edgeHandleForces.get(b).add(force.negate());
-                        } else {
-                            assert false : force;
-                        }
-                    }
-                }
+            } else {
+                // the active nodes are queried at their current positions
+                barnesTree.setPositions(nodePositions);
             }
+            partialTreeAge++;
+
+        } else {
+            copyCoordinates(nrOfNodes);
         }
 
-        timer.endTiming("edge handle computation");
-        timer.startTiming("node repulsion collection");
+        if (residualForces.length < nrOfNodes) {
+            int oldSize = residualForces.length;
+            residualForces = Arrays.copyOf(residualForces, nrOfNodes);
+            lastComputed = Arrays.copyOf(lastComputed, nrOfNodes);
+            Arrays.fill(residualForces, oldSize, nrOfNodes, Float.POSITIVE_INFINITY);
+            Arrays.fill(lastComputed, oldSize, nrOfNodes, iteration);
+        }
+
+        timer.endTiming("partial iteration setup");
 
-        // collect node repulsion computations
-        int i = 0;
-        for (Future<Vector3f[]> future : futureResults) {
-            Vector3f[] batch = future.get();
+        timer.startTiming("partial node selection");
+        float budget = Math.max(frameBudgetNanos - partialOverheadNanos, 0);
+        int nrOfActive = (int) Math.min(nrOfNodes, Math.max(MIN_PARTIAL_NODES, budget / nanosPerNode));
+        selectActiveNodes(nodes, nrOfActive);
+        timer.endTiming("partial node selection");
 
-            for (int j = 0; j < batch.length; j++) {
-                Vector3f force = batch[j];
-                assert !Vectors.isNaN(force) : Arrays.toString(batch);
-                totalNodeTension += force.length();
+        timer.startTiming("partial force computation");
+        long forceStartTime = System.nanoTime();
+        activeForces = ensureSize(activeForces, 3 * nrOfActive);
+        activeChunks.setUniform(nrOfActive, CHUNKS_PER_THREAD * numThreads, 1);
+        scheduler.run(activeChunks, (worker, chunk, start, end) -> computeActiveForces(worker, adjacency, nrOfNodes, useBarnesHut, start, end));
+        long forceNanos = System.nanoTime() - forceStartTime;
+        timer.endTiming("partial force computation");
 
-                NG.Graph.State node = nodes.get(i + j);
-                Vector3f nodeForce = nodeForces.computeIfAbsent(node, k -> new Vector3f());
-                nodeForce.add(force);
+        timer.startTiming("position update");
+        float netForce = moveActiveNodes(nodes, edges, adjacency, nrOfActive);
+
+        // nodePositions holds the new positions of the moved nodes
+        publishPositions(edges, adjacency, nodeMesh, edgeMesh, edgeSnapshot);
+        timer.endTiming("position update");
+        scheduler.reportUtilisation(timer);
+
+        // the active nodes have the highest priority, thus when these hardly move, the others hardly move either
+        float movement = netForce * stepSize / nrOfActive;
+        setConverged(movement < CONVERGENCE_MOVEMENT * natLength);
+
+        updateListeners.forEach(Runnable::run);
+        isFirstIteration = false;
+
+        nanosPerNode = Math.max((float) forceNanos / nrOfActive, 1);
+        // averaged, as the iterations that update the tree take longer
+        partialOverheadNanos = (partialOverheadNanos + System.nanoTime() - startTime - forceNanos) / 2;
+    }
+
+    /** stores the indices of the nrOfActive nodes of the highest priority in activeNodes[0, nrOfActive) */
+    private void selectActiveNodes(List<NG.Graph.State> nodes, int nrOfActive) {
+        int nrOfNodes = nodes.size();
+        priorities = ensureSize(priorities, nrOfNodes);
+        if (activeNodes.length < nrOfNodes) activeNodes = new int[nrOfNodes];
+
+        Vector3fc focusPoint = focus.get();
+        for (int s = 0; s < nrOfNodes; s++) {
+            activeNodes[s] = s;
+
+            if (nodes.get(s).isFixed) {
+                priorities[s] = 0;
+                continue;
             }
 
-            i += batch.length;
+            float distance = 0;
+            if (focusPoint != null) {
+                int i = 3 * s;
+                distance = Vector3f.distance(
+                        nodePositions.get(i), nodePositions.get(i + 1), nodePositions.get(i + 2),
+                        focusPoint.x(), focusPoint.y(), focusPoint.z()
+                );
+            }
+            float proximity = natLength / (natLength + distance);
+            if (residualForces[s] == Float.POSITIVE_INFINITY) {
+                // nodes that were never computed come first
+                priorities[s] = Float.MAX_VALUE * proximity;
+            } else {
+                float age = 1 + iteration - lastComputed[s];
+                priorities[s] = residualForces[s] * age * proximity;
+            }
         }
-        timer.endTiming("node repulsion collection");
-        timer.startTiming("position update");
 
-        // apply forces on edge handles
-        for (Transition edge : edges) {
-            Vector3f force = edgeHandleForces.get(edge);
+        selectHighest(activeNodes, priorities, nrOfNodes, nrOfActive);
+    }
 
-            // also include forces of the parent nodes to have edges move along with the parents
-            Vector3f parentForces = new Vector3f();
-            if (!edge.from.isFixed) parentForces.add(nodeForces.get(edge.from));
-            if (!edge.to.isFixed) parentForces.add(nodeForces.get(edge.to));
-            parentForces.div(2);
+    /**
+     * computes the repulsion and attraction on the active nodes in [startIndex, endIndex), and stores these in
+     * activeForces, indexed by 3 * active index
+     */
+    private void computeActiveForces(
+            Worker worker, Adjacency adjacency, int nrOfNodes, boolean useBarnesHut, int startIndex, int endIndex
+    ) {
+        float[] force = worker.interaction;
+        int[] stack = useBarnesHut ? worker.getStack(barnesTree.getStackSize()) : null;
 
-            force.add(parentForces);
+        for (int i = startIndex; i < endIndex; i++) {
+            int s = activeNodes[i];
+            int a = 3 * s;
+            int offset = 3 * i;
 
-            Vector3f movement = force.mul(speed); // modifies edgeHandleForces
+            if (useBarnesHut) {
+                barnesTree.getForceOn(s, activeForces, offset, stack, force);
 
-            if (movement.length() > MAX_NODE_MOVEMENT) {
-                movement.normalize(MAX_NODE_MOVEMENT);
+            } else {
+                repulsionKernel.getRepulsion(
+                        nodeX[s], nodeY[s], nodeZ[s], nodeX, nodeY, nodeZ, 0, nrOfNodes, s, natLength, repulsion,
+                        iterationKey + s, activeForces, offset
+                );
             }
-            if (!allow3D) {
-                movement.z = 0;
+
+            float fx = activeForces[offset];
+            float fy = activeForces[offset + 1];
+            float fz = activeForces[offset + 2];
+
+            for (int j = adjacency.outStart(s); j < adjacency.outEnd(s); j++) {
+                int to = 3 * adjacency.to(adjacency.outEdge(j));
+                if (to == a) continue;
+
+                getEdgeEffect(nodePositions, a, nodePositions, to, attraction, natLength, force, 0);
+                fx += force[0];
+                fy += force[1];
+                fz += force[2];
+            }
+            for (int j = adjacency.inStart(s); j < adjacency.inEnd(s); j++) {
+                int from = 3 * adjacency.from(adjacency.inEdge(j));
+                if (from == a) continue;
+
+                getEdgeEffect(nodePositions, from, nodePositions, a, attraction, natLength, force, 0);
+                fx -= force[0];
+                fy -= force[1];
+                fz -= force[2];
             }
 
-            edge.handlePos.add(movement);
-            assert !Vectors.isNaN(edge.handlePos) : movement;
+            activeForces[offset] = fx;
+            activeForces[offset + 1] = fy;
+            activeForces[offset + 2] = fz;
         }
+    }
 
-        float totalNodeNetForce = 0;
-
-        // apply forces on nodes
-        for (NG.Graph.State node : nodes) {
-            if (node.isFixed) continue;
+    /**
+     * moves the active nodes along their force, and the handles of their edges along with them
+     * @return the sum of the forces on the active nodes
+     */
+    private float moveActiveNodes(
+            List<NG.Graph.State> nodes, List<Transition> edges, Adjacency adjacency, int nrOfActive
+    ) {
+        Vector3f movement = activeMovement;
+        float netForce = 0;
+
+        for (int i = 0; i < nrOfActive; i++) {
+            int s = activeNodes[i];
+            int offset = 3 * i;
+            movement.set(activeForces[offset], activeForces[offset + 1], activeForces[offset + 2]);
+            if (Vectors.isNaN(movement)) {
+                assert false : s;
+                continue;
+            }
 
-            Vector3f force = nodeForces.get(node);
-            totalNodeNetForce += force.length();
+            float force = movement.length();
+            residualForces[s] = force;
+            lastComputed[s] = iteration;
 
-            Vector3f movement = force.mul(speed); // modifies nodeForces
+            NG.Graph.State node = nodes.get(s);
+            if (node.isFixed) continue;
+            netForce += force;
 
+            movement.mul(stepSize);
             if (movement.length() > MAX_NODE_MOVEMENT) {
                 movement.normalize(MAX_NODE_MOVEMENT);
             }
@@ -256,58 +683,390 @@ public class SpringLayout extends AbstractGameLoop implements ToolElement {
             }
 
             node.position.add(movement);
-            assert !Vectors.isNaN(node.position) : movement;
+            node.position.get(3 * s, nodePositions);
+
+            // the handles move half as far, and a self-loop moves with both of its ends
+            movement.mul(0.5f);
+            for (int j = adjacency.outStart(s); j < adjacency.outEnd(s); j++) {
+                edges.get(adjacency.outEdge(j)).handlePos.add(movement);
+            }
+            for (int j = adjacency.inStart(s); j < adjacency.inEnd(s); j++) {
+                edges.get(adjacency.inEdge(j)).handlePos.add(movement);
+            }
         }
 
-        timer.endTiming("position update");
+        return netForce;
+    }
 
+    /**
+     * reorders indices[0, size), such that indices[0, k) are the indices with the highest scores, in no particular
+     * order. Uses a quickselect with a median-of-three pivot.
+     */
+    static void selectHighest(int[] indices, float[] scores, int size, int k) {
+        int low = 0;
+        int high = size - 1;
+
+        while (low < high && k > low && k <= high) {
+            int middle = (low + high) >>> 1;
+            float pivot = medianOfThree(scores[indices[low]], scores[indices[middle]], scores[indices[high]]);
+
+            // Hoare partition into [low, j] with scores >= pivot, and [j + 1, high] with scores <= pivot
+            int i = low - 1;
+            int j = high + 1;
+            while (true) {
+                do i++; while (scores[indices[i]] > pivot);
+                do j--; while (scores[indices[j]] < pivot);
+                if (i >= j) break;
+
+                int swap = indices[i];
+                indices[i] = indices[j];
+                indices[j] = swap;
+            }
 
-        // logging of tension
-        if (isFirstIteration) {
-            nodeTension.fill(totalNodeTension);
-            nodeNetForce.fill(totalNodeNetForce);
+            if (k <= j) {
+                high = j;
+            } else {
+                low = j + 1;
+            }
+        }
+    }
+
+    private static float medianOfThree(float a, float b, float c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    /** cools down when the net force increases, and heats up again when it keeps decreasing */
+    private void updateStepFactor(float netForce) {
+        if (netForce < previousNetForce) {
+            nrOfDecreases++;
+            if (nrOfDecreases >= STEP_INCREASE_DELAY) {
+                nrOfDecreases = 0;
+                stepFactor = Math.min(1, stepFactor / COOLING_FACTOR);
+            }
 
         } else {
-            nodeTension.add(totalNodeTension);
-            nodeNetForce.add(totalNodeNetForce);
+            nrOfDecreases = 0;
+            stepFactor = Math.max(MIN_STEP_FACTOR, stepFactor * COOLING_FACTOR);
         }
 
-        if (tensionReader != null) {
-            tensionReader.accept(totalNodeNetForce, totalNodeTension);
-        }
+        previousNetForce = netForce;
+    }
 
-        updateListeners.forEach(Runnable::run);
-        isFirstIteration = false;
+    /** throttles the iteration rate when converged */
+    private void setConverged(boolean isConverged) {
+        if (isConverged == this.isConverged) return;
+        this.isConverged = isConverged;
+
+        setTPS(isConverged ? IDLE_ITERATIONS_PER_SECOND : iterationsPerSecond);
+        Logger.DEBUG.print(isConverged ? "Layout converged" : "Layout resumed");
+    }
+
+    /** @return an array of the given size, where every element has the same cost */
+    private static float[] uniformCosts(int size) {
+        float[] costs = new float[size];
+        Arrays.fill(costs, 1f);
+        return costs;
     }
 
-    private Vector3f[] computeRepulsions(
-            List<NG.Graph.State> nodes, int startIndex, int endIndex, BarnesHutTree optionalBarnes
+    /** @return the force buffer of the given partition, which is nodeForces itself for partition 0 */
+    private float[] getNodeForceBuffer(int partition, int size) {
+        if (partition == 0) return nodeForces;
+        return nodeForceBuffers[partition] = ensureSize(nodeForceBuffers[partition], size);
+    }
+
+    /** @return the handle force buffer of the given partition, which is edgeHandleForces itself for partition 0 */
+    private float[] getHandleForceBuffer(int partition, int size) {
+        if (partition == 0) return edgeHandleForces;
+        return handleForceBuffers[partition] = ensureSize(handleForceBuffers[partition], size);
+    }
+
+    /**
+     * computes the repulsion on the nodes in [startIndex, endIndex), and stores these in nodeRepulsions. The time of each
+     * node is stored in repulsionCosts.
+     */
+    private void computeRepulsions(
+            Worker worker, int nrOfNodes, int startIndex, int endIndex, boolean useBarnesHut
     ) {
-        int nrOfNodes = endIndex - startIndex;
-        Vector3f[] forces = new Vector3f[nrOfNodes];
+        float[] forces = nodeRepulsions;
+        float[] force = worker.interaction;
+        int[] stack = useBarnesHut ? worker.getStack(barnesTree.getStackSize()) : null;
 
-        for (int i = 0; i < nrOfNodes; i++) {
-            NG.Graph.State node = nodes.get(startIndex + i);
+        for (int s = startIndex; s < endIndex; s++) {
+            long startTime = System.nanoTime();
+            if (useBarnesHut) {
+                barnesTree.getForceOn(s, forces, 3 * s, stack, force);
 
-            if (optionalBarnes == null) {
+            } else {
                 // naive implementation
-                forces[i] = new Vector3f();
+                repulsionKernel.getRepulsion(
+                        nodeX[s], nodeY[s], nodeZ[s], nodeX, nodeY, nodeZ, 0, nrOfNodes, s, natLength, repulsion,
+                        iterationKey + s, forces, 3 * s
+                );
+            }
+            repulsionCosts[s] = System.nanoTime() - startTime;
 
-                for (NG.Graph.State other : nodes) {
-                    if (node == other) continue;
-                    Vector3f otherToThis = getRepulsion(node.position, other.position, natLength, repulsion);
-                    forces[i].add(otherToThis);
-                }
+            if (Thread.currentThread().isInterrupted()) return;
+        }
+    }
+
+    /**
+     * computes the repulsion on the nodes of the multipole targets in [startIndex, endIndex). The time of each target is
+     * stored in repulsionCosts.
+     */
+    private void computeMultipoleRepulsions(Worker worker, int startIndex, int endIndex) {
+        int[] stack = worker.getStack(multipoleTree.getStackSize());
+        float[] scratch = worker.getScratch(multipoleTree.getScratchSize());
+
+        for (int t = startIndex; t < endIndex; t++) {
+            long startTime = System.nanoTime();
+            multipoleTree.computeForces(t, nodeRepulsions, stack, scratch);
+            repulsionCosts[t] = System.nanoTime() - startTime;
+
+            if (Thread.currentThread().isInterrupted()) return;
+        }
+    }
+
+    /** stores the attraction of the edges in [startIndex, endIndex) in the node force buffer of the partition */
+    private void computeAttractions(
+            Worker worker, int partition, Adjacency adjacency, int nrOfNodes, int startIndex, int endIndex
+    ) {
+        float[] forces = getNodeForceBuffer(partition, 3 * nrOfNodes);
+        Arrays.fill(forces, 0, 3 * nrOfNodes, 0f);
+        float[] force = worker.interaction;
+        float tension = 0;
+
+        for (int e = startIndex; e < endIndex; e++) {
+            int from = 3 * adjacency.from(e);
+            int to = 3 * adjacency.to(e);
+            if (from == to) continue;
+
+            getEdgeEffect(nodePositions, from, nodePositions, to, attraction, natLength, force, 0);
+            assert !isNaN(force, 0);
+            tension += Vector3f.length(force[0], force[1], force[2]);
+
+            forces[from] += force[0];
+            forces[from + 1] += force[1];
+            forces[from + 2] += force[2];
+            forces[to] -= force[0];
+            forces[to + 1] -= force[1];
+            forces[to + 2] -= force[2];
+        }
+
+        partitionTension[partition] = tension;
+    }
+
+    /**
+     * sums the attraction buffers of the first nrOfBuffers partitions and the repulsion into nodeForces, for the nodes
+     * in [startIndex, endIndex)
+     */
+    private void reduceNodeForces(int chunk, int nrOfBuffers, int startIndex, int endIndex) {
+        for (int i = 3 * startIndex; i < 3 * endIndex; i++) {
+            float force = nodeForces[i];
+            for (int k = 1; k < nrOfBuffers; k++) {
+                force += nodeForceBuffers[k][i];
+            }
+            nodeForces[i] = force;
+        }
+
+        float tension = 0;
+        for (int i = 3 * startIndex; i < 3 * endIndex; i += 3) {
+            assert !isNaN(nodeRepulsions, i) : i / 3;
+            tension += Vector3f.length(nodeRepulsions[i], nodeRepulsions[i + 1], nodeRepulsions[i + 2]);
+
+            nodeForces[i] += nodeRepulsions[i];
+            nodeForces[i + 1] += nodeRepulsions[i + 1];
+            nodeForces[i + 2] += nodeRepulsions[i + 2];
+        }
+        chunkTension[chunk] = tension;
+    }
+
+    /** stores the centering force of the edges in [startIndex, endIndex) in edgeHandleForces */
+    private void computeHandleCentering(Worker worker, Adjacency adjacency, int startIndex, int endIndex) {
+        float[] force = worker.interaction;
+
+        for (int e = startIndex; e < endIndex; e++) {
+            int from = 3 * adjacency.from(e);
+            int to = 3 * adjacency.to(e);
+            int handle = 3 * e;
+
+            if (from == to) {
+                getEdgeEffect(handlePositions, handle, nodePositions, from, repulsion, natLength, edgeHandleForces, handle);
 
             } else {
-                forces[i] = optionalBarnes.getForceOn(node.position);
+                float dist = Vector3f.distance(
+                        nodePositions.get(from), nodePositions.get(from + 1), nodePositions.get(from + 2),
+                        nodePositions.get(to), nodePositions.get(to + 1), nodePositions.get(to + 2)
+                ) / 16;
+                getAttractionQuadratic(handlePositions, handle, nodePositions, from, 1f, dist, edgeHandleForces, handle);
+                getAttractionQuadratic(handlePositions, handle, nodePositions, to, 1f, dist, force, 0);
+                edgeHandleForces[handle] += force[0];
+                edgeHandleForces[handle + 1] += force[1];
+                edgeHandleForces[handle + 2] += force[2];
+            }
+
+            if (isNaN(edgeHandleForces, handle)) {
+                assert false : e;
+                edgeHandleForces[handle] = 0;
+                edgeHandleForces[handle + 1] = 0;
+                edgeHandleForces[handle + 2] = 0;
+            }
+        }
+    }
+
+    /**
+     * adds the repulsion between the handles of the edges of each node in [startIndex, endIndex) to the handle force
+     * buffer of the partition. The buffer of the first partition is edgeHandleForces itself.
+     */
+    private void computeHandleRepulsions(
+            Worker worker, int partition, Adjacency adjacency, int nrOfEdges, int startIndex, int endIndex
+    ) {
+        float[] forces = getHandleForceBuffer(partition, 3 * nrOfEdges);
+        if (forces != edgeHandleForces) Arrays.fill(forces, 0, 3 * nrOfEdges, 0f);
+        float[] force = worker.interaction;
+
+        for (int s = startIndex; s < endIndex; s++) {
+            int nrOfConnections = adjacency.outDegree(s) + adjacency.inDegree(s);
+            int[] connections = worker.getConnections(nrOfConnections);
+
+            int k = 0;
+            for (int i = adjacency.outStart(s); i < adjacency.outEnd(s); i++) {
+                connections[k++] = adjacency.outEdge(i);
+            }
+            for (int i = adjacency.inStart(s); i < adjacency.inEnd(s); i++) {
+                connections[k++] = adjacency.inEdge(i);
+            }
+
+            for (int i = 0; i < nrOfConnections; i++) {
+                int a = 3 * connections[i];
+
+                for (int j = i + 1; j < nrOfConnections; j++) {
+                    int b = 3 * connections[j];
+
+                    getRepulsion(
+                            handlePositions.get(a), handlePositions.get(a + 1), handlePositions.get(a + 2),
+                            handlePositions.get(b), handlePositions.get(b + 1), handlePositions.get(b + 2),
+                            EDGE_HANDLE_DISTANCE, edgeRepulsion, iterationKey + connections[i], force, 0
+                    );
+
+                    if (!isNaN(force, 0)) {
+                        forces[a] += force[0];
+                        forces[a + 1] += force[1];
+                        forces[a + 2] += force[2];
+                        forces[b] -= force[0];
+                        forces[b + 1] -= force[1];
+                        forces[b + 2] -= force[2];
+                    } else {
+                        assert false : Arrays.toString(force);
+                    }
+                }
+            }
+        }
+    }
+
+    /** adds the handle force buffers of partitions 1 to nrOfBuffers to edgeHandleForces, for the edges in [startIndex, endIndex) */
+    private void reduceHandleForces(int nrOfBuffers, int startIndex, int endIndex) {
+        for (int i = 3 * startIndex; i < 3 * endIndex; i++) {
+            float force = edgeHandleForces[i];
+            for (int k = 1; k < nrOfBuffers; k++) {
+                force += handleForceBuffers[k][i];
+            }
+            edgeHandleForces[i] = force;
+        }
+    }
+
+    private void moveHandles(
+            Worker worker, List<Transition> edges, Adjacency adjacency, PositionStore handleStore, int startIndex,
+            int endIndex
+    ) {
+        Vector3f movement = worker.movement;
+
+        for (int e = startIndex; e < endIndex; e++) {
+            Transition edge = edges.get(e);
+            int from = 3 * adjacency.from(e);
+            int to = 3 * adjacency.to(e);
+            int handle = 3 * e;
+
+            // also include forces of the parent nodes to have edges move along with the parents
+            float px = 0, py = 0, pz = 0;
+            if (!edge.from.isFixed) {
+                px += nodeForces[from];
+                py += nodeForces[from + 1];
+                pz += nodeForces[from + 2];
+            }
+            if (!edge.to.isFixed) {
+                px += nodeForces[to];
+                py += nodeForces[to + 1];
+                pz += nodeForces[to + 2];
+            }
+
+            movement.set(
+                    edgeHandleForces[handle] + px / 2,
+                    edgeHandleForces[handle + 1] + py / 2,
+                    edgeHandleForces[handle + 2] + pz / 2
+            ).mul(stepSize);
+
+            if (movement.length() > MAX_NODE_MOVEMENT) {
+                movement.normalize(MAX_NODE_MOVEMENT);
+            }
+            if (!allow3D) {
+                movement.z = 0;
             }
 
-            assert !Vectors.isNaN(forces[i]) : node;
-            if (Thread.interrupted()) return forces;
+            edge.handlePos.add(movement);
+            assert !Vectors.isNaN(edge.handlePos) : movement;
+            handleStore.set(e, edge.handlePos);
         }
+    }
+
+    private void moveNodes(
+            Worker worker, int chunk, List<NG.Graph.State> nodes, PositionStore nodeStore, int startIndex, int endIndex
+    ) {
+        Vector3f movement = worker.movement;
+        float netForce = 0;
+
+        for (int s = startIndex; s < endIndex; s++) {
+            NG.Graph.State node = nodes.get(s);
+            // the snapshot already holds the positions of fixed nodes
+            if (node.isFixed) continue;
 
-        return forces;
+            int i = 3 * s;
+            movement.set(nodeForces[i], nodeForces[i + 1], nodeForces[i + 2]);
+            netForce += movement.length();
+
+            movement.mul(stepSize);
+
+            if (movement.length() > MAX_NODE_MOVEMENT) {
+                movement.normalize(MAX_NODE_MOVEMENT);
+            }
+            if (!allow3D) {
+                movement.z = 0;
+            }
+
+            node.position.add(movement);
+            assert !Vectors.isNaN(node.position) : movement;
+            // nodePositions is a view on the store, from which the end points of the edges are copied
+            nodeStore.set(s, node.position);
+        }
+        chunkNetForce[chunk] = netForce;
+    }
+
+    /**
+     * copies the positions of the end points of the edges in [startIndex, endIndex) from the given node positions to the
+     * snapshot of the edges
+     */
+    private static void copyEndPoints(
+            Adjacency adjacency, FloatBuffer positions, PositionExchange.Snapshot edgeSnapshot, int startIndex,
+            int endIndex
+    ) {
+        PositionStore fromStore = edgeSnapshot.store(EdgeMesh.FROM_POSITIONS);
+        PositionStore toStore = edgeSnapshot.store(EdgeMesh.TO_POSITIONS);
+
+        for (int e = startIndex; e < endIndex; e++) {
+            int from = 3 * adjacency.from(e);
+            int to = 3 * adjacency.to(e);
+            fromStore.set(e, positions.get(from), positions.get(from + 1), positions.get(from + 2));
+            toStore.set(e, positions.get(to), positions.get(to + 1), positions.get(to + 2));
+        }
     }
 
     public float getEdgeRepulsionFactor() {
@@ -316,6 +1075,7 @@ public class SpringLayout extends AbstractGameLoop implements ToolElement {
 
     public void setEdgeRepulsionFactor(float edgeRepulsion) {
         this.edgeRepulsion = edgeRepulsion;
+        wakeUp();
     }
 
     public float getRepulsionFactor() {
@@ -324,6 +1084,7 @@ public class SpringLayout extends AbstractGameLoop implements ToolElement {
 
     public void setRepulsionFactor(float repulsion) {
         this.repulsion = repulsion;
+        wakeUp();
     }
 
     public float getAttractionFactor() {
@@ -332,6 +1093,7 @@ public class SpringLayout extends AbstractGameLoop implements ToolElement {
 
     public void setAttractionFactor(float attraction) {
         this.attraction = attraction;
+        wakeUp();
     }
 
     public void addUpdateListeners(Runnable action) {
@@ -346,9 +1108,11 @@ public class SpringLayout extends AbstractGameLoop implements ToolElement {
         Logger.DEBUG.print("Set 3D to " + allow3D);
         this.allow3D = allow3D;
 
+        long key = CounterRandom.hash(seed, iteration);
         for (NG.Graph.State node : graph.getNodeMesh().nodeList()) {
-            node.position.z += Toolbox.randomBetween(-1, 1);
+            node.position.z += CounterRandom.between(key, node.index, -1, 1);
         }
+        wakeUp();
     }
 
     public float getSpeed() {
@@ -357,6 +1121,7 @@ public class SpringLayout extends AbstractGameLoop implements ToolElement {
 
     public void setSpeed(float speed) {
         this.speed = speed;
+        wakeUp();
     }
 
     public float getNatLength() {
@@ -365,6 +1130,7 @@ public class SpringLayout extends AbstractGameLoop implements ToolElement {
 
     public void setNatLength(float natLength) {
         this.natLength = Math.max(natLength, 0.01f);
+        wakeUp();
     }
 
     public float getBarnesHutTheta() {
@@ -373,6 +1139,74 @@ public class SpringLayout extends AbstractGameLoop implements ToolElement {
 
     public void setBarnesHutTheta(float barnesHutTheta) {
         this.barnesHutTheta = barnesHutTheta;
+        wakeUp();
+    }
+
+    public RepulsionKernel getRepulsionKernel() {
+        return repulsionKernel;
+    }
+
+    /**
+     * sets the kernel that computes the repulsion of the naive method, which is used when the Barnes-Hut theta is 0.
+     * Defaults to the {@link RepulsionKernel#getFastest() fastest kernel} available.
+     */
+    public void setRepulsionKernel(RepulsionKernel repulsionKernel) {
+        Logger.DEBUG.print("Set repulsion kernel to " + repulsionKernel);
+        this.repulsionKernel = repulsionKernel;
+    }
+
+    public float getFrameBudget() {
+        return frameBudgetNanos / 1e6f;
+    }
+
+    /**
+     * Sets the maximum time of a single iteration in milliseconds. When a full iteration is expected to take longer,
+     * each iteration only moves the nodes of the highest priority that fit in this budget: the nodes with a high net
+     * force, that were not moved for a long time, or that are close to the {@link #setFocus(Supplier) focus}. This
+     * keeps the layout responsive to dragging nodes on large graphs. A budget of 0 always executes full iterations.
+     */
+    public synchronized void setFrameBudget(float millis) {
+        this.frameBudgetNanos = (long) (Math.max(millis, 0) * 1e6f);
+        wakeUp();
+    }
+
+    /**
+     * sets the point around which partial iterations move the nodes first, for example the node that is being dragged
+     * or the focus of the camera. The supplier is queried on the layout thread, and may return null.
+     */
+    public void setFocus(Supplier<Vector3fc> focus) {
+        this.focus = focus;
+    }
+
+    public boolean doStressMajorization() {
+        return stressMajorization;
+    }
+
+    /**
+     * Sets whether the iterations are replaced by epochs of stress majorization, see {@link StressLayout}. This
+     * converges in tens of epochs on graphs where the spring model takes thousands of iterations, but ignores the
+     * forces and the speed of the spring model. Enabling it starts the stress layout over from the current positions.
+     */
+    public synchronized void setStressMajorization(boolean stressMajorization) {
+        Logger.DEBUG.print("Set stress majorization to " + stressMajorization);
+        this.stressMajorization = stressMajorization;
+        stressNatLength = 0;
+        wakeUp();
+    }
+
+    public boolean doFastMultipole() {
+        return fastMultipole;
+    }
+
+    /**
+     * Sets whether the repulsion is approximated with the Fast Multipole Method instead of Barnes-Hut. The Barnes-Hut
+     * theta is then used as the opening criterion of the multipole tree. With a theta of 0, the repulsion is always
+     * computed exactly.
+     */
+    public void setFastMultipole(boolean fastMultipole) {
+        Logger.DEBUG.print("Set fast multipole to " + fastMultipole);
+        this.fastMultipole = fastMultipole;
+        wakeUp();
     }
 
     public float getNodeNetForce() {
@@ -389,43 +1223,124 @@ public class SpringLayout extends AbstractGameLoop implements ToolElement {
 
     @Override
     public synchronized void cleanup() {
-        executor.shutdownNow();
+        scheduler.shutdown();
+        if (stressLayout != null) stressLayout.cleanup();
         updateListeners.clear();
         tensionReader = null;
     }
 
-    /** returns attraction on on a, affected by b */
-    private static Vector3f getAttractionQuadratic(Vector3fc a, Vector3fc b, float attraction, float natLength) {
-        Vector3f aToB = new Vector3f(b).sub(a);
+    /** stores attraction on a, affected by b, in target */
+    private static void getAttractionQuadratic(
+            FloatBuffer a, int aIndex, FloatBuffer b, int bIndex, float attraction, float natLength, float[] target,
+            int offset
+    ) {
+        float dx = b.get(bIndex) - a.get(aIndex);
+        float dy = b.get(bIndex + 1) - a.get(aIndex + 1);
+        float dz = b.get(bIndex + 2) - a.get(aIndex + 2);
 
-        float length = aToB.length() * attraction + 1f;
+        float length = Vector3f.length(dx, dy, dz) * attraction + 1f;
         float factor = length * length * natLength - 0.1f;
 
-        return aToB.mul(factor);
+        target[offset] = dx * factor;
+        target[offset + 1] = dy * factor;
+        target[offset + 2] = dz * factor;
     }
 
-    /** returns attraction-repulsion on on a, affected by b */
-    private static Vector3f getEdgeEffect(Vector3fc a, Vector3fc b, float attraction, float natLength) {
-        Vector3f aToB = new Vector3f(b).sub(a);
+    /** stores attraction-repulsion on a, affected by b, in target */
+    private static void getEdgeEffect(
+            FloatBuffer a, int aIndex, FloatBuffer b, int bIndex, float attraction, float natLength, float[] target,
+            int offset
+    ) {
+        float dx = b.get(bIndex) - a.get(aIndex);
+        float dy = b.get(bIndex + 1) - a.get(aIndex + 1);
+        float dz = b.get(bIndex + 2) - a.get(aIndex + 2);
 
-        float dist = Math.max(aToB.length(), 1.0f);
+        float dist = Math.max(Vector3f.length(dx, dy, dz), 1.0f);
         float factor = (float) (attraction * 100 * log(dist / (natLength + 1.0f)) / dist);
 
-        return aToB.mul(factor);
+        target[offset] = dx * factor;
+        target[offset + 1] = dy * factor;
+        target[offset + 2] = dz * factor;
     }
 
-    /** returns repulsion on a, affected by b */
-    public static Vector3f getRepulsion(Vector3fc a, Vector3fc b, float natLength, float repulsion) {
-        Vector3f bToA = new Vector3f(a).sub(b);
-        float length = bToA.length();
+    /**
+     * stores repulsion on a, affected by b, in target. Beyond natLength / 5, this is equal to 8 * repulsion * (a - b) /
+     * |a - b|^3.
+     * @param key identifies a in the current iteration. Coinciding elements are pushed apart in a random direction drawn
+     *            from this key and the position of b, such that the direction does not depend on the thread that
+     *            computes it.
+     */
+    public static void getRepulsion(
+            float ax, float ay, float az, float bx, float by, float bz, float natLength, float repulsion, long key,
+            float[] target, int offset
+    ) {
+        float dx = ax - bx;
+        float dy = ay - by;
+        float dz = az - bz;
+        float length = Vector3f.length(dx, dy, dz);
 
         if (length < 1f / 32) {
-            return Vectors.randomOrb().normalize(100);
+            // only happens for coinciding elements
+            long positionBits = (long) Float.floatToRawIntBits(bx) * 31 * 31
+                    + (long) Float.floatToRawIntBits(by) * 31 + Float.floatToRawIntBits(bz);
+            Vector3f direction = Vectors.randomOrb(CounterRandom.hash(key, positionBits)).normalize(100);
+            target[offset] = direction.x;
+            target[offset + 1] = direction.y;
+            target[offset + 2] = direction.z;
 
         } else {
             float lengthFraction = Math.max(length / 2.0f, natLength / 10);
             float r = repulsion / (lengthFraction * lengthFraction * lengthFraction);
-            return bToA.mul(r);
+            target[offset] = dx * r;
+            target[offset + 1] = dy * r;
+            target[offset + 2] = dz * r;
+        }
+    }
+
+    /** copies nodePositions to the separate coordinate arrays of the naive repulsion */
+    private void copyCoordinates(int nrOfNodes) {
+        nodeX = ensureSize(nodeX, nrOfNodes);
+        nodeY = ensureSize(nodeY, nrOfNodes);
+        nodeZ = ensureSize(nodeZ, nrOfNodes);
+        for (int s = 0; s < nrOfNodes; s++) {
+            nodeX[s] = nodePositions.get(3 * s);
+            nodeY[s] = nodePositions.get(3 * s + 1);
+            nodeZ[s] = nodePositions.get(3 * s + 2);
+        }
+    }
+
+    private static boolean isNaN(float[] vectors, int offset) {
+        return Float.isNaN(vectors[offset]) || Float.isNaN(vectors[offset + 1]) || Float.isNaN(vectors[offset + 2]);
+    }
+
+    /** @return array if it has at least the given size, or a new array of the given size otherwise */
+    private static float[] ensureSize(float[] array, int size) {
+        return array.length >= size ? array : new float[size];
+    }
+
+    /** The scratch buffers of one thread, reused between iterations. */
+    private static class Worker {
+        private int[] stack = new int[0];
+        private float[] scratch = new float[0];
+        private int[] connections = new int[16];
+        private final float[] interaction = new float[3];
+        private final Vector3f movement = new Vector3f();
+
+        int[] getStack(int size) {
+            if (size > stack.length) stack = new int[size];
+            return stack;
+        }
+
+        float[] getScratch(int size) {
+            if (size > scratch.length) scratch = new float[size];
+            return scratch;
+        }
+
+        int[] getConnections(int size) {
+            if (size > connections.length) {
+                connections = new int[Math.max(size, connections.length * 2)];
+            }
+            return connections;
         }
     }
 }
@@ -0,0 +1,530 @@
+package NG.Graph.Layout;
+
+import NG.Graph.Adjacency;
+import NG.Graph.Graph;
+import NG.Graph.SourceGraph;
+import NG.Graph.State;
+import NG.Graph.Transition;
+import NG.Tools.CounterRandom;
+import NG.Tools.Logger;
+import NG.Tools.Toolbox;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Computes a layout by minimising the stress of the graph: the sum over pairs of nodes of w (|x_i - x_j| - d_ij)^2,
+ * where d_ij is the length of the shortest undirected path between i and j in natural lengths, and w = d_ij^-2. The
+ * stress is minimised with stochastic gradient descent (Zheng, Pawar and Goodman, 2018): every epoch visits the terms in
+ * a random order, and moves the nodes of each term towards their ideal distance. The step size decreases exponentially
+ * over the epochs, from a step that satisfies the lightest term at once, to a fraction of the heaviest term. This
+ * converges in tens of epochs, where the spring model takes thousands of iterations to untangle the same graph.
+ * <p>
+ * Graphs of at most {@value #FULL_STRESS_MAX_NODES} nodes have a term for every connected pair of nodes. Larger graphs
+ * use the sparse stress model of Ortmann, Klimenta and Brandes (2016): a term for every edge, and a term between every
+ * node and each of the pivots of {@link HDEPositioning}. A pivot term only moves the node, and its weight is multiplied
+ * by the number of nodes in the region of the pivot that are at most half as far from the pivot, such that the pivot
+ * stands in for the pairs that are left out.
+ * <p>
+ * Nodes that are not connected have no shortest path. Their distance is taken as one more than the longest shortest
+ * path in the graph, such that these pairs get the weakest terms of the graph, which keep the components apart. In the
+ * sparse model, this is the distance between a node and the pivots of other components.
+ * <p>
+ * The terms of an epoch are divided in chunks that run in parallel without synchronisation, such that a thread may read
+ * a position that another thread is writing (Hogwild). Every term only moves one or two nodes, thus conflicts are rare,
+ * and their effect is no larger than the noise of the random order. The result is thus only reproducible from the
+ * {@link #setSeed(long) seed} when a single thread is used.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class StressLayout {
+    /** graphs of more nodes use the sparse stress model */
+    public static final int FULL_STRESS_MAX_NODES = 1000;
+    /** the step size of the last epoch, relative to the heaviest term */
+    private static final float FINAL_STEP_FACTOR = 0.1f;
+    /** the layout is converged when no term moves a node more than this fraction of the natural length in an epoch */
+    private static final float CONVERGENCE_MOVEMENT = 0.03f;
+    /** the number of epochs of small steps that follow a {@link #reheat()} */
+    private static final int REHEAT_EPOCHS = 5;
+    private static final int CHUNKS_PER_THREAD = 8;
+    private static final int MIN_CHUNK_SIZE = 1024;
+
+    private final ParallelScheduler<Void> scheduler;
+    private final ParallelScheduler.Chunks chunks = new ParallelScheduler.Chunks();
+    private long seed = Toolbox.random.nextLong();
+    private float natLength = 2f;
+    private boolean allow3D = true;
+    private int nrOfEpochs = 30;
+
+    private List<State> nodes = List.of();
+    private List<Transition> edges = List.of();
+    private Adjacency adjacency;
+    private int nrOfNodes = 0;
+    private boolean isSparse = false;
+    private int epoch = 0;
+    private boolean isConverged = true;
+    private float maxStep = 1;
+    private float minStep = 1;
+
+    // the terms of the full stress model, with distances in edges
+    private int[] termA = new int[0];
+    private int[] termB = new int[0];
+    private float[] termDistance = new float[0];
+
+    // the terms of the sparse stress model. termA and termB hold the edges
+    private int[] pivots = new int[0];
+    private int[][] pivotDistances = new int[0][];
+    /** element [k][d] is the number of nodes of the region of pivot k at distance at most d of pivot k */
+    private int[][] regionSizes = new int[0][];
+
+    /** the terms of the full model, or the nodes followed by the edges of the sparse model, in the order of an epoch */
+    private int[] order = new int[0];
+    private float[] positions = new float[0];
+    private boolean[] isFixed = new boolean[0];
+    private float[] chunkMovement = new float[0];
+
+    /** @param numThreads the number of threads that execute the epochs */
+    public StressLayout(int numThreads) {
+        scheduler = new ParallelScheduler<>("stress layout", numThreads, () -> null);
+    }
+
+    /** sets the seed of the order of the terms, and of the direction between nodes at the same position */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void setNatLength(float natLength) {
+        this.natLength = Math.max(natLength, 0.01f);
+    }
+
+    /** sets whether nodes may move in the z direction */
+    public void setAllow3D(boolean allow3D) {
+        this.allow3D = allow3D;
+    }
+
+    public int getEpochs() {
+        return nrOfEpochs;
+    }
+
+    /** sets the number of epochs over which the step size decreases to its final value */
+    public void setEpochs(int nrOfEpochs) {
+        this.nrOfEpochs = Math.max(nrOfEpochs, 2);
+    }
+
+    /** @return the number of epochs executed since the last restart */
+    public int getEpoch() {
+        return epoch;
+    }
+
+    /** @return true if the last epoch hardly moved the nodes, or if all epochs are executed */
+    public boolean isConverged() {
+        return isConverged;
+    }
+
+    /**
+     * Computes the terms of the given graph, and restarts the epochs. This takes a breadth-first search from every node
+     * of small graphs, and from every pivot of large graphs. The nodes are read from the graph on every epoch.
+     */
+    public void setGraph(Graph graph) {
+        setGraph(graph.getNodeMesh().nodeList(), graph.getEdgeMesh().edgeList(), graph.getAdjacency());
+    }
+
+    private void setGraph(List<State> nodes, List<Transition> edges, Adjacency adjacency) {
+        long startMillis = System.currentTimeMillis();
+        this.nodes = nodes;
+        this.edges = edges;
+        this.adjacency = adjacency;
+        nrOfNodes = adjacency.nrOfStates();
+        isSparse = nrOfNodes > FULL_STRESS_MAX_NODES;
+
+        if (isSparse) {
+            setSparseTerms();
+        } else {
+            setFullTerms();
+        }
+
+        order = new int[isSparse ? nrOfNodes + termA.length : termA.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        positions = new float[3 * nrOfNodes];
+        isFixed = new boolean[nrOfNodes];
+        updateStepBounds();
+        restart();
+
+        Logger.DEBUG.printf("Stress terms of %d nodes: %d %s (%d ms)",
+                nrOfNodes, isSparse ? termA.length + (long) nrOfNodes * pivots.length : termA.length,
+                isSparse ? "sparse" : "full", System.currentTimeMillis() - startMillis
+        );
+    }
+
+    /** @return the adjacency of the graph of the last call to {@link #setGraph(Graph)}, or null if there was none */
+    public Adjacency getAdjacency() {
+        return adjacency;
+    }
+
+    /** restarts the epochs, such that the first epoch again takes large steps */
+    public void restart() {
+        epoch = 0;
+        isConverged = nrOfNodes == 0;
+    }
+
+    /**
+     * continues with at least the last {@value #REHEAT_EPOCHS} epochs, which take the smallest steps, for when a few
+     * nodes are moved, for example by dragging nodes. This keeps the global structure of the layout.
+     */
+    public void reheat() {
+        epoch = Math.max(Math.min(epoch, nrOfEpochs - REHEAT_EPOCHS), 0);
+        isConverged = nrOfNodes == 0;
+    }
+
+    /**
+     * Sets the positions of the states and edge handles of the given graph, by executing epochs until converged. The
+     * handles are placed halfway their states. The graph does not need to be initialized.
+     */
+    public void applyTo(SourceGraph graph) {
+        long startMillis = System.currentTimeMillis();
+        setGraph(Arrays.asList(graph.states), Arrays.asList(graph.edges), graph.getAdjacency());
+        while (!isConverged) {
+            step();
+        }
+
+        for (Transition edge : edges) {
+            edge.handlePos.set(edge.fromPosition).lerp(edge.toPosition, 0.5f);
+        }
+        graph.getNodeMesh().schedulePositionReload();
+        graph.getEdgeMesh().schedulePositionReload();
+
+        Logger.DEBUG.printf("Stress layout in %d epochs, stress %.0f (%d ms)",
+                epoch, getStress(), System.currentTimeMillis() - startMillis
+        );
+    }
+
+    /**
+     * Executes a single epoch on the positions of the nodes. The handles of the edges move along with their nodes.
+     * Nodes that are {@link State#isFixed fixed} do not move.
+     * @return true if more epochs are needed
+     */
+    public boolean step() {
+        if (nrOfNodes == 0) return false;
+
+        for (int i = 0; i < nrOfNodes; i++) {
+            State node = nodes.get(i);
+            positions[3 * i] = node.position.x;
+            positions[3 * i + 1] = node.position.y;
+            positions[3 * i + 2] = node.position.z;
+            isFixed[i] = node.isFixed;
+        }
+
+        long epochKey = CounterRandom.hash(seed, epoch);
+        shuffle(order, epochKey);
+        float stepSize = getStepSize(epoch);
+
+        chunks.setUniform(order.length, CHUNKS_PER_THREAD * scheduler.getNrOfThreads(), MIN_CHUNK_SIZE);
+        if (chunkMovement.length < chunks.count()) chunkMovement = new float[chunks.count()];
+        scheduler.run(chunks, (worker, chunk, start, end) ->
+                chunkMovement[chunk] = isSparse ?
+                        applySparseTerms(stepSize, epochKey, start, end) :
+                        applyFullTerms(stepSize, epochKey, start, end)
+        );
+
+        float maxMovement = 0;
+        for (int c = 0; c < chunks.count(); c++) {
+            maxMovement = Math.max(maxMovement, chunkMovement[c]);
+        }
+
+        // the handles move by the average movement of their nodes, read before the nodes are updated
+        for (int e = 0; e < edges.size(); e++) {
+            Transition edge = edges.get(e);
+            int a = 3 * adjacency.from(e);
+            int b = 3 * adjacency.to(e);
+            edge.handlePos.add(
+                    (positions[a] - edge.fromPosition.x() + positions[b] - edge.toPosition.x()) / 2,
+                    (positions[a + 1] - edge.fromPosition.y() + positions[b + 1] - edge.toPosition.y()) / 2,
+                    (positions[a + 2] - edge.fromPosition.z() + positions[b + 2] - edge.toPosition.z()) / 2
+            );
+        }
+        for (int i = 0; i < nrOfNodes; i++) {
+            nodes.get(i).position.set(positions[3 * i], positions[3 * i + 1], positions[3 * i + 2]);
+        }
+
+        epoch++;
+        isConverged = epoch >= nrOfEpochs || maxMovement < CONVERGENCE_MOVEMENT * natLength;
+        return !isConverged;
+    }
+
+    /**
+     * @return the stress of the current positions of the nodes, in squared natural lengths. For the sparse model, this
+     * is the weighted sum over the edges and pivot terms.
+     */
+    public float getStress() {
+        double stress = 0;
+        for (int t = 0; t < termA.length; t++) {
+            float d = isSparse ? 1 : termDistance[t];
+            stress += termStress(nodes.get(termA[t]), nodes.get(termB[t]), d, 1 / (d * d));
+        }
+
+        for (int k = 0; k < pivots.length; k++) {
+            State pivot = nodes.get(pivots[k]);
+            for (int i = 0; i < nrOfNodes; i++) {
+                int d = pivotDistances[k][i];
+                if (d <= 0) continue;
+                stress += termStress(nodes.get(i), pivot, d, getPivotWeight(k, d));
+            }
+        }
+
+        return (float) stress;
+    }
+
+    public void cleanup() {
+        scheduler.shutdown();
+    }
+
+    private float termStress(State a, State b, float distance, float weight) {
+        float error = a.position.distance(b.position) / natLength - distance;
+        return weight * error * error;
+    }
+
+    /** a term for every pair of nodes */
+    private void setFullTerms() {
+        int[] distances = new int[nrOfNodes];
+        int[] open = new int[nrOfNodes];
+        int[] a = new int[16];
+        int[] b = new int[16];
+        float[] d = new float[16];
+        int nrOfTerms = 0;
+        int maxDistance = 0;
+
+        for (int i = 0; i < nrOfNodes; i++) {
+            HDEPositioning.getAllDistances(i, adjacency, distances, open);
+            for (int j = i + 1; j < nrOfNodes; j++) {
+                // unconnected pairs are kept with a negative distance
+                if (distances[j] == 0) continue;
+                maxDistance = Math.max(maxDistance, distances[j]);
+
+                if (nrOfTerms == a.length) {
+                    a = Arrays.copyOf(a, 2 * nrOfTerms);
+                    b = Arrays.copyOf(b, 2 * nrOfTerms);
+                    d = Arrays.copyOf(d, 2 * nrOfTerms);
+                }
+                a[nrOfTerms] = i;
+                b[nrOfTerms] = j;
+                d[nrOfTerms] = distances[j];
+                nrOfTerms++;
+            }
+        }
+
+        for (int t = 0; t < nrOfTerms; t++) {
+            if (d[t] < 0) d[t] = maxDistance + 1;
+        }
+
+        termA = Arrays.copyOf(a, nrOfTerms);
+        termB = Arrays.copyOf(b, nrOfTerms);
+        termDistance = Arrays.copyOf(d, nrOfTerms);
+        pivots = new int[0];
+        pivotDistances = new int[0][];
+        regionSizes = new int[0][];
+    }
+
+    /** a term for every edge, and for every pair of a node and a pivot other than itself */
+    private void setSparseTerms() {
+        int nrOfEdges = adjacency.nrOfEdges();
+        int[] a = new int[nrOfEdges];
+        int[] b = new int[nrOfEdges];
+        int nrOfTerms = 0;
+        for (int e = 0; e < nrOfEdges; e++) {
+            if (adjacency.from(e) == adjacency.to(e)) continue;
+            a[nrOfTerms] = adjacency.from(e);
+            b[nrOfTerms] = adjacency.to(e);
+            nrOfTerms++;
+        }
+        termA = Arrays.copyOf(a, nrOfTerms);
+        termB = Arrays.copyOf(b, nrOfTerms);
+        termDistance = new float[0];
+
+        pivots = new int[Math.min(HDEPositioning.NUM_INITIAL_DIMENSIONS, nrOfNodes)];
+        pivotDistances = HDEPositioning.getPivotDistances(adjacency, pivots);
+
+        // every node belongs to the region of its closest pivot
+        int[][] histograms = new int[pivots.length][1];
+        for (int i = 0; i < nrOfNodes; i++) {
+            int closest = -1;
+            for (int k = 0; k < pivots.length; k++) {
+                int d = pivotDistances[k][i];
+                if (d >= 0 && (closest < 0 || d < pivotDistances[closest][i])) closest = k;
+            }
+            if (closest < 0) continue;
+
+            int d = pivotDistances[closest][i];
+            if (d >= histograms[closest].length) {
+                histograms[closest] = Arrays.copyOf(histograms[closest], Math.max(d + 1, 2 * histograms[closest].length));
+            }
+            histograms[closest][d]++;
+        }
+
+        for (int[] histogram : histograms) {
+            for (int d = 1; d < histogram.length; d++) {
+                histogram[d] += histogram[d - 1];
+            }
+        }
+        regionSizes = histograms;
+
+        // the pivots of other components, after the regions such that these only hold connected nodes
+        int maxDistance = 0;
+        for (int[] distances : pivotDistances) {
+            for (int d : distances) {
+                maxDistance = Math.max(maxDistance, d);
+            }
+        }
+        for (int[] distances : pivotDistances) {
+            for (int i = 0; i < nrOfNodes; i++) {
+                if (distances[i] < 0) distances[i] = maxDistance + 1;
+            }
+        }
+    }
+
+    /** @return the weight of the term of a node at the given distance of pivot k */
+    private float getPivotWeight(int k, int distance) {
+        int[] sizes = regionSizes[k];
+        int size = sizes[Math.min(distance / 2, sizes.length - 1)];
+        return (float) size / (distance * distance);
+    }
+
+    /** sets the bounds of the step size to the lightest and heaviest term */
+    private void updateStepBounds() {
+        float minWeight = Float.POSITIVE_INFINITY;
+        float maxWeight = 0;
+
+        if (isSparse) {
+            if (termA.length > 0) minWeight = maxWeight = 1;
+            for (int k = 0; k < pivots.length; k++) {
+                for (int i = 0; i < nrOfNodes; i++) {
+                    int d = pivotDistances[k][i];
+                    if (d <= 0) continue;
+                    float weight = getPivotWeight(k, d);
+                    minWeight = Math.min(minWeight, weight);
+                    maxWeight = Math.max(maxWeight, weight);
+                }
+            }
+
+        } else {
+            for (float d : termDistance) {
+                float weight = 1 / (d * d);
+                minWeight = Math.min(minWeight, weight);
+                maxWeight = Math.max(maxWeight, weight);
+            }
+        }
+
+        if (maxWeight == 0) return;
+        maxStep = 1 / minWeight;
+        minStep = FINAL_STEP_FACTOR / maxWeight;
+    }
+
+    /** @return the step size of the given epoch, which decreases exponentially to the minimum in the last epoch */
+    private float getStepSize(int epoch) {
+        float decay = (float) Math.log(maxStep / minStep) / (nrOfEpochs - 1);
+        return (float) (maxStep * Math.exp(-decay * Math.min(epoch, nrOfEpochs - 1)));
+    }
+
+    /** @return the largest movement of a node by a single term */
+    private float applyFullTerms(float stepSize, long key, int start, int end) {
+        float maxMovement = 0;
+        for (int i = start; i < end; i++) {
+            int t = order[i];
+            float d = termDistance[t];
+            float factor = Math.min(stepSize / (d * d), 1);
+            float movement = applyTerm(termA[t], termB[t], d * natLength, factor, true, key, t);
+            maxMovement = Math.max(maxMovement, movement);
+        }
+        return maxMovement;
+    }
+
+    /** @return the largest movement of a node by a single term */
+    private float applySparseTerms(float stepSize, long key, int start, int end) {
+        float maxMovement = 0;
+        float edgeFactor = Math.min(stepSize, 1);
+
+        for (int i = start; i < end; i++) {
+            int unit = order[i];
+            if (unit >= nrOfNodes) {
+                int t = unit - nrOfNodes;
+                float movement = applyTerm(termA[t], termB[t], natLength, edgeFactor, true, key, unit);
+                maxMovement = Math.max(maxMovement, movement);
+                continue;
+            }
+
+            for (int k = 0; k < pivots.length; k++) {
+                int d = pivotDistances[k][unit];
+                if (d <= 0) continue;
+
+                float factor = Math.min(stepSize * getPivotWeight(k, d), 1);
+                float movement = applyTerm(unit, pivots[k], d * natLength, factor, false, key, unit);
+                maxMovement = Math.max(maxMovement, movement);
+            }
+        }
+
+        return maxMovement;
+    }
+
+    /**
+     * moves node a towards the given distance of node b. If both move, each moves half of this.
+     * @param factor  the fraction of the difference with the ideal distance that is corrected
+     * @param counter identifies the term, for the direction between nodes at the same position
+     * @return the distance that a node moved
+     */
+    private float applyTerm(int a, int b, float distance, float factor, boolean moveBoth, long key, int counter) {
+        int ia = 3 * a;
+        int ib = 3 * b;
+        float dx = positions[ia] - positions[ib];
+        float dy = positions[ia + 1] - positions[ib + 1];
+        float dz = allow3D ? positions[ia + 2] - positions[ib + 2] : 0;
+        float length = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+        if (length < 1e-6f) {
+            // any direction is as good
+            long termKey = CounterRandom.hash(key, counter);
+            dx = CounterRandom.between(termKey, 0, -1, 1);
+            dy = CounterRandom.between(termKey, 1, -1, 1);
+            dz = allow3D ? CounterRandom.between(termKey, 2, -1, 1) : 0;
+            float randomLength = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+            if (randomLength == 0) return 0;
+
+            float scale = -factor * distance / randomLength;
+            return move(a, b, dx * scale, dy * scale, dz * scale, moveBoth);
+        }
+
+        float scale = factor * (length - distance) / length;
+        return move(a, b, dx * scale, dy * scale, dz * scale, moveBoth);
+    }
+
+    /** moves a by minus the given vector and b by the vector, or a by minus half and b by half if moveBoth */
+    private float move(int a, int b, float x, float y, float z, boolean moveBoth) {
+        if (moveBoth) {
+            x /= 2;
+            y /= 2;
+            z /= 2;
+        }
+
+        if (!isFixed[a]) {
+            positions[3 * a] -= x;
+            positions[3 * a + 1] -= y;
+            positions[3 * a + 2] -= z;
+        }
+        if (moveBoth && !isFixed[b]) {
+            positions[3 * b] += x;
+            positions[3 * b + 1] += y;
+            positions[3 * b + 2] += z;
+        }
+
+        return (float) Math.sqrt(x * x + y * y + z * z);
+    }
+
+    /** shuffles the array with Fisher-Yates, with random numbers drawn from the given key */
+    private static void shuffle(int[] array, long key) {
+        for (int i = array.length - 1; i > 0; i--) {
+            int j = (int) ((CounterRandom.hash(key, i) >>> 1) % (i + 1));
+            int swap = array[i];
+            array[i] = array[j];
+            array[j] = swap;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package NG.Graph.Layout;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The repulsion kernel using the preferred vector size of the platform. Pairs closer than 1/32 are left to the scalar
+ * function, as these receive a random direction; this includes the body itself. Only load this class through
+ * {@link RepulsionKernel#getVectorised()}, which checks that the Vector API is available.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+final class VectorRepulsionKernel extends RepulsionKernel {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final float MIN_DISTANCE = 1f / 32;
+
+    VectorRepulsionKernel() {
+    }
+
+    @Override
+    public void getRepulsion(
+            float ax, float ay, float az, float[] xs, float[] ys, float[] zs, int start, int end, int skip,
+            float natLength, float repulsion, long key, float[] target, int offset
+    ) {
+        int lanes = SPECIES.length();
+        int vectorEnd = start + SPECIES.loopBound(end - start);
+        float minLengthFraction = natLength / 10;
+
+        FloatVector vax = FloatVector.broadcast(SPECIES, ax);
+        FloatVector vay = FloatVector.broadcast(SPECIES, ay);
+        FloatVector vaz = FloatVector.broadcast(SPECIES, az);
+        FloatVector sumX = FloatVector.zero(SPECIES);
+        FloatVector sumY = FloatVector.zero(SPECIES);
+        FloatVector sumZ = FloatVector.zero(SPECIES);
+        // coinciding pairs are summed separately
+        float fx = 0, fy = 0, fz = 0;
+
+        for (int j = start; j < vectorEnd; j += lanes) {
+            FloatVector dx = vax.sub(FloatVector.fromArray(SPECIES, xs, j));
+            FloatVector dy = vay.sub(FloatVector.fromArray(SPECIES, ys, j));
+            FloatVector dz = vaz.sub(FloatVector.fromArray(SPECIES, zs, j));
+            FloatVector length = dx.mul(dx).add(dy.mul(dy)).add(dz.mul(dz)).sqrt();
+
+            // r = repulsion / max(length / 2, natLength / 10)^3
+            FloatVector lengthFraction = length.mul(0.5f).max(minLengthFraction);
+            FloatVector r = FloatVector.broadcast(SPECIES, repulsion)
+                    .div(lengthFraction.mul(lengthFraction).mul(lengthFraction));
+
+            VectorMask<Float> isNear = length.lt(MIN_DISTANCE);
+            if (isNear.anyTrue()) {
+                r = r.blend(0f, isNear);
+
+                for (int lane = 0; lane < lanes; lane++) {
+                    if (!isNear.laneIsSet(lane) || j + lane == skip) continue;
+                    SpringLayout.getRepulsion(ax, ay, az, xs[j + lane], ys[j + lane], zs[j + lane], natLength, repulsion, key, target, offset);
+                    fx += target[offset];
+                    fy += target[offset + 1];
+                    fz += target[offset + 2];
+                }
+            }
+
+            sumX = dx.fma(r, sumX);
+            sumY = dy.fma(r, sumY);
+            sumZ = dz.fma(r, sumZ);
+        }
+
+        for (int j = vectorEnd; j < end; j++) {
+            if (j == skip) continue;
+            SpringLayout.getRepulsion(ax, ay, az, xs[j], ys[j], zs[j], natLength, repulsion, key, target, offset);
+            fx += target[offset];
+            fy += target[offset + 1];
+            fz += target[offset + 2];
+        }
+
+        target[offset] = fx + sumX.reduceLanes(VectorOperators.ADD);
+        target[offset + 1] = fy + sumY.reduceLanes(VectorOperators.ADD);
+        target[offset + 2] = fz + sumZ.reduceLanes(VectorOperators.ADD);
+    }
+
+    @Override
+    public int getNrOfLanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public String toString() {
+        return "vectorised kernel (" + SPECIES + ")";
+    }
+}
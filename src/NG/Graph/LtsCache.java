@@ -0,0 +1,314 @@
+package NG.Graph;
+
+import NG.Settings.Settings;
+import NG.Tools.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A compact binary representation of an {@link LtsData}, stored next to the file it was parsed from. The cache is only
+ * used if the size and modification time of the source file are equal to those recorded in the cache.
+ * <p>
+ * Format, all values little-endian:
+ * <ul>
+ * <li>header      ::= magic version source_size source_modified initial_state nr_of_states nr_of_transitions
+ * nr_of_labels label_bytes state_label_bytes (int int long long int int int int int int), padded to {@value
+ * #HEADER_SIZE} bytes</li>
+ * <li>labels      ::= (length utf8_bytes)* padded to a multiple of 4 bytes</li>
+ * <li>state_labels ::= (length utf8_bytes)* padded to a multiple of 4 bytes, one for each state. Empty if the data
+ * has no state labels</li>
+ * <li>sources     ::= int[nr_of_transitions]</li>
+ * <li>label_ids   ::= int[nr_of_transitions]</li>
+ * <li>targets     ::= int[nr_of_transitions]</li>
+ * </ul>
+ * The transitions are stored in the order of the data, such that reading a cache gives the same edge indices as parsing
+ * the source file. Layouts and other data that refer to edges by index thus do not depend on whether the cache was used.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public final class LtsCache {
+    public static final String EXTENSION = ".cache";
+    private static final int MAGIC = 0x4353544C; // "LTSC"
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 48;
+    private static final int IO_BUFFER_SIZE = 1 << 20;
+    private static final long MAX_MAPPING_SIZE = 1 << 30;
+
+    private LtsCache() {
+    }
+
+    /** @return the file where the cache of the given source file is stored */
+    public static File cacheFileOf(File sourceFile) {
+        return new File(sourceFile.getPath() + EXTENSION);
+    }
+
+    /**
+     * Reads the given graph file from its cache if a valid cache exists. Otherwise, the file is parsed and a cache is
+     * written for the next time. Failing to write the cache is logged, but otherwise ignored.
+     * @param sourceFile the graph file to load
+     * @param settings   the settings used for parsing
+     * @return the graph described by the file
+     */
+    public static LtsData load(File sourceFile, Settings settings) throws IOException {
+        LtsData data = readIfValid(sourceFile);
+        if (data != null) return data;
+
+        data = SourceGraph.read(sourceFile, settings);
+        store(sourceFile, data);
+        return data;
+    }
+
+    /**
+     * reads the cache of the given graph file, if it exists and is not outdated. Failing to read the cache is logged.
+     * @param sourceFile the graph file of which to read the cache
+     * @return the graph described by the file, or null if there is no valid cache
+     */
+    public static LtsData readIfValid(File sourceFile) {
+        File cacheFile = cacheFileOf(sourceFile);
+        if (!cacheFile.exists()) return null;
+
+        long startTime = System.nanoTime();
+        try {
+            LtsData data = read(cacheFile, sourceFile.length(), sourceFile.lastModified());
+            if (data != null) {
+                Logger.DEBUG.printf("Read %s from cache in %d ms", sourceFile.getName(), (System.nanoTime() - startTime) / 1_000_000);
+                return data;
+            }
+
+            Logger.DEBUG.print("Cache of " + sourceFile.getName() + " is outdated");
+
+        } catch (IOException ex) {
+            Logger.WARN.print("Could not read cache " + cacheFile + ": " + ex.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * writes the cache of the given graph file, which is parsed into the given data. Failing to write the cache is
+     * logged, but otherwise ignored.
+     */
+    public static void store(File sourceFile, LtsData data) {
+        File cacheFile = cacheFileOf(sourceFile);
+
+        try {
+            long startTime = System.nanoTime();
+            write(data, sourceFile.length(), sourceFile.lastModified(), cacheFile);
+            Logger.DEBUG.printf("Wrote cache %s in %d ms", cacheFile.getName(), (System.nanoTime() - startTime) / 1_000_000);
+
+        } catch (IOException ex) {
+            Logger.WARN.print("Could not write cache " + cacheFile + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * reads a cache file
+     * @param cacheFile      the file to read
+     * @param sourceSize     the expected size of the source file
+     * @param sourceModified the expected modification time of the source file
+     * @return the data in the cache, or null if the cache does not belong to a source file of the given size and
+     * modification time.
+     * @throws IOException if the file could not be read or is corrupted
+     */
+    public static LtsData read(File cacheFile, long sourceSize, long sourceModified) throws IOException {
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) return null;
+
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) return null;
+            if (header.getLong() != sourceSize || header.getLong() != sourceModified) return null;
+
+            int initialState = header.getInt();
+            int nrOfStates = header.getInt();
+            int nrOfTransitions = header.getInt();
+            int nrOfLabels = header.getInt();
+            int labelBytes = header.getInt();
+            int stateLabelBytes = header.getInt();
+
+            if (nrOfStates < 0 || nrOfTransitions < 0 || nrOfLabels < 0 || labelBytes < 0 || stateLabelBytes < 0
+                    || initialState < 0 || initialState >= Math.max(nrOfStates, 1)) {
+                throw new IOException("Corrupted cache header");
+            }
+            long expectedSize = HEADER_SIZE + (long) labelBytes + stateLabelBytes + 4L * 3L * nrOfTransitions;
+            if (channel.size() != expectedSize) throw new IOException("Unexpected cache size");
+
+            // labels
+            String[] labels = readStrings(channel, HEADER_SIZE, labelBytes, nrOfLabels);
+            String[] stateLabels = stateLabelBytes == 0 ? null :
+                    readStrings(channel, HEADER_SIZE + (long) labelBytes, stateLabelBytes, nrOfStates);
+
+            // transitions
+            long position = HEADER_SIZE + (long) labelBytes + stateLabelBytes;
+            int[] from = new int[nrOfTransitions];
+            position = readInts(channel, position, from);
+            int[] label = new int[nrOfTransitions];
+            position = readInts(channel, position, label);
+            int[] to = new int[nrOfTransitions];
+            readInts(channel, position, to);
+
+            checkRange(from, nrOfStates);
+            checkRange(label, nrOfLabels);
+            checkRange(to, nrOfStates);
+
+            return new LtsData(initialState, nrOfStates, labels, from, label, to, stateLabels);
+        }
+    }
+
+    /**
+     * writes the given data to a cache file. The file is first written to a temporary file, which then replaces the
+     * cache file.
+     * @param data           the data to write
+     * @param sourceSize     the size of the source file of the data
+     * @param sourceModified the modification time of the source file of the data
+     * @param cacheFile      the file to write to
+     */
+    public static void write(LtsData data, long sourceSize, long sourceModified, File cacheFile) throws IOException {
+        int nrOfStates = data.nrOfStates;
+        int nrOfTransitions = data.nrOfTransitions();
+
+        // encode labels
+        byte[][] labelBytes = encode(data.labels);
+        int labelSectionSize = sectionSize(labelBytes);
+        byte[][] stateLabelBytes = data.stateLabels == null ? new byte[0][] : encode(data.stateLabels);
+        int stateLabelSectionSize = sectionSize(stateLabelBytes);
+
+        Path target = cacheFile.toPath();
+        Path temporary = target.resolveSibling(cacheFile.getName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE
+        )) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(MAGIC).putInt(VERSION)
+                    .putLong(sourceSize).putLong(sourceModified)
+                    .putInt(data.initialState).putInt(nrOfStates).putInt(nrOfTransitions)
+                    .putInt(labelBytes.length).putInt(labelSectionSize).putInt(stateLabelSectionSize);
+            buffer.position(HEADER_SIZE);
+
+            writeStrings(channel, labelBytes, labelSectionSize, buffer);
+            writeStrings(channel, stateLabelBytes, stateLabelSectionSize, buffer);
+
+            writeInts(channel, data.from, buffer);
+            writeInts(channel, data.label, buffer);
+            writeInts(channel, data.to, buffer);
+        }
+
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[][] encode(String[] strings) {
+        byte[][] encoded = new byte[strings.length][];
+        for (int i = 0; i < strings.length; i++) {
+            encoded[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    /** @return the number of bytes of the given strings when written by {@link #writeStrings} */
+    private static int sectionSize(byte[][] strings) {
+        int size = 0;
+        for (byte[] bytes : strings) {
+            size += 4 + bytes.length;
+        }
+        return (size + 3) & ~3;
+    }
+
+    /** writes the given strings, using the given buffer. The buffer is first flushed to the channel. */
+    private static void writeStrings(FileChannel channel, byte[][] strings, int sectionSize, ByteBuffer buffer)
+            throws IOException {
+        long end = channel.position() + buffer.position() + sectionSize;
+
+        for (byte[] bytes : strings) {
+            if (buffer.remaining() < 4 + bytes.length) {
+                buffer.flip();
+                while (buffer.hasRemaining()) channel.write(buffer);
+                buffer.clear();
+            }
+
+            if (buffer.remaining() < 4 + bytes.length) {
+                channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, bytes.length));
+                channel.write(ByteBuffer.wrap(bytes));
+            } else {
+                buffer.putInt(bytes.length).put(bytes);
+            }
+        }
+
+        int padding = (int) (end - channel.position() - buffer.position());
+        if (buffer.remaining() < padding) {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+        for (int i = 0; i < padding; i++) {
+            buffer.put((byte) 0);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    private static String[] readStrings(FileChannel channel, long position, int sectionSize, int count)
+            throws IOException {
+        if (4L * count > sectionSize) throw new IOException("Corrupted string section");
+
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, sectionSize)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) throw new IOException("Corrupted string section");
+
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    /** @throws IOException if any of the values is not an index into a table of the given size */
+    private static void checkRange(int[] values, int size) throws IOException {
+        for (int value : values) {
+            if (value < 0 || value >= size) throw new IOException("Corrupted transitions");
+        }
+    }
+
+    private static void writeInts(FileChannel channel, int[] values, ByteBuffer buffer) throws IOException {
+        int index = 0;
+        while (index < values.length) {
+            buffer.clear();
+            int count = Math.min(buffer.capacity() / 4, values.length - index);
+            buffer.asIntBuffer().put(values, index, count);
+            buffer.limit(count * 4);
+
+            while (buffer.hasRemaining()) channel.write(buffer);
+            index += count;
+        }
+    }
+
+    /** @return the position after the last read element */
+    private static long readInts(FileChannel channel, long position, int[] target) throws IOException {
+        int index = 0;
+        while (index < target.length) {
+            int count = (int) Math.min(MAX_MAPPING_SIZE / 4, target.length - index);
+            IntBuffer ints = channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asIntBuffer();
+            ints.get(target, index, count);
+
+            index += count;
+            position += 4L * count;
+        }
+        return position;
+    }
+}
@@ -0,0 +1,45 @@
+package NG.Graph;
+
+/**
+ * The primitive representation of a labelled transition system. Each transition {@code i} goes from state {@code
+ * from[i]} to state {@code to[i]} with action label {@code labels[label[i]]}. The label table contains each distinct
+ * action label exactly once. If the file describes the states, {@code stateLabels} holds the label of each state, and is
+ * null otherwise.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class LtsData {
+    public final int initialState;
+    public final int nrOfStates;
+    public final String[] labels;
+    public final int[] from;
+    public final int[] label;
+    public final int[] to;
+    public final String[] stateLabels;
+
+    public LtsData(int initialState, int nrOfStates, String[] labels, int[] from, int[] label, int[] to) {
+        this(initialState, nrOfStates, labels, from, label, to, null);
+    }
+
+    public LtsData(
+            int initialState, int nrOfStates, String[] labels, int[] from, int[] label, int[] to, String[] stateLabels
+    ) {
+        assert from.length == label.length && label.length == to.length;
+        assert stateLabels == null || stateLabels.length == nrOfStates;
+        this.initialState = initialState;
+        this.nrOfStates = nrOfStates;
+        this.labels = labels;
+        this.from = from;
+        this.label = label;
+        this.to = to;
+        this.stateLabels = stateLabels;
+    }
+
+    public int nrOfTransitions() {
+        return from.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LTS with %d states, %d transitions and %d labels", nrOfStates, from.length, labels.length);
+    }
+}
@@ -0,0 +1,45 @@
+package NG.Graph;
+
+import NG.Settings.Settings;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reads a graph file into its primitive representation. The reader for a file is selected with {@link #of(File,
+ * Settings)}.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public interface LtsReader {
+    /**
+     * reads the given file
+     * @return the graph described by the file
+     * @throws IOException if the file could not be read, or is not a valid graph file
+     */
+    LtsData read(File file) throws IOException;
+
+    /**
+     * selects a reader for the given file, based on its file type.
+     * <ul>
+     * <li>mCRL2 .lts files, which may be compressed, are read by {@link Mcrl2LtsReader}, which falls back to
+     * ltsconvert unless the settings disable it</li>
+     * <li>compressed files are read by {@link AutReader} through a {@link DecompressingChannel}</li>
+     * <li>other files are read as .aut file by {@link ParallelAutReader} or {@link AutReader}, depending on the
+     * settings</li>
+     * </ul>
+     * @param settings the settings that determine how the file is read, or null to read on a single thread
+     */
+    static LtsReader of(File file, Settings settings) throws IOException {
+        if (Mcrl2LtsReader.isLtsFile(file)) {
+            boolean fallback = settings != null && settings.LTSCONVERT_FALLBACK;
+            return new Mcrl2LtsReader(fallback ? Mcrl2LtsReader.LTSCONVERT : null);
+        }
+
+        if (settings != null && settings.PARALLEL_LOADING && DecompressingChannel.detect(file) == null) {
+            int numThreads = settings.NUM_WORKER_THREADS;
+            return f -> ParallelAutReader.read(f, numThreads);
+        }
+
+        return AutReader::read;
+    }
+}
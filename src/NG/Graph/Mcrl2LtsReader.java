@@ -0,0 +1,522 @@
+package NG.Graph;
+
+import NG.Graph.BafReader.Term;
+import NG.Tools.Logger;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static NG.Graph.BafReader.EMPTY_LIST_SYMBOL;
+import static NG.Graph.BafReader.LIST_SYMBOL;
+
+/**
+ * Reads the binary .lts files of mCRL2, which are written in the binary ATerm format and read with a {@link
+ * BafReader}. The multi-actions are printed as action labels in the way {@code ltsconvert} prints them in .aut files,
+ * and the values of the process parameters of each state are read as the label of that state. Files that are
+ * compressed in one of the {@link DecompressingChannel.Format formats} are decompressed while they are read.
+ * <p>
+ * The output terms of an .lts file are the marker {@code labelled_transition_system}, the data specification, the
+ * process parameters and the action labels, followed by any number of transitions, state labels and one initial state.
+ * The data specification consists of its sorts, aliases, constructors, mappings and equations, each written as the
+ * number of elements followed by the elements. A transition is the marker {@code transition}, the source state, the
+ * multi-action and the target state. The initial state is the marker {@code initial_state} followed by the state.
+ * Probabilistic transition systems are not supported.
+ * <p>
+ * The process parameters and the action labels of the header are checked against the transitions and the state labels:
+ * every state label must have a value for each parameter, and every action must be declared. A file that fails these
+ * checks, or cannot be decoded otherwise, is rejected. If the reader is created with an ltsconvert command, an
+ * uncompressed file that is rejected is translated to .aut by the tool {@code ltsconvert} of the mCRL2 toolset instead.
+ * State labels are not part of the .aut format, and are not read in that case.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class Mcrl2LtsReader implements LtsReader {
+    public static final String EXTENSION = ".lts";
+    /** the command of ltsconvert, when it is on the path */
+    public static final String LTSCONVERT = "ltsconvert";
+    private static final int NR_OF_DATA_SECTIONS = 5;
+    private static final String TREE_NODE_SYMBOL = "@node@";
+    private static final String UNDEFINED_TIME = "@undefined_real";
+
+    private final String ltsconvert;
+
+    /** creates a reader that does not fall back to ltsconvert */
+    public Mcrl2LtsReader() {
+        this(null);
+    }
+
+    /**
+     * @param ltsconvert the command to run ltsconvert if a file cannot be decoded, or null to not fall back
+     */
+    public Mcrl2LtsReader(String ltsconvert) {
+        this.ltsconvert = ltsconvert;
+    }
+
+    /** @return true if the file name is that of an .lts file, possibly followed by the extension of a compression */
+    public static boolean isLtsFile(File file) {
+        String name = file.getName();
+        for (DecompressingChannel.Format format : DecompressingChannel.Format.values()) {
+            if (name.endsWith(format.extension)) {
+                name = name.substring(0, name.length() - format.extension.length());
+                break;
+            }
+        }
+        return name.endsWith(EXTENSION);
+    }
+
+    @Override
+    public LtsData read(File file) throws IOException {
+        try (ReadableByteChannel channel = DecompressingChannel.open(file)) {
+            return read(channel);
+
+        } catch (IOException ex) {
+            if (ltsconvert == null || DecompressingChannel.detect(file) != null) throw ex;
+
+            Logger.WARN.printf("Could not decode %s (%s), running %s", file.getName(), ex.getMessage(), ltsconvert);
+            try {
+                return convert(file);
+
+            } catch (IOException conversionException) {
+                ex.addSuppressed(conversionException);
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * reads the complete input of the channel. The channel is not closed.
+     * @return the transition system described by the input
+     * @throws IOException if the channel throws an exception, or if the input is not an mCRL2 .lts file
+     */
+    public LtsData read(ReadableByteChannel channel) throws IOException {
+        BafReader reader = new BafReader(channel);
+
+        Term header = reader.next();
+        if (header == null || !header.is("labelled_transition_system", 0)) {
+            throw new IOException("Stream does not contain a labelled transition system");
+        }
+        for (int i = 0; i < NR_OF_DATA_SECTIONS; i++) {
+            Term size = reader.next();
+            if (size == null || !size.isInt()) throw new IOException("Invalid data specification");
+            for (long j = 0; j < size.value; j++) {
+                if (reader.next() == null) throw new EOFException("Missing the data specification");
+            }
+        }
+        Term parameters = reader.next();
+        Term actionLabels = reader.next();
+        if (actionLabels == null) throw new EOFException("Missing the header of the labelled transition system");
+
+        int nrOfParameters = 0;
+        for (Term list = parameters; list.is(LIST_SYMBOL, 2); list = list.args[1]) {
+            if (!isVariable(list.args[0])) throw new IOException("Invalid process parameter " + list.args[0]);
+            nrOfParameters++;
+        }
+        Set<String> actionNames = new HashSet<>();
+        for (Term list = actionLabels; list.is(LIST_SYMBOL, 2); list = list.args[1]) {
+            if (!list.args[0].is("ActId", 2)) throw new IOException("Invalid action label " + list.args[0]);
+            actionNames.add(nameOf(list.args[0]));
+        }
+        if (!isList(parameters) || !isList(actionLabels)) {
+            throw new IOException("Invalid header of the labelled transition system");
+        }
+
+        Labels labels = new Labels(actionNames);
+        List<String> stateLabels = new ArrayList<>();
+        int[] from = new int[1 << 10];
+        int[] label = new int[1 << 10];
+        int[] to = new int[1 << 10];
+        int nrOfTransitions = 0;
+        int nrOfStates = 1;
+        int initialState = -1;
+
+        Term term;
+        while ((term = reader.next()) != null) {
+            if (term.is("transition", 0)) {
+                int source = readState(reader);
+                int action = labels.read(reader);
+                int target = readState(reader);
+
+                if (nrOfTransitions == from.length) {
+                    from = Arrays.copyOf(from, from.length * 2);
+                    label = Arrays.copyOf(label, label.length * 2);
+                    to = Arrays.copyOf(to, to.length * 2);
+                }
+                from[nrOfTransitions] = source;
+                label[nrOfTransitions] = action;
+                to[nrOfTransitions] = target;
+                nrOfTransitions++;
+                nrOfStates = Math.max(nrOfStates, Math.max(source, target) + 1);
+
+            } else if (term.is("probabilistic_transition", 0)) {
+                throw new IOException("Probabilistic transition systems are not supported");
+
+            } else if (term.is("initial_state", 0)) {
+                initialState = readState(reader);
+
+            } else {
+                stateLabels.add(stateLabelOf(term, nrOfParameters));
+            }
+        }
+
+        if (initialState < 0) throw new IOException("Missing initial state");
+        nrOfStates = Math.max(nrOfStates, Math.max(initialState + 1, stateLabels.size()));
+
+        String[] stateLabelArray = null;
+        if (!stateLabels.isEmpty()) {
+            if (stateLabels.size() != nrOfStates) {
+                Logger.WARN.printf("Found %d state labels for %d states", stateLabels.size(), nrOfStates);
+            }
+            stateLabelArray = new String[nrOfStates];
+            for (int i = 0; i < nrOfStates; i++) {
+                stateLabelArray[i] = i < stateLabels.size() ? stateLabels.get(i) : Integer.toString(i);
+            }
+        }
+
+        return new LtsData(
+                initialState, nrOfStates, labels.toArray(),
+                Arrays.copyOf(from, nrOfTransitions), Arrays.copyOf(label, nrOfTransitions),
+                Arrays.copyOf(to, nrOfTransitions), stateLabelArray
+        );
+    }
+
+
+    /** translates the file to .aut with ltsconvert, and parses its output while it is written */
+    private LtsData convert(File file) throws IOException {
+        Process process;
+        try {
+            process = new ProcessBuilder(ltsconvert, "--in=lts", "--out=aut", file.getPath())
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+
+        } catch (IOException ex) {
+            throw new IOException("Could not run " + ltsconvert + " of the mCRL2 toolset", ex);
+        }
+
+        try (ReadableByteChannel channel = Channels.newChannel(process.getInputStream())) {
+            LtsData data = new AutReader(channel).read();
+
+            int exitValue = process.waitFor();
+            if (exitValue != 0) throw new IOException(ltsconvert + " returned " + exitValue);
+
+            return data;
+
+        } catch (InterruptedException ex) {
+            throw new IOException("Interrupted while waiting for " + ltsconvert, ex);
+
+        } finally {
+            process.destroy();
+        }
+    }
+
+    private static int readState(BafReader reader) throws IOException {
+        Term state = reader.next();
+        if (state == null || !state.isInt()) {
+            throw new IOException("Expected a state index, but found " + state);
+        }
+        if (state.value < 0 || state.value >= Integer.MAX_VALUE) {
+            throw new IOException("State index out of bounds: " + state.value);
+        }
+        return (int) state.value;
+    }
+
+    /**
+     * @return the label of the multi-action with the given list of actions and time, as ltsconvert prints it. Every
+     * action must be one of the given declared actions.
+     */
+    private static String labelOf(Term actions, Term time, Set<String> actionNames) throws IOException {
+        for (Term list = actions; list.is(LIST_SYMBOL, 2); list = list.args[1]) {
+            Term action = list.args[0];
+            boolean declared = action.is("Action", 2) && action.args[0].is("ActId", 2)
+                    && actionNames.contains(nameOf(action.args[0]));
+            if (!declared) throw new IOException("Undeclared action " + action);
+        }
+        if (!isList(actions)) throw new IOException("Invalid multi-action " + actions);
+
+        String label = actions.is(EMPTY_LIST_SYMBOL, 0) ? "tau" : listToString(actions, "|");
+
+        if (isVariable(time) && nameOf(time).equals(UNDEFINED_TIME)) {
+            return label;
+        }
+        return label + "@" + dataToString(time);
+    }
+
+    /**
+     * a state label is a list of states, of which each is a balanced tree of the values of the process parameters.
+     * Usually, the list has one element.
+     * @throws IOException if a state does not have a value for each of the given number of process parameters
+     */
+    private static String stateLabelOf(Term term, int nrOfParameters) throws IOException {
+        List<Term> states = new ArrayList<>();
+        for (Term list = term; list.is(LIST_SYMBOL, 2); list = list.args[1]) {
+            states.add(list.args[0]);
+        }
+        if (states.isEmpty()) return dataToString(term);
+
+        StringBuilder builder = new StringBuilder();
+        for (Term state : states) {
+            if (builder.length() > 0) builder.append(", ");
+
+            List<Term> values = new ArrayList<>();
+            addLeaves(state, values);
+            if (values.size() != nrOfParameters) {
+                throw new IOException(String.format(
+                        "State label with %d values for %d process parameters", values.size(), nrOfParameters
+                ));
+            }
+            builder.append('(');
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) builder.append(", ");
+                builder.append(dataToString(values.get(i)));
+            }
+            builder.append(')');
+        }
+
+        return states.size() == 1 ? builder.toString() : "[" + builder + "]";
+    }
+
+    private static void addLeaves(Term tree, List<Term> leaves) {
+        if (tree.is(TREE_NODE_SYMBOL, 2)) {
+            addLeaves(tree.args[0], leaves);
+            addLeaves(tree.args[1], leaves);
+
+        } else if (!tree.is("@empty@", 0)) {
+            leaves.add(tree);
+        }
+    }
+
+    private static String listToString(Term list, String separator) {
+        StringBuilder builder = new StringBuilder();
+        for (; list.is(LIST_SYMBOL, 2); list = list.args[1]) {
+            if (builder.length() > 0) builder.append(separator);
+            builder.append(dataToString(list.args[0]));
+        }
+        return builder.toString();
+    }
+
+    /** @return the term in the notation of mCRL2, as far as it can be printed without a data specification */
+    private static String dataToString(Term term) {
+        if (term.text != null) return term.text;
+
+        String text;
+        BigInteger number = numberOf(term);
+        if (number != null) {
+            text = number.toString();
+
+        } else if (term.isInt()) {
+            text = Long.toUnsignedString(term.value);
+
+        } else if (isOperation(term) || isVariable(term) || (term.is("ActId") && term.args.length > 0)) {
+            text = nameOf(term);
+
+        } else if (term.is("Action", 2)) {
+            String name = dataToString(term.args[0]);
+            text = term.args[1].is(LIST_SYMBOL, 2) ? name + "(" + listToString(term.args[1], ", ") + ")" : name;
+
+        } else if (term.is("DataAppl") && term.args.length > 0) {
+            StringBuilder builder = new StringBuilder(dataToString(term.args[0])).append('(');
+            for (int i = 1; i < term.args.length; i++) {
+                if (i > 1) builder.append(", ");
+                builder.append(dataToString(term.args[i]));
+            }
+            text = builder.append(')').toString();
+
+        } else if (term.is(LIST_SYMBOL, 2) || term.is(EMPTY_LIST_SYMBOL, 0)) {
+            text = "[" + listToString(term, ", ") + "]";
+
+        } else if (term.args.length == 0) {
+            text = term.symbol.name;
+
+        } else {
+            StringBuilder builder = new StringBuilder(term.symbol.name).append('(');
+            for (int i = 0; i < term.args.length; i++) {
+                if (i > 0) builder.append(", ");
+                builder.append(dataToString(term.args[i]));
+            }
+            text = builder.append(')').toString();
+        }
+
+        term.text = text;
+        return text;
+    }
+
+    /**
+     * @return the value of the given numeric constant of sort Pos, Nat or Int, or null if the term is not a numeric
+     * constant
+     */
+    private static BigInteger numberOf(Term term) {
+        if (isOperation(term)) {
+            switch (nameOf(term)) {
+                case "@c0":
+                    return BigInteger.ZERO;
+                case "@c1":
+                    return BigInteger.ONE;
+                default:
+                    return null;
+            }
+        }
+        if (!term.is("DataAppl") || term.args.length < 2) return null;
+        Term head = term.args[0];
+        if (!isOperation(head)) return null;
+
+        String function = nameOf(head);
+        BigInteger argument = term.args.length == 2 ? numberOrWord(term.args[1]) : null;
+
+        switch (function) {
+            case "@cNat":
+            case "@cInt":
+            case "@most_significant_digit":
+            case "@most_significant_digitNat":
+                return argument;
+            case "@cNeg":
+                return argument == null ? null : argument.negate();
+            case "@cDub": {
+                if (term.args.length != 3) return null;
+                BigInteger rest = numberOf(term.args[2]);
+                if (rest == null) return null;
+                Term bit = term.args[1];
+                boolean isOne = isOperation(bit) && nameOf(bit).equals("true");
+                return isOne ? rest.shiftLeft(1).add(BigInteger.ONE) : rest.shiftLeft(1);
+            }
+            case "@concat_digit": {
+                if (term.args.length != 3) return null;
+                BigInteger high = numberOf(term.args[1]);
+                BigInteger low = numberOrWord(term.args[2]);
+                if (high == null || low == null) return null;
+                return high.shiftLeft(64).add(low);
+            }
+            default:
+                return null;
+        }
+    }
+
+    /** @return the value of the given number or machine word, or null if it is neither */
+    private static BigInteger numberOrWord(Term term) {
+        if (term.isInt()) return new BigInteger(Long.toUnsignedString(term.value));
+        if (isOperation(term) && nameOf(term).matches("\\d+")) return new BigInteger(nameOf(term));
+        return numberOf(term);
+    }
+
+    /**
+     * @return true if the term is an operation. Recent versions of mCRL2 write operations and variables without their
+     * index, as in {@code OpIdNoIndex(true, SortId(Bool))}
+     */
+    private static boolean isOperation(Term term) {
+        return (term.is("OpIdNoIndex") || term.is("OpId")) && term.args.length > 0;
+    }
+
+    private static boolean isList(Term term) {
+        return term.is(LIST_SYMBOL, 2) || term.is(EMPTY_LIST_SYMBOL, 0);
+    }
+
+    /** @return true if the term is a data variable */
+    private static boolean isVariable(Term term) {
+        return (term.is("DataVarIdNoIndex") || term.is("DataVarId")) && term.args.length > 0;
+    }
+
+    /** @return the name of an operation, variable or action */
+    private static String nameOf(Term term) {
+        return term.args[0].symbol.name;
+    }
+
+    /**
+     * reads the multi-actions of the transitions, and numbers their labels. A multi-action is written either as one
+     * term {@code multi_action(actions, time)}, or as the list of actions followed by the time. These are output terms,
+     * of which the reader creates a new object for every transition, but their function symbols and arguments are
+     * shared. A multi-action is looked up by the identity of those, such that the label is only printed for the first
+     * transition of each distinct multi-action.
+     */
+    private static final class Labels {
+        private final Set<String> actionNames;
+        private final Map<MultiAction, Integer> ids = new HashMap<>();
+        private final Map<String, Integer> labelIds = new HashMap<>();
+        private final List<String> labels = new ArrayList<>();
+
+        Labels(Set<String> actionNames) {
+            this.actionNames = actionNames;
+        }
+
+        /** @return the index of the label of the next multi-action of the reader */
+        int read(BafReader reader) throws IOException {
+            Term actions = reader.next();
+            if (actions == null) throw new EOFException("Missing the action of a transition");
+
+            Term time;
+            if (actions.is("multi_action", 2)) {
+                time = actions.args[1];
+                actions = actions.args[0];
+
+            } else {
+                time = reader.next();
+                if (time == null) throw new EOFException("Missing the time of a transition");
+            }
+            if (actions.isInt() || time.isInt()) throw new IOException("Invalid multi-action " + actions + " " + time);
+
+            MultiAction key = new MultiAction(actions, time);
+            Integer id = ids.get(key);
+            if (id == null) {
+                id = labelIds.computeIfAbsent(labelOf(actions, time, actionNames), label -> {
+                    labels.add(label);
+                    return labels.size() - 1;
+                });
+                ids.put(key, id);
+            }
+            return id;
+        }
+
+        String[] toArray() {
+            return labels.toArray(new String[0]);
+        }
+    }
+
+    /** the function symbols and arguments of the actions and the time of a multi-action, compared by identity */
+    private static final class MultiAction {
+        private final Object[] parts;
+        private final int hash;
+
+        MultiAction(Term actions, Term time) {
+            parts = new Object[2 + actions.args.length + time.args.length];
+            int i = 0;
+            parts[i++] = actions.symbol;
+            for (Term arg : actions.args) {
+                parts[i++] = arg;
+            }
+            parts[i++] = time.symbol;
+            for (Term arg : time.args) {
+                parts[i++] = arg;
+            }
+
+            int hash = 0;
+            for (Object part : parts) {
+                hash = 31 * hash + System.identityHashCode(part);
+            }
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof MultiAction)) return false;
+
+            Object[] otherParts = ((MultiAction) other).parts;
+            if (otherParts.length != parts.length) return false;
+            for (int i = 0; i < parts.length; i++) {
+                if (parts[i] != otherParts[i]) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -18,6 +18,7 @@ public class NodeClustering extends Graph {
     private final Graph graph;
     private NodeMesh clusterNodes = new NodeMesh();
     private EdgeMesh clusterEdges = new EdgeMesh();
+    private Adjacency clusterAdjacency;
     private State clusterInitialState;
 
     public NodeClustering(SourceGraph graph) {
@@ -108,12 +109,14 @@ public class NodeClustering extends Graph {
 
             // already exists an equal edge
             // even for non-deterministic graphs, this does not change the meaning of the graph
-            if (edgeExists(aTarget, bTarget, edge.label)) continue;
+            if (edgeExists(aTarget, bTarget, edge.labelId)) continue;
 
-            Transition newEdge = new Transition(aTarget, bTarget, edge.label);
+            Transition newEdge = new Transition(aTarget, bTarget, edge.label, edge.labelId);
             newEdge.handlePos.set(edge.handlePos);
             clusterEdges.addParticle(newEdge);
         }
+
+        clusterAdjacency = Adjacency.of(clusterNodes.nodeList(), clusterEdges.edgeList());
     }
 
     /** Sets the position of the clustered nodes to the average of its source */
@@ -157,6 +160,11 @@ public class NodeClustering extends Graph {
         return graph.getEdgeLabels();
     }
 
+    @Override
+    public LabelTable getLabelTable() {
+        return graph.getLabelTable();
+    }
+
     public synchronized NodeMesh getNodeMesh() {
         return clusterNodes;
     }
@@ -165,6 +173,11 @@ public class NodeClustering extends Graph {
         return clusterEdges;
     }
 
+    @Override
+    public synchronized Adjacency getAdjacency() {
+        return clusterAdjacency;
+    }
+
     private static State getClusterLeader(Map<State, State> leaderMap, State node) {
         while (leaderMap.containsKey(node)) {
             node = leaderMap.get(node);
@@ -181,8 +194,10 @@ public class NodeClustering extends Graph {
     public static Map<State, State> actionLabelCluster(
             Graph graph, Set<String> actionLabels, Map<State, State> initialMap
     ) {
+        boolean[] isClustered = graph.getLabelTable().maskOf(actionLabels);
+
         for (Transition edge : graph.getEdgeMesh().edgeList()) {
-            if (!actionLabels.contains(edge.label)) continue;
+            if (!isClustered[edge.labelId]) continue;
 
             State aLeader = getClusterLeader(initialMap, edge.from);
             State bLeader = getClusterLeader(initialMap, edge.to);
@@ -213,20 +228,15 @@ public class NodeClustering extends Graph {
     }
 
     /**
-     * @return true iff there is already an edge starting at aTarget, ending at bTarget, with a label {@link
-     * String#equals(Object) equal} to the given label
+     * @return true iff there is already an edge starting at aTarget, ending at bTarget, with the given label id
      */
-    public static boolean edgeExists(State aTarget, State bTarget, String label) {
+    public static boolean edgeExists(State aTarget, State bTarget, int labelId) {
         List<Transition> outgoing = aTarget.getOutgoing();
         if (outgoing.isEmpty()) return false;
 
         for (Transition transition : outgoing) {
-            if (transition.to == bTarget) {
-                String labelOfExisting = transition.label;
-
-                if (labelOfExisting.equals(label)) {
-                    return true;
-                }
+            if (transition.to == bTarget && transition.labelId == labelId) {
+                return true;
             }
         }
 
@@ -0,0 +1,288 @@
+package NG.Graph;
+
+import NG.Tools.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Reads graphs in the Aldebaran (.aut) format using multiple threads. After the header, the file is split in
+ * newline-aligned chunks, and each chunk is memory-mapped and parsed on a fork-join pool into primitive arrays. The
+ * result is then assembled in one pass, and is identical to the result of {@link AutReader}.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class ParallelAutReader {
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final long MAX_CHUNK_SIZE = 1 << 28;
+    private static final int PROBE_SIZE = 1 << 12;
+
+    private final File file;
+    private final long minChunkSize;
+
+    /**
+     * @param file the file to read
+     */
+    public ParallelAutReader(File file) {
+        this(file, MIN_CHUNK_SIZE);
+    }
+
+    /**
+     * @param file         the file to read
+     * @param minChunkSize the minimum number of bytes parsed by one task.
+     */
+    public ParallelAutReader(File file, long minChunkSize) {
+        this.file = file;
+        this.minChunkSize = minChunkSize;
+    }
+
+    /**
+     * reads the given file using the given number of threads
+     * @see #read(ForkJoinPool)
+     */
+    public static LtsData read(File autFile, int numThreads) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        try {
+            return new ParallelAutReader(autFile).read(pool);
+
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * reads the file of this reader, executing the parsing tasks on the given pool
+     * @return the graph described by the file
+     * @throws IOException if the file could not be read, or if the file is not a valid .aut file
+     */
+    public LtsData read(ForkJoinPool pool) throws IOException {
+        long startTime = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+
+            // header
+            ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+            long headerEnd = findLineEnd(channel, 0, probe);
+            probe.clear().limit((int) Math.min(headerEnd, PROBE_SIZE));
+            channel.read(probe, 0);
+            AutReader.Header header = AutReader.Header.parse(probe, 0, probe.position());
+            if (header == null) throw new IOException("Invalid header in " + file.getName());
+
+            Logger.DEBUG.printf("Loading graph with %d states and %d transitions...", header.nrOfStates, header.nrOfTransitions);
+
+            // split the remainder into newline-aligned chunks
+            long dataStart = Math.min(headerEnd + 1, fileSize);
+            List<Long> boundaries = getChunkBoundaries(channel, dataStart, fileSize, pool.getParallelism(), probe);
+
+            long splitTime = System.nanoTime();
+
+            // parse all chunks
+            List<ChunkParser> tasks = new ArrayList<>();
+            for (int i = 0; i < boundaries.size() - 1; i++) {
+                long start = boundaries.get(i);
+                long end = boundaries.get(i + 1);
+                long estimatedEdges = (header.nrOfTransitions * (end - start)) / Math.max(fileSize - dataStart, 1);
+                tasks.add(new ChunkParser(channel, start, end, header.nrOfStates, (int) estimatedEdges + 16));
+            }
+
+            try {
+                pool.invoke(new RecursiveTask<Void>() {
+                    @Override
+                    protected Void compute() {
+                        ForkJoinTask.invokeAll(tasks);
+                        return null;
+                    }
+                });
+
+            } catch (UncheckedIOException ex) {
+                // the pool may wrap the exception of the task in a new exception of the same type
+                Throwable cause = ex;
+                while (!(cause instanceof IOException) && cause.getCause() != null) {
+                    cause = cause.getCause();
+                }
+                throw new IOException(file.getName() + ": " + cause.getMessage(), cause);
+            }
+
+            long parseTime = System.nanoTime();
+
+            // assemble the result
+            LtsData data = assemble(tasks, header);
+
+            long endTime = System.nanoTime();
+            Logger.DEBUG.printf(
+                    "Read %s in %d ms using %d chunks on %d threads (split %d ms, parse %d ms, assembly %d ms)",
+                    file.getName(), (endTime - startTime) / 1_000_000, tasks.size(), pool.getParallelism(),
+                    (splitTime - startTime) / 1_000_000, (parseTime - splitTime) / 1_000_000,
+                    (endTime - parseTime) / 1_000_000
+            );
+
+            return data;
+        }
+    }
+
+    private List<Long> getChunkBoundaries(
+            FileChannel channel, long dataStart, long fileSize, int numThreads, ByteBuffer probe
+    ) throws IOException {
+        long dataSize = fileSize - dataStart;
+        long chunkSize = dataSize / ((long) numThreads * CHUNKS_PER_THREAD) + 1;
+        chunkSize = Math.min(Math.max(chunkSize, minChunkSize), MAX_CHUNK_SIZE);
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(dataStart);
+
+        long position = dataStart + chunkSize;
+        while (position < fileSize) {
+            long boundary = findLineEnd(channel, position, probe) + 1;
+            if (boundary >= fileSize) break;
+
+            boundaries.add(boundary);
+            position = boundary + chunkSize;
+        }
+
+        boundaries.add(fileSize);
+        return boundaries;
+    }
+
+    /** @return the position of the first newline character at or after the given position, or the size of the file */
+    private static long findLineEnd(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+        while (true) {
+            probe.clear();
+            int bytesRead = channel.read(probe, position);
+            if (bytesRead <= 0) return channel.size();
+
+            int index = AutReader.indexOf(probe, (byte) '\n', 0, bytesRead);
+            if (index >= 0) return position + index;
+
+            position += bytesRead;
+        }
+    }
+
+    /**
+     * copies the results of all chunks into a single set of arrays, mapping the chunk-local label ids to global ids in
+     * order of first occurrence.
+     */
+    private static LtsData assemble(List<ChunkParser> tasks, AutReader.Header header) throws IOException {
+        int totalEdges = 0;
+        for (ChunkParser task : tasks) {
+            totalEdges += task.size;
+        }
+
+        if (totalEdges != header.nrOfTransitions) {
+            throw new IOException("Found " + totalEdges + " transitions, but " + header.nrOfTransitions + " were declared");
+        }
+
+        int[] from = new int[totalEdges];
+        int[] label = new int[totalEdges];
+        int[] to = new int[totalEdges];
+        Map<String, Integer> labelIds = new HashMap<>();
+        List<String> labels = new ArrayList<>();
+
+        int offset = 0;
+        for (ChunkParser task : tasks) {
+            String[] chunkLabels = task.labels.toArray();
+            int[] labelMapping = new int[chunkLabels.length];
+
+            for (int i = 0; i < chunkLabels.length; i++) {
+                String chunkLabel = chunkLabels[i];
+                Integer id = labelIds.get(chunkLabel);
+                if (id == null) {
+                    id = labels.size();
+                    labels.add(chunkLabel);
+                    labelIds.put(chunkLabel, id);
+                }
+                labelMapping[i] = id;
+            }
+
+            System.arraycopy(task.from, 0, from, offset, task.size);
+            System.arraycopy(task.to, 0, to, offset, task.size);
+            for (int i = 0; i < task.size; i++) {
+                label[offset + i] = labelMapping[task.label[i]];
+            }
+
+            offset += task.size;
+        }
+
+        return new LtsData(header.initialState, header.nrOfStates, labels.toArray(new String[0]), from, label, to);
+    }
+
+    @SuppressWarnings("serial")
+    private static class ChunkParser extends RecursiveTask<ChunkParser> {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final int nrOfStates;
+
+        final AutReader.LabelInterner labels = new AutReader.LabelInterner();
+        int[] from;
+        int[] label;
+        int[] to;
+        int size = 0;
+
+        ChunkParser(FileChannel channel, long start, long end, int nrOfStates, int initialCapacity) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.nrOfStates = nrOfStates;
+            this.from = new int[initialCapacity];
+            this.label = new int[initialCapacity];
+            this.to = new int[initialCapacity];
+        }
+
+        @Override
+        protected ChunkParser compute() {
+            try {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                AutReader.EdgeScanner scanner = new AutReader.EdgeScanner();
+                int limit = buffer.limit();
+                int lineStart = 0;
+
+                while (lineStart < limit) {
+                    int lineEnd = AutReader.indexOf(buffer, (byte) '\n', lineStart, limit);
+                    if (lineEnd < 0) lineEnd = limit;
+
+                    if (!AutReader.isBlank(buffer, lineStart, lineEnd)) {
+                        if (!scanner.scan(buffer, lineStart, lineEnd)) {
+                            throw new IOException("Invalid edge at byte " + (start + lineStart));
+                        }
+                        if (scanner.from >= nrOfStates || scanner.to >= nrOfStates) {
+                            throw new IOException("State index out of bounds at byte " + (start + lineStart));
+                        }
+
+                        add(scanner.from, labels.intern(buffer, scanner.labelStart, scanner.labelEnd), scanner.to);
+                    }
+
+                    lineStart = lineEnd + 1;
+                }
+
+                return this;
+
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private void add(int fromState, int labelId, int toState) {
+            if (size == from.length) {
+                int newCapacity = size + (size >> 1) + 16;
+                from = Arrays.copyOf(from, newCapacity);
+                label = Arrays.copyOf(label, newCapacity);
+                to = Arrays.copyOf(to, newCapacity);
+            }
+
+            from[size] = fromState;
+            label[size] = labelId;
+            to[size] = toState;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package NG.Graph;
+
+import NG.Core.Main;
+import NG.Graph.Rendering.EdgeMesh;
+import NG.Graph.Rendering.GraphElement;
+import NG.Graph.Rendering.NodeMesh;
+import NG.Tools.CounterRandom;
+import NG.Tools.Vectors;
+import org.joml.Vector3f;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static NG.Core.Main.INITAL_STATE_COLOR;
+
+/**
+ * A graph that is displayed while its file is still being read. Transitions are added in batches, and each state is
+ * added upon its first occurrence in a transition, close to the state it was reached from. The state indices of this
+ * graph are in order of occurrence, the index of a state in the file is stored in its classIndex. The offset of each new
+ * state only depends on the seed and its index in the file.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class ProgressiveGraph extends Graph {
+    private final NodeMesh nodeMesh = new NodeMesh();
+    private final EdgeMesh edgeMesh = new EdgeMesh();
+    private final float edgeLength;
+    private final long seed;
+
+    private State[] statesById = new State[0];
+    private int initialStateId = -1;
+    private LabelTable labels = new LabelTable(new String[0]);
+    private Adjacency adjacency = null; // computed on demand
+
+    /**
+     * @param edgeLength the distance of new states to the state they are reached from
+     * @param seed       the seed of the positions of new states
+     */
+    public ProgressiveGraph(Main root, String name, float edgeLength, long seed) {
+        super(root, name);
+        this.edgeLength = edgeLength;
+        this.seed = seed;
+    }
+
+    /**
+     * prepares this graph for the given number of states, and adds the initial state. If more states are encountered,
+     * this graph grows accordingly.
+     */
+    public synchronized void setHeader(int initialState, int nrOfStates) {
+        statesById = new State[nrOfStates];
+        initialStateId = initialState;
+
+        if (initialState >= 0) {
+            State state = getOrCreate(initialState, null);
+            state.addColor(INITAL_STATE_COLOR, GraphElement.Priority.BASE);
+            state.border = INITAL_STATE_COLOR;
+        }
+    }
+
+    /**
+     * adds the transitions [0, count) of the given arrays, creating the states that did not occur before.
+     * @param labels all labels known so far, indexed by label id
+     */
+    public synchronized void addTransitions(int[] from, int[] label, int[] to, int count, String[] labels) {
+        if (labels.length != this.labels.size()) {
+            this.labels = new LabelTable(labels);
+        }
+
+        for (int i = 0; i < count; i++) {
+            State fromState = getOrCreate(from[i], null);
+            State toState = getOrCreate(to[i], fromState);
+            int labelId = label[i];
+            edgeMesh.addParticle(new Transition(fromState, toState, labels[labelId], labelId));
+        }
+
+        adjacency = null;
+    }
+
+    private State getOrCreate(int id, State source) {
+        if (id >= statesById.length) {
+            statesById = Arrays.copyOf(statesById, Math.max(id + 1, 2 * statesById.length));
+        }
+
+        State state = statesById[id];
+        if (state != null) return state;
+
+        Vector3f position = Vectors.randomOrb(CounterRandom.hash(seed, id));
+        if (source != null) {
+            position.mul(edgeLength).add(source.position);
+        } else {
+            float radius = (float) (edgeLength * Math.cbrt(statesById.length));
+            position.mul(radius);
+        }
+
+        state = new State(position, Integer.toString(id), nodeMesh.nodeList().size(), id);
+        statesById[id] = state;
+        nodeMesh.addNode(state);
+        return state;
+    }
+
+    /** @return the state with the given index in the file, or null if this state has not been read yet */
+    public synchronized State getStateById(int id) {
+        if (id >= statesById.length) return null;
+        return statesById[id];
+    }
+
+    /** copies the position of every state of this graph to the state of the given graph with the same file index */
+    public synchronized void copyPositionsTo(SourceGraph target) {
+        for (State state : nodeMesh.nodeList()) {
+            target.states[state.classIndex].position.set(state.position);
+        }
+
+        for (Transition edge : target.edges) {
+            edge.handlePos.set(edge.fromPosition).lerp(edge.toPosition, 0.5f);
+        }
+
+        target.getNodeMesh().schedulePositionReload();
+        target.getEdgeMesh().schedulePositionReload();
+    }
+
+    @Override
+    public NodeMesh getNodeMesh() {
+        return nodeMesh;
+    }
+
+    @Override
+    public EdgeMesh getEdgeMesh() {
+        return edgeMesh;
+    }
+
+    @Override
+    public synchronized Collection<String> getEdgeLabels() {
+        return labels.asList();
+    }
+
+    @Override
+    public synchronized LabelTable getLabelTable() {
+        return labels;
+    }
+
+    @Override
+    public synchronized Adjacency getAdjacency() {
+        if (adjacency == null) {
+            adjacency = Adjacency.of(nodeMesh.nodeList(), edgeMesh.edgeList());
+        }
+        return adjacency;
+    }
+
+    @Override
+    public synchronized State getInitialState() {
+        if (initialStateId < 0 || initialStateId >= statesById.length) return null;
+        return statesById[initialStateId];
+    }
+
+    @Override
+    public void cleanup() {
+        root.executeOnRenderThread(nodeMesh::dispose);
+        root.executeOnRenderThread(edgeMesh::dispose);
+    }
+}
@@ -23,7 +23,12 @@ import static org.lwjgl.opengl.GL30.*;
  */
 public class EdgeMesh implements Mesh {
     public static final Color4f BASE_COLOR = new Color4f(0, 0, 0, 0.5f);
+    /** the indices of the stores of a {@link PositionExchange.Snapshot snapshot} of the edge positions */
+    public static final int FROM_POSITIONS = 0, HANDLE_POSITIONS = 1, TO_POSITIONS = 2;
+
     private final List<Transition> bulk = new ArrayList<>();
+    // the positions of the edges, indexed by position in bulk. The layout writes snapshots, the renderer uploads them
+    private final PositionExchange positions = new PositionExchange(3, 16);
     private int vaoId = -1;
     private int aPositionVBO;
     private int handlePositionVBO;
@@ -31,11 +36,12 @@ public class EdgeMesh implements Mesh {
     private int colorVBO;
     private boolean isLoaded = false;
     private int nrOfParticles = 0;
-    private boolean doPositionReload = false;
+    private int capacity = 0;
+    private volatile boolean doPositionReload = false;
     private boolean doColorReload = false;
 
-    public void addParticle(State a, State b, String label) {
-        addParticle(new Transition(a, b, label));
+    public void addParticle(State a, State b, String label, int labelId) {
+        addParticle(new Transition(a, b, label, labelId));
     }
 
     public void addParticle(Transition p) {
@@ -44,18 +50,13 @@ public class EdgeMesh implements Mesh {
 
     public void writeToGL() {
         nrOfParticles = bulk.size();
+        capacity = nrOfParticles;
 
-        FloatBuffer aPosBuffer = MemoryUtil.memAllocFloat(3 * nrOfParticles);
-        FloatBuffer handleBuffer = MemoryUtil.memAllocFloat(3 * nrOfParticles);
-        FloatBuffer bPosBuffer = MemoryUtil.memAllocFloat(3 * nrOfParticles);
         FloatBuffer colorBuffer = MemoryUtil.memAllocFloat(4 * nrOfParticles);
+        copyPositions(0);
+        PositionExchange.Snapshot snapshot = positions.current();
 
-        for (int i = 0; i < bulk.size(); i++) {
-            Transition p = bulk.get(i);
-
-            p.fromPosition.get(i * 3, aPosBuffer);
-            p.handlePos.get(i * 3, handleBuffer);
-            p.toPosition.get(i * 3, bPosBuffer);
+        for (Transition p : bulk) {
             p.getColor().put(colorBuffer);
         }
 
@@ -65,9 +66,12 @@ public class EdgeMesh implements Mesh {
             vaoId = glGenVertexArrays();
             glBindVertexArray(vaoId);
 
-            aPositionVBO = loadToGL(aPosBuffer, 0, 3, GL_STREAM_DRAW); // position of start side of edge
-            handlePositionVBO = loadToGL(handleBuffer, 1, 3, GL_STREAM_DRAW); // position of handle of edge
-            bPositionVBO = loadToGL(bPosBuffer, 2, 3, GL_STREAM_DRAW); // position of end side of edge
+            // position of start side of edge
+            aPositionVBO = loadToGL(snapshot.store(FROM_POSITIONS).slice(0, nrOfParticles), 0, 3, GL_STREAM_DRAW);
+            // position of handle of edge
+            handlePositionVBO = loadToGL(snapshot.store(HANDLE_POSITIONS).slice(0, nrOfParticles), 1, 3, GL_STREAM_DRAW);
+            // position of end side of edge
+            bPositionVBO = loadToGL(snapshot.store(TO_POSITIONS).slice(0, nrOfParticles), 2, 3, GL_STREAM_DRAW);
             colorVBO = loadToGL(colorBuffer, 3, 4, GL_STREAM_DRAW); // color of edge
 
             glBindBuffer(GL_ARRAY_BUFFER, 0);
@@ -75,62 +79,65 @@ public class EdgeMesh implements Mesh {
             isLoaded = true;
 
         } finally {
-            MemoryUtil.memFree(aPosBuffer);
-            MemoryUtil.memFree(handleBuffer);
-            MemoryUtil.memFree(bPosBuffer);
             MemoryUtil.memFree(colorBuffer);
         }
 
         Toolbox.checkGLError(toString());
     }
 
-    private void reloadPositions() {
-        FloatBuffer aPosBuffer = MemoryUtil.memAllocFloat(3 * nrOfParticles);
-        FloatBuffer handlePosBuffer = MemoryUtil.memAllocFloat(3 * nrOfParticles);
-        FloatBuffer bPosBuffer = MemoryUtil.memAllocFloat(3 * nrOfParticles);
-
-        try {
-            for (int i = 0; i < bulk.size(); i++) {
-                Transition p = bulk.get(i);
-
-                p.fromPosition.get(i * 3, aPosBuffer);
-                p.handlePos.get(i * 3, handlePosBuffer);
-                p.toPosition.get(i * 3, bPosBuffer);
-            }
-
-            aPosBuffer.rewind();
-            handlePosBuffer.rewind();
+    /** copies all positions of the edges in [start, nrOfParticles) to the position stores of the renderer */
+    private void copyPositions(int start) {
+        PositionExchange.Snapshot snapshot = positions.current();
+        PositionStore fromPositions = snapshot.store(FROM_POSITIONS);
+        PositionStore handlePositions = snapshot.store(HANDLE_POSITIONS);
+        PositionStore toPositions = snapshot.store(TO_POSITIONS);
+        fromPositions.setSize(nrOfParticles);
+        handlePositions.setSize(nrOfParticles);
+        toPositions.setSize(nrOfParticles);
+
+        for (int i = start; i < nrOfParticles; i++) {
+            Transition p = bulk.get(i);
+            fromPositions.set(i, p.fromPosition);
+            handlePositions.set(i, p.handlePos);
+            toPositions.set(i, p.toPosition);
+        }
+    }
 
-            glBindBuffer(GL_ARRAY_BUFFER, aPositionVBO);
-            glBufferData(GL_ARRAY_BUFFER, aPosBuffer, GL_STREAM_DRAW);
+    /**
+     * uploads the positions of the particles in [start, nrOfParticles) directly from the position stores of the
+     * renderer. A snapshot of the layout does not include particles that were added after it was written.
+     */
+    private void uploadPositions(int start) {
+        PositionExchange.Snapshot snapshot = positions.current();
+        int end = Math.min(nrOfParticles, snapshot.store(HANDLE_POSITIONS).size());
+        if (start >= end) return;
+        long offset = 3L * start * Float.BYTES;
 
-            glBindBuffer(GL_ARRAY_BUFFER, handlePositionVBO);
-            glBufferData(GL_ARRAY_BUFFER, handlePosBuffer, GL_STREAM_DRAW);
+        glBindBuffer(GL_ARRAY_BUFFER, aPositionVBO);
+        glBufferSubData(GL_ARRAY_BUFFER, offset, snapshot.store(FROM_POSITIONS).slice(start, end));
 
-            glBindBuffer(GL_ARRAY_BUFFER, bPositionVBO);
-            glBufferData(GL_ARRAY_BUFFER, bPosBuffer, GL_STREAM_DRAW);
+        glBindBuffer(GL_ARRAY_BUFFER, handlePositionVBO);
+        glBufferSubData(GL_ARRAY_BUFFER, offset, snapshot.store(HANDLE_POSITIONS).slice(start, end));
 
-            glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glBindBuffer(GL_ARRAY_BUFFER, bPositionVBO);
+        glBufferSubData(GL_ARRAY_BUFFER, offset, snapshot.store(TO_POSITIONS).slice(start, end));
 
-        } finally {
-            MemoryUtil.memFree(aPosBuffer);
-            MemoryUtil.memFree(handlePosBuffer);
-            MemoryUtil.memFree(bPosBuffer);
-        }
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
     }
 
-    private void reloadColors() {
-        FloatBuffer colorBuffer = MemoryUtil.memAllocFloat(4 * nrOfParticles);
+    /** uploads the colors of the particles in [start, nrOfParticles) */
+    private void reloadColors(int start) {
+        FloatBuffer colorBuffer = MemoryUtil.memAllocFloat(4 * (nrOfParticles - start));
 
         try {
-            for (Transition p : bulk) {
-                p.getColor().put(colorBuffer);
+            for (int i = start; i < nrOfParticles; i++) {
+                bulk.get(i).getColor().put(colorBuffer);
             }
 
             colorBuffer.flip();
 
             glBindBuffer(GL_ARRAY_BUFFER, colorVBO);
-            glBufferData(GL_ARRAY_BUFFER, colorBuffer, GL_STREAM_DRAW);
+            glBufferSubData(GL_ARRAY_BUFFER, 4L * start * Float.BYTES, colorBuffer);
 
             glBindBuffer(GL_ARRAY_BUFFER, 0);
 
@@ -139,10 +146,50 @@ public class EdgeMesh implements Mesh {
         }
     }
 
+    /**
+     * uploads the particles that were added after the last upload. If the buffers are too small, they are reallocated
+     * with at least twice their capacity.
+     */
+    private void loadNewParticles() {
+        int newSize = bulk.size();
+        int start = nrOfParticles;
+
+        if (newSize > capacity) {
+            capacity = Math.max(newSize, 2 * capacity);
+            allocate(aPositionVBO, 3 * capacity);
+            allocate(handlePositionVBO, 3 * capacity);
+            allocate(bPositionVBO, 3 * capacity);
+            allocate(colorVBO, 4 * capacity);
+            start = 0;
+        }
+
+        nrOfParticles = newSize;
+        copyPositions(start);
+        uploadPositions(start);
+        reloadColors(start);
+    }
+
+    /** schedules copying the positions of all edges to the GPU, for when positions are modified through the edges */
     public void schedulePositionReload() {
         doPositionReload = true;
     }
 
+    /**
+     * Starts writing a snapshot of the positions of the edges, which is shown after {@link #publishPositions()}. Only
+     * one thread may write snapshots, and every position of the {@link #FROM_POSITIONS}, {@link #HANDLE_POSITIONS} and
+     * {@link #TO_POSITIONS} stores must be written.
+     * @param nrOfEdges the number of edges in the snapshot, which may be less than the size of {@link #edgeList()}
+     * @return the snapshot to write the positions to, indexed by position in {@link #edgeList()}
+     */
+    public PositionExchange.Snapshot startPositionUpdate(int nrOfEdges) {
+        return positions.startWrite(nrOfEdges);
+    }
+
+    /** makes the positions of the last {@link #startPositionUpdate(int)} available to the renderer, without waiting */
+    public void publishPositions() {
+        positions.publish();
+    }
+
     public void scheduleColorReload() {
         doColorReload = true;
     }
@@ -160,12 +207,20 @@ public class EdgeMesh implements Mesh {
             writeToGL();
 
         } else {
+            if (bulk.size() > nrOfParticles) {
+                loadNewParticles();
+            }
             if (doPositionReload) {
-                reloadPositions();
                 doPositionReload = false;
+                positions.acquire();
+                copyPositions(0);
+                uploadPositions(0);
+
+            } else if (positions.acquire()) {
+                uploadPositions(0);
             }
             if (doColorReload) {
-                reloadColors();
+                reloadColors(0);
                 doColorReload = false;
             }
         }
@@ -205,4 +260,10 @@ public class EdgeMesh implements Mesh {
         glVertexAttribPointer(index, itemSize, GL_FLOAT, false, 0, 0);
         return vboID;
     }
+
+    private static void allocate(int vboID, int nrOfFloats) {
+        glBindBuffer(GL_ARRAY_BUFFER, vboID);
+        glBufferData(GL_ARRAY_BUFFER, (long) nrOfFloats * Float.BYTES, GL_STREAM_DRAW);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
 }
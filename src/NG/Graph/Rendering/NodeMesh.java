@@ -27,8 +27,11 @@ public class NodeMesh implements Mesh {
 
     private boolean isLoaded = false;
     private final List<State> bulk = new ArrayList<>();
+    // the positions of the nodes, indexed by position in bulk. The layout writes snapshots, the renderer uploads them
+    private final PositionExchange positions = new PositionExchange(1, 16);
     private int nrOfParticles = 0;
-    private boolean doPositionReload = false;
+    private int capacity = 0;
+    private volatile boolean doPositionReload = false;
     private boolean doColorReload = false;
 
     public void addNode(State p) {
@@ -37,15 +40,15 @@ public class NodeMesh implements Mesh {
 
     public void writeToGL() {
         nrOfParticles = bulk.size();
+        capacity = nrOfParticles;
 
-        FloatBuffer positionBuffer = MemoryUtil.memAllocFloat(3 * nrOfParticles);
         FloatBuffer colorBuffer = MemoryUtil.memAllocFloat(4 * nrOfParticles);
         FloatBuffer borderBuffer = MemoryUtil.memAllocFloat(4 * nrOfParticles);
+        copyPositions(0);
+        PositionStore store = positions.current().store(0);
 
         for (int i = 0; i < bulk.size(); i++) {
             State p = bulk.get(i);
-
-            p.position.get(i * 3, positionBuffer);
             p.getColor().put(colorBuffer);
             p.border.put(borderBuffer);
         }
@@ -56,7 +59,7 @@ public class NodeMesh implements Mesh {
             vaoId = glGenVertexArrays();
             glBindVertexArray(vaoId);
 
-            posMidVboID = loadToGL(positionBuffer, 0, 3, GL_STREAM_DRAW);
+            posMidVboID = loadToGL(store.slice(0, nrOfParticles), 0, 3, GL_STREAM_DRAW);
             colorVboID = loadToGL(colorBuffer, 1, 4, GL_STREAM_DRAW);
             borderVboID = loadToGL(borderBuffer, 2, 4, GL_STREAM_DRAW);
 
@@ -65,7 +68,6 @@ public class NodeMesh implements Mesh {
             isLoaded = true;
 
         } finally {
-            MemoryUtil.memFree(positionBuffer);
             MemoryUtil.memFree(colorBuffer);
             MemoryUtil.memFree(borderBuffer);
         }
@@ -73,30 +75,37 @@ public class NodeMesh implements Mesh {
         Toolbox.checkGLError(toString());
     }
 
-    private void reloadPositions() {
-        FloatBuffer positionBuffer = MemoryUtil.memAllocFloat(3 * nrOfParticles);
+    /** copies the positions of the nodes in [start, nrOfParticles) to the position store of the renderer */
+    private void copyPositions(int start) {
+        PositionStore store = positions.current().store(0);
+        store.setSize(nrOfParticles);
 
-        for (int i = 0; i < bulk.size(); i++) {
-            State p = bulk.get(i);
-            p.position.get(i * 3, positionBuffer);
+        for (int i = start; i < nrOfParticles; i++) {
+            store.set(i, bulk.get(i).position);
         }
+    }
 
-        try {
-            glBindBuffer(GL_ARRAY_BUFFER, posMidVboID);
-            glBufferData(GL_ARRAY_BUFFER, positionBuffer, GL_STREAM_DRAW);
-
-            glBindBuffer(GL_ARRAY_BUFFER, 0);
+    /**
+     * uploads the positions of the particles in [start, nrOfParticles) directly from the position store of the
+     * renderer. A snapshot of the layout does not include particles that were added after it was written.
+     */
+    private void uploadPositions(int start) {
+        PositionStore store = positions.current().store(0);
+        int end = Math.min(nrOfParticles, store.size());
+        if (start >= end) return;
 
-        } finally {
-            MemoryUtil.memFree(positionBuffer);
-        }
+        glBindBuffer(GL_ARRAY_BUFFER, posMidVboID);
+        glBufferSubData(GL_ARRAY_BUFFER, 3L * start * Float.BYTES, store.slice(start, end));
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
     }
 
-    private void reloadColors() {
-        FloatBuffer colorBuffer = MemoryUtil.memAllocFloat(4 * nrOfParticles);
-        FloatBuffer borderBuffer = MemoryUtil.memAllocFloat(4 * nrOfParticles);
+    /** uploads the colors of the particles in [start, nrOfParticles) */
+    private void reloadColors(int start) {
+        FloatBuffer colorBuffer = MemoryUtil.memAllocFloat(4 * (nrOfParticles - start));
+        FloatBuffer borderBuffer = MemoryUtil.memAllocFloat(4 * (nrOfParticles - start));
 
-        for (State p : bulk) {
+        for (int i = start; i < nrOfParticles; i++) {
+            State p = bulk.get(i);
             p.getColor().put(colorBuffer);
             p.border.put(borderBuffer);
         }
@@ -105,10 +114,10 @@ public class NodeMesh implements Mesh {
 
         try {
             glBindBuffer(GL_ARRAY_BUFFER, colorVboID);
-            glBufferData(GL_ARRAY_BUFFER, colorBuffer, GL_STREAM_DRAW);
+            glBufferSubData(GL_ARRAY_BUFFER, 4L * start * Float.BYTES, colorBuffer);
 
             glBindBuffer(GL_ARRAY_BUFFER, borderVboID);
-            glBufferData(GL_ARRAY_BUFFER, borderBuffer, GL_STREAM_DRAW);
+            glBufferSubData(GL_ARRAY_BUFFER, 4L * start * Float.BYTES, borderBuffer);
 
             glBindBuffer(GL_ARRAY_BUFFER, 0);
 
@@ -118,10 +127,48 @@ public class NodeMesh implements Mesh {
         }
     }
 
+    /**
+     * uploads the particles that were added after the last upload. If the buffers are too small, they are reallocated
+     * with at least twice their capacity, such that a growing mesh is only reallocated a logarithmic number of times.
+     */
+    private void loadNewParticles() {
+        int newSize = bulk.size();
+        int start = nrOfParticles;
+
+        if (newSize > capacity) {
+            capacity = Math.max(newSize, 2 * capacity);
+            allocate(posMidVboID, 3 * capacity);
+            allocate(colorVboID, 4 * capacity);
+            allocate(borderVboID, 4 * capacity);
+            start = 0;
+        }
+
+        nrOfParticles = newSize;
+        copyPositions(start);
+        uploadPositions(start);
+        reloadColors(start);
+    }
+
+    /** schedules copying the positions of all nodes to the GPU, for when positions are modified through the nodes */
     public void schedulePositionReload() {
         doPositionReload = true;
     }
 
+    /**
+     * Starts writing a snapshot of the positions of the nodes, which is shown after {@link #publishPositions()}. Only
+     * one thread may write snapshots, and every position must be written.
+     * @param nrOfNodes the number of nodes in the snapshot, which may be less than the size of {@link #nodeList()}
+     * @return the store to write the positions to, indexed by position in {@link #nodeList()}
+     */
+    public PositionStore startPositionUpdate(int nrOfNodes) {
+        return positions.startWrite(nrOfNodes).store(0);
+    }
+
+    /** makes the positions of the last {@link #startPositionUpdate(int)} available to the renderer, without waiting */
+    public void publishPositions() {
+        positions.publish();
+    }
+
     public void scheduleColorReload() {
         doColorReload = true;
     }
@@ -139,12 +186,20 @@ public class NodeMesh implements Mesh {
             writeToGL();
 
         } else {
+            if (bulk.size() > nrOfParticles) {
+                loadNewParticles();
+            }
             if (doPositionReload) {
-                reloadPositions();
                 doPositionReload = false;
+                positions.acquire();
+                copyPositions(0);
+                uploadPositions(0);
+
+            } else if (positions.acquire()) {
+                uploadPositions(0);
             }
             if (doColorReload) {
-                reloadColors();
+                reloadColors(0);
                 doColorReload = false;
             }
         }
@@ -184,4 +239,9 @@ public class NodeMesh implements Mesh {
         return vboID;
     }
 
+    private static void allocate(int vboID, int nrOfFloats) {
+        glBindBuffer(GL_ARRAY_BUFFER, vboID);
+        glBufferData(GL_ARRAY_BUFFER, (long) nrOfFloats * Float.BYTES, GL_STREAM_DRAW);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+    }
 }
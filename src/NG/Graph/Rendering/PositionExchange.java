@@ -0,0 +1,90 @@
+package NG.Graph.Rendering;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Passes complete snapshots of positions from a single writer to a single reader, without either side waiting on the
+ * other. There are three {@link Snapshot snapshots}: one that the writer fills, one that the reader uses, and the most
+ * recently published one in between. Publishing and acquiring are a single atomic swap of the snapshot in between, such
+ * that the reader never sees a snapshot that is partially written, and always gets the newest complete one.
+ * <p>
+ * Every published snapshot receives the next epoch. The reader only swaps when the snapshot in between has a higher
+ * epoch than its own, such that it never goes back to older positions.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class PositionExchange {
+    private final AtomicReference<Snapshot> published;
+    // only accessed by the writer
+    private Snapshot writing;
+    private long nrOfPublished = 0;
+    // only accessed by the reader
+    private Snapshot reading;
+
+    /**
+     * @param nrOfStores      the number of position stores in each snapshot
+     * @param initialCapacity the initial number of positions in each store
+     */
+    public PositionExchange(int nrOfStores, int initialCapacity) {
+        writing = new Snapshot(nrOfStores, initialCapacity);
+        reading = new Snapshot(nrOfStores, initialCapacity);
+        published = new AtomicReference<>(new Snapshot(nrOfStores, initialCapacity));
+    }
+
+    /**
+     * Called by the writer to start writing a new snapshot. The stores of the snapshot contain positions of an older
+     * snapshot, thus every position must be written before the snapshot is published.
+     * @param size the number of positions in each store
+     * @return the snapshot to write, until the next call to {@link #publish()}
+     */
+    public Snapshot startWrite(int size) {
+        for (PositionStore store : writing.stores) {
+            store.setSize(size);
+        }
+        return writing;
+    }
+
+    /** Called by the writer to make the snapshot of the last call to {@link #startWrite(int)} available to the reader */
+    public void publish() {
+        writing.epoch = ++nrOfPublished;
+        writing = published.getAndSet(writing);
+    }
+
+    /**
+     * Called by the reader to replace its snapshot with the newest published snapshot, if it is newer.
+     * @return true if the snapshot of the reader was replaced
+     */
+    public boolean acquire() {
+        if (published.get().epoch <= reading.epoch) return false;
+
+        // the writer only replaces the published snapshot with a newer one
+        reading = published.getAndSet(reading);
+        return true;
+    }
+
+    /** @return the snapshot of the reader, which only the reader may access */
+    public Snapshot current() {
+        return reading;
+    }
+
+    /** A set of position stores that were written together */
+    public static final class Snapshot {
+        private final PositionStore[] stores;
+        private volatile long epoch = 0;
+
+        private Snapshot(int nrOfStores, int initialCapacity) {
+            stores = new PositionStore[nrOfStores];
+            for (int i = 0; i < nrOfStores; i++) {
+                stores[i] = new PositionStore(initialCapacity);
+            }
+        }
+
+        public PositionStore store(int index) {
+            return stores[index];
+        }
+
+        /** @return the number of snapshots that were published before and including this one, or 0 if never published */
+        public long epoch() {
+            return epoch;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package NG.Graph.Rendering;
+
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
+
+/**
+ * A growable off-heap array of positions, indexed by element index. Positions are stored as consecutive x, y, z
+ * floats, which is the layout of a vec3 vertex attribute, such that the buffer can be uploaded to the GPU without
+ * copying.
+ * <p>
+ * The buffer is a direct buffer that is freed by the garbage collector. This means that a reference to an old buffer
+ * never points to freed memory, even when the owner of the buffer is disposed by another thread.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class PositionStore {
+    private FloatBuffer buffer;
+    private int size = 0;
+
+    public PositionStore(int initialCapacity) {
+        buffer = BufferUtils.createFloatBuffer(3 * Math.max(initialCapacity, 1));
+    }
+
+    /** makes sure that elements with index up to and excluding size can be stored, and sets the size to size */
+    public void setSize(int size) {
+        if (3 * size > buffer.capacity()) {
+            int capacity = Math.max(3 * size, 2 * buffer.capacity());
+            FloatBuffer larger = BufferUtils.createFloatBuffer(capacity);
+            larger.put(0, buffer, 0, 3 * this.size);
+            buffer = larger;
+        }
+
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void set(int index, Vector3fc position) {
+        position.get(3 * index, buffer);
+    }
+
+    public void set(int index, float x, float y, float z) {
+        int i = 3 * index;
+        buffer.put(i, x);
+        buffer.put(i + 1, y);
+        buffer.put(i + 2, z);
+    }
+
+    /**
+     * sets the positions of the elements in [index, index + count) to the consecutive x, y, z values in positions,
+     * starting at offset
+     */
+    public void set(int index, float[] positions, int offset, int count) {
+        buffer.put(3 * index, positions, offset, 3 * count);
+    }
+
+    public void get(int index, Vector3f target) {
+        target.set(3 * index, buffer);
+    }
+
+    public float x(int index) {
+        return buffer.get(3 * index);
+    }
+
+    public float y(int index) {
+        return buffer.get(3 * index + 1);
+    }
+
+    public float z(int index) {
+        return buffer.get(3 * index + 2);
+    }
+
+    /**
+     * @return a view on the positions of the elements in [start, end), with position 0 and limit 3 * (end - start). The
+     * view is invalidated by {@link #setSize(int)}.
+     */
+    public FloatBuffer slice(int start, int end) {
+        return buffer.slice(3 * start, 3 * (end - start));
+    }
+}
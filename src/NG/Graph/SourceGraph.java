@@ -6,11 +6,18 @@ import NG.Graph.Rendering.EdgeMesh;
 import NG.Graph.Rendering.GraphElement;
 import NG.Graph.Rendering.NodeMesh;
 import NG.MuChecker.StateSet;
+import NG.Settings.Settings;
+import NG.Tools.CounterRandom;
 import NG.Tools.Logger;
+import NG.Tools.Toolbox;
 import NG.Tools.Vectors;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -26,20 +33,22 @@ public class SourceGraph extends Graph {
 
     public final State[] states;
     public final Transition[] edges;
-    private final String[] actionLabels;
+    private final LabelTable labels;
+    private final Adjacency adjacency;
 
     private final NodeMesh nodeMesh;
     private final EdgeMesh edgeMesh;
     private int initialState = 0;
 
-    private SourceGraph(Main root, int numStates, int numTransitions, String name) {
+    private SourceGraph(Main root, Adjacency adjacency, LabelTable labels, String name) {
         super(root, name);
         this.nodeMesh = new NodeMesh();
         this.edgeMesh = new EdgeMesh();
 
-        this.states = new State[numStates];
-        this.edges = new Transition[numTransitions];
-        this.actionLabels = new String[numTransitions];
+        this.states = new State[adjacency.nrOfStates()];
+        this.edges = new Transition[adjacency.nrOfEdges()];
+        this.labels = labels;
+        this.adjacency = adjacency;
     }
 
     public void init() {
@@ -80,7 +89,7 @@ public class SourceGraph extends Graph {
     }
 
     public boolean isDeadlocked(State node) {
-        return node.getOutgoing().isEmpty();
+        return adjacency.outDegree(node.index) == 0;
     }
 
     @Override
@@ -101,7 +110,17 @@ public class SourceGraph extends Graph {
 
     @Override
     public Collection<String> getEdgeLabels() {
-        return Arrays.asList(actionLabels);
+        return labels.asList();
+    }
+
+    @Override
+    public LabelTable getLabelTable() {
+        return labels;
+    }
+
+    @Override
+    public Adjacency getAdjacency() {
+        return adjacency;
     }
 
     public StateSet getUniverse() {
@@ -135,12 +154,50 @@ public class SourceGraph extends Graph {
      * </ul>
      * @param ltsFile the file containing the graph
      * @param root
+     * @see AutReader
+     * @see ParallelAutReader
      */
     public static SourceGraph parse(File ltsFile, Main root) throws IOException {
-        return parse(new Scanner(ltsFile, "UTF8"), root, ltsFile.getName());
+        LtsData data = read(ltsFile, root == null ? null : root.settings());
+        return createTimed(data, root, ltsFile.getName());
+    }
+
+    /**
+     * Loads the graph of the given file like {@link #parse(File, Main)}, but uses the binary cache of the file if
+     * caching is enabled in the settings of root.
+     * @see LtsCache
+     */
+    public static SourceGraph load(File ltsFile, Main root) throws IOException {
+        Settings settings = root.settings();
+        if (!settings.USE_GRAPH_CACHE) return parse(ltsFile, root);
+
+        LtsData data = LtsCache.load(ltsFile, settings);
+        return createTimed(data, root, ltsFile.getName());
+    }
+
+    /**
+     * reads the given file into its primitive representation, without creating a graph.
+     * @param ltsFile  the file containing the graph
+     * @param settings the settings that determine how the file is read, or null to read on a single thread
+     * @see LtsReader#of(File, Settings)
+     */
+    public static LtsData read(File ltsFile, Settings settings) throws IOException {
+        return LtsReader.of(ltsFile, settings).read(ltsFile);
     }
 
-    /** @see #parse(File, Main) */
+    private static SourceGraph createTimed(LtsData data, Main root, String name) {
+        long startTime = System.nanoTime();
+        SourceGraph graph = create(data, root, name);
+        Logger.DEBUG.printf("Created graph in %d ms", (System.nanoTime() - startTime) / 1_000_000);
+
+        return graph;
+    }
+
+    /**
+     * Parses the graph line-by-line using regular expressions. This is considerably slower than {@link #parse(File,
+     * Main)}, and is kept as reference implementation.
+     * @see #parse(File, Main)
+     */
     public static SourceGraph parse(Scanner scanner, Main root, String fileName) throws IOException {
         // parse header
         String header = scanner.nextLine();
@@ -155,14 +212,10 @@ public class SourceGraph extends Graph {
 
         Logger.DEBUG.printf("Loading graph with %d states and %d transitions...", nrOfStates, nrOfTransitions);
 
-        float natLength = root == null ? 1 : root.getSpringLayout().getNatLength();
-        SourceGraph graph = new SourceGraph(root, nrOfStates, nrOfTransitions, fileName);
-        graph.initialState = initialStateIndex;
-
-        // prepare states
-        for (int i = 0; i < nrOfStates; i++) {
-            graph.states[i] = new State(Vectors.O, Integer.toString(i), i, i);
-        }
+        int[] from = new int[nrOfTransitions];
+        int[] label = new int[nrOfTransitions];
+        int[] to = new int[nrOfTransitions];
+        Map<String, Integer> labelIds = new LinkedHashMap<>();
 
         // parse edges
         int edgeIndex = 0;
@@ -173,44 +226,74 @@ public class SourceGraph extends Graph {
             boolean doesMatchEdge = matcher.find();
             if (!doesMatchEdge) throw new IOException(line);
 
-            int startStateIndex = Integer.parseInt(matcher.group(1));
-            String label = matcher.group(2);
-            int endStateIndex = Integer.parseInt(matcher.group(3));
-
-            State startState = graph.states[startStateIndex];
-            State endState = graph.states[endStateIndex];
-            Transition edge = new Transition(startState, endState, label);
-
-            graph.actionLabels[edgeIndex] = label;
-            graph.edges[edgeIndex] = edge;
-            ;
+            from[edgeIndex] = Integer.parseInt(matcher.group(1));
+            label[edgeIndex] = labelIds.computeIfAbsent(matcher.group(2), k -> labelIds.size());
+            to[edgeIndex] = Integer.parseInt(matcher.group(3));
 
             edgeIndex++;
         }
 
-        return graph;
+        String[] labels = labelIds.keySet().toArray(new String[0]);
+        return create(new LtsData(initialStateIndex, nrOfStates, labels, from, label, to), root, fileName);
     }
 
     public static SourceGraph empty(Main root) {
-        return new SourceGraph(root, 0, 0, "empty graph");
+        Adjacency adjacency = new Adjacency(0, new int[0], new int[0], new int[0]);
+        return new SourceGraph(root, adjacency, new LabelTable(new String[0]), "empty graph");
     }
 
     public static SourceGraph parse(String asString) {
+        byte[] bytes = asString.getBytes(StandardCharsets.UTF_8);
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(bytes));
+
         try {
-            return parse(new Scanner(asString), null, "");
+            return create(new AutReader(channel).read(), null, "");
 
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /** creates a graph with the states and transitions described by the given data */
+    public static SourceGraph create(LtsData data, Main root, String name) {
+        int nrOfStates = data.nrOfStates;
+        int nrOfTransitions = data.nrOfTransitions();
+
+        LabelTable labels = new LabelTable(data.labels);
+        Adjacency adjacency = new Adjacency(nrOfStates, data.from, data.label, data.to);
+        SourceGraph graph = new SourceGraph(root, adjacency, labels, name);
+        graph.initialState = data.initialState;
+        List<Transition> edgeList = Arrays.asList(graph.edges);
+
+        for (int i = 0; i < nrOfStates; i++) {
+            String label = data.stateLabels == null ? Integer.toString(i) : data.stateLabels[i];
+            State state = new State(Vectors.O, label, i, i);
+            state.setAdjacency(adjacency, edgeList);
+            graph.states[i] = state;
+        }
+
+        for (int i = 0; i < nrOfTransitions; i++) {
+            int labelId = data.label[i];
+            State from = graph.states[data.from[i]];
+            State to = graph.states[data.to[i]];
+            graph.edges[i] = new Transition(from, to, labels.get(labelId), labelId);
+        }
+
+        return graph;
+    }
+
     public static void randomLayout(SourceGraph graph, float edgeLength) {
-        Random rng = new Random();
+        randomLayout(graph, edgeLength, Toolbox.random.nextLong());
+    }
+
+    /** places the states uniformly at random in a cube, where the position of each state only depends on the seed */
+    public static void randomLayout(SourceGraph graph, float edgeLength, long seed) {
         float lengthFactor = (float) (edgeLength * Math.cbrt(graph.states.length));
 
         for (State state : graph.states) {
+            long i = 3L * state.index;
             state.position.set(
-                    rng.nextFloat(), rng.nextFloat(), rng.nextFloat()
+                    CounterRandom.nextFloat(seed, i), CounterRandom.nextFloat(seed, i + 1), CounterRandom.nextFloat(seed, i + 2)
             ).sub(0.5f, 0.5f, 0.5f).mul(lengthFactor);
         }
 
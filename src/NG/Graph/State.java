@@ -7,6 +7,7 @@ import org.joml.Vector3f;
 import org.joml.Vector3fc;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -23,8 +24,12 @@ public class State extends GraphElement {
     public boolean isFixed = false;
     public boolean stayFixed = false;
 
-    private final List<Transition> outgoing = new ArrayList<>();
-    private final List<Transition> incoming = new ArrayList<>();
+    // the transitions of states that are not part of an adjacency, created on the first transition
+    private List<Transition> outgoing = null;
+    private List<Transition> incoming = null;
+    // if not null, the transitions of this state are read from this adjacency
+    private Adjacency adjacency = null;
+    private List<Transition> adjacencyEdges = null;
 
     public State(Vector3fc position, String label, int index, int classIndex) {
         this.position = new Vector3f(position);
@@ -42,20 +47,42 @@ public class State extends GraphElement {
         colors.add(Priority.BASE, BASE_COLOR);
     }
 
+    /**
+     * registers a transition of this state. If this state is part of an adjacency, the transitions are defined by the
+     * adjacency instead, and this method has no effect.
+     */
     public void add(Transition t) {
+        if (adjacency != null) return;
+
         if (t.from == this) {
+            if (outgoing == null) outgoing = new ArrayList<>();
             outgoing.add(t);
         } else {
+            if (incoming == null) incoming = new ArrayList<>();
             incoming.add(t);
         }
     }
 
+    /**
+     * makes this state read its transitions from the given adjacency
+     * @param adjacency the adjacency containing this state
+     * @param edges     the transitions of the adjacency, indexed by edge index
+     */
+    void setAdjacency(Adjacency adjacency, List<Transition> edges) {
+        this.adjacency = adjacency;
+        this.adjacencyEdges = edges;
+        this.outgoing = null;
+        this.incoming = null;
+    }
+
     public List<Transition> getOutgoing() {
-        return outgoing;
+        if (adjacency != null) return adjacency.outgoing(index, adjacencyEdges);
+        return outgoing == null ? Collections.emptyList() : outgoing;
     }
 
     public List<Transition> getIncoming() {
-        return incoming;
+        if (adjacency != null) return adjacency.incoming(index, adjacencyEdges);
+        return incoming == null ? Collections.emptyList() : incoming;
     }
 
     @Override
@@ -14,15 +14,18 @@ public class Transition extends GraphElement {
     public final Vector3fc fromPosition;
     public final Vector3fc toPosition;
     public final Vector3f handlePos;
-    public String label;
+    public final String label;
+    /** the id of the label in the {@link LabelTable} of the graph */
+    public final int labelId;
 
-    public Transition(State from, State to, String label) {
+    public Transition(State from, State to, String label, int labelId) {
         this.from = from;
         this.to = to;
         this.fromPosition = from.position;
         this.toPosition = to.position;
         this.handlePos = new Vector3f(fromPosition).lerp(toPosition, 0.5f);
         this.label = label;
+        this.labelId = labelId;
         colors.add(Priority.BASE, EdgeMesh.BASE_COLOR);
 
         from.add(this);
@@ -1,6 +1,8 @@
 package NG.MuChecker;
 
+import NG.Graph.Adjacency;
 import NG.Graph.Graph;
+import NG.Graph.LabelTable;
 import NG.Graph.SourceGraph;
 import NG.Graph.State;
 import NG.MuChecker.Operands.FixedPoint;
@@ -15,6 +17,8 @@ import java.util.concurrent.Callable;
  */
 public class ModelChecker implements Callable<StateSet> {
     private final State[] universe;
+    private final Adjacency adjacency;
+    private final LabelTable labels;
     private final Formula muFormula;
     private final List<FixedPoint> fixedPoints;
 
@@ -27,7 +31,7 @@ public class ModelChecker implements Callable<StateSet> {
     }
 
     public ModelChecker(Formula formula, List<FixedPoint> fixedPoints, SourceGraph graph) {
-        this(formula, fixedPoints, graph.states);
+        this(formula, fixedPoints, graph.states, graph.getAdjacency(), graph.getLabelTable());
     }
 
     public ModelChecker(Graph graph, FormulaParser formula) {
@@ -35,13 +39,18 @@ public class ModelChecker implements Callable<StateSet> {
     }
 
     public ModelChecker(Formula formula, List<FixedPoint> fixedPoints, Graph graph) {
-        this(formula, fixedPoints, graph.getNodeMesh().nodeList().toArray(new State[0]));
+        this(
+                formula, fixedPoints, graph.getNodeMesh().nodeList().toArray(new State[0]),
+                graph.getAdjacency(), graph.getLabelTable()
+        );
     }
 
     public ModelChecker(
-            Formula formula, List<FixedPoint> fixedPoints, State[] universe
+            Formula formula, List<FixedPoint> fixedPoints, State[] universe, Adjacency adjacency, LabelTable labels
     ) {
         this.universe = universe;
+        this.adjacency = adjacency;
+        this.labels = labels;
         this.muFormula = formula;
         this.fixedPoints = fixedPoints;
     }
@@ -60,6 +69,6 @@ public class ModelChecker implements Callable<StateSet> {
             }
         }
 
-        return muFormula.eval(universe, environment, Binder.NONE);
+        return muFormula.eval(universe, adjacency, labels, environment, Binder.NONE);
     }
 }
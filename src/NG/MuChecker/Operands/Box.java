@@ -1,12 +1,12 @@
 package NG.MuChecker.Operands;
 
+import NG.Graph.Adjacency;
+import NG.Graph.LabelTable;
 import NG.Graph.State;
-import NG.Graph.Transition;
 import NG.MuChecker.ModelChecker;
 import NG.MuChecker.StateSet;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.function.IntPredicate;
 
 /**
  * @author Geert van Ieperen created on 15-2-2020.
@@ -34,28 +34,30 @@ public class Box implements Formula {
 
     @Override
     public StateSet eval(
-            State[] universe, StateSet[] environment, ModelChecker.Binder surroundingBinder
+            State[] universe, Adjacency adjacency, LabelTable labels, StateSet[] environment,
+            ModelChecker.Binder surroundingBinder
     ) {
         // {s in S such that for all t in S : (s (l)to t) implies (t in eval(g))}
         // for all s, if there is a l transition from s to t, then t must be in eval(g)
         // hence, all s for which all l transitions lie in eval(g)
-        StateSet rightSet = right.eval(universe, environment, surroundingBinder);
+        StateSet rightSet = right.eval(universe, adjacency, labels, environment, surroundingBinder);
         StateSet result = StateSet.noneOf(universe);
-        Collection<State> out = new ArrayList<>();
+        IntPredicate labelMatch = Formula.labelMatcher(label, labels);
 
-        for (State s : universe) {
-            out.clear();
+        for (int s = 0; s < universe.length; s++) {
+            // if s has no "label" transitions, the box holds vacuously for s.
+            // if s has "label" transitions, check whether all states t after doing a "label" transition
+            // are in eval(g). If so, s is in the result.
+            boolean allInRight = true;
 
-            for (Transition edge : s.getOutgoing()) {
-                if (Formula.labelMatch(edge.label, label)) {
-                    out.add(edge.to);
+            for (int i = adjacency.outStart(s); i < adjacency.outEnd(s); i++) {
+                if (labelMatch.test(adjacency.outLabel(i)) && !rightSet.mask.get(adjacency.target(i))) {
+                    allInRight = false;
+                    break;
                 }
             }
 
-            // if s has no "label" transitions, the box holds vacuously for s.
-            // if s has "label" transitions, check whether all states t after doing a "label" transition
-            // are in eval(g). If so, s is in the result.
-            if (out.isEmpty() || rightSet.containsAll(out)) result.add(s);
+            if (allInRight) result.mask.set(s);
         }
 
         return result;
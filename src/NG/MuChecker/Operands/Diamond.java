@@ -1,10 +1,14 @@
 package NG.MuChecker.Operands;
 
+import NG.Graph.Adjacency;
+import NG.Graph.LabelTable;
 import NG.Graph.State;
-import NG.Graph.Transition;
 import NG.MuChecker.ModelChecker;
 import NG.MuChecker.StateSet;
 
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+
 /**
  * @author Geert van Ieperen created on 15-2-2020.
  */
@@ -31,17 +35,20 @@ public class Diamond implements Formula {
 
     @Override
     public StateSet eval(
-            State[] universe, StateSet[] environment, ModelChecker.Binder surroundingBinder
+            State[] universe, Adjacency adjacency, LabelTable labels, StateSet[] environment,
+            ModelChecker.Binder surroundingBinder
     ) {
         // {s in S such that for some t in S : (s (l)to t) implies (t in eval(g))}
         // all s which have an l transition to eval(g), hence all s incoming to eval(g)
-        StateSet rightSet = right.eval(universe, environment, surroundingBinder);
+        StateSet rightSet = right.eval(universe, adjacency, labels, environment, surroundingBinder);
         StateSet result = StateSet.noneOf(universe);
+        IntPredicate labelMatch = Formula.labelMatcher(label, labels);
 
-        for (State s : rightSet) {
-            for (Transition transition : s.getIncoming()) {
-                if (Formula.labelMatch(label, transition.label)) {
-                    result.add(transition.from);
+        BitSet rightMask = rightSet.mask;
+        for (int s = rightMask.nextSetBit(0); s >= 0; s = rightMask.nextSetBit(s + 1)) {
+            for (int i = adjacency.inStart(s); i < adjacency.inEnd(s); i++) {
+                if (labelMatch.test(adjacency.inLabel(i))) {
+                    result.mask.set(adjacency.source(i));
                 }
             }
         }
@@ -1,5 +1,7 @@
 package NG.MuChecker.Operands;
 
+import NG.Graph.Adjacency;
+import NG.Graph.LabelTable;
 import NG.Graph.State;
 import NG.MuChecker.ModelChecker;
 import NG.MuChecker.StateSet;
@@ -15,7 +17,8 @@ public class False implements Formula {
 
     @Override
     public StateSet eval(
-            State[] universe, StateSet[] environment, ModelChecker.Binder surroundingBinder
+            State[] universe, Adjacency adjacency, LabelTable labels, StateSet[] environment,
+            ModelChecker.Binder surroundingBinder
     ) {
         return StateSet.noneOf(universe);
     }
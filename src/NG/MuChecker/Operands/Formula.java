@@ -1,21 +1,34 @@
 package NG.MuChecker.Operands;
 
+import NG.Graph.Adjacency;
+import NG.Graph.LabelTable;
 import NG.Graph.State;
 import NG.MuChecker.ModelChecker;
 import NG.MuChecker.StateSet;
 
+import java.util.function.IntPredicate;
+
 /**
  * @author Geert van Ieperen created on 15-2-2020.
  */
 public interface Formula {
     boolean equals(Object other);
 
-    StateSet eval(State[] universe, StateSet[] environment, ModelChecker.Binder surroundingBinder);
+    StateSet eval(
+            State[] universe, Adjacency adjacency, LabelTable labels, StateSet[] environment,
+            ModelChecker.Binder surroundingBinder
+    );
 
     /**
-     * @return true if either label is true, or they are equal.
+     * @param formulaLabel the label of a modal operator
+     * @param labels       the labels of the graph
+     * @return a predicate on label ids that is true if either label is true, or they are equal.
      */
-    static boolean labelMatch(String label1, String label2) {
-        return label1.equals("true") || label2.equals("true") || label2.equals(label1);
+    static IntPredicate labelMatcher(String formulaLabel, LabelTable labels) {
+        if (formulaLabel.equals("true")) return id -> true;
+
+        int labelId = labels.idOf(formulaLabel);
+        int trueId = labels.idOf("true");
+        return id -> id == labelId || id == trueId;
     }
 }
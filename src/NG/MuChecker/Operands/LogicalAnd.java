@@ -1,5 +1,7 @@
 package NG.MuChecker.Operands;
 
+import NG.Graph.Adjacency;
+import NG.Graph.LabelTable;
 import NG.Graph.State;
 import NG.MuChecker.ModelChecker;
 import NG.MuChecker.StateSet;
@@ -30,10 +32,11 @@ public class LogicalAnd implements Formula {
 
     @Override
     public StateSet eval(
-            State[] universe, StateSet[] environment, ModelChecker.Binder surroundingBinder
+            State[] universe, Adjacency adjacency, LabelTable labels, StateSet[] environment,
+            ModelChecker.Binder surroundingBinder
     ) {
-        StateSet leftStates = left.eval(universe, environment, surroundingBinder);
-        StateSet rightStates = right.eval(universe, environment, surroundingBinder);
+        StateSet leftStates = left.eval(universe, adjacency, labels, environment, surroundingBinder);
+        StateSet rightStates = right.eval(universe, adjacency, labels, environment, surroundingBinder);
         leftStates.intersect(rightStates);
         return leftStates;
     }
@@ -1,5 +1,7 @@
 package NG.MuChecker.Operands;
 
+import NG.Graph.Adjacency;
+import NG.Graph.LabelTable;
 import NG.Graph.State;
 import NG.MuChecker.ModelChecker;
 import NG.MuChecker.StateSet;
@@ -19,7 +21,8 @@ public class SmallestFixedPoint extends FixedPoint {
 
     @Override
     public StateSet eval(
-            State[] universe, StateSet[] environment, ModelChecker.Binder surroundingBinder
+            State[] universe, Adjacency adjacency, LabelTable labels, StateSet[] environment,
+            ModelChecker.Binder surroundingBinder
     ) {
         if (surroundingBinder == ModelChecker.Binder.NU) {
             for (FixedPoint fp : getFixedPointsDesc()) { // for each smallest fixedpoint contained,
@@ -42,7 +45,7 @@ public class SmallestFixedPoint extends FixedPoint {
             Qold = arrayValue;
             environment[index] = arrayValue;
             setOpen(true);
-            arrayValue = right.eval(universe, environment, ModelChecker.Binder.MU);
+            arrayValue = right.eval(universe, adjacency, labels, environment, ModelChecker.Binder.MU);
             setOpen(false);
         }
 
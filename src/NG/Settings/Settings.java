@@ -31,6 +31,19 @@ public class Settings {
     public boolean ADVANCED_MANIPULATION = false;
     public int MAX_ITERATIONS_PER_SECOND = 200;
     public int NUM_WORKER_THREADS = 8;
+    public float LAYOUT_FRAME_BUDGET = 0;
     public boolean RANDOM_LAYOUT = false;
+    public boolean MULTILEVEL_LAYOUT = false;
+    public boolean STRESS_LAYOUT = false;
+    public boolean RESTORE_LAYOUTS = true;
+    public Long LAYOUT_SEED = null;
+    public boolean PARALLEL_LOADING = true;
+    public boolean USE_GRAPH_CACHE = true;
+    public boolean PROGRESSIVE_LOADING = false;
+    // until the .lts decoder is checked against files written by mCRL2, ltsconvert reads the files it rejects
+    public boolean LTSCONVERT_FALLBACK = true;
     public Path DATA_COLLECTION_PATH = null;
+    public Path HEADLESS_GRAPH = null;
+    public Path HEADLESS_OUTPUT = null;
+    public int HEADLESS_MAX_ITERATIONS = 2000;
 }
@@ -0,0 +1,32 @@
+package NG.Tools;
+
+/**
+ * Counter-based random numbers: every value is a hash of a key and a counter, rather than the next value of a shared
+ * generator. A value thus does not depend on which values were drawn before, or on which thread drew them, such that
+ * parallel computations give the same results on every run with the same key. The hash is the SplitMix64 finalizer.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public final class CounterRandom {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private CounterRandom() {
+    }
+
+    /** @return a random 64-bit value for the given counter of the given key */
+    public static long hash(long key, long counter) {
+        long z = key + (counter + 1) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** @return a random float in [0, 1) for the given counter of the given key */
+    public static float nextFloat(long key, long counter) {
+        return (hash(key, counter) >>> 40) * 0x1.0p-24f;
+    }
+
+    /** @return a random float between val1 and val2 for the given counter of the given key */
+    public static float between(long key, long counter, float val1, float val2) {
+        return val1 + ((val2 - val1) * nextFloat(key, counter));
+    }
+}
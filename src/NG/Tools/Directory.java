@@ -13,7 +13,8 @@ import java.nio.file.Paths;
 public enum Directory {
     shaders(true, "res", "shaders"),
     fonts(true, "res", "fonts"),
-    graphs(false, "graphs");
+    graphs(false, "graphs"),
+    layouts(false, "layouts");
 
     private final Path directory; // relative path
     private static Path workingDirectory = null;
@@ -7,6 +7,7 @@ import NG.DataStructures.Generic.PairList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * @author Geert van Ieperen created on 10-5-2019.
@@ -20,6 +21,7 @@ public class TimeObserver {
     private final AveragingQueue loopTimes;
     private final Map<String, AveragingQueue> allMeasures;
     private final Map<String, Integer> thisLoopMeasures;
+    private final Map<String, AveragingQueue> utilisation = new TreeMap<>();
     private long thisLoopStart;
 
     private String currentMeasure;
@@ -93,6 +95,14 @@ public class TimeObserver {
         currentStart = currentTime;
     }
 
+    /**
+     * adds a measurement of the fraction of time that a thread was busy, such as a worker of a thread pool. The
+     * averages of these are reported separately from the time division.
+     */
+    public synchronized void addUtilisation(String thread, float fraction) {
+        utilisation.computeIfAbsent(thread, t -> new AveragingQueue(queueSize)).add(fraction);
+    }
+
     public float secondsSinceLoopStart() {
         long currentTime = System.nanoTime();
         float loopDurationNanos = (currentTime - thisLoopStart);
@@ -128,6 +138,14 @@ public class TimeObserver {
             builder.append("\n");
             builder.append(String.format("| %-30s | %4.01f%% |", result.left, result.right * 100));
         }
+
+        synchronized (this) {
+            if (!utilisation.isEmpty()) builder.append("\nUtilisation of the threads:");
+            for (Map.Entry<String, AveragingQueue> entry : utilisation.entrySet()) {
+                builder.append("\n");
+                builder.append(String.format("| %-30s | %4.01f%% |", entry.getKey(), entry.getValue().average() * 100));
+            }
+        }
         return builder.toString();
     }
 
@@ -136,5 +154,8 @@ public class TimeObserver {
         allMeasures.clear();
         thisLoopMeasures.clear();
         loopTimes.clear();
+        synchronized (this) {
+            utilisation.clear();
+        }
     }
 }
@@ -64,11 +64,24 @@ public final class Vectors {
      * points
      */
     public static Vector3f randomOrb() {
-        float phi = Toolbox.random.nextFloat() * 6.2832f;
-        float costheta = (Toolbox.random.nextFloat() * 2) - 1;
+        return orb(Toolbox.random.nextFloat(), Toolbox.random.nextFloat(), Toolbox.random.nextFloat());
+    }
+
+    /**
+     * @return a vector like {@link #randomOrb()}, drawn from the {@link CounterRandom counter-based random numbers} of
+     * the given key
+     */
+    public static Vector3f randomOrb(long key) {
+        return orb(CounterRandom.nextFloat(key, 0), CounterRandom.nextFloat(key, 1), CounterRandom.nextFloat(key, 2));
+    }
+
+    /** maps three uniform values in [0, 1) to a point in the unit sphere */
+    private static Vector3f orb(float u, float v, float w) {
+        float phi = u * 6.2832f;
+        float costheta = (v * 2) - 1;
 
         float theta = Math.acos(costheta);
-        float r = (float) java.lang.Math.cbrt(Toolbox.random.nextFloat());
+        float r = (float) java.lang.Math.cbrt(w);
         if (r == 0) r = 1;
 
         float x = (r * Math.sin(theta) * Math.cos(phi));
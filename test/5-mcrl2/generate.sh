@@ -0,0 +1,14 @@
+#!/bin/sh
+# Writes counter_lps2lts.lts with lps2lts, and its translation counter_lps2lts.aut with ltsconvert, from counter.mcrl2.
+# Mcrl2LtsReaderTest checks that every .lts file in this directory with an .aut file next to it decodes to the
+# transitions of that .aut file. Requires the mCRL2 toolset on the path.
+# Run from the root of the repository: sh test/5-mcrl2/generate.sh
+set -e
+
+cd "$(dirname "$0")"
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+mcrl22lps counter.mcrl2 "$WORK/counter.lps"
+lps2lts "$WORK/counter.lps" counter_lps2lts.lts
+ltsconvert --in=lts --out=aut counter_lps2lts.lts counter_lps2lts.aut
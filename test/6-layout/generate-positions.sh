@@ -0,0 +1,77 @@
+#!/bin/sh
+# Writes dining_02.positions from the SpringLayout of the baseline commit 4c65ecc, before the layout was rewritten.
+# The graph is initialised as in SpringLayoutTest.createGraph, and laid out for 10 iterations on a single thread,
+# with a speed of 0.01 and a Barnes-Hut theta of 0.
+# Run from the root of the repository: sh test/6-layout/generate-positions.sh
+set -e
+
+BASELINE=4c65ecc
+ROOT=$(pwd)
+WORK=$(mktemp -d)
+trap 'git -C "$ROOT" worktree remove --force "$WORK/baseline"; rm -rf "$WORK"' EXIT
+
+git worktree add --detach "$WORK/baseline" "$BASELINE"
+cd "$WORK/baseline"
+mvn -B -q dependency:build-classpath -Dmdep.outputFile="$WORK/classpath"
+mvn -B -q compile
+
+# in the package of SpringLayout, as update is protected
+mkdir -p "$WORK/generator/NG/Graph/Layout"
+cat > "$WORK/generator/NG/Graph/Layout/BaselinePositions.java" << 'EOF'
+package NG.Graph.Layout;
+
+import NG.Graph.SourceGraph;
+import NG.Graph.State;
+import NG.Graph.Transition;
+import org.joml.Vector3f;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Random;
+
+public class BaselinePositions {
+    public static void main(String[] args) throws Exception {
+        SourceGraph graph = SourceGraph.parse(new File(args[0]), null);
+        graph.init();
+
+        Random random = new Random(42);
+        for (State state : graph.states) {
+            state.position.set(random.nextFloat(), random.nextFloat(), random.nextFloat()).sub(0.5f, 0.5f, 0.5f).mul(40);
+        }
+        for (Transition edge : graph.edges) {
+            edge.handlePos.set(edge.fromPosition).lerp(edge.toPosition, 0.5f);
+        }
+
+        SpringLayout layout = new SpringLayout(100, 1);
+        layout.setGraph(graph);
+        layout.setSpeed(0.01f);
+        layout.setBarnesHutTheta(0);
+        for (int i = 0; i < 10; i++) {
+            layout.update(0);
+        }
+        layout.cleanup();
+
+        PrintStream out = new PrintStream(args[2]);
+        out.println("# positions of the states and then the edge handles of " + new File(args[0]).getName() + ", after 10 iterations of the");
+        out.println("# original SpringLayout with a speed of 0.01 and a theta of 0, starting from SpringLayoutTest.createGraph.");
+        out.println("# Written by generate-positions.sh from commit " + args[1]);
+        for (State state : graph.states) {
+            print(out, state.position);
+        }
+        for (Transition edge : graph.edges) {
+            print(out, edge.handlePos);
+        }
+        out.close();
+        System.exit(0);
+    }
+
+    private static void print(PrintStream out, Vector3f v) {
+        out.println(v.x + " " + v.y + " " + v.z);
+    }
+}
+EOF
+
+CLASSPATH="target/classes:$(cat "$WORK/classpath")"
+javac -cp "$CLASSPATH" -d "$WORK/generator" "$WORK/generator/NG/Graph/Layout/BaselinePositions.java"
+java -cp "$CLASSPATH:$WORK/generator" NG.Graph.Layout.BaselinePositions \
+        "$ROOT/test/1-dining-philosophers/dining_02.aut" "$BASELINE" "$ROOT/test/6-layout/dining_02.positions"
@@ -0,0 +1,97 @@
+import NG.Graph.Adjacency;
+import NG.Graph.GraphPathFinder;
+import NG.Graph.SourceGraph;
+import NG.Graph.State;
+import NG.Graph.Transition;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class AdjacencyTest {
+    @Test
+    public void testOrder() {
+        Adjacency adjacency = new Adjacency(3,
+                new int[]{2, 0, 2, 1, 0},
+                new int[]{0, 1, 2, 0, 0},
+                new int[]{0, 1, 2, 1, 0}
+        );
+
+        assertEquals(2, adjacency.outDegree(0));
+        assertEquals(1, adjacency.outDegree(1));
+        assertEquals(2, adjacency.outDegree(2));
+        assertArrayEquals(new int[]{1, 4}, outEdges(adjacency, 0));
+        assertArrayEquals(new int[]{0, 2}, outEdges(adjacency, 2));
+
+        assertEquals(3, adjacency.inDegree(1) + adjacency.inDegree(2));
+        assertEquals(2, adjacency.inDegree(0));
+        int i = adjacency.inStart(1);
+        assertEquals(1, adjacency.inEdge(i));
+        assertEquals(0, adjacency.source(i));
+        assertEquals(1, adjacency.inLabel(i));
+        assertEquals(3, adjacency.inEdge(i + 1));
+        assertEquals(1, adjacency.source(i + 1));
+    }
+
+    @Test
+    public void testStateViews() throws IOException {
+        for (File file : AutReaderTest.getAutFiles()) {
+            SourceGraph graph = SourceGraph.parse(file, null);
+            int[] outCount = new int[graph.states.length];
+            int[] inCount = new int[graph.states.length];
+
+            for (Transition edge : graph.edges) {
+                outCount[edge.from.index]++;
+                inCount[edge.to.index]++;
+            }
+
+            for (State state : graph.states) {
+                List<Transition> outgoing = state.getOutgoing();
+                assertEquals(outCount[state.index], outgoing.size());
+                for (Transition edge : outgoing) {
+                    assertSame(state, edge.from);
+                }
+
+                List<Transition> incoming = state.getIncoming();
+                assertEquals(inCount[state.index], incoming.size());
+                for (Transition edge : incoming) {
+                    assertSame(state, edge.to);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPathFinder() {
+        SourceGraph graph = SourceGraph.parse(
+                "des (0,5,4)\n" +
+                        "(0, \"a\", 1)\n" +
+                        "(1, \"b\", 2)\n" +
+                        "(2, \"c\", 3)\n" +
+                        "(0, \"d\", 2)\n" +
+                        "(3, \"e\", 0)\n"
+        );
+        graph.init();
+
+        List<Transition> path = new GraphPathFinder(graph.states[0], graph.states[3], graph).call();
+        assertEquals(2, path.size());
+        assertEquals("d", path.get(0).label);
+        assertEquals("c", path.get(1).label);
+    }
+
+    private static int[] outEdges(Adjacency adjacency, int state) {
+        int[] result = new int[adjacency.outDegree(state)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = adjacency.outEdge(adjacency.outStart(state) + i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,60 @@
+import NG.Graph.AutReader;
+import NG.Graph.ParallelAutReader;
+import NG.Graph.SourceGraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Scanner;
+
+/**
+ * Compares the throughput of the regex-based parser and the byte-level {@link NG.Graph.AutReader} on the board game
+ * graphs. The last two columns measure only the sequential and parallel readers, without creating the states and
+ * transitions. Run with the project root as working directory.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class AutReaderBenchmark {
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 10;
+
+    public static void main(String[] args) throws IOException {
+        File directory = new File(args.length > 0 ? args[0] : "test/4-board-game");
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("robots_") && name.endsWith(".aut"));
+        assert files != null;
+
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%-16s | %10s | %12s | %12s | %8s | %12s | %14s%n",
+                "file", "edges", "regex MB/s", "bytes MB/s", "speedup", "reader MB/s", "parallel MB/s"
+        );
+        for (File file : files) {
+            int edges = SourceGraph.parse(file, null).edges.length;
+            double regex = measure(() -> SourceGraph.parse(new Scanner(file, "UTF8"), null, file.getName()));
+            double bytes = measure(() -> SourceGraph.parse(file, null));
+            double reader = measure(() -> AutReader.read(file));
+            double parallel = measure(() -> ParallelAutReader.read(file, numThreads));
+
+            double megaBytes = file.length() / 1e6;
+            System.out.printf(Locale.US, "%-16s | %10d | %12.1f | %12.1f | %7.2fx | %12.1f | %14.1f%n",
+                    file.getName(), edges, megaBytes / regex, megaBytes / bytes, regex / bytes,
+                    megaBytes / reader, megaBytes / parallel
+            );
+        }
+    }
+
+    /** @return the average number of seconds of one run */
+    private static double measure(Parse action) throws IOException {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            action.run();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - start) / 1e9 / MEASURED_RUNS;
+    }
+
+    private interface Parse {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,188 @@
+import NG.Graph.AutReader;
+import NG.Graph.LtsData;
+import NG.Graph.ParallelAutReader;
+import NG.Graph.SourceGraph;
+import NG.Graph.Transition;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class AutReaderTest {
+    @Test
+    public void testSameAsRegexParser() throws IOException {
+        for (File file : getAutFiles()) {
+            SourceGraph expected = SourceGraph.parse(new Scanner(file, "UTF8"), null, file.getName());
+            SourceGraph actual = SourceGraph.parse(file, null);
+            assertGraphEquals(file.getName(), expected, actual);
+        }
+    }
+
+    @Test
+    public void testParallelSameAsSequential() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            for (File file : getAutFiles()) {
+                LtsData expected = AutReader.read(file);
+                // small chunks to test many chunk boundaries
+                LtsData actual = new ParallelAutReader(file, 100).read(pool);
+
+                String name = file.getName();
+                assertEquals(name, expected.initialState, actual.initialState);
+                assertEquals(name, expected.nrOfStates, actual.nrOfStates);
+                assertArrayEquals(name, expected.labels, actual.labels);
+                assertArrayEquals(name, expected.from, actual.from);
+                assertArrayEquals(name, expected.label, actual.label);
+                assertArrayEquals(name, expected.to, actual.to);
+            }
+
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testSpecialLabels() throws IOException {
+        String graph = "des (1,4,3)   \r\n" +
+                "(0,\"a(1, \\\"x\\\")\",1)\r\n" +
+                "(1, \"\",2)\n" +
+                "(2,\"b\", 0)  \n" +
+                "(2,\"\u00e9\u00e9n\",2)";
+
+        SourceGraph expected = SourceGraph.parse(new Scanner(graph), null, "");
+        SourceGraph actual = SourceGraph.parse(graph);
+        assertGraphEquals("special labels", expected, actual);
+        assertEquals("a(1, \\\"x\\\")", actual.edges[0].label);
+        assertEquals(1, actual.getInitialState().index);
+    }
+
+    @Test
+    public void testDistinctLabels() {
+        SourceGraph graph = SourceGraph.parse(
+                "des (0,3,2)\n" +
+                        "(0, \"a\", 0)\n" +
+                        "(0, \"a\", 1)\n" +
+                        "(1, \"b\", 1)\n"
+        );
+
+        assertEquals(List.of("a", "b"), graph.getEdgeLabels());
+        assertEquals(graph.edges[0].labelId, graph.edges[1].labelId);
+        assertEquals(graph.getLabelTable().idOf("b"), graph.edges[2].labelId);
+    }
+
+    @Test
+    public void testListenerBatches() throws IOException {
+        for (File file : getAutFiles()) {
+            String name = file.getName();
+            List<Integer> batchEnds = new ArrayList<>();
+            int[] header = new int[2];
+
+            LtsData data;
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                AutReader reader = new AutReader(channel).setListener(new AutReader.Listener() {
+                    @Override
+                    public void onHeader(int initialState, int nrOfStates, int nrOfTransitions) {
+                        header[0] = nrOfStates;
+                        header[1] = nrOfTransitions;
+                    }
+
+                    @Override
+                    public void onTransitions(int[] from, int[] label, int[] to, int start, int end, String[] labels) {
+                        int previousEnd = batchEnds.isEmpty() ? 0 : batchEnds.get(batchEnds.size() - 1);
+                        assertEquals(name, previousEnd, start);
+                        for (int i = start; i < end; i++) {
+                            assertTrue(name, label[i] < labels.length);
+                        }
+                        batchEnds.add(end);
+                    }
+                }, 7);
+
+                data = reader.read();
+                assertEquals(name, channel.size(), reader.getBytesRead());
+            }
+
+            assertEquals(name, data.nrOfStates, header[0]);
+            assertEquals(name, data.nrOfTransitions(), header[1]);
+            assertEquals(name, (data.nrOfTransitions() + 6) / 7, batchEnds.size());
+            if (!batchEnds.isEmpty()) {
+                assertEquals(name, data.nrOfTransitions(), (int) batchEnds.get(batchEnds.size() - 1));
+            }
+        }
+    }
+
+    /** numbers of more than 9 digits are valid, as long as they fit an int */
+    @Test
+    public void testLongNumbers() {
+        SourceGraph graph = SourceGraph.parse(
+                "des (0000000000,2,0000000002)\n" +
+                        "(0000000000,\"a\",00000000001)\n" +
+                        "(000000000001, \"b\", 0000000000000)\n"
+        );
+
+        assertEquals(2, graph.states.length);
+        assertEquals(1, graph.edges[0].to.index);
+        assertEquals(1, graph.edges[1].from.index);
+        assertEquals(0, graph.edges[1].to.index);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testStateOverflow() {
+        SourceGraph.parse("des (0,1,2)\n(4294967296,\"a\",1)\n");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testInvalidEdge() {
+        SourceGraph.parse("des (0,1,2)\n(0,a,1)\n");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testStateOutOfBounds() {
+        SourceGraph.parse("des (0,1,2)\n(0,\"a\",2)\n");
+    }
+
+    static List<File> getAutFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(Path.of("test"))) {
+            return files.filter(p -> p.toString().endsWith(".aut"))
+                    .map(Path::toFile)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    static void assertGraphEquals(String name, SourceGraph expected, SourceGraph actual) {
+        assertEquals(name, expected.states.length, actual.states.length);
+        assertEquals(name, expected.edges.length, actual.edges.length);
+        assertEquals(name, expected.getInitialState().index, actual.getInitialState().index);
+
+        for (int i = 0; i < expected.edges.length; i++) {
+            Transition a = expected.edges[i];
+            Transition b = actual.edges[i];
+            assertEquals(name, a.from.index, b.from.index);
+            assertEquals(name, a.to.index, b.to.index);
+            assertEquals(name, a.label, b.label);
+        }
+
+        for (int i = 0; i < expected.states.length; i++) {
+            assertEquals(name, expected.states[i].getOutgoing().size(), actual.states[i].getOutgoing().size());
+            assertEquals(name, expected.states[i].getIncoming().size(), actual.states[i].getIncoming().size());
+        }
+    }
+}
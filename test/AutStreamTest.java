@@ -0,0 +1,125 @@
+import NG.Graph.AutReader;
+import NG.Graph.GrowingFileChannel;
+import NG.Graph.LtsData;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Streams .aut output of a stub process, which writes a graph with an unfinished header like a state space generator
+ * that has not finished its header yet.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class AutStreamTest {
+    private static final String UNFINISHED_HEADER = "1s/^des (\\([0-9]*\\).*/des (\\1,0,0)/";
+
+    @Test
+    public void testStreamFromStdout() throws IOException, InterruptedException {
+        for (File file : AutReaderTest.getAutFiles()) {
+            Process stub = startStub("sed '" + UNFINISHED_HEADER + "' '" + file.getPath() + "'");
+
+            LtsData actual;
+            try (ReadableByteChannel channel = Channels.newChannel(stub.getInputStream())) {
+                actual = new AutReader(channel).setStream(true).read();
+            }
+
+            assertEquals(0, stub.waitFor());
+            assertTransitionsEqual(file.getName(), AutReader.read(file), actual);
+        }
+    }
+
+    /** the stub writes a placeholder header, and rewrites it after the transitions, like lps2lts writing .aut */
+    @Test
+    public void testStreamFromGrowingFile() throws IOException, InterruptedException {
+        File file = AutReaderTest.getAutFiles().get(0);
+        File directory = Files.createTempDirectory("lts").toFile();
+        File output = new File(directory, "stub.aut");
+
+        try {
+            Process stub = startStub(String.format(
+                    "printf 'des (0,0,0)%%24s\\n' '' > '%2$s'; sed -n '2,5p' '%1$s' >> '%2$s'; sleep 0.2; " +
+                            "sed -n '6,$p' '%1$s' >> '%2$s'; sed -n '1s/ *\\r*$//p' '%1$s' | tr -d '\\n' | " +
+                            "dd of='%2$s' conv=notrunc 2> /dev/null",
+                    file.getPath(), output.getPath()
+            ));
+
+            LtsData actual;
+            try (ReadableByteChannel channel = GrowingFileChannel.open(output, stub, "stub")) {
+                actual = new AutReader(channel).setStream(true).read();
+            }
+
+            assertEquals(0, stub.waitFor());
+            LtsData expected = AutReader.read(file);
+            assertTransitionsEqual(file.getName(), expected, actual);
+            // the finished file has the real header
+            assertTransitionsEqual(output.getName(), expected, AutReader.read(output));
+
+        } finally {
+            output.delete();
+            directory.delete();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testWriterFailed() throws IOException {
+        File file = AutReaderTest.getAutFiles().get(0);
+        File output = File.createTempFile("stub", ".aut");
+        output.delete();
+
+        try {
+            Process stub = startStub(String.format("sed '%s' '%s' > '%s'; exit 1", UNFINISHED_HEADER, file, output));
+
+            try (ReadableByteChannel channel = GrowingFileChannel.open(output, stub, "stub")) {
+                new AutReader(channel).setStream(true).read();
+            }
+
+        } finally {
+            output.delete();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testWriterFailedBeforeWriting() throws IOException {
+        File output = File.createTempFile("stub", ".aut");
+        output.delete();
+
+        Process stub = startStub("exit 1");
+        GrowingFileChannel.open(output, stub, "stub").close();
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnfinishedHeaderWithoutStreaming() throws IOException, InterruptedException {
+        File file = AutReaderTest.getAutFiles().get(0);
+        Process stub = startStub("sed '" + UNFINISHED_HEADER + "' '" + file.getPath() + "'");
+
+        try (ReadableByteChannel channel = Channels.newChannel(stub.getInputStream())) {
+            new AutReader(channel).read();
+        }
+    }
+
+    private static Process startStub(String command) {
+        try {
+            return new ProcessBuilder("sh", "-c", command).start();
+
+        } catch (IOException ex) {
+            Assume.assumeNoException("sh is not available", ex);
+            return null;
+        }
+    }
+
+    private static void assertTransitionsEqual(String name, LtsData expected, LtsData actual) {
+        assertEquals(name, expected.initialState, actual.initialState);
+        assertArrayEquals(name, expected.labels, actual.labels);
+        assertArrayEquals(name, expected.from, actual.from);
+        assertArrayEquals(name, expected.label, actual.label);
+        assertArrayEquals(name, expected.to, actual.to);
+    }
+}
@@ -0,0 +1,66 @@
+import NG.Graph.BafReader;
+import NG.Graph.BafReader.Term;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the binary ATerm reader on test_project_spec.lps, a linear process specification written by mcrl22lps
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class BafReaderTest {
+    private static final Path SPECIFICATION = Path.of("test_project_spec.lps");
+
+    @Test
+    public void testReadMcrl2Output() throws IOException {
+        List<Term> terms = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(SPECIFICATION, StandardOpenOption.READ)) {
+            BafReader reader = new BafReader(channel);
+            Term term;
+            while ((term = reader.next()) != null) {
+                terms.add(term);
+            }
+        }
+
+        assertEquals(27, terms.size());
+        assertTrue(terms.get(0).is("linear_process_specification", 0));
+        // the five sections of an empty data specification
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(terms.get(i).isInt());
+            assertEquals(0, terms.get(i).value);
+        }
+
+        List<String> actions = new ArrayList<>();
+        for (Term list = terms.get(6); list.is(BafReader.LIST_SYMBOL, 2); list = list.args[1]) {
+            Term actionId = list.args[0];
+            assertTrue(actionId.is("ActId", 2));
+            actions.add(actionId.args[0].symbol.name);
+        }
+        assertEquals(List.of(
+                "send_place_block", "receive_place_block", "place_block",
+                "send_remove_block", "receive_remove_block", "remove_block"
+        ), actions);
+
+        // the multi-action and time of the first summand
+        assertEquals(
+                "<list_constructor>(Action(ActId(place_block, <empty_list>), <empty_list>), <empty_list>)",
+                terms.get(13).toString()
+        );
+        assertEquals("DataVarIdNoIndex(@undefined_real, SortId(Real))", terms.get(14).toString());
+        assertTrue(terms.get(26).is("LinearProcessInit", 2));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectTextFile() throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of("test_project_spec.aut"), StandardOpenOption.READ)) {
+            new BafReader(channel);
+        }
+    }
+}
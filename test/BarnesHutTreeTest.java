@@ -0,0 +1,148 @@
+import NG.Graph.Layout.BarnesHutTree;
+import NG.Graph.Layout.ForceFunction;
+import NG.Graph.Layout.RepulsionKernel;
+import NG.Graph.Layout.SpringLayout;
+import org.joml.Vector3f;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class BarnesHutTreeTest {
+    private static final float NAT_LENGTH = 2f;
+    private static final float REPULSION = 5f;
+
+    @Test
+    public void testWithoutApproximation() {
+        Random random = new Random(1);
+        float[] positions = randomPositions(random, 200);
+        BarnesHutTree tree = new BarnesHutTree();
+        tree.setMaxTheta(0);
+
+        assertTrue(tree.update(positions, 200));
+        assertForcesExact(tree, positions, 200);
+    }
+
+    @Test
+    public void testRefit() {
+        Random random = new Random(1);
+        float[] positions = randomPositions(random, 200);
+        BarnesHutTree tree = new BarnesHutTree();
+        tree.setMaxDepth(4);
+        tree.setMaxTheta(0);
+        tree.update(positions, 200);
+
+        // small movements keep the tree
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] += random.nextFloat() - 0.5f;
+        }
+        assertFalse(tree.update(positions, 200));
+        assertForcesExact(tree, positions, 200);
+
+        // moving a body to the other side of the universe requires a rebuild
+        positions[0] = -positions[0];
+        positions[1] = -positions[1];
+        positions[2] = -positions[2];
+        assertTrue(tree.update(positions, 200));
+        assertForcesExact(tree, positions, 200);
+    }
+
+    @Test
+    public void testAdaptsToBounds() {
+        Random random = new Random(1);
+        float[] positions = randomPositions(random, 200);
+        // far outside the area of the old fixed-size tree
+        for (int i = 0; i < 30; i++) {
+            positions[i] = positions[i] * 100 + 1e5f;
+        }
+        float[] original = positions.clone();
+
+        BarnesHutTree tree = new BarnesHutTree();
+        tree.setMaxTheta(0);
+        tree.setMinCellSize(0.1f);
+        tree.update(positions, 200);
+
+        assertArrayEquals(original, positions, 0);
+        assertForcesExact(tree, positions, 200);
+    }
+
+    @Test
+    public void testLeafKernel() {
+        Random random = new Random(1);
+        float[] positions = randomPositions(random, 2000);
+        ForceFunction function = (a, ax, ay, az, bx, by, bz, target, offset) ->
+                SpringLayout.getRepulsion(ax, ay, az, bx, by, bz, NAT_LENGTH, REPULSION, a, target, offset);
+        RepulsionKernel kernel = RepulsionKernel.getFastest();
+
+        BarnesHutTree tree = new BarnesHutTree();
+        tree.setForceComputation(function);
+        tree.setMaxTheta(0.5f);
+        tree.update(positions, 2000);
+        float[] expected = forces(tree, 2000);
+
+        tree.setLeafComputation((a, ax, ay, az, xs, ys, zs, start, end, skip, target, offset) ->
+                kernel.getRepulsion(ax, ay, az, xs, ys, zs, start, end, skip, NAT_LENGTH, REPULSION, a, target, offset)
+        );
+        float[] actual = forces(tree, 2000);
+        assertTrue(relativeError(expected, actual) < 1e-5);
+    }
+
+    private static float[] forces(BarnesHutTree tree, int nrOfBodies) {
+        float[] forces = new float[3 * nrOfBodies];
+        int[] stack = new int[tree.getStackSize()];
+        float[] interaction = new float[3];
+        for (int i = 0; i < nrOfBodies; i++) {
+            tree.getForceOn(i, forces, 3 * i, stack, interaction);
+        }
+        return forces;
+    }
+
+    /** @return the root mean square of the error, relative to the root mean square of the expected forces */
+    static double relativeError(float[] expected, float[] actual) {
+        double error = 0;
+        double norm = 0;
+        for (int i = 0; i < expected.length; i++) {
+            double difference = actual[i] - expected[i];
+            error += difference * difference;
+            norm += (double) expected[i] * expected[i];
+        }
+        return Math.sqrt(error / norm);
+    }
+
+    static float[] randomPositions(Random random, int nrOfBodies) {
+        float[] positions = new float[3 * nrOfBodies];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = (random.nextFloat() - 0.5f) * 500;
+        }
+        return positions;
+    }
+
+    /** with a theta of 0 the tree must give the same forces as summing over all pairs */
+    private static void assertForcesExact(BarnesHutTree tree, float[] positions, int nrOfBodies) {
+        int[] stack = new int[tree.getStackSize()];
+        float[] interaction = new float[3];
+        float[] actual = new float[3];
+
+        for (int i = 0; i < nrOfBodies; i++) {
+            Vector3f position = new Vector3f(positions[3 * i], positions[3 * i + 1], positions[3 * i + 2]);
+            Vector3f expected = new Vector3f();
+            for (int j = 0; j < nrOfBodies; j++) {
+                if (i == j) continue;
+                Vector3f other = new Vector3f(positions[3 * j], positions[3 * j + 1], positions[3 * j + 2]);
+                expected.add(new Vector3f(position).sub(other).div(position.distanceSquared(other)));
+            }
+
+            tree.getForceOn(i, actual, 0, stack, interaction);
+            assertEquals(expected.x, actual[0], 1e-4f);
+            assertEquals(expected.y, actual[1], 1e-4f);
+            assertEquals(expected.z, actual[2], 1e-4f);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import NG.Graph.AutReader;
+import NG.Graph.DecompressingChannel;
+import NG.Graph.LtsData;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class DecompressingChannelTest {
+    @Test
+    public void testGzip() throws IOException {
+        for (File file : AutReaderTest.getAutFiles()) {
+            File compressed = gzip(file);
+            try {
+                assertEquals(DecompressingChannel.Format.GZIP, DecompressingChannel.detect(compressed));
+                assertDataEquals(file.getName(), AutReader.read(file), AutReader.read(compressed));
+
+            } finally {
+                compressed.delete();
+            }
+        }
+    }
+
+    @Test
+    public void testXz() throws IOException, InterruptedException {
+        File file = AutReaderTest.getAutFiles().get(0);
+        File compressed = File.createTempFile("graph", ".aut.xz");
+
+        try {
+            Process process;
+            try {
+                process = new ProcessBuilder("xz", "-c", file.getPath())
+                        .redirectOutput(compressed)
+                        .start();
+            } catch (IOException ex) {
+                Assume.assumeNoException("xz is not installed", ex);
+                return;
+            }
+            assertEquals(0, process.waitFor());
+
+            assertEquals(DecompressingChannel.Format.XZ, DecompressingChannel.detect(compressed));
+            assertDataEquals(file.getName(), AutReader.read(file), AutReader.read(compressed));
+
+        } finally {
+            compressed.delete();
+        }
+    }
+
+    /** the error of a missing decompressing program names the program, and that gzip does not need it */
+    @Test
+    public void testMissingTool() throws IOException {
+        try {
+            new ProcessBuilder("zstd", "--version").start().destroy();
+            Assume.assumeTrue("zstd is installed", false);
+
+        } catch (IOException ex) {
+            // zstd is missing, as this test requires
+        }
+
+        File compressed = File.createTempFile("graph", ".aut.zst");
+        try {
+            Files.write(compressed.toPath(), new byte[]{0x28, (byte) 0xb5, 0x2f, (byte) 0xfd, 0, 0, 0, 0});
+            assertEquals(DecompressingChannel.Format.ZSTD, DecompressingChannel.detect(compressed));
+
+            DecompressingChannel.open(compressed).close();
+            fail("Opened a zstd file without zstd");
+
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("zstd") && ex.getMessage().contains("gzip"));
+
+        } finally {
+            compressed.delete();
+        }
+    }
+
+    @Test
+    public void testUncompressed() throws IOException {
+        for (File file : AutReaderTest.getAutFiles()) {
+            assertNull(file.getName(), DecompressingChannel.detect(file));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException {
+        File file = AutReaderTest.getAutFiles().get(0);
+        File compressed = gzip(file);
+
+        try {
+            byte[] bytes = Files.readAllBytes(compressed.toPath());
+            Files.write(compressed.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+            AutReader.read(compressed);
+
+        } finally {
+            compressed.delete();
+        }
+    }
+
+    private static File gzip(File file) throws IOException {
+        File compressed = File.createTempFile("graph", ".aut.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed.toPath()))) {
+            Files.copy(file.toPath(), out);
+        }
+        return compressed;
+    }
+
+    private static void assertDataEquals(String name, LtsData expected, LtsData actual) {
+        assertEquals(name, expected.initialState, actual.initialState);
+        assertEquals(name, expected.nrOfStates, actual.nrOfStates);
+        assertArrayEquals(name, expected.labels, actual.labels);
+        assertArrayEquals(name, expected.from, actual.from);
+        assertArrayEquals(name, expected.label, actual.label);
+        assertArrayEquals(name, expected.to, actual.to);
+    }
+}
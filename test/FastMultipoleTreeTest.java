@@ -0,0 +1,120 @@
+import NG.Graph.Layout.FastMultipoleTree;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class FastMultipoleTreeTest {
+    @Test
+    public void testWithoutApproximation() {
+        Random random = new Random(1);
+        float[] positions = BarnesHutTreeTest.randomPositions(random, 200);
+        FastMultipoleTree tree = new FastMultipoleTree();
+        tree.setMaxTheta(0);
+        tree.setMinNrOfTargets(8);
+        tree.update(positions, 200);
+
+        float[] expected = inverseSquareForces(positions, 200);
+        float[] actual = forces(tree, 200);
+        assertArrayEquals(expected, actual, 1e-6f);
+    }
+
+    @Test
+    public void testAccuracy() {
+        Random random = new Random(1);
+        float[] positions = BarnesHutTreeTest.randomPositions(random, 2000);
+        FastMultipoleTree tree = new FastMultipoleTree();
+        tree.setMaxTheta(0.5f);
+        tree.setMinNrOfTargets(8);
+        tree.update(positions, 2000);
+
+        float[] expected = inverseSquareForces(positions, 2000);
+        float[] actual = forces(tree, 2000);
+        assertTrue(BarnesHutTreeTest.relativeError(expected, actual) < 3e-3);
+
+        // refitting keeps the accuracy
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] += random.nextFloat() - 0.5f;
+        }
+        assertFalse(tree.update(positions, 2000));
+        expected = inverseSquareForces(positions, 2000);
+        actual = forces(tree, 2000);
+        assertTrue(BarnesHutTreeTest.relativeError(expected, actual) < 3e-3);
+    }
+
+    /** the error of the expansions decreases with their order */
+    @Test
+    public void testOrder() {
+        Random random = new Random(1);
+        float[] positions = BarnesHutTreeTest.randomPositions(random, 2000);
+        float[] expected = inverseSquareForces(positions, 2000);
+        FastMultipoleTree tree = new FastMultipoleTree();
+        tree.setMaxTheta(0.7f);
+
+        double previousError = Double.POSITIVE_INFINITY;
+        for (int order = 1; order <= 6; order++) {
+            tree.setOrder(order);
+            tree.update(positions, 2000);
+            double error = BarnesHutTreeTest.relativeError(expected, forces(tree, 2000));
+            assertTrue("order " + order + ": " + error, error < previousError);
+            previousError = error;
+        }
+    }
+
+    /** a different target split gives the same forces */
+    @Test
+    public void testTargets() {
+        Random random = new Random(1);
+        float[] positions = BarnesHutTreeTest.randomPositions(random, 2000);
+        FastMultipoleTree tree = new FastMultipoleTree();
+        tree.setMaxTheta(0.5f);
+        tree.update(positions, 2000);
+        float[] expected = forces(tree, 2000);
+
+        tree.setMinNrOfTargets(20);
+        tree.invalidate();
+        tree.update(positions, 2000);
+        assertTrue(tree.getNrOfTargets() >= 20);
+        float[] actual = forces(tree, 2000);
+        assertTrue(BarnesHutTreeTest.relativeError(expected, actual) < 1e-5);
+    }
+
+    private static float[] forces(FastMultipoleTree tree, int nrOfBodies) {
+        float[] forces = new float[3 * nrOfBodies];
+        int[] stack = new int[tree.getStackSize()];
+        float[] scratch = new float[tree.getScratchSize()];
+        for (int t = 0; t < tree.getNrOfTargets(); t++) {
+            tree.computeForces(t, forces, stack, scratch);
+        }
+        return forces;
+    }
+
+    /** @return the force d / |d|^3 on each body, summed over all other bodies */
+    private static float[] inverseSquareForces(float[] positions, int nrOfBodies) {
+        float[] forces = new float[3 * nrOfBodies];
+        for (int i = 0; i < nrOfBodies; i++) {
+            double fx = 0, fy = 0, fz = 0;
+            for (int j = 0; j < nrOfBodies; j++) {
+                if (i == j) continue;
+                double dx = positions[3 * i] - positions[3 * j];
+                double dy = positions[3 * i + 1] - positions[3 * j + 1];
+                double dz = positions[3 * i + 2] - positions[3 * j + 2];
+                double dist = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                double scalar = 1 / (dist * dist * dist);
+                fx += dx * scalar;
+                fy += dy * scalar;
+                fz += dz * scalar;
+            }
+            forces[3 * i] = (float) fx;
+            forces[3 * i + 1] = (float) fy;
+            forces[3 * i + 2] = (float) fz;
+        }
+        return forces;
+    }
+}
@@ -0,0 +1,150 @@
+import NG.Graph.Layout.LayoutFile;
+import NG.Graph.LtsCache;
+import NG.Graph.SourceGraph;
+import NG.Graph.State;
+import NG.Graph.Transition;
+import NG.Settings.Settings;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class LayoutFileTest {
+    private static final String GRAPH = "des (0,3,3)\n(0,\"a\",1)\n(1,\"b\",2)\n(2,\"a\",0)\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        SourceGraph expected = SourceGraph.parse(GRAPH);
+        Random random = new Random(1);
+        for (int i = 0; i < expected.states.length; i++) {
+            expected.states[i].position.set(random.nextFloat(), random.nextFloat(), random.nextFloat());
+        }
+        for (int i = 0; i < expected.edges.length; i++) {
+            expected.edges[i].handlePos.set(random.nextFloat(), random.nextFloat(), random.nextFloat());
+        }
+        expected.states[1].isFixed = true;
+        expected.states[2].isFixed = true;
+        expected.states[2].stayFixed = true;
+
+        File file = folder.newFile("graph.aut" + LayoutFile.EXTENSION);
+        LayoutFile.write(expected, file);
+
+        SourceGraph actual = SourceGraph.parse(GRAPH);
+        assertTrue(LayoutFile.read(actual, file));
+        for (int i = 0; i < expected.states.length; i++) {
+            assertEquals(expected.states[i].position, actual.states[i].position);
+            assertEquals(expected.states[i].isFixed, actual.states[i].isFixed);
+            assertEquals(expected.states[i].stayFixed, actual.states[i].stayFixed);
+        }
+        for (int i = 0; i < expected.edges.length; i++) {
+            assertEquals(expected.edges[i].handlePos, actual.edges[i].handlePos);
+        }
+    }
+
+    @Test
+    public void testRestoreFromFileNextToGraph() throws Exception {
+        File graphFile = folder.newFile("graph.aut");
+        SourceGraph expected = SourceGraph.parse(GRAPH);
+        expected.states[0].position.set(1, 2, 3);
+        LayoutFile.write(expected, LayoutFile.layoutFileOf(graphFile));
+
+        SourceGraph actual = SourceGraph.parse(GRAPH);
+        assertTrue(LayoutFile.restore(actual, graphFile));
+        assertEquals(expected.states[0].position, actual.states[0].position);
+
+        SourceGraph other = SourceGraph.parse("des (0,1,2)\n(0,\"a\",1)\n");
+        assertFalse(LayoutFile.restore(other, graphFile));
+    }
+
+    /** the same transitions in a different order have the same hash, and the handles follow their transitions */
+    @Test
+    public void testIndependentOfTransitionOrder() throws Exception {
+        SourceGraph expected = SourceGraph.parse(GRAPH);
+        for (int i = 0; i < expected.edges.length; i++) {
+            expected.edges[i].handlePos.set(i, 2 * i, 3 * i);
+        }
+        File file = folder.newFile("graph.aut" + LayoutFile.EXTENSION);
+        LayoutFile.write(expected, file);
+
+        SourceGraph actual = SourceGraph.parse("des (0,3,3)\n(2,\"a\",0)\n(0,\"a\",1)\n(1,\"b\",2)\n");
+        assertEquals(LayoutFile.structureHash(expected.getAdjacency()), LayoutFile.structureHash(actual.getAdjacency()));
+        assertTrue(LayoutFile.read(actual, file));
+        for (Transition edge : actual.edges) {
+            Transition original = expected.getTransitionBetween(expected.states[edge.from.index], expected.states[edge.to.index]);
+            assertEquals(original.handlePos, edge.handlePos);
+        }
+    }
+
+    /** a layout written after parsing the graph is restored when the graph is later read from its cache */
+    @Test
+    public void testRestoreAfterCacheLoad() throws Exception {
+        File graphFile = folder.newFile("graph.aut");
+        Files.copy(AutReaderTest.getAutFiles().get(0).toPath(), graphFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Settings settings = new Settings();
+
+        assertFalse(LtsCache.cacheFileOf(graphFile).exists());
+        SourceGraph parsed = SourceGraph.create(LtsCache.load(graphFile, settings), null, graphFile.getName());
+        Random random = new Random(1);
+        for (State state : parsed.states) {
+            state.position.set(random.nextFloat(), random.nextFloat(), random.nextFloat());
+        }
+        for (Transition edge : parsed.edges) {
+            edge.handlePos.set(random.nextFloat(), random.nextFloat(), random.nextFloat());
+        }
+        LayoutFile.write(parsed, LayoutFile.layoutFileOf(graphFile));
+
+        assertTrue(LtsCache.cacheFileOf(graphFile).exists());
+        assertNotNull(LtsCache.readIfValid(graphFile));
+        SourceGraph cached = SourceGraph.create(LtsCache.load(graphFile, settings), null, graphFile.getName());
+        assertTrue(LayoutFile.restore(cached, graphFile));
+        for (int i = 0; i < parsed.states.length; i++) {
+            assertEquals(parsed.states[i].position, cached.states[i].position);
+        }
+        for (int i = 0; i < parsed.edges.length; i++) {
+            assertEquals(parsed.edges[i].handlePos, cached.edges[i].handlePos);
+        }
+    }
+
+    @Test
+    public void testRejectsOtherGraph() throws Exception {
+        File file = folder.newFile("graph.aut" + LayoutFile.EXTENSION);
+        LayoutFile.write(SourceGraph.parse(GRAPH), file);
+
+        // same size, different structure
+        SourceGraph other = SourceGraph.parse("des (0,3,3)\n(0,\"a\",1)\n(1,\"b\",2)\n(2,\"a\",1)\n");
+        assertFalse(LayoutFile.read(other, file));
+    }
+
+    @Test
+    public void testDeleteOldSnapshots() throws Exception {
+        File[] snapshots = new File[5];
+        for (int i = 0; i < snapshots.length; i++) {
+            snapshots[i] = folder.newFile("snapshot" + i + LayoutFile.EXTENSION);
+            assertTrue(snapshots[i].setLastModified(1_000_000L * (i + 1)));
+        }
+        File other = folder.newFile("graph.aut");
+        assertTrue(other.setLastModified(0));
+
+        LayoutFile.deleteOldSnapshots(folder.getRoot(), 3);
+
+        for (int i = 0; i < snapshots.length; i++) {
+            assertEquals(snapshots[i].getName(), i >= 2, snapshots[i].exists());
+        }
+        assertTrue(other.exists());
+    }
+}
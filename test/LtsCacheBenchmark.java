@@ -0,0 +1,61 @@
+import NG.Graph.AutReader;
+import NG.Graph.LtsCache;
+import NG.Graph.LtsData;
+import NG.Graph.ParallelAutReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Compares loading the board game graphs from text with loading them from their binary cache. Only the primitive
+ * {@link LtsData} is measured, creating the states and transitions costs the same in both cases. The caches are written
+ * to a temporary directory. Run with the project root as working directory.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class LtsCacheBenchmark {
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 10;
+
+    public static void main(String[] args) throws IOException {
+        File directory = new File(args.length > 0 ? args[0] : "test/4-board-game");
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("robots_") && name.endsWith(".aut"));
+        assert files != null;
+
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%-16s | %10s | %10s | %12s | %12s | %10s | %8s%n",
+                "file", "text KB", "cache KB", "reader ms", "parallel ms", "cache ms", "speedup"
+        );
+        for (File file : files) {
+            File cacheFile = File.createTempFile(file.getName(), LtsCache.EXTENSION);
+            cacheFile.deleteOnExit();
+            LtsCache.write(AutReader.read(file), file.length(), file.lastModified(), cacheFile);
+
+            double reader = measure(() -> AutReader.read(file));
+            double parallel = measure(() -> ParallelAutReader.read(file, numThreads));
+            double cached = measure(() -> LtsCache.read(cacheFile, file.length(), file.lastModified()));
+
+            System.out.printf(Locale.US, "%-16s | %10d | %10d | %12.2f | %12.2f | %10.2f | %7.1fx%n",
+                    file.getName(), file.length() / 1024, cacheFile.length() / 1024,
+                    reader * 1e3, parallel * 1e3, cached * 1e3, Math.min(reader, parallel) / cached
+            );
+        }
+    }
+
+    /** @return the average number of seconds of one run */
+    private static double measure(Load action) throws IOException {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            action.run();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - start) / 1e9 / MEASURED_RUNS;
+    }
+
+    private interface Load {
+        LtsData run() throws IOException;
+    }
+}
@@ -0,0 +1,185 @@
+import NG.Graph.AutReader;
+import NG.Graph.LtsCache;
+import NG.Graph.LtsData;
+import NG.Graph.Mcrl2LtsReader;
+import NG.Graph.SourceGraph;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class LtsCacheTest {
+    private File cacheFile;
+
+    @Before
+    public void setUp() throws IOException {
+        cacheFile = File.createTempFile("graph", LtsCache.EXTENSION);
+    }
+
+    @After
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        cacheFile.delete();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        for (File file : AutReaderTest.getAutFiles()) {
+            LtsData expected = AutReader.read(file);
+            LtsCache.write(expected, file.length(), file.lastModified(), cacheFile);
+            LtsData actual = LtsCache.read(cacheFile, file.length(), file.lastModified());
+
+            String name = file.getName();
+            assertNotNull(name, actual);
+            assertEquals(name, expected.initialState, actual.initialState);
+            assertEquals(name, expected.nrOfStates, actual.nrOfStates);
+            assertArrayEquals(name, expected.labels, actual.labels);
+            assertArrayEquals(name, expected.from, actual.from);
+            assertArrayEquals(name, expected.label, actual.label);
+            assertArrayEquals(name, expected.to, actual.to);
+        }
+    }
+
+    /** a graph loaded from the cache has the same edges at the same indices as the parsed graph */
+    @Test
+    public void testCachedGraphSameAsParsed() throws IOException {
+        File file = AutReaderTest.getAutFiles().get(0);
+        SourceGraph parsed = SourceGraph.create(AutReader.read(file), null, file.getName());
+        LtsCache.write(AutReader.read(file), file.length(), file.lastModified(), cacheFile);
+        SourceGraph cached = SourceGraph.create(
+                LtsCache.read(cacheFile, file.length(), file.lastModified()), null, file.getName()
+        );
+
+        assertEquals(parsed.edges.length, cached.edges.length);
+        for (int i = 0; i < parsed.edges.length; i++) {
+            assertEquals(parsed.edges[i].from.index, cached.edges[i].from.index);
+            assertEquals(parsed.edges[i].to.index, cached.edges[i].to.index);
+            assertEquals(parsed.edges[i].label, cached.edges[i].label);
+        }
+    }
+
+    @Test
+    public void testKeepsOrder() throws IOException {
+        LtsData data = new LtsData(0, 3, new String[]{"a", "b", "c"},
+                new int[]{2, 0, 2, 1, 0},
+                new int[]{0, 1, 2, 0, 0},
+                new int[]{0, 1, 2, 1, 0}
+        );
+
+        LtsCache.write(data, 1, 2, cacheFile);
+        LtsData actual = LtsCache.read(cacheFile, 1, 2);
+
+        assertNotNull(actual);
+        assertArrayEquals(data.from, actual.from);
+        assertArrayEquals(data.label, actual.label);
+        assertArrayEquals(data.to, actual.to);
+    }
+
+    @Test
+    public void testStateLabels() throws IOException {
+        LtsData data = new Mcrl2LtsReader().read(new File("test/5-mcrl2/counter.lts"));
+        assertNotNull(data.stateLabels);
+
+        LtsCache.write(data, 1, 2, cacheFile);
+        LtsData actual = LtsCache.read(cacheFile, 1, 2);
+
+        assertNotNull(actual);
+        assertArrayEquals(data.stateLabels, actual.stateLabels);
+        assertArrayEquals(data.labels, actual.labels);
+        assertArrayEquals(data.to, actual.to);
+    }
+
+    @Test
+    public void testOutdatedCache() throws IOException {
+        LtsData data = new LtsData(0, 1, new String[]{"tau"}, new int[]{0}, new int[]{0}, new int[]{0});
+        LtsCache.write(data, 100, 200, cacheFile);
+
+        assertNull(LtsCache.read(cacheFile, 101, 200));
+        assertNull(LtsCache.read(cacheFile, 100, 201));
+        assertNotNull(LtsCache.read(cacheFile, 100, 200));
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedCache() throws IOException {
+        LtsData data = new LtsData(0, 2, new String[]{"a"}, new int[]{0, 1}, new int[]{0, 0}, new int[]{1, 0});
+        LtsCache.write(data, 1, 1, cacheFile);
+
+        byte[] bytes = Files.readAllBytes(cacheFile.toPath());
+        Files.write(cacheFile.toPath(), Arrays.copyOf(bytes, bytes.length - 4));
+        LtsCache.read(cacheFile, 1, 1);
+    }
+
+    /** the header holds nr_of_states at byte 28, nr_of_labels at byte 36 and label_bytes at byte 40 */
+    @Test
+    public void testCorruptedCounts() throws IOException {
+        LtsData data = new LtsData(0, 2, new String[]{"a"}, new int[]{0, 1}, new int[]{0, 0}, new int[]{1, 0});
+
+        for (int[] corruption : new int[][]{{28, -1}, {28, 1}, {36, Integer.MAX_VALUE}, {36, -5}, {40, 1 << 30}}) {
+            LtsCache.write(data, 1, 1, cacheFile);
+            try (RandomAccessFile file = new RandomAccessFile(cacheFile, "rw")) {
+                file.seek(corruption[0]);
+                file.writeInt(Integer.reverseBytes(corruption[1]));
+            }
+
+            try {
+                LtsCache.read(cacheFile, 1, 1);
+                fail("Read a cache with value " + corruption[1] + " at byte " + corruption[0]);
+            } catch (IOException expected) {
+                // the cache is rejected
+            }
+        }
+    }
+
+    /** a corrupted cache is ignored, and the source file is parsed instead */
+    @Test
+    public void testLoadIgnoresCorruptedCache() throws IOException {
+        File source = File.createTempFile("graph", ".aut");
+        File sourceCache = LtsCache.cacheFileOf(source);
+        try {
+            File autFile = AutReaderTest.getAutFiles().get(0);
+            Files.copy(autFile.toPath(), source.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            LtsData expected = LtsCache.load(source, null);
+            assertTrue(sourceCache.exists());
+
+            // the length of the first label
+            try (RandomAccessFile file = new RandomAccessFile(sourceCache, "rw")) {
+                file.seek(48);
+                file.writeInt(Integer.reverseBytes(1 << 20));
+            }
+
+            LtsData actual = LtsCache.load(source, null);
+            assertArrayEquals(expected.labels, actual.labels);
+            assertArrayEquals(expected.from, actual.from);
+            assertArrayEquals(expected.to, actual.to);
+
+        } finally {
+            source.delete();
+            sourceCache.delete();
+        }
+    }
+
+    /** the padding after the labels does not fit in the write buffer, which is filled by the second label */
+    @Test
+    public void testPaddingAfterFullBuffer() throws IOException {
+        String[] labels = {"a".repeat((1 << 20) + 1), "b".repeat((1 << 20) - 4)};
+        LtsData data = new LtsData(0, 1, labels, new int[]{0, 0}, new int[]{0, 1}, new int[]{0, 0});
+
+        LtsCache.write(data, 1, 1, cacheFile);
+        LtsData actual = LtsCache.read(cacheFile, 1, 1);
+
+        assertNotNull(actual);
+        assertArrayEquals(labels, actual.labels);
+        assertArrayEquals(data.label, actual.label);
+    }
+}
@@ -0,0 +1,193 @@
+import NG.Graph.AutReader;
+import NG.Graph.LtsData;
+import NG.Graph.LtsReader;
+import NG.Graph.Mcrl2LtsReader;
+import NG.Graph.SourceGraph;
+import NG.Settings.Settings;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the .lts reader on a small transition system of a counter with parameters {@code n: Nat} and {@code b: Bool}
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class Mcrl2LtsReaderTest {
+    private static final File COUNTER = new File("test/5-mcrl2/counter.lts");
+
+    @Test
+    public void testDispatch() throws IOException {
+        assertTrue(LtsReader.of(new File("graph.lts"), null) instanceof Mcrl2LtsReader);
+        assertTrue(LtsReader.of(new File("graph.lts.gz"), null) instanceof Mcrl2LtsReader);
+        assertTrue(LtsReader.of(new File("graph.lts.zst"), null) instanceof Mcrl2LtsReader);
+
+        File autFile = AutReaderTest.getAutFiles().get(0);
+        assertFalse(LtsReader.of(autFile, null) instanceof Mcrl2LtsReader);
+        assertFalse(Mcrl2LtsReader.isLtsFile(new File("graph.aut.gz")));
+    }
+
+    @Test
+    public void testReadTransitions() throws IOException {
+        assertCounter(new Mcrl2LtsReader(null).read(COUNTER));
+    }
+
+    @Test
+    public void testReadCompressed() throws IOException {
+        File compressed = File.createTempFile("counter", ".lts.gz");
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed.toPath()))) {
+                Files.copy(COUNTER.toPath(), out);
+            }
+            assertCounter(LtsReader.of(compressed, null).read(compressed));
+
+        } finally {
+            compressed.delete();
+        }
+    }
+
+    @Test
+    public void testReadStateLabels() throws IOException {
+        SourceGraph graph = SourceGraph.create(new Mcrl2LtsReader(null).read(COUNTER), null, COUNTER.getName());
+
+        assertEquals("(0, true)", graph.states[0].label);
+        assertEquals("(1, false)", graph.states[1].label);
+        assertEquals("(2, true)", graph.states[2].label);
+        assertEquals("(5, false)", graph.states[3].label);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectAutFile() throws IOException {
+        new Mcrl2LtsReader(null).read(AutReaderTest.getAutFiles().get(0));
+    }
+
+    /** a file that cannot be decoded is converted by ltsconvert, here a stub that prints the .aut file it is given */
+    @Test
+    public void testLtsconvertFallback() throws IOException {
+        Assume.assumeTrue(new File("/bin/sh").exists());
+        File stub = File.createTempFile("ltsconvert", ".sh");
+        File ltsFile = File.createTempFile("graph", Mcrl2LtsReader.EXTENSION);
+
+        try {
+            // the last argument is the input file
+            Files.writeString(stub.toPath(), "#!/bin/sh\nfor last; do :; done\ncat \"$last\"\n");
+            assertTrue(stub.setExecutable(true));
+
+            File autFile = AutReaderTest.getAutFiles().get(0);
+            Files.copy(autFile.toPath(), ltsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+            LtsData expected = AutReader.read(autFile);
+            LtsData actual = new Mcrl2LtsReader(stub.getPath()).read(ltsFile);
+
+            assertEquals(expected.initialState, actual.initialState);
+            assertEquals(expected.nrOfStates, actual.nrOfStates);
+            assertArrayEquals(expected.labels, actual.labels);
+            assertArrayEquals(expected.from, actual.from);
+            assertArrayEquals(expected.label, actual.label);
+            assertArrayEquals(expected.to, actual.to);
+
+        } finally {
+            stub.delete();
+            ltsFile.delete();
+        }
+    }
+
+    /** by default, a file that cannot be decoded is given to ltsconvert, which is not installed or rejects it too */
+    @Test
+    public void testFallbackByDefault() throws IOException {
+        IOException exception = readCopyOfAutFile(new Settings());
+        assertEquals(1, exception.getSuppressed().length);
+    }
+
+    /** with the fallback disabled, a file that cannot be decoded is rejected without running ltsconvert */
+    @Test
+    public void testNoFallback() throws IOException {
+        Settings settings = new Settings();
+        settings.LTSCONVERT_FALLBACK = false;
+
+        IOException exception = readCopyOfAutFile(settings);
+        assertEquals(0, exception.getSuppressed().length);
+    }
+
+    /**
+     * every .lts file in test/5-mcrl2 with an .aut file next to it, as written by generate.sh, must decode to the
+     * transitions that ltsconvert wrote to the .aut file, with a label for every state
+     */
+    @Test
+    public void testSameAsLtsconvert() throws IOException {
+        File[] ltsFiles = COUNTER.getParentFile().listFiles((directory, name) ->
+                name.endsWith(Mcrl2LtsReader.EXTENSION) && autFileOf(new File(directory, name)).exists()
+        );
+        Assume.assumeTrue("No .lts files with the output of ltsconvert", ltsFiles != null && ltsFiles.length > 0);
+
+        for (File ltsFile : ltsFiles) {
+            String name = ltsFile.getName();
+            LtsData expected = AutReader.read(autFileOf(ltsFile));
+            LtsData actual = new Mcrl2LtsReader(null).read(ltsFile);
+
+            assertEquals(name, expected.initialState, actual.initialState);
+            assertEquals(name, expected.nrOfStates, actual.nrOfStates);
+            assertEquals(name, transitionsOf(expected), transitionsOf(actual));
+            assertNotNull(name, actual.stateLabels);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingLtsconvert() throws IOException {
+        new Mcrl2LtsReader("ltsconvert-that-does-not-exist").read(AutReaderTest.getAutFiles().get(0));
+    }
+
+    /** @return the exception of reading an .aut file that is named as .lts file */
+    private static IOException readCopyOfAutFile(Settings settings) throws IOException {
+        File ltsFile = File.createTempFile("graph", Mcrl2LtsReader.EXTENSION);
+        try {
+            Files.copy(AutReaderTest.getAutFiles().get(0).toPath(), ltsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            LtsReader.of(ltsFile, settings).read(ltsFile);
+            throw new AssertionError("Read an .aut file as .lts file");
+
+        } catch (IOException ex) {
+            return ex;
+
+        } finally {
+            ltsFile.delete();
+        }
+    }
+
+    private static File autFileOf(File ltsFile) {
+        String name = ltsFile.getName();
+        return new File(ltsFile.getParentFile(), name.substring(0, name.length() - Mcrl2LtsReader.EXTENSION.length()) + ".aut");
+    }
+
+    /** @return the transitions as sorted strings, as ltsconvert does not have to keep the order of the transitions */
+    private static List<String> transitionsOf(LtsData data) {
+        List<String> transitions = new ArrayList<>();
+        for (int i = 0; i < data.from.length; i++) {
+            transitions.add(data.from[i] + " " + data.labels[data.label[i]] + " " + data.to[i]);
+        }
+        Collections.sort(transitions);
+        return transitions;
+    }
+
+    private static void assertCounter(LtsData data) {
+        assertEquals(0, data.initialState);
+        assertEquals(4, data.nrOfStates);
+        assertArrayEquals(new int[]{0, 1, 2, 1, 2, 3}, data.from);
+        assertArrayEquals(new int[]{1, 2, 0, 1, 3, 0}, data.to);
+
+        List<String> labels = new ArrayList<>();
+        for (int labelId : data.label) {
+            labels.add(data.labels[labelId]);
+        }
+        assertEquals(List.of("inc(1)", "inc(2)", "log(true)|reset", "tau", "inc(5)", "reset"), labels);
+    }
+}
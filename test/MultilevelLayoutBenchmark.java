@@ -0,0 +1,80 @@
+import NG.Graph.Layout.HDEPositioning;
+import NG.Graph.Layout.MultilevelLayout;
+import NG.Graph.Layout.SpringLayout;
+import NG.Graph.SourceGraph;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Compares the time to a stable layout from a random start, from HDE and from a multilevel layout. The layout is
+ * stable when the average movement of the nodes in one iteration falls below the movement that the random start
+ * reaches after {@value #MAX_ITERATIONS} iterations. The arguments are the graph files, by default the smallest two
+ * board game graphs. Run with the project root as working directory.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class MultilevelLayoutBenchmark {
+    private static final int MAX_ITERATIONS = 300;
+    private static final float SPEED = 0.01f;
+
+    public static void main(String[] args) throws Exception {
+        String[] files = args.length > 0 ? args : new String[]{
+                "test/4-board-game/robots_050.aut", "test/4-board-game/robots_100.aut"
+        };
+        int numThreads = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%-16s | %8s | %-10s | %9s | %10s | %9s%n",
+                "file", "states", "start", "setup ms", "iterations", "total ms"
+        );
+        for (String fileName : files) {
+            File file = new File(fileName);
+            float threshold = Float.NaN;
+
+            for (String start : new String[]{"random", "HDE", "multilevel"}) {
+                SourceGraph graph = SourceGraph.parse(file, null);
+                SpringLayout layout = new SpringLayout(100, numThreads);
+                layout.setSpeed(SPEED);
+                float[] movement = new float[1];
+                layout.setTensionReader((netForce, tension) -> movement[0] = netForce / graph.states.length);
+
+                long startNanos = System.nanoTime();
+                switch (start) {
+                    case "random":
+                        SourceGraph.randomLayout(graph, layout.getNatLength());
+                        break;
+                    case "HDE":
+                        HDEPositioning.applyTo(graph, layout.getNatLength());
+                        break;
+                    default:
+                        MultilevelLayout multilevel = new MultilevelLayout(numThreads);
+                        multilevel.copyParameters(layout);
+                        multilevel.applyTo(graph);
+                        multilevel.cleanup();
+                }
+                graph.init();
+                long setupNanos = System.nanoTime() - startNanos;
+
+                try {
+                    layout.setGraph(graph);
+                    int iterations = 0;
+                    do {
+                        layout.update(0);
+                        iterations++;
+                    } while (iterations < MAX_ITERATIONS && !(movement[0] <= threshold));
+
+                    // the random start defines the movement of a stable layout
+                    if (Float.isNaN(threshold)) threshold = movement[0];
+
+                    System.out.printf(Locale.US, "%-16s | %8d | %-10s | %9.0f | %10s | %9.0f%n",
+                            file.getName(), graph.states.length, start, setupNanos / 1e6,
+                            movement[0] <= threshold ? iterations : ">" + iterations,
+                            (System.nanoTime() - startNanos) / 1e6
+                    );
+
+                } finally {
+                    layout.cleanup();
+                }
+            }
+        }
+    }
+}
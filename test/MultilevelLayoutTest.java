@@ -0,0 +1,61 @@
+import NG.Graph.Layout.MultilevelLayout;
+import NG.Graph.SourceGraph;
+import NG.Graph.State;
+import NG.Graph.Transition;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class MultilevelLayoutTest {
+    @Test
+    public void testPositionsAllStates() throws Exception {
+        SourceGraph graph = SourceGraph.parse(new File("test/4-board-game/robots_050.aut"), null);
+        layout(graph);
+
+        for (State state : graph.states) {
+            assertTrue(state.position.isFinite());
+        }
+        for (Transition edge : graph.edges) {
+            assertTrue(edge.handlePos.isFinite());
+        }
+    }
+
+    /** connected states must end up closer together than arbitrary pairs of states */
+    @Test
+    public void testNeighboursAreClose() throws Exception {
+        SourceGraph graph = SourceGraph.parse(new File("test/4-board-game/robots_050.aut"), null);
+        layout(graph);
+
+        double edgeLength = 0;
+        for (Transition edge : graph.edges) {
+            edgeLength += edge.fromPosition.distance(edge.toPosition);
+        }
+        edgeLength /= graph.edges.length;
+
+        Random random = new Random(1);
+        double pairDistance = 0;
+        for (int i = 0; i < graph.edges.length; i++) {
+            State a = graph.states[random.nextInt(graph.states.length)];
+            State b = graph.states[random.nextInt(graph.states.length)];
+            pairDistance += a.position.distance(b.position);
+        }
+        pairDistance /= graph.edges.length;
+
+        assertTrue(edgeLength + " vs " + pairDistance, 4 * edgeLength < pairDistance);
+    }
+
+    private static void layout(SourceGraph graph) throws Exception {
+        MultilevelLayout layout = new MultilevelLayout(1);
+        try {
+            layout.applyTo(graph);
+        } finally {
+            layout.cleanup();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+import NG.Graph.Layout.ParallelScheduler;
+import NG.Tools.TimeObserver;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class ParallelSchedulerTest {
+    @Test
+    public void testUniformChunks() {
+        ParallelScheduler.Chunks chunks = new ParallelScheduler.Chunks().setUniform(1000, 8, 200);
+
+        assertEquals(5, chunks.count());
+        assertCovers(chunks, 1000);
+
+        chunks.setUniform(0, 8, 1);
+        assertEquals(0, chunks.count());
+    }
+
+    @Test
+    public void testBalancedChunks() {
+        // the first ten elements are as expensive as the other 990 together
+        float[] cost = new float[1000];
+        for (int i = 0; i < cost.length; i++) {
+            cost[i] = i < 10 ? 99 : 1;
+        }
+
+        ParallelScheduler.Chunks chunks = new ParallelScheduler.Chunks().setBalanced(cost, cost.length, 4);
+        assertEquals(4, chunks.count());
+        assertCovers(chunks, 1000);
+        assertTrue(chunks.end(1) <= 10);
+
+        // zero costs are divided uniformly
+        chunks.setBalanced(new float[100], 100, 4);
+        assertEquals(4, chunks.count());
+        assertEquals(25, chunks.end(0));
+    }
+
+    @Test
+    public void testRunExecutesEveryIndexOnce() {
+        ParallelScheduler<int[]> scheduler = new ParallelScheduler<>("test", 4, () -> new int[1]);
+        ParallelScheduler.Chunks chunks = new ParallelScheduler.Chunks().setUniform(10_000, 32, 1);
+        AtomicIntegerArray visits = new AtomicIntegerArray(10_000);
+
+        try {
+            scheduler.run(chunks, (worker, chunk, start, end) -> {
+                assertEquals(chunks.start(chunk), start);
+                for (int i = start; i < end; i++) {
+                    visits.incrementAndGet(i);
+                }
+            });
+
+            for (int i = 0; i < visits.length(); i++) {
+                assertEquals(1, visits.get(i));
+            }
+
+            TimeObserver timer = new TimeObserver(1, false);
+            scheduler.reportUtilisation(timer);
+            assertTrue(timer.resultsTable().contains("Utilisation"));
+
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    private static void assertCovers(ParallelScheduler.Chunks chunks, int size) {
+        assertEquals(0, chunks.start(0));
+        for (int c = 1; c < chunks.count(); c++) {
+            assertEquals(chunks.end(c - 1), chunks.start(c));
+            assertTrue(chunks.start(c) < chunks.end(c));
+        }
+        assertEquals(size, chunks.end(chunks.count() - 1));
+    }
+}
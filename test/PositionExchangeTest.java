@@ -0,0 +1,67 @@
+import NG.Graph.Rendering.PositionExchange;
+import NG.Graph.Rendering.PositionStore;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class PositionExchangeTest {
+    @Test
+    public void testAcquireNewestOnly() {
+        PositionExchange exchange = new PositionExchange(1, 4);
+        assertFalse(exchange.acquire());
+
+        exchange.startWrite(2).store(0).set(1, 1, 2, 3);
+        exchange.publish();
+        exchange.startWrite(2).store(0).set(1, 4, 5, 6);
+        exchange.publish();
+
+        assertTrue(exchange.acquire());
+        assertEquals(2, exchange.current().epoch());
+        assertEquals(6, exchange.current().store(0).z(1), 0);
+
+        // the reader never goes back to the older snapshot
+        assertFalse(exchange.acquire());
+        assertEquals(2, exchange.current().epoch());
+    }
+
+    @Test
+    public void testNoTornSnapshots() throws InterruptedException {
+        int size = 10_000;
+        int nrOfSnapshots = 2_000;
+        PositionExchange exchange = new PositionExchange(2, size);
+
+        // every snapshot has all positions equal to its epoch
+        Thread writer = new Thread(() -> {
+            for (int epoch = 1; epoch <= nrOfSnapshots; epoch++) {
+                PositionExchange.Snapshot snapshot = exchange.startWrite(size);
+                for (int i = 0; i < size; i++) {
+                    snapshot.store(0).set(i, epoch, epoch, epoch);
+                    snapshot.store(1).set(i, -epoch, -epoch, -epoch);
+                }
+                exchange.publish();
+            }
+        });
+        writer.start();
+
+        long lastEpoch = 0;
+        while (lastEpoch < nrOfSnapshots) {
+            if (!exchange.acquire()) continue;
+
+            PositionExchange.Snapshot snapshot = exchange.current();
+            assertTrue(snapshot.epoch() > lastEpoch);
+            lastEpoch = snapshot.epoch();
+
+            PositionStore store = snapshot.store(0);
+            PositionStore negative = snapshot.store(1);
+            for (int i = 0; i < size; i++) {
+                assertEquals(lastEpoch, store.x(i), 0);
+                assertEquals(-lastEpoch, negative.z(i), 0);
+            }
+        }
+
+        writer.join();
+    }
+}
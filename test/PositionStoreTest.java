@@ -0,0 +1,46 @@
+import NG.Graph.Rendering.PositionStore;
+import org.joml.Vector3f;
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class PositionStoreTest {
+    @Test
+    public void testGrowKeepsPositions() {
+        PositionStore store = new PositionStore(2);
+        store.setSize(2);
+        store.set(0, new Vector3f(1, 2, 3));
+        store.set(1, 4, 5, 6);
+
+        store.setSize(100);
+        store.set(99, 7, 8, 9);
+
+        Vector3f result = new Vector3f();
+        store.get(0, result);
+        assertEquals(new Vector3f(1, 2, 3), result);
+        store.get(1, result);
+        assertEquals(new Vector3f(4, 5, 6), result);
+        assertEquals(9, store.z(99), 0);
+        assertEquals(100, store.size());
+    }
+
+    @Test
+    public void testSlice() {
+        PositionStore store = new PositionStore(4);
+        store.setSize(4);
+        for (int i = 0; i < 4; i++) {
+            store.set(i, i, 10 * i, 100 * i);
+        }
+
+        FloatBuffer slice = store.slice(1, 3);
+        assertEquals(0, slice.position());
+        assertEquals(6, slice.limit());
+        assertEquals(1, slice.get(0), 0);
+        assertEquals(200, slice.get(5), 0);
+    }
+}
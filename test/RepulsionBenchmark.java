@@ -0,0 +1,149 @@
+import NG.Graph.Layout.BarnesHutTree;
+import NG.Graph.Layout.FastMultipoleTree;
+import NG.Graph.Layout.ForceFunction;
+import NG.Graph.Layout.SpringLayout;
+
+import java.io.File;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares the accuracy and the speed of the Barnes-Hut and the Fast Multipole approximations of the layout repulsion
+ * for several values of theta and orders of the multipole expansions, on bodies spread uniformly at about the natural
+ * length apart, with one body for every state of the board game graphs.
+ * The error is the root mean square error relative to the exact repulsion, on a sample of {@value #SAMPLE_SIZE} bodies.
+ * The time includes updating the tree, and is measured on a single thread. Run with the project root as working
+ * directory.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class RepulsionBenchmark {
+    private static final float NAT_LENGTH = 2f;
+    private static final float REPULSION = 5f;
+    private static final int SAMPLE_SIZE = 1000;
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+    private static final float[] THETAS = {0.25f, 0.5f, 0.75f, 1.0f};
+    private static final int[] ORDERS = {3, 4, 5};
+
+    private static final ForceFunction REPULSION_FUNCTION = (a, ax, ay, az, bx, by, bz, target, offset) ->
+            SpringLayout.getRepulsion(ax, ay, az, bx, by, bz, NAT_LENGTH, REPULSION, a, target, offset);
+
+    public static void main(String[] args) throws Exception {
+        File directory = new File(args.length > 0 ? args[0] : "test/4-board-game");
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("robots_") && name.endsWith(".aut"));
+        assert files != null;
+
+        System.out.printf("%-16s | %8s | %-14s | %6s | %12s | %10s%n",
+                "file", "states", "method", "theta", "ns per body", "error"
+        );
+        for (File file : files) {
+            int nrOfBodies = SpringLayoutTest.createGraph(file).states.length;
+            Random random = new Random(42);
+            float side = 2 * NAT_LENGTH * (float) Math.cbrt(nrOfBodies);
+            float[] positions = new float[3 * nrOfBodies];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = random.nextFloat() * side;
+            }
+
+            int[] sample = new int[Math.min(SAMPLE_SIZE, nrOfBodies)];
+            for (int i = 0; i < sample.length; i++) {
+                sample[i] = random.nextInt(nrOfBodies);
+            }
+            float[] expected = exactForces(positions, nrOfBodies, sample);
+
+            for (float theta : THETAS) {
+                BarnesHutTree barnesTree = new BarnesHutTree();
+                barnesTree.setForceComputation(REPULSION_FUNCTION);
+                barnesTree.setMaxTheta(theta);
+                barnesTree.setMinCellSize(NAT_LENGTH / 10);
+
+                float[] forces = new float[3 * nrOfBodies];
+                int[] stack = new int[barnesTree.getStackSize()];
+                float[] interaction = new float[3];
+                Runnable barnesHut = () -> {
+                    barnesTree.update(positions, nrOfBodies);
+                    for (int i = 0; i < nrOfBodies; i++) {
+                        barnesTree.getForceOn(i, forces, 3 * i, stack, interaction);
+                    }
+                };
+                print(file, nrOfBodies, "Barnes-Hut", theta, measure(barnesHut), expected, forces, sample);
+            }
+
+            for (int order : ORDERS) {
+                for (float theta : THETAS) {
+                    FastMultipoleTree multipoleTree = new FastMultipoleTree();
+                    multipoleTree.setNearField(REPULSION_FUNCTION);
+                    multipoleTree.setFarField(8 * REPULSION, NAT_LENGTH / 5);
+                    multipoleTree.setMaxTheta(theta);
+                    multipoleTree.setOrder(order);
+                    multipoleTree.setMinCellSize(NAT_LENGTH / 10);
+
+                    float[] forces = new float[3 * nrOfBodies];
+                    int[] stack = new int[multipoleTree.getStackSize()];
+                    float[] scratch = new float[multipoleTree.getScratchSize()];
+                    Runnable fastMultipole = () -> {
+                        multipoleTree.update(positions, nrOfBodies);
+                        for (int t = 0; t < multipoleTree.getNrOfTargets(); t++) {
+                            multipoleTree.computeForces(t, forces, stack, scratch);
+                        }
+                    };
+                    String method = "Multipole p=" + order;
+                    print(file, nrOfBodies, method, theta, measure(fastMultipole), expected, forces, sample);
+                }
+            }
+        }
+    }
+
+    private static long measure(Runnable action) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            action.run();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - start) / MEASURED_ITERATIONS;
+    }
+
+    private static void print(
+            File file, int nrOfBodies, String method, float theta, long nanos, float[] expected, float[] forces,
+            int[] sample
+    ) {
+        float[] actual = new float[3 * sample.length];
+        for (int s = 0; s < sample.length; s++) {
+            System.arraycopy(forces, 3 * sample[s], actual, 3 * s, 3);
+        }
+
+        System.out.printf(Locale.US, "%-16s | %8d | %-14s | %6.2f | %12.1f | %10.2e%n",
+                file.getName(), nrOfBodies, method, theta, (double) nanos / nrOfBodies,
+                BarnesHutTreeTest.relativeError(expected, actual)
+        );
+    }
+
+    /** @return the exact repulsion on each sampled body, indexed by 3 * sample index */
+    private static float[] exactForces(float[] positions, int nrOfBodies, int[] sample) {
+        float[] forces = new float[3 * sample.length];
+        float[] interaction = new float[3];
+
+        for (int s = 0; s < sample.length; s++) {
+            int i = 3 * sample[s];
+            double fx = 0, fy = 0, fz = 0;
+            for (int j = 0; j < 3 * nrOfBodies; j += 3) {
+                if (i == j) continue;
+                REPULSION_FUNCTION.apply(
+                        i / 3, positions[i], positions[i + 1], positions[i + 2],
+                        positions[j], positions[j + 1], positions[j + 2], interaction, 0
+                );
+                fx += interaction[0];
+                fy += interaction[1];
+                fz += interaction[2];
+            }
+            forces[3 * s] = (float) fx;
+            forces[3 * s + 1] = (float) fy;
+            forces[3 * s + 2] = (float) fz;
+        }
+
+        return forces;
+    }
+}
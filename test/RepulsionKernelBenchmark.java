@@ -0,0 +1,112 @@
+import NG.Graph.Layout.BarnesHutTree;
+import NG.Graph.Layout.RepulsionKernel;
+import NG.Graph.Layout.SpringLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the throughput of the scalar and the vectorised repulsion kernels on a single thread, both for the naive
+ * repulsion of all pairs and for the leaves of the Barnes-Hut tree. The bodies are spread uniformly at about the natural
+ * length apart. Run with {@code --add-modules jdk.incubator.vector}, otherwise only the scalar kernel is measured.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class RepulsionKernelBenchmark {
+    private static final float NAT_LENGTH = 2f;
+    private static final float REPULSION = 5f;
+    private static final int[] NAIVE_SIZES = {1_000, 4_000};
+    private static final int[] BARNES_HUT_SIZES = {10_000, 100_000};
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+
+    public static void main(String[] args) {
+        List<RepulsionKernel> kernels = new ArrayList<>();
+        kernels.add(RepulsionKernel.SCALAR);
+        if (RepulsionKernel.getVectorised() != null) kernels.add(RepulsionKernel.getVectorised());
+
+        System.out.printf("%-10s | %8s | %-48s | %14s%n", "method", "bodies", "kernel", "ns per body");
+        for (int nrOfBodies : NAIVE_SIZES) {
+            float[] positions = randomPositions(nrOfBodies);
+            float[] xs = new float[nrOfBodies];
+            float[] ys = new float[nrOfBodies];
+            float[] zs = new float[nrOfBodies];
+            for (int i = 0; i < nrOfBodies; i++) {
+                xs[i] = positions[3 * i];
+                ys[i] = positions[3 * i + 1];
+                zs[i] = positions[3 * i + 2];
+            }
+            float[] forces = new float[3 * nrOfBodies];
+
+            for (RepulsionKernel kernel : kernels) {
+                long nanos = time(() -> {
+                    for (int i = 0; i < nrOfBodies; i++) {
+                        kernel.getRepulsion(xs[i], ys[i], zs[i], xs, ys, zs, 0, nrOfBodies, i, NAT_LENGTH, REPULSION, i, forces, 3 * i);
+                    }
+                });
+                double pairsPerSecond = (double) nrOfBodies * nrOfBodies / nanos * 1e9;
+                System.out.printf("%-10s | %8d | %-48s | %14.1f (%.0f M pairs per second)%n",
+                        "naive", nrOfBodies, kernel, (double) nanos / nrOfBodies, pairsPerSecond / 1e6
+                );
+            }
+        }
+
+        for (int nrOfBodies : BARNES_HUT_SIZES) {
+            float[] positions = randomPositions(nrOfBodies);
+            float[] forces = new float[3 * nrOfBodies];
+            float[] interaction = new float[3];
+
+            BarnesHutTree tree = new BarnesHutTree();
+            tree.setForceComputation((a, ax, ay, az, bx, by, bz, target, offset) ->
+                    SpringLayout.getRepulsion(ax, ay, az, bx, by, bz, NAT_LENGTH, REPULSION, a, target, offset)
+            );
+            tree.setMaxTheta(0.5f);
+            tree.setMinCellSize(NAT_LENGTH / 10);
+            tree.update(positions, nrOfBodies);
+            int[] stack = new int[tree.getStackSize()];
+
+            List<RepulsionKernel> leafKernels = new ArrayList<>();
+            leafKernels.add(null);
+            leafKernels.addAll(kernels);
+            for (RepulsionKernel kernel : leafKernels) {
+                tree.setLeafComputation(kernel == null ? null : (a, ax, ay, az, xs, ys, zs, start, end, skip, target, offset) ->
+                        kernel.getRepulsion(ax, ay, az, xs, ys, zs, start, end, skip, NAT_LENGTH, REPULSION, a, target, offset)
+                );
+
+                long nanos = time(() -> {
+                    for (int i = 0; i < nrOfBodies; i++) {
+                        tree.getForceOn(i, forces, 3 * i, stack, interaction);
+                    }
+                });
+                System.out.printf("%-10s | %8d | %-48s | %14.1f%n",
+                        "Barnes-Hut", nrOfBodies, kernel == null ? "pairwise" : kernel, (double) nanos / nrOfBodies
+                );
+            }
+        }
+    }
+
+    /** @return the minimum time of the measured runs */
+    private static long time(Runnable action) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            action.run();
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            action.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static float[] randomPositions(int nrOfBodies) {
+        Random random = new Random(42);
+        float side = 2 * NAT_LENGTH * (float) Math.cbrt(nrOfBodies);
+        float[] positions = new float[3 * nrOfBodies];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = random.nextFloat() * side;
+        }
+        return positions;
+    }
+}
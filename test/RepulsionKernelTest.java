@@ -0,0 +1,42 @@
+import NG.Graph.Layout.RepulsionKernel;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+/**
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class RepulsionKernelTest {
+    private static final float NAT_LENGTH = 2f;
+    private static final float REPULSION = 5f;
+
+    @Test
+    public void testVectorisedSameAsScalar() {
+        RepulsionKernel vectorised = RepulsionKernel.getVectorised();
+        assumeNotNull(vectorised);
+
+        Random random = new Random(1);
+        // a block size that is no multiple of the number of lanes, with bodies closer than the natural length
+        int nrOfBodies = 16 * vectorised.getNrOfLanes() + 3;
+        float[] positions = BarnesHutTreeTest.randomPositions(random, nrOfBodies);
+        float[] xs = new float[nrOfBodies];
+        float[] ys = new float[nrOfBodies];
+        float[] zs = new float[nrOfBodies];
+        for (int i = 0; i < nrOfBodies; i++) {
+            xs[i] = positions[3 * i] / 100;
+            ys[i] = positions[3 * i + 1] / 100;
+            zs[i] = positions[3 * i + 2] / 100;
+        }
+
+        float[] expected = new float[3 * nrOfBodies];
+        float[] actual = new float[3 * nrOfBodies];
+        for (int i = 0; i < nrOfBodies; i++) {
+            RepulsionKernel.SCALAR.getRepulsion(xs[i], ys[i], zs[i], xs, ys, zs, 0, nrOfBodies, i, NAT_LENGTH, REPULSION, i, expected, 3 * i);
+            vectorised.getRepulsion(xs[i], ys[i], zs[i], xs, ys, zs, 0, nrOfBodies, i, NAT_LENGTH, REPULSION, i, actual, 3 * i);
+        }
+        assertTrue(BarnesHutTreeTest.relativeError(expected, actual) < 1e-5);
+    }
+}
@@ -0,0 +1,76 @@
+import NG.Graph.Layout.SpringLayout;
+import NG.Graph.SourceGraph;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Measures the time per node and the allocation rate of layout iterations on the board game graphs, with and without
+ * Barnes-Hut approximation. Allocations are counted over all threads, including the workers. The naive repulsion is
+ * only measured on graphs of at most {@value #MAX_NAIVE_STATES} states. The optional second argument sets the number of
+ * worker threads. After each measurement, the time division over the phases of an iteration is printed. Run with the
+ * project root as working directory.
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class SpringLayoutBenchmark {
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 50;
+    private static final int MAX_NAIVE_STATES = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        File directory = new File(args.length > 0 ? args[0] : "test/4-board-game");
+        File[] files = directory.listFiles((dir, name) -> name.startsWith("robots_") && name.endsWith(".aut"));
+        assert files != null;
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int numThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%-16s | %8s | %6s | %12s | %14s | %10s%n",
+                "file", "states", "theta", "ns per node", "bytes per iter", "MB/s"
+        );
+        for (File file : files) {
+            for (float theta : new float[]{0.5f, 0f}) {
+                SourceGraph graph = SpringLayoutTest.createGraph(file);
+                if (theta == 0 && graph.states.length > MAX_NAIVE_STATES) continue;
+
+                SpringLayout layout = new SpringLayout(100, numThreads);
+                layout.setGraph(graph);
+                layout.setSpeed(0.01f);
+                layout.setBarnesHutTheta(theta);
+
+                try {
+                    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                        layout.update(0);
+                    }
+
+                    long startBytes = allocatedBytes(threads);
+                    long start = System.nanoTime();
+                    for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                        layout.update(0);
+                    }
+                    long nanos = System.nanoTime() - start;
+                    long bytes = allocatedBytes(threads) - startBytes;
+
+                    System.out.printf(Locale.US, "%-16s | %8d | %6.1f | %12.1f | %14d | %10.1f%n",
+                            file.getName(), graph.states.length, theta,
+                            (double) nanos / MEASURED_ITERATIONS / graph.states.length,
+                            bytes / MEASURED_ITERATIONS, bytes / 1e6 / (nanos / 1e9)
+                    );
+                    System.out.println(layout.timer.resultsTable());
+
+                } finally {
+                    layout.cleanup();
+                }
+            }
+        }
+    }
+
+    private static long allocatedBytes(com.sun.management.ThreadMXBean threads) {
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) total += bytes;
+        }
+        return total;
+    }
+}
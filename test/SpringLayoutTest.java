@@ -0,0 +1,237 @@
+import NG.Graph.Layout.RepulsionKernel;
+import NG.Graph.Layout.SpringLayout;
+import NG.Graph.SourceGraph;
+import NG.Graph.State;
+import NG.Graph.Transition;
+import org.joml.Vector3f;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class SpringLayoutTest {
+    private static final float NAT_LENGTH = 2f;
+    private static final float SPEED = 0.01f;
+
+    /**
+     * on a single thread, the layout must be exactly that of the original implementation at the baseline commit, as
+     * written to the positions file by test/6-layout/generate-positions.sh
+     */
+    @Test
+    public void testSameAsEarlierLayout() throws Exception {
+        SourceGraph graph = createGraph(new File("test/1-dining-philosophers/dining_02.aut"));
+        runLayout(graph, 1, 10);
+
+        List<Vector3f> expected = readPositions(new File("test/6-layout/dining_02.positions"));
+        assertEquals(graph.states.length + graph.edges.length, expected.size());
+        for (int i = 0; i < graph.states.length; i++) {
+            assertEquals(expected.get(i), graph.states[i].position);
+        }
+        for (int i = 0; i < graph.edges.length; i++) {
+            assertEquals(expected.get(graph.states.length + i), graph.edges[i].handlePos);
+        }
+    }
+
+    /** the partitions of the parallel phases only change the order in which forces are summed */
+    @Test
+    public void testParallelSameAsSequential() throws Exception {
+        File file = AutReaderTest.getAutFiles().get(0);
+        SourceGraph expected = createGraph(file);
+        SourceGraph actual = createGraph(file);
+
+        runLayout(expected, 1, 10);
+        runLayout(actual, 4, 10);
+
+        for (int i = 0; i < expected.states.length; i++) {
+            assertTrue(expected.states[i].position.equals(actual.states[i].position, 1e-3f));
+        }
+        for (int i = 0; i < expected.edges.length; i++) {
+            assertTrue(expected.edges[i].handlePos.equals(actual.edges[i].handlePos, 1e-3f));
+        }
+    }
+
+    /** with the same seed, runs on several threads give the same layout, also when nodes coincide */
+    @Test
+    public void testSeededLayoutIsReproducible() throws Exception {
+        File file = AutReaderTest.getAutFiles().get(0);
+        SourceGraph first = createSeededGraph(file, 7);
+        SourceGraph second = createSeededGraph(file, 7);
+        SourceGraph other = createSeededGraph(file, 8);
+
+        runSeededLayout(first, 7);
+        runSeededLayout(second, 7);
+        runSeededLayout(other, 8);
+
+        for (int i = 0; i < first.states.length; i++) {
+            assertEquals(first.states[i].position, second.states[i].position);
+        }
+        for (int i = 0; i < first.edges.length; i++) {
+            assertEquals(first.edges[i].handlePos, second.edges[i].handlePos);
+        }
+        assertFalse(first.states[0].position.equals(other.states[0].position));
+        // the coinciding nodes are pushed apart
+        assertFalse(first.states[0].position.equals(first.states[1].position));
+    }
+
+    private static SourceGraph createSeededGraph(File file, long seed) throws IOException {
+        SourceGraph graph = SourceGraph.parse(file, null);
+        graph.init();
+        SourceGraph.randomLayout(graph, NAT_LENGTH, seed);
+        graph.states[1].position.set(graph.states[0].position);
+        graph.states[2].position.set(graph.states[0].position);
+        return graph;
+    }
+
+    private static void runSeededLayout(SourceGraph graph, long seed) throws Exception {
+        SpringLayout layout = new SpringLayout(100, 4);
+        layout.setGraph(graph);
+        layout.setSeed(seed);
+        layout.setSpeed(SPEED);
+
+        try {
+            for (int i = 0; i < 10; i++) {
+                layout.update(0);
+            }
+
+        } finally {
+            layout.cleanup();
+        }
+    }
+
+    @Test
+    public void testPartialIterationMovesFocusFirst() throws Exception {
+        StringBuilder aut = new StringBuilder("des (0,999,1000)\n");
+        for (int i = 0; i < 999; i++) {
+            aut.append('(').append(i).append(",\"a\",").append(i + 1).append(")\n");
+        }
+        SourceGraph graph = SourceGraph.parse(aut.toString());
+        graph.init();
+        SourceGraph.randomLayout(graph, NAT_LENGTH, 3);
+
+        Vector3f focus = new Vector3f(graph.states[500].position);
+        Vector3f[] before = new Vector3f[graph.states.length];
+        for (int i = 0; i < before.length; i++) {
+            before[i] = new Vector3f(graph.states[i].position);
+        }
+
+        SpringLayout layout = new SpringLayout(100, 2);
+        layout.setGraph(graph);
+        layout.setSpeed(SPEED);
+        // far less than a full iteration, such that only the minimum number of nodes is moved
+        layout.setFrameBudget(0.001f);
+        layout.setFocus(() -> focus);
+
+        try {
+            layout.update(0);
+
+            float maxMovedDistance = 0;
+            float minStillDistance = Float.POSITIVE_INFINITY;
+            int nrOfMoved = 0;
+            for (int i = 0; i < before.length; i++) {
+                float distance = before[i].distance(focus);
+                if (graph.states[i].position.equals(before[i])) {
+                    minStillDistance = Math.min(minStillDistance, distance);
+                } else {
+                    maxMovedDistance = Math.max(maxMovedDistance, distance);
+                    nrOfMoved++;
+                }
+            }
+
+            assertTrue(nrOfMoved > 0);
+            assertTrue(nrOfMoved < before.length / 2);
+            assertTrue(maxMovedDistance <= minStillDistance);
+
+        } finally {
+            layout.cleanup();
+        }
+    }
+
+    @Test
+    public void testConvergenceThrottles() throws Exception {
+        SourceGraph graph = SourceGraph.parse(
+                "des (0,6,6)\n(0,\"a\",1)\n(1,\"a\",2)\n(2,\"a\",3)\n(3,\"a\",4)\n(4,\"a\",5)\n(5,\"a\",0)\n"
+        );
+        graph.init();
+        SourceGraph.randomLayout(graph, NAT_LENGTH);
+
+        SpringLayout layout = new SpringLayout(100, 1);
+        layout.setGraph(graph);
+        layout.setSpeed(SPEED);
+
+        try {
+            for (int i = 0; i < 10_000 && !layout.isConverged(); i++) {
+                layout.update(0);
+            }
+            assertTrue(layout.isConverged());
+            assertTrue(layout.getTPS() < 100);
+
+            // dragging a node wakes the layout
+            graph.states[0].position.add(10, 0, 0);
+            layout.wakeUp();
+            layout.update(0);
+            assertFalse(layout.isConverged());
+            assertEquals(100, layout.getTPS());
+
+        } finally {
+            layout.cleanup();
+        }
+    }
+
+    private static void runLayout(SourceGraph graph, int numThreads, int iterations) throws Exception {
+        SpringLayout layout = new SpringLayout(100, numThreads);
+        layout.setGraph(graph);
+        layout.setSpeed(SPEED);
+        layout.setBarnesHutTheta(0);
+        layout.setCooling(false);
+        // the vectorised kernel sums in a different order
+        layout.setRepulsionKernel(RepulsionKernel.SCALAR);
+
+        try {
+            for (int i = 0; i < iterations; i++) {
+                layout.update(0);
+            }
+
+        } finally {
+            layout.cleanup();
+        }
+    }
+
+    static SourceGraph createGraph(File file) throws IOException {
+        SourceGraph graph = SourceGraph.parse(file, null);
+        graph.init();
+
+        Random random = new Random(42);
+        for (State state : graph.states) {
+            state.position.set(random.nextFloat(), random.nextFloat(), random.nextFloat()).sub(0.5f, 0.5f, 0.5f).mul(40);
+        }
+        for (Transition edge : graph.edges) {
+            edge.handlePos.set(edge.fromPosition).lerp(edge.toPosition, 0.5f);
+        }
+
+        return graph;
+    }
+
+    /** @return the positions in the given file, one per line as three floats. Lines starting with # are skipped */
+    private static List<Vector3f> readPositions(File file) throws IOException {
+        List<Vector3f> positions = new ArrayList<>();
+        for (String line : Files.readAllLines(file.toPath())) {
+            if (line.startsWith("#")) continue;
+            String[] values = line.split(" ");
+            positions.add(new Vector3f(
+                    Float.parseFloat(values[0]), Float.parseFloat(values[1]), Float.parseFloat(values[2])
+            ));
+        }
+        return positions;
+    }
+}
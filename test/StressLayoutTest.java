@@ -0,0 +1,178 @@
+import NG.Graph.Layout.SpringLayout;
+import NG.Graph.Layout.StressLayout;
+import NG.Graph.SourceGraph;
+import NG.Graph.State;
+import NG.Graph.Transition;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Geert van Ieperen created on 16-10-2026.
+ */
+public class StressLayoutTest {
+    private static final float NAT_LENGTH = 2f;
+
+    /** the full stress of a chain is zero when the chain is stretched in a straight line */
+    @Test
+    public void testFullStressStretchesChain() {
+        SourceGraph graph = createChain(20);
+        SourceGraph.randomLayout(graph, NAT_LENGTH, 1);
+        layout(graph, 1, 1);
+
+        float length = graph.states[0].position.distance(graph.states[19].position);
+        assertEquals(19 * NAT_LENGTH, length, 0.05f * 19 * NAT_LENGTH);
+        for (int i = 0; i < 19; i++) {
+            assertEquals(NAT_LENGTH, graph.states[i].position.distance(graph.states[i + 1].position), 0.1f * NAT_LENGTH);
+        }
+    }
+
+    /** with stress majorization, each update of the spring layout is an epoch, and it converges within the epochs */
+    @Test
+    public void testSpringLayoutConverges() throws Exception {
+        SourceGraph graph = SpringLayoutTest.createGraph(AutReaderTest.getAutFiles().get(0));
+        SpringLayout layout = new SpringLayout(100, 2);
+        layout.setGraph(graph);
+        layout.setSpeed(0.01f);
+        layout.setStressMajorization(true);
+
+        try {
+            int updates = 0;
+            do {
+                layout.update(0);
+                updates++;
+            } while (!layout.isConverged() && updates < 100);
+
+            assertTrue(layout.isConverged());
+            assertTrue(updates <= 30);
+            for (Transition edge : graph.edges) {
+                assertTrue(edge.handlePos.isFinite());
+            }
+
+        } finally {
+            layout.cleanup();
+        }
+    }
+
+    /** larger graphs use the sparse model, which must converge within the epochs from a random start */
+    @Test
+    public void testSparseStressConverges() throws Exception {
+        SourceGraph graph = SourceGraph.parse(new File("test/4-board-game/robots_050.aut"), null);
+        assertTrue(graph.states.length > StressLayout.FULL_STRESS_MAX_NODES);
+        graph.init();
+        SourceGraph.randomLayout(graph, NAT_LENGTH, 1);
+
+        StressLayout layout = new StressLayout(4);
+        try {
+            layout.setNatLength(NAT_LENGTH);
+            layout.setSeed(1);
+            layout.setGraph(graph);
+            float initialStress = layout.getStress();
+
+            while (layout.step()) {
+                assertTrue(layout.getEpoch() <= layout.getEpochs());
+            }
+
+            assertTrue(layout.isConverged());
+            assertTrue(layout.getStress() + " vs " + initialStress, layout.getStress() < 0.1f * initialStress);
+            for (State state : graph.states) {
+                assertTrue(state.position.isFinite());
+            }
+
+        } finally {
+            layout.cleanup();
+        }
+    }
+
+    /** on a single thread, the same seed gives the same layout, also when nodes coincide */
+    @Test
+    public void testSingleThreadIsReproducible() {
+        SourceGraph first = createChain(50);
+        SourceGraph second = createChain(50);
+        layout(first, 1, 7);
+        layout(second, 1, 7);
+
+        for (int i = 0; i < first.states.length; i++) {
+            assertEquals(first.states[i].position, second.states[i].position);
+        }
+        assertTrue(first.states[0].position.distance(first.states[1].position) > 0.5f * NAT_LENGTH);
+    }
+
+    /** the components of a disconnected graph are laid out apart from each other */
+    @Test
+    public void testComponentsDoNotOverlap() {
+        assertComponentsApart(createGrids(2, 5), 5 * 5);
+    }
+
+    /** the same holds for the pivot terms of the sparse model */
+    @Test
+    public void testSparseComponentsDoNotOverlap() {
+        int width = (int) Math.sqrt(StressLayout.FULL_STRESS_MAX_NODES / 2) + 1;
+        assertComponentsApart(createGrids(2, width), width * width);
+    }
+
+    private static void assertComponentsApart(SourceGraph graph, int componentSize) {
+        SourceGraph.randomLayout(graph, NAT_LENGTH, 3);
+        layout(graph, 1, 3);
+
+        float minDistance = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < componentSize; i++) {
+            for (int j = componentSize; j < 2 * componentSize; j++) {
+                minDistance = Math.min(minDistance, graph.states[i].position.distance(graph.states[j].position));
+            }
+        }
+        assertTrue(String.valueOf(minDistance), minDistance > 2 * NAT_LENGTH);
+    }
+
+    private static void layout(SourceGraph graph, int numThreads, long seed) {
+        StressLayout layout = new StressLayout(numThreads);
+        try {
+            layout.setNatLength(NAT_LENGTH);
+            layout.setSeed(seed);
+            layout.applyTo(graph);
+
+        } finally {
+            layout.cleanup();
+        }
+    }
+
+    /** a chain of states, all at the origin */
+    private static SourceGraph createChain(int nrOfStates) {
+        StringBuilder aut = new StringBuilder("des (0," + (nrOfStates - 1) + "," + nrOfStates + ")\n");
+        for (int i = 0; i < nrOfStates - 1; i++) {
+            aut.append('(').append(i).append(",\"a\",").append(i + 1).append(")\n");
+        }
+        return SourceGraph.parse(aut.toString());
+    }
+
+    /**
+     * the given number of separate square grids of the given width, where grid k holds the states [k * width^2, (k + 1)
+     * * width^2)
+     */
+    private static SourceGraph createGrids(int nrOfGrids, int width) {
+        int size = width * width;
+        StringBuilder transitions = new StringBuilder();
+        int nrOfTransitions = 0;
+
+        for (int k = 0; k < nrOfGrids; k++) {
+            for (int y = 0; y < width; y++) {
+                for (int x = 0; x < width; x++) {
+                    int s = k * size + y * width + x;
+                    if (x + 1 < width) {
+                        transitions.append('(').append(s).append(",\"a\",").append(s + 1).append(")\n");
+                        nrOfTransitions++;
+                    }
+                    if (y + 1 < width) {
+                        transitions.append('(').append(s).append(",\"b\",").append(s + width).append(")\n");
+                        nrOfTransitions++;
+                    }
+                }
+            }
+        }
+
+        return SourceGraph.parse("des (0," + nrOfTransitions + "," + nrOfGrids * size + ")\n" + transitions);
+    }
+}